@@ -185,6 +185,15 @@ public abstract class BaseRuntimeElementCompositeDefinition<T extends IBase> ext
 				}
 			}
 			for (Class<? extends IBase> nextChildType : next.getChoiceTypes()) {
+				/*
+				 * Resource types listed as choices for a field that doesn't itself hold a resource
+				 * are only the allowable targets of a reference. They aren't needed in order to use
+				 * this type, so they aren't scanned until they are actually used. Otherwise scanning
+				 * a single type pulls in most of the model through its references.
+				 */
+				if (IBaseResource.class.isAssignableFrom(nextChildType) && !IBaseResource.class.isAssignableFrom(next.getElementType())) {
+					continue;
+				}
 				if (nextChildType.isInterface() == false && Modifier.isAbstract(nextChildType.getModifiers()) == false) {
 					theScanAlso.add(nextChildType);
 				}
@@ -28,6 +28,7 @@ import ca.uhn.fhir.util.VersionUtil;
 import ca.uhn.fhir.validation.FhirValidator;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jena.riot.Lang;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
@@ -35,6 +36,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -108,16 +110,18 @@ public class FhirContext {
 	private HapiLocalizer myLocalizer = new HapiLocalizer();
 	private volatile Map<String, BaseRuntimeElementDefinition<?>> myNameToElementDefinition = Collections.emptyMap();
 	private volatile Map<String, RuntimeResourceDefinition> myNameToResourceDefinition = Collections.emptyMap();
-	private volatile Map<String, Class<? extends IBaseResource>> myNameToResourceType;
+	private volatile Map<String, String> myNameToResourceTypeName;
 	private volatile INarrativeGenerator myNarrativeGenerator;
 	private volatile IParserErrorHandler myParserErrorHandler = new LenientErrorHandler();
 	private ParserOptions myParserOptions = new ParserOptions();
 	private Set<PerformanceOptionsEnum> myPerformanceOptions = new HashSet<>();
 	private Collection<Class<? extends IBaseResource>> myResourceTypesToScan;
+	private volatile Pair<Map<String, RuntimeResourceDefinition>, Set<String>> myResourceTypes;
+	private volatile Set<String> myBuiltInResourceTypes;
 	private volatile IRestfulClientFactory myRestfulClientFactory;
 	private volatile RuntimeChildUndeclaredExtensionDefinition myRuntimeChildUndeclaredExtensionDefinition;
 	private IValidationSupport myValidationSupport;
-	private Map<FhirVersionEnum, Map<String, Class<? extends IBaseResource>>> myVersionToNameToResourceType = Collections.emptyMap();
+	private Map<FhirVersionEnum, Map<String, String>> myVersionToNameToResourceTypeName = Collections.emptyMap();
 
 	/**
 	 * @deprecated It is recommended that you use one of the static initializer methods instead
@@ -435,24 +439,24 @@ public class FhirContext {
 			return getResourceDefinition(theResourceName);
 		}
 
-		Map<String, Class<? extends IBaseResource>> nameToType = myVersionToNameToResourceType.get(theVersion);
-		if (nameToType == null) {
-			nameToType = new HashMap<>();
+		Map<String, String> nameToTypeName = myVersionToNameToResourceTypeName.get(theVersion);
+		if (nameToTypeName == null) {
+			nameToTypeName = new HashMap<>();
 			Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> existing = new HashMap<>();
-			ModelScanner.scanVersionPropertyFile(null, nameToType, theVersion, existing);
+			ModelScanner.scanVersionPropertyFile(null, nameToTypeName, theVersion, existing);
 
-			Map<FhirVersionEnum, Map<String, Class<? extends IBaseResource>>> newVersionToNameToResourceType = new HashMap<>();
-			newVersionToNameToResourceType.putAll(myVersionToNameToResourceType);
-			newVersionToNameToResourceType.put(theVersion, nameToType);
-			myVersionToNameToResourceType = newVersionToNameToResourceType;
+			Map<FhirVersionEnum, Map<String, String>> newVersionToNameToResourceTypeName = new HashMap<>();
+			newVersionToNameToResourceTypeName.putAll(myVersionToNameToResourceTypeName);
+			newVersionToNameToResourceTypeName.put(theVersion, nameToTypeName);
+			myVersionToNameToResourceTypeName = newVersionToNameToResourceTypeName;
 		}
 
-		Class<? extends IBaseResource> resourceType = nameToType.get(theResourceName.toLowerCase());
-		if (resourceType == null) {
+		String resourceTypeName = nameToTypeName.get(theResourceName.toLowerCase());
+		if (resourceTypeName == null) {
 			throw new DataFormatException(createUnknownResourceNameError(theResourceName, theVersion));
 		}
 
-		return getResourceDefinition(resourceType);
+		return getResourceDefinition(ModelScanner.loadResourceType(theResourceName, resourceTypeName));
 	}
 
 	/**
@@ -513,17 +517,15 @@ public class FhirContext {
 		RuntimeResourceDefinition retVal = myNameToResourceDefinition.get(resourceName);
 
 		if (retVal == null) {
-			Class<? extends IBaseResource> clazz = myNameToResourceType.get(resourceName.toLowerCase());
-			if (clazz == null) {
+			String className = myNameToResourceTypeName.get(resourceName);
+			if (className == null) {
 				// ***********************************************************************
 				// Multiple spots in HAPI FHIR and Smile CDR depend on DataFormatException
 				// being thrown by this method, don't change that.
 				// ***********************************************************************
 				throw new DataFormatException(createUnknownResourceNameError(theResourceName, myVersion.getVersion()));
 			}
-			if (IBaseResource.class.isAssignableFrom(clazz)) {
-				retVal = scanResourceType(clazz);
-			}
+			retVal = scanResourceType(ModelScanner.loadResourceType(theResourceName, className));
 		}
 		return retVal;
 	}
@@ -553,29 +555,50 @@ public class FhirContext {
 	 * @since 5.1.0
 	 */
 	public Set<String> getResourceTypes() {
-		Set<String> resourceNames = new HashSet<>();
+		/*
+		 * Resource types are scanned lazily, so the scanned definitions don't
+		 * necessarily include every type. Always include the built-in types.
+		 * The scanned definitions are replaced (never modified) whenever a new
+		 * type is scanned, so the result only needs to be rebuilt when they change.
+		 */
+		Map<String, RuntimeResourceDefinition> nameToResourceDefinition = myNameToResourceDefinition;
+		Pair<Map<String, RuntimeResourceDefinition>, Set<String>> resourceTypes = myResourceTypes;
+		if (resourceTypes != null && resourceTypes.getLeft() == nameToResourceDefinition) {
+			return resourceTypes.getRight();
+		}
+
+		Set<String> resourceNames = new HashSet<>(getBuiltInResourceTypes());
+		for (RuntimeResourceDefinition next : nameToResourceDefinition.values()) {
+			resourceNames.add(next.getName());
+		}
+
+		Set<String> retVal = Collections.unmodifiableSet(resourceNames);
+		myResourceTypes = Pair.of(nameToResourceDefinition, retVal);
+		return retVal;
+	}
 
-		if (myNameToResourceDefinition.isEmpty()) {
+	private Set<String> getBuiltInResourceTypes() {
+		Set<String> retVal = myBuiltInResourceTypes;
+		if (retVal == null) {
 			Properties props = new Properties();
-			try {
-				props.load(myVersion.getFhirVersionPropertiesFile());
+			try (InputStream propertiesFile = myVersion.getFhirVersionPropertiesFile()) {
+				props.load(propertiesFile);
 			} catch (IOException theE) {
 				throw new ConfigurationException("Failed to load version properties file");
 			}
+
+			retVal = new HashSet<>();
 			Enumeration<?> propNames = props.propertyNames();
 			while (propNames.hasMoreElements()) {
 				String next = (String) propNames.nextElement();
 				if (next.startsWith("resource.")) {
-					resourceNames.add(next.substring("resource.".length()).trim());
+					retVal.add(next.substring("resource.".length()).trim());
 				}
 			}
+			retVal = Collections.unmodifiableSet(retVal);
+			myBuiltInResourceTypes = retVal;
 		}
-
-		for (RuntimeResourceDefinition next : myNameToResourceDefinition.values()) {
-			resourceNames.add(next.getName());
-		}
-
-		return Collections.unmodifiableSet(resourceNames);
+		return retVal;
 	}
 
 	/**
@@ -918,7 +941,7 @@ public class FhirContext {
 		myIdToResourceDefinition = idToElementDefinition;
 		myNameToResourceDefinition = nameToResourceDefinition;
 
-		myNameToResourceType = scanner.getNameToResourceType();
+		myNameToResourceTypeName = scanner.getNameToResourceTypeName();
 
 		myInitialized = true;
 		return classToElementDefinition;
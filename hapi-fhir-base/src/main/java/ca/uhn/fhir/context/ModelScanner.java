@@ -79,7 +79,7 @@ class ModelScanner {
 	private Map<String, RuntimeResourceDefinition> myIdToResourceDefinition = new HashMap<>();
 	private Map<String, BaseRuntimeElementDefinition<?>> myNameToElementDefinitions = new HashMap<>();
 	private Map<String, RuntimeResourceDefinition> myNameToResourceDefinitions = new HashMap<>();
-	private Map<String, Class<? extends IBaseResource>> myNameToResourceType = new HashMap<>();
+	private Map<String, String> myNameToResourceTypeName = new HashMap<>();
 	private RuntimeChildUndeclaredExtensionDefinition myRuntimeChildUndeclaredExtensionDefinition;
 	private Set<Class<? extends IBase>> myScanAlso = new HashSet<>();
 	private FhirVersionEnum myVersion;
@@ -110,8 +110,8 @@ class ModelScanner {
 		return myNameToResourceDefinitions;
 	}
 
-	Map<String, Class<? extends IBaseResource>> getNameToResourceType() {
-		return myNameToResourceType;
+	Map<String, String> getNameToResourceTypeName() {
+		return myNameToResourceTypeName;
 	}
 
 	RuntimeChildUndeclaredExtensionDefinition getRuntimeChildUndeclaredExtensionDefinition() {
@@ -125,7 +125,7 @@ class ModelScanner {
 
 		int startSize = myClassToElementDefinitions.size();
 		long start = System.currentTimeMillis();
-		Map<String, Class<? extends IBaseResource>> resourceTypes = myNameToResourceType;
+		Map<String, String> resourceTypes = myNameToResourceTypeName;
 
 		Set<Class<? extends IBase>> typesToScan = theTypesToScan;
 		myVersionTypes = scanVersionPropertyFile(typesToScan, resourceTypes, myVersion, myClassToElementDefinitions);
@@ -316,10 +316,10 @@ class ModelScanner {
 		}
 
 		String resourceNameLowerCase = resourceName.toLowerCase();
-		Class<? extends IBaseResource> builtInType = myNameToResourceType.get(resourceNameLowerCase);
-		boolean standardType = builtInType != null && builtInType.equals(theClass) == true;
+		String builtInTypeName = myNameToResourceTypeName.get(resourceNameLowerCase);
+		boolean standardType = theClass.getName().equals(builtInTypeName);
 		if (primaryNameProvider) {
-			if (builtInType != null && builtInType.equals(theClass) == false) {
+			if (builtInTypeName != null && !standardType) {
 				primaryNameProvider = false;
 			}
 		}
@@ -500,7 +500,12 @@ class ModelScanner {
 		return type;
 	}
 
-	static Set<Class<? extends IBase>> scanVersionPropertyFile(Set<Class<? extends IBase>> theDatatypes, Map<String, Class<? extends IBaseResource>> theResourceTypes, FhirVersionEnum theVersion, Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> theExistingElementDefinitions) {
+	/**
+	 * Reads the version property file. Datatype classes are loaded and added to <code>theDatatypes</code>,
+	 * but resource classes are only recorded by name in <code>theResourceTypes</code> (keyed by the lowercase
+	 * resource name) since they are loaded and scanned lazily when they are first used.
+	 */
+	static Set<Class<? extends IBase>> scanVersionPropertyFile(Set<Class<? extends IBase>> theDatatypes, Map<String, String> theResourceTypes, FhirVersionEnum theVersion, Map<Class<? extends IBase>, BaseRuntimeElementDefinition<?>> theExistingElementDefinitions) {
 		Set<Class<? extends IBase>> retVal = new HashSet<>();
 
 		try (InputStream str = theVersion.getVersionImplementation().getFhirVersionPropertiesFile()) {
@@ -542,20 +547,7 @@ class ModelScanner {
 				} else if (nextKey.startsWith("resource.")) {
 					// Resources
 					String resName = nextKey.substring("resource.".length()).toLowerCase();
-					try {
-						@SuppressWarnings("unchecked")
-						Class<? extends IBaseResource> nextClass = (Class<? extends IBaseResource>) Class.forName(nextValue);
-						if (theExistingElementDefinitions.containsKey(nextClass)) {
-							continue;
-						}
-						if (!IBaseResource.class.isAssignableFrom(nextClass)) {
-							throw new ConfigurationException("Class is not assignable from " + IBaseResource.class.getSimpleName() + ": " + nextValue);
-						}
-
-						theResourceTypes.put(resName, nextClass);
-					} catch (ClassNotFoundException e) {
-						throw new ConfigurationException("Unknown class[" + nextValue + "] for resource definition: " + nextKey.substring("resource.".length()), e);
-					}
+					theResourceTypes.put(resName, nextValue);
 				} else {
 					throw new ConfigurationException("Unexpected property in version property file: " + nextKey + "=" + nextValue);
 				}
@@ -567,4 +559,21 @@ class ModelScanner {
 		return retVal;
 	}
 
+	/**
+	 * Loads a resource class listed in a version property file
+	 */
+	@SuppressWarnings("unchecked")
+	static Class<? extends IBaseResource> loadResourceType(String theResourceName, String theClassName) {
+		Class<?> retVal;
+		try {
+			retVal = Class.forName(theClassName);
+		} catch (ClassNotFoundException e) {
+			throw new ConfigurationException("Unknown class[" + theClassName + "] for resource definition: " + theResourceName, e);
+		}
+		if (!IBaseResource.class.isAssignableFrom(retVal)) {
+			throw new ConfigurationException("Class is not assignable from " + IBaseResource.class.getSimpleName() + ": " + theClassName);
+		}
+		return (Class<? extends IBaseResource>) retVal;
+	}
+
 }
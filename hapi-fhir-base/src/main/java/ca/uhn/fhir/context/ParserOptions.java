@@ -21,7 +21,9 @@ package ca.uhn.fhir.context;
  */
 
 import ca.uhn.fhir.parser.IParser;
+import org.apache.commons.lang3.Validate;
 
+import java.io.File;
 import java.util.*;
 
 /**
@@ -37,6 +39,8 @@ public class ParserOptions {
 	private boolean myStripVersionsFromReferences = true;
 	private Set<String> myDontStripVersionsFromReferencesAtPaths = Collections.emptySet();
 	private boolean myOverrideResourceIdWithBundleEntryFullUrl = true;
+	private int myBinarySpoolThreshold;
+	private File myBinarySpoolDirectory;
 
 	/**
 	 * If supplied value(s), any resource references at the specified paths will have their
@@ -166,4 +170,69 @@ public class ParserOptions {
 		return this;
 	}
 
+	/**
+	 * Returns the length (in base64 characters) above which <code>base64Binary</code> values are
+	 * spooled to a temporary file while parsing. A value of <code>0</code> (which is the default)
+	 * means that values are never spooled.
+	 *
+	 * @see #setBinarySpoolThreshold(int)
+	 * @since 5.2.0
+	 */
+	public int getBinarySpoolThreshold() {
+		return myBinarySpoolThreshold;
+	}
+
+	/**
+	 * If set to a value greater than <code>0</code>, any <code>base64Binary</code> value (e.g.
+	 * <code>Attachment.data</code> or <code>Binary.data</code>) whose base64 text is longer than this
+	 * many characters is decoded directly into a temporary file while parsing, instead of being
+	 * decoded into memory and held by the parsed model. The element is left without a value, and the
+	 * spooled contents are available using {@link ca.uhn.fhir.parser.SpooledBinaryData#fromElement(org.hl7.fhir.instance.model.api.IBase)}.
+	 * <p>
+	 * This threshold only applies to parsers which have spooling enabled using
+	 * {@link IParser#setBinarySpoolingEnabled(boolean)}, since code which reads the parsed model must be
+	 * aware of spooled elements. The plain server enables it when parsing the request body of a
+	 * <code>create</code> or <code>update</code>, so that servers which externalize large binaries (e.g. the
+	 * JPA server's <code>BinaryStorageInterceptor</code>) can stream them to storage. Other parsers created
+	 * from the same context, such as those used to read stored resources back, are not affected. Spooling is
+	 * only supported for structures which use the <code>org.hl7.fhir</code> model classes (i.e. not HAPI's
+	 * DSTU2 structures).
+	 * </p>
+	 * <p>
+	 * Default is <code>0</code>, meaning that values are never spooled.
+	 * </p>
+	 *
+	 * @param theBinarySpoolThreshold The length in base64 characters, or <code>0</code> to disable
+	 * @return Returns a reference to <code>this</code> parser so that method calls can be chained together
+	 * @since 5.2.0
+	 */
+	public ParserOptions setBinarySpoolThreshold(int theBinarySpoolThreshold) {
+		Validate.isTrue(theBinarySpoolThreshold >= 0, "theBinarySpoolThreshold must not be negative");
+		myBinarySpoolThreshold = theBinarySpoolThreshold;
+		return this;
+	}
+
+	/**
+	 * Returns the directory in which spooled <code>base64Binary</code> values are stored, or
+	 * <code>null</code> if the system temporary directory is used
+	 *
+	 * @see #setBinarySpoolThreshold(int)
+	 * @since 5.2.0
+	 */
+	public File getBinarySpoolDirectory() {
+		return myBinarySpoolDirectory;
+	}
+
+	/**
+	 * Sets the directory in which spooled <code>base64Binary</code> values are stored. If not set
+	 * (or set to <code>null</code>), the system temporary directory is used.
+	 *
+	 * @see #setBinarySpoolThreshold(int)
+	 * @since 5.2.0
+	 */
+	public ParserOptions setBinarySpoolDirectory(File theBinarySpoolDirectory) {
+		myBinarySpoolDirectory = theBinarySpoolDirectory;
+		return this;
+	}
+
 }
@@ -34,9 +34,12 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 public class RuntimeResourceDefinition extends BaseRuntimeElementCompositeDefinition<IBaseResource> {
 
+	private static final Pattern ourResolveIsTypePattern = Pattern.compile(".*\\.where\\(resolve\\(\\) is [a-zA-Z]+\\)");
+
 	private Class<? extends IBaseResource> myBaseType;
 	private Map<String, List<RuntimeSearchParam>> myCompartmentNameToSearchParams;
 	private FhirContext myContext;
@@ -238,7 +241,7 @@ public class RuntimeResourceDefinition extends BaseRuntimeElementCompositeDefini
 
 	private String massagePathForCompartmentSimilarity(String thePath) {
 		String path = thePath;
-		if (path.matches(".*\\.where\\(resolve\\(\\) is [a-zA-Z]+\\)")) {
+		if (ourResolveIsTypePattern.matcher(path).matches()) {
 			path = path.substring(0, path.indexOf(".where"));
 		}
 		return path;
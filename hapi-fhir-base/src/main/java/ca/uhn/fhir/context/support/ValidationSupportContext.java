@@ -28,7 +28,8 @@ import java.util.Set;
 public class ValidationSupportContext {
 
 	private final IValidationSupport myRootValidationSupport;
-	private final Set<String> myCurrentlyGeneratingSnapshots = new HashSet<>();
+	// Tracked per thread, since the same context may be used by validations running concurrently
+	private final ThreadLocal<Set<String>> myCurrentlyGeneratingSnapshots = ThreadLocal.withInitial(HashSet::new);
 
 	public ValidationSupportContext(IValidationSupport theRootValidationSupport) {
 		Validate.notNull(theRootValidationSupport, "theRootValidationSupport musty not be null");
@@ -40,6 +41,6 @@ public class ValidationSupportContext {
 	}
 
 	public Set<String> getCurrentlyGeneratingSnapshots() {
-		return myCurrentlyGeneratingSnapshots;
+		return myCurrentlyGeneratingSnapshots.get();
 	}
 }
@@ -118,6 +118,7 @@ public abstract class BaseParser implements IParser {
 	private boolean mySummaryMode;
 	private boolean mySuppressNarratives;
 	private Set<String> myDontStripVersionsFromReferencesAtPaths;
+	private boolean myBinarySpoolingEnabled;
 
 	/**
 	 * Constructor
@@ -970,6 +971,17 @@ public abstract class BaseParser implements IParser {
 		return this;
 	}
 
+	@Override
+	public boolean isBinarySpoolingEnabled() {
+		return myBinarySpoolingEnabled;
+	}
+
+	@Override
+	public IParser setBinarySpoolingEnabled(boolean theBinarySpoolingEnabled) {
+		myBinarySpoolingEnabled = theBinarySpoolingEnabled;
+		return this;
+	}
+
 	protected boolean shouldAddSubsettedTag(EncodeContext theEncodeContext) {
 		if (isSummaryMode()) {
 			return true;
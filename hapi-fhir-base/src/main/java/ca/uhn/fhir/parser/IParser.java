@@ -350,6 +350,28 @@ public interface IParser {
 	 */
 	IParser setSuppressNarratives(boolean theSuppressNarratives);
 
+	/**
+	 * Returns <code>true</code> if this parser spools large <code>base64Binary</code> values to disk
+	 * while parsing. Default is <code>false</code>.
+	 *
+	 * @see #setBinarySpoolingEnabled(boolean)
+	 * @since 5.2.0
+	 */
+	boolean isBinarySpoolingEnabled();
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), <code>base64Binary</code> values longer than
+	 * {@link ParserOptions#getBinarySpoolThreshold()} are spooled to a temporary file while parsing instead of
+	 * being held by the parsed model. Only code which handles spooled elements (see
+	 * {@link SpooledBinaryData}) should enable this, such as a server parsing the body of a create or update
+	 * request which is going to be passed to binary storage.
+	 *
+	 * @return Returns a reference to <code>this</code> parser so that method calls can be chained together
+	 * @see ParserOptions#setBinarySpoolThreshold(int)
+	 * @since 5.2.0
+	 */
+	IParser setBinarySpoolingEnabled(boolean theBinarySpoolingEnabled);
+
 	/**
 	 * If supplied value(s), any resource references at the specified paths will have their
 	 * resource versions encoded instead of being automatically stripped during the encoding
@@ -26,6 +26,7 @@ import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
 import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.context.ParserOptions;
 import ca.uhn.fhir.context.RuntimeChildDeclaredExtensionDefinition;
 import ca.uhn.fhir.context.RuntimePrimitiveDatatypeDefinition;
 import ca.uhn.fhir.context.RuntimePrimitiveDatatypeNarrativeDefinition;
@@ -47,6 +48,7 @@ import ca.uhn.fhir.model.primitive.InstantDt;
 import ca.uhn.fhir.model.primitive.XhtmlDt;
 import ca.uhn.fhir.parser.json.JsonLikeValue.ScalarType;
 import ca.uhn.fhir.parser.json.JsonLikeValue.ValueType;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.ReflectionUtil;
@@ -74,6 +76,7 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -1344,7 +1347,9 @@ class ParserState<T> {
 					}
 
 					try {
-						myInstance.setValueAsString(value);
+						if (!spoolIfLargeBinary(value)) {
+							myInstance.setValueAsString(value);
+						}
 					} catch (DataFormatException | IllegalArgumentException e) {
 						ParseLocation location = ParseLocation.fromElementName(myChildName);
 						myErrorHandler.invalidValue(location, value, e.getMessage());
@@ -1377,6 +1382,26 @@ class ParserState<T> {
 			push(new SwallowChildrenWholeState(getPreResourceState()));
 		}
 
+		/**
+		 * @see IParser#setBinarySpoolingEnabled(boolean)
+		 * @see ParserOptions#setBinarySpoolThreshold(int)
+		 */
+		private boolean spoolIfLargeBinary(String theValue) {
+			if (!myParser.isBinarySpoolingEnabled()) {
+				return false;
+			}
+			ParserOptions parserOptions = myContext.getParserOptions();
+			int threshold = parserOptions.getBinarySpoolThreshold();
+			if (threshold <= 0 || theValue.length() <= threshold || !"base64Binary".equals(myTypeName)) {
+				return false;
+			}
+			try {
+				return SpooledBinaryData.spool(myInstance, theValue, parserOptions.getBinarySpoolDirectory());
+			} catch (IOException e) {
+				throw new InternalErrorException(e);
+			}
+		}
+
 		@Override
 		protected IBase getCurrentElement() {
 			return myInstance;
@@ -0,0 +1,184 @@
+package ca.uhn.fhir.parser;
+
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.ParserOptions;
+import ca.uhn.fhir.util.HapiExtensions;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.commons.io.FileCleaningTracker;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseExtension;
+import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The decoded contents of a large <code>base64Binary</code> value which the parser has
+ * written to a temporary file instead of holding in memory. See
+ * {@link ParserOptions#setBinarySpoolThreshold(int)} for details on when this happens.
+ * <p>
+ * A spooled element has no value. Instead, it carries an extension with the URL
+ * {@link HapiExtensions#EXT_SPOOLED_BINARY_DATA} (so that it is not considered empty),
+ * and this object is stored as user data on the element under the key {@link #USER_DATA_KEY}.
+ * </p>
+ * <p>
+ * The temporary file is deleted when {@link #delete()} is called, or otherwise once this
+ * object is no longer referenced and has been garbage collected.
+ * </p>
+ *
+ * @since 5.2.0
+ */
+public class SpooledBinaryData {
+
+	public static final String USER_DATA_KEY = SpooledBinaryData.class.getName();
+	private static final FileCleaningTracker ourFileCleaningTracker = new FileCleaningTracker();
+	private static final int CHUNK_SIZE = 8192;
+
+	private final File myFile;
+	private final long mySize;
+
+	private SpooledBinaryData(File theFile) {
+		myFile = theFile;
+		mySize = theFile.length();
+	}
+
+	/**
+	 * Returns the number of (decoded) bytes
+	 */
+	public long getSize() {
+		return mySize;
+	}
+
+	/**
+	 * Opens a stream over the decoded bytes. The caller is responsible for closing it.
+	 */
+	public InputStream openInputStream() throws IOException {
+		return new BufferedInputStream(new FileInputStream(myFile));
+	}
+
+	/**
+	 * Reads the decoded bytes into memory
+	 */
+	public byte[] toByteArray() throws IOException {
+		try (InputStream inputStream = openInputStream()) {
+			return IOUtils.toByteArray(inputStream, mySize);
+		}
+	}
+
+	/**
+	 * Deletes the temporary file. This object can not be used after this method is called.
+	 */
+	public void delete() {
+		FileUtils.deleteQuietly(myFile);
+	}
+
+	/**
+	 * Returns the spooled data for the given element, or <code>null</code> if the element
+	 * was not spooled
+	 */
+	public static SpooledBinaryData fromElement(IBase theElement) {
+		if (theElement == null) {
+			return null;
+		}
+		Object retVal = theElement.getUserData(USER_DATA_KEY);
+		if (retVal instanceof SpooledBinaryData) {
+			return (SpooledBinaryData) retVal;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns <code>true</code> if any <code>base64Binary</code> element in the given resource
+	 * is still spooled, meaning that its contents have not been consumed
+	 */
+	public static boolean hasSpooledElements(FhirContext theContext, IBaseResource theResource) {
+		Class<? extends IBase> base64BinaryType = theContext.getElementDefinition("base64Binary").getImplementingClass();
+		return theContext
+			.newTerser()
+			.getAllPopulatedChildElementsOfType(theResource, base64BinaryType)
+			.stream()
+			.anyMatch(t -> fromElement(t) != null);
+	}
+
+	/**
+	 * Removes the spooled data marker (extension and user data) from the given element
+	 */
+	public static void removeFromElement(IBase theElement) {
+		if (theElement instanceof IBaseHasExtensions) {
+			((IBaseHasExtensions) theElement)
+				.getExtension()
+				.removeIf(t -> HapiExtensions.EXT_SPOOLED_BINARY_DATA.equals(t.getUrl()));
+		}
+		if (theElement != null) {
+			theElement.setUserData(USER_DATA_KEY, null);
+		}
+	}
+
+	/**
+	 * Decodes the given base64 text into a temporary file and marks the given element
+	 * as being spooled
+	 *
+	 * @return Returns <code>false</code> if the element can not hold the spool marker, in which case nothing was spooled
+	 */
+	static boolean spool(IBase theElement, String theBase64, File theDirectory) throws IOException {
+		if (!(theElement instanceof IBaseHasExtensions)) {
+			return false;
+		}
+
+		File file = File.createTempFile("hapi-fhir-spooled-", ".bin", theDirectory);
+		try {
+			try (OutputStream outputStream = new Base64OutputStream(new BufferedOutputStream(new FileOutputStream(file)), false)) {
+				byte[] buffer = new byte[CHUNK_SIZE];
+				int length = theBase64.length();
+				for (int start = 0; start < length; start += CHUNK_SIZE) {
+					int count = Math.min(CHUNK_SIZE, length - start);
+					for (int i = 0; i < count; i++) {
+						buffer[i] = (byte) theBase64.charAt(start + i);
+					}
+					outputStream.write(buffer, 0, count);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			FileUtils.deleteQuietly(file);
+			throw e;
+		}
+
+		SpooledBinaryData data = new SpooledBinaryData(file);
+		ourFileCleaningTracker.track(file, data);
+
+		IBaseExtension<?, ?> ext = ((IBaseHasExtensions) theElement).addExtension();
+		ext.setUrl(HapiExtensions.EXT_SPOOLED_BINARY_DATA);
+		theElement.setUserData(USER_DATA_KEY, data);
+		return true;
+	}
+
+}
@@ -22,6 +22,8 @@ package ca.uhn.fhir.rest.client.api;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.rest.api.RequestTypeEnum;
@@ -248,6 +250,23 @@ public interface IRestfulClientFactory {
 	 * </p>
 	 */
 	void setPoolMaxPerRoute(int thePoolMaxPerRoute);
+
+	/**
+	 * Returns the executor used to run requests started with
+	 * {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()}.
+	 * <p>
+	 * The default implementation returns the common {@link ForkJoinPool}, for factories
+	 * that do not manage an executor of their own. Factories extending
+	 * <code>RestfulClientFactory</code> (which includes all
+	 * of the factories supplied with HAPI FHIR) instead return a bounded executor which can be replaced
+	 * and shut down through that class.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	default Executor getAsyncExecutor() {
+		return ForkJoinPool.commonPool();
+	}
 	
 	void validateServerBase(String theServerBase, IHttpClient theHttpClient, IRestfulClient theClient);
 
@@ -7,6 +7,7 @@ import ca.uhn.fhir.rest.api.SummaryEnum;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /*
  * #%L
@@ -108,6 +109,27 @@ public interface IClientExecutable<T extends IClientExecutable<?, Y>, Y> {
 	 */
 	Y execute();
 
+	/**
+	 * Convenience wrapper which runs {@link #execute()} on the asynchronous executor of the client
+	 * factory (see {@link ca.uhn.fhir.rest.client.api.IRestfulClientFactory#getAsyncExecutor()}),
+	 * returning immediately. The returned future completes with the same result as
+	 * {@link #execute()}, or completes exceptionally with the exception it would have thrown.
+	 * <p>
+	 * This is not non-blocking I/O: the request still uses the blocking HTTP transport of the
+	 * client, and an executor thread is held for the whole duration of each request. The number
+	 * of requests in flight is therefore bounded by the size of the executor.
+	 * </p>
+	 * <p>
+	 * The default implementation runs {@link #execute()} on the common
+	 * {@link java.util.concurrent.ForkJoinPool}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	default CompletableFuture<Y> executeAsync() {
+		return CompletableFuture.supplyAsync(this::execute);
+	}
+
 	/**
 	 * Explicitly specify a custom structure type to attempt to use when parsing the response. This
 	 * is useful for invocations where the response is a Bundle/Parameters containing nested resources,
@@ -7,10 +7,12 @@ import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.SummaryEnum;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /*
  * #%L
@@ -59,6 +61,51 @@ public interface IQuery<Y> extends IBaseQuery<IQuery<Y>>, IClientExecutable<IQue
 	 */
 	IQuery<Y> offset(int theOffset);
 
+	/**
+	 * Executes the search and returns a lazily evaluated stream over the resources contained in every page
+	 * of the results, following the <code>next</code> link of each page. While the caller consumes the
+	 * resources from one page, the following page is fetched in the background, so at most one page is
+	 * buffered ahead of the caller.
+	 * <p>
+	 * The returned stream should be closed if it is not fully consumed, in order to abandon any page
+	 * that is still being fetched.
+	 * </p>
+	 * <p>
+	 * The default implementation throws {@link UnsupportedOperationException}. It is overridden by
+	 * the generic client.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	default Stream<IBaseResource> executeStream() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Executes the search and returns a lazily evaluated stream over the resources contained in every page
+	 * of the results, fetching up to <code>thePagesInFlight</code> pages at the same time. Pages are requested
+	 * using the <code>_offset</code> parameter (starting at the value supplied to {@link #offset(int)}, if any)
+	 * and a page size which must be supplied using {@link #count(int)}, so this should only be used against
+	 * servers which support <code>_offset</code>. Resources are returned in the same order as they would be
+	 * if the pages were fetched one at a time. Fetching stops at the first page which is empty or which has no
+	 * <code>next</code> link.
+	 * <p>
+	 * If <code>thePagesInFlight</code> is <code>1</code>, this behaves the same as {@link #executeStream()}.
+	 * The returned stream should be closed if it is not fully consumed, in order to abandon any pages
+	 * that are still being fetched.
+	 * </p>
+	 * <p>
+	 * The default implementation ignores <code>thePagesInFlight</code> and delegates to
+	 * {@link #executeStream()}, fetching one page at a time.
+	 * </p>
+	 *
+	 * @param thePagesInFlight The maximum number of pages to fetch at the same time
+	 * @since 5.2.0
+	 */
+	default Stream<IBaseResource> executeStream(int thePagesInFlight) {
+		return executeStream();
+	}
+
 	/**
 	 * Add an "_include" specification or an "_include:recurse" specification. If you are using
 	 * a constant from one of the built-in structures you can select whether you want recursive
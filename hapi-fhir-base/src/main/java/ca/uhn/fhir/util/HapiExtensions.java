@@ -76,6 +76,14 @@ public class HapiExtensions {
 	 */
 	public static final String EXT_EXTERNALIZED_BINARY_ID = "http://hapifhir.io/fhir/StructureDefinition/externalized-binary-id";
 
+	/**
+	 * Marks a <code>base64Binary</code> element whose contents were spooled to a temporary file
+	 * by the parser. This extension has no value and is never expected to be serialized.
+	 *
+	 * @see ca.uhn.fhir.parser.SpooledBinaryData
+	 */
+	public static final String EXT_SPOOLED_BINARY_DATA = "http://hapifhir.io/fhir/StructureDefinition/spooled-binary-data";
+
 	/**
 	 * For subscription, deliver a bundle containing a search result instead of just a single resource
 	 */
@@ -20,8 +20,18 @@ package ca.uhn.fhir.validation;
  * #L%
  */
 import java.util.*;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import ca.uhn.fhir.context.FhirContext;
@@ -46,6 +56,8 @@ public class FhirValidator {
 	private static volatile Boolean ourPhPresentOnClasspath;
 	private final FhirContext myContext;
 	private List<IValidatorModule> myValidators = new ArrayList<>();
+	private boolean myConcurrentBundleValidation;
+	private ExecutorService myExecutorService;
 
 	/**
 	 * Constructor (this should not be called directly, but rather {@link FhirContext#newValidator()} should be called to obtain an instance of {@link FhirValidator})
@@ -84,6 +96,73 @@ public class FhirValidator {
 		return found;
 	}
 
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>) and an {@link #setExecutorService(ExecutorService) executor}
+	 * has been supplied, the resources in the entries of a Bundle are validated concurrently. This
+	 * applies to entries which carry a <code>request</code> or <code>response</code> (i.e. the
+	 * entries of transaction, batch and history Bundles). The remainder of the Bundle is validated
+	 * on the calling thread. This only applies to Bundles which are supplied as a resource instance,
+	 * Bundles supplied as text are always validated as a whole.
+	 * <p>
+	 * Note that each such entry resource is validated as a standalone resource, so references
+	 * between entries are not resolved against the other entries of the Bundle. Messages for
+	 * entry resources carry a location string of the form
+	 * <code>Bundle.entry[n].resource.ofType(Type)...</code> but no line and column. All
+	 * registered validator modules must be thread safe in order to use this setting.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isConcurrentBundleValidation() {
+		return myConcurrentBundleValidation;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>) and an {@link #setExecutorService(ExecutorService) executor}
+	 * has been supplied, the resources in the entries of a Bundle are validated concurrently. This
+	 * applies to entries which carry a <code>request</code> or <code>response</code> (i.e. the
+	 * entries of transaction, batch and history Bundles). The remainder of the Bundle is validated
+	 * on the calling thread. This only applies to Bundles which are supplied as a resource instance,
+	 * Bundles supplied as text are always validated as a whole.
+	 * <p>
+	 * Note that each such entry resource is validated as a standalone resource, so references
+	 * between entries are not resolved against the other entries of the Bundle. Messages for
+	 * entry resources carry a location string of the form
+	 * <code>Bundle.entry[n].resource.ofType(Type)...</code> but no line and column. All
+	 * registered validator modules must be thread safe in order to use this setting.
+	 * </p>
+	 *
+	 * @return Returns a reference to <code>this</code> for method chaining
+	 * @since 5.2.0
+	 */
+	public FhirValidator setConcurrentBundleValidation(boolean theConcurrentBundleValidation) {
+		myConcurrentBundleValidation = theConcurrentBundleValidation;
+		return this;
+	}
+
+	/**
+	 * Returns the executor used to validate Bundle entries when {@link #setConcurrentBundleValidation(boolean) concurrent Bundle validation}
+	 * is enabled
+	 *
+	 * @since 5.2.0
+	 */
+	public ExecutorService getExecutorService() {
+		return myExecutorService;
+	}
+
+	/**
+	 * Sets the executor used to validate Bundle entries when {@link #setConcurrentBundleValidation(boolean) concurrent Bundle validation}
+	 * is enabled. The size of this executor's pool bounds the number of entries validated at the same time. The calling
+	 * thread also validates entries while it waits, so the executor may safely be shared by many callers.
+	 *
+	 * @return Returns a reference to <code>this</code> for method chaining
+	 * @since 5.2.0
+	 */
+	public FhirValidator setExecutorService(ExecutorService theExecutorService) {
+		myExecutorService = theExecutorService;
+		return this;
+	}
+
 	/**
 	 * Should the validator validate the resource against the base schema (the schema provided with the FHIR distribution itself)
 	 */
@@ -215,6 +294,10 @@ public class FhirValidator {
 
 		applyDefaultValidators();
 
+		if (theResource instanceof IBaseBundle && isConcurrentBundleValidationEnabled()) {
+			return validateBundleEntriesConcurrently((IBaseBundle) theResource, theOptions);
+		}
+
 		IValidationContext<IBaseResource> ctx = ValidationContext.forResource(myContext, theResource, theOptions);
 
 		for (IValidatorModule next : myValidators) {
@@ -247,4 +330,107 @@ public class FhirValidator {
 
 		return ctx.toResult();
 	}
+
+	private boolean isConcurrentBundleValidationEnabled() {
+		return myConcurrentBundleValidation && myExecutorService != null;
+	}
+
+	private ValidationResult validateBundleEntriesConcurrently(IBaseBundle theBundle, ValidationOptions theOptions) {
+		RuntimeResourceDefinition bundleDef = myContext.getResourceDefinition(theBundle);
+		BaseRuntimeChildDefinition entryChildDef = bundleDef.getChildByName("entry");
+		BaseRuntimeElementCompositeDefinition<?> entryChildContentsDef = (BaseRuntimeElementCompositeDefinition<?>) entryChildDef.getChildByName("entry");
+		BaseRuntimeChildDefinition resourceChildDef = entryChildContentsDef.getChildByName("resource");
+		BaseRuntimeChildDefinition requestChildDef = entryChildContentsDef.getChildByName("request");
+		BaseRuntimeChildDefinition responseChildDef = entryChildContentsDef.getChildByName("response");
+
+		/*
+		 * The Bundle itself is validated on this thread, with the entry resources which
+		 * are being validated separately removed so that they aren't validated twice
+		 */
+		IBaseBundle bundle = (IBaseBundle) bundleDef.newInstance();
+		myContext.newTerser().cloneInto(theBundle, bundle, false);
+		bundle.setId(theBundle.getIdElement().getValue());
+
+		List<IBase> sourceEntries = entryChildDef.getAccessor().getValues(theBundle);
+		List<IBase> entries = entryChildDef.getAccessor().getValues(bundle);
+		List<FutureTask<List<SingleValidationMessage>>> entryTasks = new ArrayList<>();
+		for (int i = 0; i < entries.size(); i++) {
+			IBase nextEntry = entries.get(i);
+			if (isEmpty(requestChildDef, nextEntry) && isEmpty(responseChildDef, nextEntry)) {
+				continue;
+			}
+			Optional<IBase> resource = resourceChildDef.getAccessor().getFirstValueOrNull(sourceEntries.get(i));
+			if (!resource.isPresent()) {
+				continue;
+			}
+
+			IBaseResource entryResource = (IBaseResource) resource.get();
+			String locationPrefix = "Bundle.entry[" + i + "].resource.ofType(" + myContext.getResourceType(entryResource) + ")";
+			resourceChildDef.getMutator().setValue(nextEntry, null);
+
+			FutureTask<List<SingleValidationMessage>> task = new FutureTask<>(() -> validateBundleEntry(entryResource, theOptions, locationPrefix));
+			entryTasks.add(task);
+			try {
+				myExecutorService.execute(task);
+			} catch (RejectedExecutionException e) {
+				// The entry will be validated by the calling thread below
+			}
+		}
+
+		IValidationContext<IBaseResource> ctx = ValidationContext.forResource(myContext, bundle, theOptions);
+		for (IValidatorModule next : myValidators) {
+			next.validateResource(ctx);
+		}
+		List<SingleValidationMessage> messages = new ArrayList<>(ctx.toResult().getMessages());
+
+		for (FutureTask<List<SingleValidationMessage>> next : entryTasks) {
+			// If the executor hasn't started this entry yet, validate it on this thread
+			// rather than waiting behind other work
+			next.run();
+			try {
+				messages.addAll(next.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InternalErrorException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new InternalErrorException(e.getCause());
+			}
+		}
+
+		return new ValidationResult(myContext, messages);
+	}
+
+	private List<SingleValidationMessage> validateBundleEntry(IBaseResource theResource, ValidationOptions theOptions, String theLocationPrefix) {
+		IValidationContext<IBaseResource> ctx = ValidationContext.forResource(myContext, theResource, theOptions);
+		for (IValidatorModule next : myValidators) {
+			next.validateResource(ctx);
+		}
+
+		String resourceType = myContext.getResourceType(theResource);
+		List<SingleValidationMessage> retVal = ctx.toResult().getMessages();
+		for (SingleValidationMessage next : retVal) {
+			String location = next.getLocationString();
+			if (location != null && location.startsWith(resourceType) && (location.length() == resourceType.length() || !Character.isLetterOrDigit(location.charAt(resourceType.length())))) {
+				next.setLocationString(theLocationPrefix + location.substring(resourceType.length()));
+			} else {
+				next.setLocationString(theLocationPrefix);
+			}
+			// Line and column numbers would refer to the encoded entry, not the Bundle
+			next.setLocationLine(null);
+			next.setLocationCol(null);
+		}
+		return retVal;
+	}
+
+	private static boolean isEmpty(BaseRuntimeChildDefinition theChildDef, IBase theTarget) {
+		for (IBase next : theChildDef.getAccessor().getValues(theTarget)) {
+			if (!next.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
 }
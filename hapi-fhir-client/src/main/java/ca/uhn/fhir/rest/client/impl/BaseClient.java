@@ -39,6 +39,7 @@ import ca.uhn.fhir.rest.client.method.IClientResponseHandlerHandlesBinary;
 import ca.uhn.fhir.rest.client.method.MethodUtil;
 import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.rest.server.exceptions.NotModifiedException;
 import ca.uhn.fhir.util.BinaryUtil;
 import ca.uhn.fhir.util.OperationOutcomeUtil;
 import ca.uhn.fhir.util.XmlDetectionUtil;
@@ -54,6 +55,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -104,6 +107,16 @@ public abstract class BaseClient implements IRestfulClient {
 		setInterceptorService(new InterceptorService());
 	}
 
+	/**
+	 * Returns the executor used to run asynchronous requests for this client
+	 */
+	Executor getAsyncExecutor() {
+		if (myFactory != null) {
+			return myFactory.getAsyncExecutor();
+		}
+		return ForkJoinPool.commonPool();
+	}
+
 	@Override
 	public IInterceptorService getInterceptorService() {
 		return myInterceptorService;
@@ -355,6 +368,15 @@ public abstract class BaseClient implements IRestfulClient {
 					exception.setResponseBody(body);
 				}
 
+				// A 304 carries the caching headers which apply to the copy the client already has
+				if (exception instanceof NotModifiedException) {
+					for (Map.Entry<String, List<String>> nextHeader : headers.entrySet()) {
+						for (String nextValue : nextHeader.getValue()) {
+							exception.addResponseHeader(nextHeader.getKey(), nextValue);
+						}
+					}
+				}
+
 				throw exception;
 			}
 			if (binding instanceof IClientResponseHandlerHandlesBinary) {
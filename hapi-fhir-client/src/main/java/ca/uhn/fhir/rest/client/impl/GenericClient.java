@@ -27,6 +27,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.IRuntimeDatatypeDefinition;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.model.api.Include;
@@ -56,6 +57,7 @@ import ca.uhn.fhir.rest.client.api.IHttpRequest;
 import ca.uhn.fhir.rest.client.api.UrlSourceEnum;
 import ca.uhn.fhir.rest.client.exceptions.NonFhirResponseException;
 import ca.uhn.fhir.rest.client.interceptor.LoggingInterceptor;
+import ca.uhn.fhir.rest.client.interceptor.ReadCachingInterceptor;
 import ca.uhn.fhir.rest.client.method.DeleteMethodBinding;
 import ca.uhn.fhir.rest.client.method.HistoryMethodBinding;
 import ca.uhn.fhir.rest.client.method.HttpDeleteClientInvocation;
@@ -147,6 +149,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
+import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -163,6 +166,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -181,6 +189,7 @@ public class GenericClient extends BaseClient implements IGenericClient {
 	private FhirContext myContext;
 	private IHttpRequest myLastRequest;
 	private boolean myLogRequestAndResponse;
+	private volatile ReadCachingInterceptor myReadCachingInterceptor;
 
 	/**
 	 * For now, this is a part of the internal API of HAPI - Use with caution as this method may change!
@@ -239,6 +248,14 @@ public class GenericClient extends BaseClient implements IGenericClient {
 		boolean allowHtmlResponse = SummaryEnum.TEXT.equals(theSummary);
 		ResourceResponseHandler<T> binding = new ResourceResponseHandler<>(theType, (Class<? extends IBaseResource>) null, id, allowHtmlResponse);
 
+		ReadCachingInterceptor readCache = null;
+		if (theIfVersionMatches == null && theNotModifiedHandler == null && theSummary == null && (theSubsetElements == null || theSubsetElements.isEmpty()) && isBlank(theCustomAcceptHeaderValue) && (theCustomHeaders == null || theCustomHeaders.isEmpty())) {
+			readCache = myReadCachingInterceptor;
+		}
+		if (readCache != null) {
+			return doReadUsingCache(readCache, theType, id, theVRead, resName, invocation, binding, theEncoding, thePrettyPrint);
+		}
+
 		if (theNotModifiedHandler == null) {
 			return invokeClient(myContext, binding, invocation, theEncoding, thePrettyPrint, myLogRequestAndResponse, theSummary, theSubsetElements, null, theCustomAcceptHeaderValue, theCustomHeaders);
 		}
@@ -250,6 +267,64 @@ public class GenericClient extends BaseClient implements IGenericClient {
 
 	}
 
+	private <T extends IBaseResource> T doReadUsingCache(ReadCachingInterceptor theReadCache, Class<T> theType, IIdType theId, boolean theVRead, String theResourceName, HttpGetClientInvocation theInvocation, ResourceResponseHandler<T> theBinding, EncodingEnum theEncoding, Boolean thePrettyPrint) {
+		IIdType cacheId = theVRead ? theId : theId.toVersionless();
+		String cacheKey = cacheId.hasBaseUrl() ? cacheId.getValue() : cacheId.withServerBase(getServerBase(), theResourceName).getValue();
+
+		ReadCachingInterceptor.CachedRead cached = theReadCache.lookup(cacheKey);
+		if (cached != null) {
+			if (cached.isFresh()) {
+				return cached.newCopy(myContext, theType);
+			}
+			if (isNotBlank(cached.getETag())) {
+				theInvocation.addHeader(Constants.HEADER_IF_NONE_MATCH, cached.getETag());
+			}
+		}
+
+		IClientResponseHandler<T> binding = (theResponseMimeType, theResponseInputStream, theResponseStatusCode, theHeaders) -> {
+			T retVal = theBinding.invokeClient(theResponseMimeType, theResponseInputStream, theResponseStatusCode, theHeaders);
+			theReadCache.store(myContext, cacheKey, retVal, theHeaders, theVRead);
+			return retVal;
+		};
+
+		try {
+			return invokeClient(myContext, binding, theInvocation, theEncoding, thePrettyPrint, myLogRequestAndResponse, null, null, null, null, null);
+		} catch (NotModifiedException e) {
+			if (cached == null) {
+				throw e;
+			}
+			theReadCache.notModified(cached, e.getResponseHeaders());
+			return cached.newCopy(myContext, theType);
+		}
+	}
+
+	@Override
+	public void registerInterceptor(Object theInterceptor) {
+		super.registerInterceptor(theInterceptor);
+		if (theInterceptor instanceof ReadCachingInterceptor) {
+			myReadCachingInterceptor = (ReadCachingInterceptor) theInterceptor;
+		}
+	}
+
+	@Override
+	public void unregisterInterceptor(Object theInterceptor) {
+		super.unregisterInterceptor(theInterceptor);
+		if (theInterceptor == myReadCachingInterceptor) {
+			myReadCachingInterceptor = null;
+		}
+	}
+
+	@Override
+	public void setInterceptorService(@Nonnull IInterceptorService theInterceptorService) {
+		super.setInterceptorService(theInterceptorService);
+		myReadCachingInterceptor = null;
+		for (Object next : theInterceptorService.getAllRegisteredInterceptors()) {
+			if (next instanceof ReadCachingInterceptor) {
+				myReadCachingInterceptor = (ReadCachingInterceptor) next;
+			}
+		}
+	}
+
 	@Override
 	public IFetchConformanceUntyped fetchConformance() {
 		return new FetchConformanceInternal();
@@ -487,6 +562,11 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			return (T) this;
 		}
 
+		@Override
+		public CompletableFuture<Y> executeAsync() {
+			return CompletableFuture.supplyAsync(this::execute, getAsyncExecutor());
+		}
+
 		@SuppressWarnings("unchecked")
 		@Override
 		public T encodedJson() {
@@ -1887,8 +1967,39 @@ public class GenericClient extends BaseClient implements IGenericClient {
 
 		@Override
 		public OUTPUT execute() {
+			return doExecute(myParamOffset);
+		}
+
+		@Override
+		public Stream<IBaseResource> executeStream() {
+			return executeStream(1);
+		}
+
+		@Override
+		public Stream<IBaseResource> executeStream(int thePagesInFlight) {
+			Validate.isTrue(thePagesInFlight > 0, "thePagesInFlight must be greater than 0");
 
-			Map<String, List<String>> params = getParamMap();
+			PrefetchingSearchResultIterator iterator;
+			if (thePagesInFlight == 1) {
+				iterator = new PrefetchingSearchResultIterator(myContext, getAsyncExecutor(), () -> (IBaseBundle) doExecute(myParamOffset), t -> (IBaseBundle) new GetPageInternal(t, myReturnBundleType).execute());
+			} else {
+				Validate.notNull(myParamLimit, "count(int) must be specified in order to fetch more than one page at a time");
+				int firstOffset = myParamOffset != null ? myParamOffset : 0;
+				iterator = new PrefetchingSearchResultIterator(myContext, getAsyncExecutor(), t -> (IBaseBundle) doExecute(t), firstOffset, myParamLimit, thePagesInFlight);
+			}
+
+			Spliterator<IBaseResource> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+			return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+		}
+
+		private OUTPUT doExecute(Integer theOffset) {
+
+			// Copy the parameters so that this method can be invoked more than once (and
+			// from more than one thread when streaming results)
+			Map<String, List<String>> params = new LinkedHashMap<>();
+			for (Entry<String, List<String>> next : getParamMap().entrySet()) {
+				params.put(next.getKey(), new ArrayList<>(next.getValue()));
+			}
 
 			for (TokenParam next : myTags) {
 				addParam(params, Constants.PARAM_TAG, next.getValueAsQueryToken(myContext));
@@ -1960,8 +2071,8 @@ public class GenericClient extends BaseClient implements IGenericClient {
 				addParam(params, Constants.PARAM_COUNT, Integer.toString(myParamLimit));
 			}
 
-			if (myParamOffset != null) {
-				addParam(params, Constants.PARAM_OFFSET, Integer.toString(myParamOffset));
+			if (theOffset != null) {
+				addParam(params, Constants.PARAM_OFFSET, Integer.toString(theOffset));
 			}
 
 			if (myLastUpdated != null) {
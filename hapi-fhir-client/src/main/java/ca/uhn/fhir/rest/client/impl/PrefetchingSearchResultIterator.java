@@ -0,0 +1,178 @@
+package ca.uhn.fhir.rest.client.impl;
+
+/*-
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.util.BundleUtil;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Iterates over the resources in every page of a set of search results, fetching
+ * upcoming pages in the background while the current page is being consumed.
+ * <p>
+ * Pages are either fetched one at a time by following the <code>next</code> link of
+ * each page, or several at a time by requesting successive <code>_offset</code> values.
+ * Pages that are fetched in the background but not yet consumed are bounded by the
+ * number of pages in flight.
+ * </p>
+ */
+class PrefetchingSearchResultIterator implements Iterator<IBaseResource>, AutoCloseable {
+
+	private final FhirContext myContext;
+	private final Executor myExecutor;
+	private final Function<String, IBaseBundle> myLinkFetcher;
+	private final Function<Integer, IBaseBundle> myOffsetFetcher;
+	private final int myPageSize;
+	private final int myPagesInFlight;
+	private final Deque<FutureTask<IBaseBundle>> myPendingPages = new ArrayDeque<>();
+	private Iterator<IBaseResource> myCurrentPage = Collections.emptyIterator();
+	private int myNextOffset;
+	private boolean myLastPageRequested;
+
+	/**
+	 * Constructor for fetching one page at a time by following <code>next</code> links
+	 */
+	PrefetchingSearchResultIterator(FhirContext theContext, Executor theExecutor, Supplier<IBaseBundle> theFirstPageFetcher, Function<String, IBaseBundle> theLinkFetcher) {
+		myContext = theContext;
+		myExecutor = theExecutor;
+		myLinkFetcher = theLinkFetcher;
+		myOffsetFetcher = null;
+		myPageSize = 0;
+		myPagesInFlight = 1;
+		submit(theFirstPageFetcher::get);
+	}
+
+	/**
+	 * Constructor for fetching several pages at a time by requesting successive offsets
+	 */
+	PrefetchingSearchResultIterator(FhirContext theContext, Executor theExecutor, Function<Integer, IBaseBundle> theOffsetFetcher, int theFirstOffset, int thePageSize, int thePagesInFlight) {
+		myContext = theContext;
+		myExecutor = theExecutor;
+		myLinkFetcher = null;
+		myOffsetFetcher = theOffsetFetcher;
+		myPageSize = thePageSize;
+		myPagesInFlight = thePagesInFlight;
+		myNextOffset = theFirstOffset;
+		requestOffsetPages();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!myCurrentPage.hasNext()) {
+			FutureTask<IBaseBundle> nextPage = myPendingPages.pollFirst();
+			if (nextPage == null) {
+				return false;
+			}
+
+			IBaseBundle page = awaitPage(nextPage);
+			List<IBaseResource> resources = page != null ? BundleUtil.toListOfResources(myContext, page) : Collections.emptyList();
+			String nextLink = page != null ? BundleUtil.getLinkUrlOfType(myContext, page, Constants.LINK_NEXT) : null;
+
+			if (myOffsetFetcher != null) {
+				if (resources.isEmpty() || isBlank(nextLink)) {
+					myLastPageRequested = true;
+					close();
+				} else {
+					requestOffsetPages();
+				}
+			} else if (!isBlank(nextLink)) {
+				submit(() -> myLinkFetcher.apply(nextLink));
+			}
+
+			myCurrentPage = resources.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public IBaseResource next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return myCurrentPage.next();
+	}
+
+	/**
+	 * Abandons any pages which are still being fetched
+	 */
+	@Override
+	public void close() {
+		for (FutureTask<IBaseBundle> next : myPendingPages) {
+			next.cancel(false);
+		}
+		myPendingPages.clear();
+	}
+
+	private void requestOffsetPages() {
+		while (!myLastPageRequested && myPendingPages.size() < myPagesInFlight) {
+			int offset = myNextOffset;
+			myNextOffset += myPageSize;
+			submit(() -> myOffsetFetcher.apply(offset));
+		}
+	}
+
+	private void submit(Callable<IBaseBundle> theFetcher) {
+		FutureTask<IBaseBundle> task = new FutureTask<>(theFetcher);
+		myPendingPages.addLast(task);
+		try {
+			myExecutor.execute(task);
+		} catch (RejectedExecutionException e) {
+			// The page will be fetched by the consuming thread when it is needed
+		}
+	}
+
+	private static IBaseBundle awaitPage(FutureTask<IBaseBundle> thePage) {
+		// If the executor hasn't started the fetch yet, do it on this thread
+		// rather than waiting behind other work
+		thePage.run();
+		try {
+			return thePage.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(e.getCause());
+		}
+	}
+
+}
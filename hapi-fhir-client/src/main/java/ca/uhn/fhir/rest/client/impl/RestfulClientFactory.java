@@ -21,9 +21,15 @@ package ca.uhn.fhir.rest.client.impl;
  */
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
@@ -40,6 +46,13 @@ import ca.uhn.fhir.util.FhirTerser;
  * Base class for a REST client factory implementation
  */
 public abstract class RestfulClientFactory implements IRestfulClientFactory {
+
+	/**
+	 * The number of asynchronous requests which may be queued for each thread of the default
+	 * asynchronous executor (see {@link #getAsyncExecutor()}) before further requests are run
+	 * on the calling thread instead
+	 */
+	public static final int ASYNC_QUEUE_SIZE_PER_THREAD = 10;
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(RestfulClientFactory.class);
 
 	private Set<String> myValidatedServerBaseUrls = Collections.synchronizedSet(new HashSet<String>());
@@ -53,6 +66,8 @@ public abstract class RestfulClientFactory implements IRestfulClientFactory {
 	private String myProxyPassword;
 	private int myPoolMaxTotal = DEFAULT_POOL_MAX;
 	private int myPoolMaxPerRoute = DEFAULT_POOL_MAX_PER_ROUTE;
+	private Executor myAsyncExecutor;
+	private ExecutorService myDefaultAsyncExecutor;
 
 	/**
 	 * Constructor
@@ -120,6 +135,79 @@ public abstract class RestfulClientFactory implements IRestfulClientFactory {
 		return myPoolMaxPerRoute;
 	}
 
+	/**
+	 * Returns the executor used to run requests started with
+	 * {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()}.
+	 * <p>
+	 * Unless an executor has been supplied using {@link #setAsyncExecutor(Executor)}, a pool of
+	 * {@link #getPoolMaxTotal()} daemon threads is created on first use, so that the number of
+	 * requests in flight matches the number of connections available to them. Idle threads are
+	 * released after a minute. At most {@link #ASYNC_QUEUE_SIZE_PER_THREAD} requests per thread
+	 * are queued, and once the queue is full further requests are run on the calling thread. Call
+	 * {@link #shutdownAsyncExecutor()} to release the pool when the factory is no longer needed.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	@Override
+	public synchronized Executor getAsyncExecutor() {
+		if (myAsyncExecutor == null) {
+			BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+				.namingPattern("hapi-fhir-client-async-%d")
+				.daemon(true)
+				.build();
+			int poolSize = getPoolMaxTotal();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				poolSize,
+				poolSize,
+				1,
+				TimeUnit.MINUTES,
+				new ArrayBlockingQueue<>(poolSize * ASYNC_QUEUE_SIZE_PER_THREAD),
+				threadFactory,
+				new ThreadPoolExecutor.CallerRunsPolicy());
+			executor.allowCoreThreadTimeOut(true);
+			myDefaultAsyncExecutor = executor;
+			myAsyncExecutor = executor;
+		}
+		return myAsyncExecutor;
+	}
+
+	/**
+	 * Sets the executor used to run requests started with
+	 * {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()}. The size of
+	 * this executor bounds the number of asynchronous requests in flight. The caller
+	 * remains responsible for shutting down the executor it supplies.
+	 * <p>
+	 * If this factory had already created its default executor, that executor is shut down.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public synchronized void setAsyncExecutor(Executor theAsyncExecutor) {
+		shutdownAsyncExecutor();
+		myAsyncExecutor = theAsyncExecutor;
+	}
+
+	/**
+	 * Shuts down the default asynchronous executor, if this factory has created one (see
+	 * {@link #getAsyncExecutor()}). Requests which have already been started are allowed to
+	 * complete. A new executor is created if further asynchronous requests are made.
+	 * <p>
+	 * Executors supplied using {@link #setAsyncExecutor(Executor)} are not shut down by this method.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public synchronized void shutdownAsyncExecutor() {
+		if (myDefaultAsyncExecutor != null) {
+			myDefaultAsyncExecutor.shutdown();
+			if (myAsyncExecutor == myDefaultAsyncExecutor) {
+				myAsyncExecutor = null;
+			}
+			myDefaultAsyncExecutor = null;
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T extends IRestfulClient> T instantiateProxy(Class<T> theClientType, InvocationHandler theInvocationHandler) {
 		return (T) Proxy.newProxyInstance(theClientType.getClassLoader(), new Class[] { theClientType }, theInvocationHandler);
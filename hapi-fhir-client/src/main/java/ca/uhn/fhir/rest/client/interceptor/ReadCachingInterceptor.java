@@ -0,0 +1,359 @@
+package ca.uhn.fhir.rest.client.interceptor;
+
+/*-
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Client interceptor which keeps a cache of resources that have been fetched using the
+ * fluent client's <code>read()</code> operation, so that repeated reads of the same resource
+ * do not need to download and parse the resource body again.
+ * <p>
+ * When this interceptor is registered against a {@link ca.uhn.fhir.rest.client.api.IGenericClient},
+ * reads are handled as follows:
+ * </p>
+ * <ul>
+ *    <li>If a cached copy exists and is still fresh according to the <code>Cache-Control: max-age</code>
+ *    returned by the server (or the {@link #setDefaultMaxAge(long, TimeUnit) default max age} if the server
+ *    did not supply one), the cached copy is returned without making a request.</li>
+ *    <li>If a cached copy exists but is no longer fresh, the read is revalidated using an
+ *    <code>If-None-Match</code> header containing the <code>ETag</code> returned with the
+ *    cached copy. If the server responds with <code>HTTP 304 Not Modified</code>, the cached
+ *    copy is returned.</li>
+ *    <li>Responses carrying <code>Cache-Control: no-store</code> are never cached.</li>
+ * </ul>
+ * <p>
+ * Version-specific reads (<code>vread</code>) are treated as immutable and never need
+ * revalidation. Any successful create, update, patch or delete performed through a client
+ * using this interceptor evicts the affected entries. Callers always receive their own copy
+ * of a cached resource, so modifying a returned resource does not affect the cache.
+ * </p>
+ * <p>
+ * This interceptor must be registered using {@link ca.uhn.fhir.rest.client.api.IGenericClient#registerInterceptor(Object)}
+ * (or be present in an interceptor service passed to <code>setInterceptorService(...)</code>), since the client looks
+ * it up when it is registered rather than on every read.
+ * This interceptor is thread safe, and a single instance may be shared by several clients.
+ * </p>
+ *
+ * @since 5.2.0
+ */
+@Interceptor
+public class ReadCachingInterceptor {
+
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private final AtomicLong myHitCount = new AtomicLong();
+	private final AtomicLong myMissCount = new AtomicLong();
+	private final AtomicLong myRevalidatedCount = new AtomicLong();
+	private final Map<String, CachedRead> myCache;
+	private int myMaxEntries = DEFAULT_MAX_ENTRIES;
+	private long myDefaultMaxAgeMillis = 0;
+
+	/**
+	 * Constructor
+	 */
+	public ReadCachingInterceptor() {
+		myCache = new LinkedHashMap<String, CachedRead>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedRead> theEldest) {
+				return size() > myMaxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Sets the maximum number of resources which will be held in the cache. When this
+	 * number is exceeded, the least recently used entry is evicted. Defaults to {@link #DEFAULT_MAX_ENTRIES}.
+	 */
+	public ReadCachingInterceptor setMaxEntries(int theMaxEntries) {
+		Validate.isTrue(theMaxEntries > 0, "theMaxEntries must be greater than 0");
+		myMaxEntries = theMaxEntries;
+		return this;
+	}
+
+	/**
+	 * Sets the length of time that a cached resource is considered fresh (and can therefore
+	 * be returned without contacting the server at all) when the server does not supply a
+	 * <code>Cache-Control: max-age</code> directive. Defaults to <code>0</code>, meaning that
+	 * every read is revalidated against the server.
+	 */
+	public ReadCachingInterceptor setDefaultMaxAge(long theMaxAge, TimeUnit theTimeUnit) {
+		Validate.isTrue(theMaxAge >= 0, "theMaxAge must not be negative");
+		myDefaultMaxAgeMillis = theTimeUnit.toMillis(theMaxAge);
+		return this;
+	}
+
+	/**
+	 * Returns the number of reads which were served from the cache without contacting the server
+	 */
+	public long getHitCount() {
+		return myHitCount.get();
+	}
+
+	/**
+	 * Returns the number of reads which required the resource body to be downloaded and parsed
+	 */
+	public long getMissCount() {
+		return myMissCount.get();
+	}
+
+	/**
+	 * Returns the number of reads which were served from the cache after the server
+	 * responded to a revalidation request with <code>HTTP 304 Not Modified</code>
+	 */
+	public long getRevalidatedCount() {
+		return myRevalidatedCount.get();
+	}
+
+	/**
+	 * Removes all cached resources and resets the statistics
+	 */
+	public void clear() {
+		synchronized (myCache) {
+			myCache.clear();
+		}
+		myHitCount.set(0);
+		myMissCount.set(0);
+		myRevalidatedCount.set(0);
+	}
+
+	/**
+	 * Returns the cached entry for the given absolute resource URL, or <code>null</code>
+	 * if none exists. If the entry is fresh, it is counted as a cache hit.
+	 * <p>
+	 * This method is called by the generic client and is not generally useful otherwise.
+	 * </p>
+	 */
+	public CachedRead lookup(String theUrl) {
+		CachedRead retVal;
+		synchronized (myCache) {
+			retVal = myCache.get(theUrl);
+		}
+		if (retVal != null && retVal.isFresh()) {
+			myHitCount.incrementAndGet();
+		}
+		return retVal;
+	}
+
+	/**
+	 * Stores a copy of a freshly downloaded resource in the cache, unless the response
+	 * headers forbid it. This is counted as a cache miss.
+	 * <p>
+	 * This method is called by the generic client and is not generally useful otherwise.
+	 * </p>
+	 *
+	 * @param theImmutable Should be <code>true</code> if the URL refers to a specific resource version
+	 */
+	public void store(FhirContext theContext, String theUrl, IBaseResource theResource, Map<String, List<String>> theResponseHeaders, boolean theImmutable) {
+		myMissCount.incrementAndGet();
+		if (theResource == null) {
+			return;
+		}
+
+		String cacheControl = getHeader(theResponseHeaders, Constants.HEADER_CACHE_CONTROL);
+		for (String next : cacheControl.split(",")) {
+			if (next.trim().equalsIgnoreCase(Constants.CACHE_CONTROL_NO_STORE)) {
+				return;
+			}
+		}
+		Long maxAgeMillis = getMaxAgeMillis(theResponseHeaders);
+
+		String eTag = getHeader(theResponseHeaders, Constants.HEADER_ETAG);
+		long expiry;
+		if (theImmutable) {
+			expiry = Long.MAX_VALUE;
+		} else {
+			expiry = System.currentTimeMillis() + (maxAgeMillis != null ? maxAgeMillis : myDefaultMaxAgeMillis);
+		}
+
+		/*
+		 * If the entry isn't fresh now and can't be revalidated later, there's
+		 * no point in keeping it
+		 */
+		if (expiry <= System.currentTimeMillis() && isBlank(eTag)) {
+			return;
+		}
+
+		IBaseResource copy = copy(theContext, theResource, theResource.getClass());
+		CachedRead entry = new CachedRead(copy, eTag, expiry);
+		synchronized (myCache) {
+			myCache.put(theUrl, entry);
+		}
+	}
+
+	/**
+	 * Records that a cached entry was revalidated by the server. This is counted
+	 * as a revalidation, and the entry is considered fresh for the <code>Cache-Control: max-age</code>
+	 * returned with the <code>HTTP 304 Not Modified</code> response, or for the default max age if
+	 * none was returned.
+	 * <p>
+	 * This method is called by the generic client and is not generally useful otherwise.
+	 * </p>
+	 */
+	public void notModified(CachedRead theEntry, Map<String, List<String>> theResponseHeaders) {
+		myRevalidatedCount.incrementAndGet();
+		Long maxAgeMillis = getMaxAgeMillis(theResponseHeaders);
+		theEntry.myExpiry = System.currentTimeMillis() + (maxAgeMillis != null ? maxAgeMillis : myDefaultMaxAgeMillis);
+	}
+
+	/**
+	 * Evicts cached entries that may have been invalidated by a successful write
+	 * performed by the client
+	 */
+	@Hook(Pointcut.CLIENT_RESPONSE)
+	public void interceptResponse(IHttpRequest theRequest, IHttpResponse theResponse) {
+		String verb = theRequest.getHttpVerbName();
+		if ("GET".equals(verb) || "HEAD".equals(verb)) {
+			return;
+		}
+		if (theResponse.getStatus() < 200 || theResponse.getStatus() >= 300) {
+			return;
+		}
+
+		String uri = defaultString(theRequest.getUri());
+		int queryIdx = uri.indexOf('?');
+		boolean conditional = false;
+		if (queryIdx != -1) {
+			// Parameters such as _format and _pretty don't make a write conditional
+			for (String next : uri.substring(queryIdx + 1).split("&")) {
+				if (!next.isEmpty() && !next.startsWith("_")) {
+					conditional = true;
+					break;
+				}
+			}
+			uri = uri.substring(0, queryIdx);
+		}
+		while (uri.endsWith("/")) {
+			uri = uri.substring(0, uri.length() - 1);
+		}
+
+		synchronized (myCache) {
+			for (Iterator<String> iter = myCache.keySet().iterator(); iter.hasNext(); ) {
+				String next = iter.next();
+				if (next.equals(uri)) {
+					iter.remove();
+				} else if (conditional || "POST".equals(verb)) {
+					// Conditional writes, creates, transactions and operations can touch anything
+					// below the URL they were made against
+					if (next.startsWith(uri + "/")) {
+						iter.remove();
+					}
+				} else if (next.startsWith(uri + "/_history/")) {
+					iter.remove();
+				}
+			}
+		}
+	}
+
+	private static <T extends IBaseResource> T copy(FhirContext theContext, IBaseResource theSource, Class<T> theType) {
+		T retVal = theType.cast(theContext.getResourceDefinition(theType).newInstance());
+		theContext.newTerser().cloneInto(theSource, retVal, false);
+		retVal.setId(theSource.getIdElement().getValue());
+		return retVal;
+	}
+
+	private static Long getMaxAgeMillis(Map<String, List<String>> theHeaders) {
+		Long retVal = null;
+		for (String next : getHeader(theHeaders, Constants.HEADER_CACHE_CONTROL).split(",")) {
+			String directive = next.trim().toLowerCase();
+			if (directive.startsWith("max-age=")) {
+				try {
+					retVal = TimeUnit.SECONDS.toMillis(Long.parseLong(directive.substring("max-age=".length())));
+				} catch (NumberFormatException e) {
+					// ignore
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private static String getHeader(Map<String, List<String>> theHeaders, String theName) {
+		if (theHeaders != null) {
+			for (Map.Entry<String, List<String>> next : theHeaders.entrySet()) {
+				if (theName.equalsIgnoreCase(next.getKey()) && next.getValue() != null && !next.getValue().isEmpty()) {
+					return defaultString(next.getValue().get(0));
+				}
+			}
+		}
+		return "";
+	}
+
+	/**
+	 * A cached resource
+	 */
+	public static class CachedRead {
+
+		private final IBaseResource myResource;
+		private final String myETag;
+		private volatile long myExpiry;
+
+		CachedRead(IBaseResource theResource, String theETag, long theExpiry) {
+			myResource = theResource;
+			myETag = theETag;
+			myExpiry = theExpiry;
+		}
+
+		/**
+		 * Returns the <code>ETag</code> returned by the server along with this resource, or
+		 * an empty string if none was returned
+		 */
+		public String getETag() {
+			return myETag;
+		}
+
+		/**
+		 * Returns <code>true</code> if this entry may be returned without revalidating it
+		 */
+		public boolean isFresh() {
+			return System.currentTimeMillis() < myExpiry;
+		}
+
+		/**
+		 * Returns a new copy of the cached resource
+		 *
+		 * @param theType The type to return
+		 */
+		public <T extends IBaseResource> T newCopy(FhirContext theContext, Class<T> theType) {
+			return copy(theContext, myResource, theType);
+		}
+	}
+
+}
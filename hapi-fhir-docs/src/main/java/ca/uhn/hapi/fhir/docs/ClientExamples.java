@@ -29,15 +29,24 @@ import ca.uhn.fhir.rest.client.api.IBasicClient;
 import ca.uhn.fhir.rest.client.api.IClientInterceptor;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.api.IRestfulClientFactory;
+import ca.uhn.fhir.rest.client.impl.RestfulClientFactory;
 import ca.uhn.fhir.rest.client.interceptor.AdditionalRequestHeadersInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.BasicAuthInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.BearerTokenAuthInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.CookieInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.LoggingInterceptor;
+import ca.uhn.fhir.rest.client.interceptor.ReadCachingInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.UrlTenantSelectionInterceptor;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Patient;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
 public class ClientExamples {
 
    public interface IPatientClient extends IBasicClient {
@@ -104,6 +113,65 @@ public class ClientExamples {
       // END SNIPPET: processMessage
    }
 
+	@SuppressWarnings("unused")
+	public void executeAsync() {
+		// START SNIPPET: executeAsync
+		FhirContext ctx = FhirContext.forR4();
+
+		// Optionally, supply the executor used for asynchronous requests. Its size
+		// limits the number of asynchronous requests in flight, and it must be shut
+		// down by the caller when it is no longer needed.
+		ExecutorService executor = Executors.newFixedThreadPool(50);
+		((RestfulClientFactory) ctx.getRestfulClientFactory()).setAsyncExecutor(executor);
+
+		IGenericClient client = ctx.newRestfulGenericClient("http://localhost:9999/fhir");
+
+		CompletableFuture<Patient> future = client
+			.read()
+			.resource(Patient.class)
+			.withId("123")
+			.executeAsync();
+
+		future.thenAccept(patient -> {
+			// ..use the patient..
+		});
+
+		// Once the client is no longer needed
+		future.join();
+		executor.shutdown();
+		// END SNIPPET: executeAsync
+	}
+
+	@SuppressWarnings("unused")
+	public void executeStream() {
+		// START SNIPPET: executeStream
+		FhirContext ctx = FhirContext.forR4();
+		IGenericClient client = ctx.newRestfulGenericClient("http://localhost:9999/fhir");
+
+		// Follow the "next" link of each page, fetching the next page
+		// while the current one is being consumed
+		try (Stream<IBaseResource> stream = client
+			.search()
+			.forResource(Patient.class)
+			.returnBundle(Bundle.class)
+			.executeStream()) {
+			stream.forEach(resource -> {
+				// ..use the resource..
+			});
+		}
+
+		// Fetch up to 4 pages of 100 resources at the same time using _offset
+		try (Stream<IBaseResource> stream = client
+			.search()
+			.forResource(Patient.class)
+			.count(100)
+			.returnBundle(Bundle.class)
+			.executeStream(4)) {
+			long count = stream.count();
+		}
+		// END SNIPPET: executeStream
+	}
+
 	@SuppressWarnings("unused")
 	public void cacheControl() {
 		FhirContext ctx = FhirContext.forDstu3();
@@ -238,6 +306,25 @@ public class ClientExamples {
       // END SNIPPET: gzip
    }
    
+   @SuppressWarnings("unused")
+   public void readCache() {
+      // START SNIPPET: readCache
+      FhirContext ctx = FhirContext.forR4();
+      IGenericClient client = ctx.newRestfulGenericClient("http://localhost:9999/fhir");
+
+      // Cache up to 500 resources, and treat them as fresh for 30 seconds
+      // unless the server supplies its own Cache-Control max-age
+      ReadCachingInterceptor readCache = new ReadCachingInterceptor();
+      readCache.setMaxEntries(500);
+      readCache.setDefaultMaxAge(30, TimeUnit.SECONDS);
+      client.registerInterceptor(readCache);
+
+      Patient patient = client.read().resource(Patient.class).withId("123").execute();
+
+      System.out.println("Hits: " + readCache.getHitCount() + " - Revalidated: " + readCache.getRevalidatedCount() + " - Misses: " + readCache.getMissCount());
+      // END SNIPPET: readCache
+   }
+
    @SuppressWarnings("unused")
    public void createSecurityBearer() {
       // START SNIPPET: securityBearer
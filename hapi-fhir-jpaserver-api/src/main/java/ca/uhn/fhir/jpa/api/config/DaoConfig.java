@@ -83,6 +83,24 @@ public class DaoConfig {
 	private static final Integer DEFAULT_MAXIMUM_TRANSACTION_BUNDLE_SIZE = null;
 	private static final Logger ourLog = LoggerFactory.getLogger(DaoConfig.class);
 	private static final int DEFAULT_EXPUNGE_BATCH_SIZE = 800;
+	/**
+	 * Default value for {@link #setBulkImportBatchSize(int)}
+	 *
+	 * @since 5.2.0
+	 */
+	public static final int DEFAULT_BULK_IMPORT_BATCH_SIZE = 1000;
+	/**
+	 * Default value for {@link #setBulkExportPartitionSize(long)}
+	 *
+	 * @since 5.2.0
+	 */
+	public static final long DEFAULT_BULK_EXPORT_PARTITION_SIZE = 100000;
+	/**
+	 * Default value for {@link #setBulkExportFileMaximumSize(long)}
+	 *
+	 * @since 5.2.0
+	 */
+	public static final long DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE = 5 * 1024 * 1024;
 	private IndexEnabledEnum myIndexMissingFieldsEnabled = IndexEnabledEnum.DISABLED;
 	private static final int DEFAULT_MAXIMUM_DELETE_CONFLICT_COUNT = 60;
 
@@ -105,6 +123,9 @@ public class DaoConfig {
 	 * update setter javadoc if default changes
 	 */
 	private int myDeferIndexingForCodesystemsOfSize = 100;
+	private boolean myInMemoryTerminologyCodeIndexEnabled = false;
+	private boolean mySearchTotalCalculatedInBackground = false;
+	private boolean myInClauseParameterPaddingEnabled = true;
 	private boolean myDeleteStaleSearches = true;
 	private boolean myEnforceReferentialIntegrityOnDelete = true;
 	private boolean myUniqueIndexesEnabled = true;
@@ -148,6 +169,13 @@ public class DaoConfig {
 	private int myExpungeBatchSize = DEFAULT_EXPUNGE_BATCH_SIZE;
 	private int myReindexThreadCount;
 	private int myExpungeThreadCount;
+	private String myBulkImportDirectory;
+	private int myBulkImportBatchSize = DEFAULT_BULK_IMPORT_BATCH_SIZE;
+	private int myBulkImportThreadCount;
+	private int myBulkExportThreadCount;
+	private long myBulkExportPartitionSize = DEFAULT_BULK_EXPORT_PARTITION_SIZE;
+	private long myBulkExportFileMaximumSize = DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE;
+	private boolean myBulkExportGzipEnabled;
 	private Set<String> myBundleTypesAllowedForStorage;
 	private boolean myValidateSearchParameterExpressionsOnSave = true;
 	private List<Integer> mySearchPreFetchThresholds = Arrays.asList(500, 2000, -1);
@@ -236,6 +264,8 @@ public class DaoConfig {
 		setMarkResourcesForReindexingUponSearchParameterChange(true);
 		setReindexThreadCount(Runtime.getRuntime().availableProcessors());
 		setExpungeThreadCount(Runtime.getRuntime().availableProcessors());
+		setBulkImportThreadCount(Runtime.getRuntime().availableProcessors());
+		setBulkExportThreadCount(Runtime.getRuntime().availableProcessors());
 		setBundleTypesAllowedForStorage(DEFAULT_BUNDLE_TYPES_ALLOWED_FOR_STORAGE);
 
 		if ("true".equalsIgnoreCase(System.getProperty(DISABLE_STATUS_BASED_REINDEX))) {
@@ -738,6 +768,190 @@ public class DaoConfig {
 		myExpungeThreadCount = Math.max(myExpungeThreadCount, 1); // Minimum of 1
 	}
 
+	/**
+	 * The bulk <code>$import</code> operation reads NDJSON files from the local filesystem of the
+	 * server, and will only read files located within this directory. If this is <code>null</code>
+	 * (which is the default), <code>$import</code> is disabled.
+	 *
+	 * @since 5.2.0
+	 */
+	public String getBulkImportDirectory() {
+		return myBulkImportDirectory;
+	}
+
+	/**
+	 * The bulk <code>$import</code> operation reads NDJSON files from the local filesystem of the
+	 * server, and will only read files located within this directory. If this is <code>null</code>
+	 * (which is the default), <code>$import</code> is disabled.
+	 *
+	 * @since 5.2.0
+	 */
+	public void setBulkImportDirectory(String theBulkImportDirectory) {
+		myBulkImportDirectory = theBulkImportDirectory;
+	}
+
+	/**
+	 * The number of resources stored in each database transaction by the bulk <code>$import</code>
+	 * operation. Default is {@value #DEFAULT_BULK_IMPORT_BATCH_SIZE}.
+	 *
+	 * @since 5.2.0
+	 */
+	public int getBulkImportBatchSize() {
+		return myBulkImportBatchSize;
+	}
+
+	/**
+	 * The number of resources stored in each database transaction by the bulk <code>$import</code>
+	 * operation. Default is {@value #DEFAULT_BULK_IMPORT_BATCH_SIZE}.
+	 *
+	 * @since 5.2.0
+	 */
+	public void setBulkImportBatchSize(int theBulkImportBatchSize) {
+		myBulkImportBatchSize = Math.max(theBulkImportBatchSize, 1); // Minimum of 1
+	}
+
+	/**
+	 * This setting controls the number of threads used by the bulk <code>$import</code> operation to
+	 * parse and store resources. Imports which enforce referential integrity store their resources
+	 * sequentially, in file order, and do not use these threads.
+	 * <p>
+	 * The default value is set to the number of available processors
+	 * (via <code>Runtime.getRuntime().availableProcessors()</code>). Value
+	 * for this setting must be a positive integer.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public int getBulkImportThreadCount() {
+		return myBulkImportThreadCount;
+	}
+
+	/**
+	 * This setting controls the number of threads used by the bulk <code>$import</code> operation to
+	 * parse and store resources. Imports which enforce referential integrity store their resources
+	 * sequentially, in file order, and do not use these threads.
+	 * <p>
+	 * The default value is set to the number of available processors
+	 * (via <code>Runtime.getRuntime().availableProcessors()</code>). Value
+	 * for this setting must be a positive integer.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public void setBulkImportThreadCount(int theBulkImportThreadCount) {
+		myBulkImportThreadCount = Math.max(theBulkImportThreadCount, 1); // Minimum of 1
+	}
+
+	/**
+	 * This setting controls the number of threads used by the bulk <code>$export</code> operation to
+	 * generate export files. Each resource type is split into ranges of resource IDs (see
+	 * {@link #setBulkExportPartitionSize(long)}), and ranges are exported in parallel.
+	 * <p>
+	 * The default value is set to the number of available processors
+	 * (via <code>Runtime.getRuntime().availableProcessors()</code>). Value
+	 * for this setting must be a positive integer.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public int getBulkExportThreadCount() {
+		return myBulkExportThreadCount;
+	}
+
+	/**
+	 * This setting controls the number of threads used by the bulk <code>$export</code> operation to
+	 * generate export files. Each resource type is split into ranges of resource IDs (see
+	 * {@link #setBulkExportPartitionSize(long)}), and ranges are exported in parallel.
+	 * <p>
+	 * The default value is set to the number of available processors
+	 * (via <code>Runtime.getRuntime().availableProcessors()</code>). Value
+	 * for this setting must be a positive integer.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public void setBulkExportThreadCount(int theBulkExportThreadCount) {
+		myBulkExportThreadCount = Math.max(theBulkExportThreadCount, 1); // Minimum of 1
+	}
+
+	/**
+	 * The bulk <code>$export</code> operation splits each resource type into partitions containing
+	 * at most this many resources, which are then exported independently of each other.
+	 * Default is {@value #DEFAULT_BULK_EXPORT_PARTITION_SIZE}.
+	 *
+	 * @since 5.2.0
+	 */
+	public long getBulkExportPartitionSize() {
+		return myBulkExportPartitionSize;
+	}
+
+	/**
+	 * The bulk <code>$export</code> operation splits each resource type into partitions containing
+	 * at most this many resources, which are then exported independently of each other.
+	 * Default is {@value #DEFAULT_BULK_EXPORT_PARTITION_SIZE}.
+	 *
+	 * @since 5.2.0
+	 */
+	public void setBulkExportPartitionSize(long theBulkExportPartitionSize) {
+		myBulkExportPartitionSize = Math.max(theBulkExportPartitionSize, 1); // Minimum of 1
+	}
+
+	/**
+	 * The approximate maximum size in bytes of the (uncompressed) NDJSON content of each file
+	 * generated by the bulk <code>$export</code> operation. Once a file reaches this size, a new
+	 * file is started. Default is {@value #DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE}.
+	 * <p>
+	 * Each file is buffered in memory until it is complete, and is then stored as a Binary resource,
+	 * so every bulk export thread (see {@link #setBulkExportThreadCount(int)}) may hold up to this
+	 * many bytes. Raising this value should be accompanied by a Binary storage interceptor, since
+	 * the files are otherwise stored inline in the database.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public long getBulkExportFileMaximumSize() {
+		return myBulkExportFileMaximumSize;
+	}
+
+	/**
+	 * The approximate maximum size in bytes of the (uncompressed) NDJSON content of each file
+	 * generated by the bulk <code>$export</code> operation. Once a file reaches this size, a new
+	 * file is started. Default is {@value #DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE}.
+	 * <p>
+	 * Each file is buffered in memory until it is complete, and is then stored as a Binary resource,
+	 * so every bulk export thread (see {@link #setBulkExportThreadCount(int)}) may hold up to this
+	 * many bytes. Raising this value should be accompanied by a Binary storage interceptor, since
+	 * the files are otherwise stored inline in the database.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public void setBulkExportFileMaximumSize(long theBulkExportFileMaximumSize) {
+		myBulkExportFileMaximumSize = Math.max(theBulkExportFileMaximumSize, 1); // Minimum of 1
+	}
+
+	/**
+	 * If set to <code>true</code>, files generated by the bulk <code>$export</code> operation are
+	 * gzip compressed and stored with a content type of <code>application/gzip</code>.
+	 * Default is <code>false</code>.
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isBulkExportGzipEnabled() {
+		return myBulkExportGzipEnabled;
+	}
+
+	/**
+	 * If set to <code>true</code>, files generated by the bulk <code>$export</code> operation are
+	 * gzip compressed and stored with a content type of <code>application/gzip</code>.
+	 * Default is <code>false</code>.
+	 *
+	 * @since 5.2.0
+	 */
+	public void setBulkExportGzipEnabled(boolean theBulkExportGzipEnabled) {
+		myBulkExportGzipEnabled = theBulkExportGzipEnabled;
+	}
+
 	public ResourceEncodingEnum getResourceEncoding() {
 		return myResourceEncoding;
 	}
@@ -2169,4 +2383,129 @@ public class DaoConfig {
 		// ignore
 	}
 
+
+	/**
+	 * <p>
+	 * If enabled, the terminology service keeps an in-memory index of the codes contained in each
+	 * code system version that it is asked to validate codes against. The index is loaded lazily on first
+	 * use and is discarded when the code system version is changed, so validating the same codes repeatedly
+	 * (e.g. while validating a large Bundle) does not require a database round trip for each coding.
+	 * </p>
+	 * <p>
+	 * Note that this index holds every code in the code system version in memory, so this should only be
+	 * enabled if the server has enough heap for the code systems it validates against.
+	 * </p>
+	 * <p>
+	 * The default value for this setting is {@code false}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isInMemoryTerminologyCodeIndexEnabled() {
+		return myInMemoryTerminologyCodeIndexEnabled;
+	}
+
+	/**
+	 * <p>
+	 * If enabled, the terminology service keeps an in-memory index of the codes contained in each
+	 * code system version that it is asked to validate codes against. The index is loaded lazily on first
+	 * use and is discarded when the code system version is changed, so validating the same codes repeatedly
+	 * (e.g. while validating a large Bundle) does not require a database round trip for each coding.
+	 * </p>
+	 * <p>
+	 * Note that this index holds every code in the code system version in memory, so this should only be
+	 * enabled if the server has enough heap for the code systems it validates against.
+	 * </p>
+	 * <p>
+	 * The default value for this setting is {@code false}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public void setInMemoryTerminologyCodeIndexEnabled(boolean theInMemoryTerminologyCodeIndexEnabled) {
+		myInMemoryTerminologyCodeIndexEnabled = theInMemoryTerminologyCodeIndexEnabled;
+	}
+
+	/**
+	 * <p>
+	 * If enabled, searches requesting an accurate total (<code>_total=accurate</code>, or any search if
+	 * {@link #setDefaultTotalMode(SearchTotalModeEnum)} is set to {@link SearchTotalModeEnum#ACCURATE})
+	 * perform their count query in the background instead of before the first page of results is
+	 * returned. The total is stored on the cached search as soon as it is available, so the first page
+	 * may be returned without a total, but later pages of the same search will include it.
+	 * </p>
+	 * <p>
+	 * Searches requesting <code>_total=estimated</code> never perform a count query, regardless of
+	 * this setting. Their total is only reported once the search has loaded all of its results.
+	 * </p>
+	 * <p>
+	 * The default value for this setting is {@code false}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isSearchTotalCalculatedInBackground() {
+		return mySearchTotalCalculatedInBackground;
+	}
+
+	/**
+	 * <p>
+	 * If enabled, searches requesting an accurate total (<code>_total=accurate</code>, or any search if
+	 * {@link #setDefaultTotalMode(SearchTotalModeEnum)} is set to {@link SearchTotalModeEnum#ACCURATE})
+	 * perform their count query in the background instead of before the first page of results is
+	 * returned. The total is stored on the cached search as soon as it is available, so the first page
+	 * may be returned without a total, but later pages of the same search will include it.
+	 * </p>
+	 * <p>
+	 * Searches requesting <code>_total=estimated</code> never perform a count query, regardless of
+	 * this setting. Their total is only reported once the search has loaded all of its results.
+	 * </p>
+	 * <p>
+	 * The default value for this setting is {@code false}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public void setSearchTotalCalculatedInBackground(boolean theSearchTotalCalculatedInBackground) {
+		mySearchTotalCalculatedInBackground = theSearchTotalCalculatedInBackground;
+	}
+
+	/**
+	 * <p>
+	 * If enabled (the default), the JPA server enables Hibernate's IN clause parameter padding
+	 * (<code>hibernate.query.in_clause_parameter_padding</code>). Collection-valued IN parameters, such as
+	 * lists of resource IDs, are padded to the next power of 2 by repeating their last value, so that far
+	 * fewer distinct SQL statements are generated. This keeps the Hibernate query plan cache and the
+	 * database statement cache effective.
+	 * </p>
+	 * <p>
+	 * This setting is read when the entity manager factory is created, so changing it afterwards has no
+	 * effect. If the Hibernate property is set explicitly, that value is used instead.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isInClauseParameterPaddingEnabled() {
+		return myInClauseParameterPaddingEnabled;
+	}
+
+	/**
+	 * <p>
+	 * If enabled (the default), the JPA server enables Hibernate's IN clause parameter padding
+	 * (<code>hibernate.query.in_clause_parameter_padding</code>). Collection-valued IN parameters, such as
+	 * lists of resource IDs, are padded to the next power of 2 by repeating their last value, so that far
+	 * fewer distinct SQL statements are generated. This keeps the Hibernate query plan cache and the
+	 * database statement cache effective.
+	 * </p>
+	 * <p>
+	 * This setting is read when the entity manager factory is created, so changing it afterwards has no
+	 * effect. If the Hibernate property is set explicitly, that value is used instead.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public void setInClauseParameterPaddingEnabled(boolean theInClauseParameterPaddingEnabled) {
+		myInClauseParameterPaddingEnabled = theInClauseParameterPaddingEnabled;
+	}
+
 }
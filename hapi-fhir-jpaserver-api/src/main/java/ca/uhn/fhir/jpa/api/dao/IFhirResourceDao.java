@@ -204,7 +204,9 @@ public interface IFhirResourceDao<T extends IBaseResource> extends IDao {
 	IBundleProvider search(SearchParameterMap theParams, RequestDetails theRequestDetails, HttpServletResponse theServletResponse);
 
 	/**
-	 * Search for IDs for processing a match URLs, etc.
+	 * Search for IDs for processing a match URLs, etc. If {@link SearchParameterMap#getLoadSynchronousUpTo()}
+	 * is already set on the given map it is used as the maximum number of IDs to return, otherwise
+	 * at most 10000 IDs are returned.
 	 */
 	Set<ResourcePersistentId> searchForIds(SearchParameterMap theParams, RequestDetails theRequest);
 
@@ -21,6 +21,8 @@ package ca.uhn.fhir.jpa.batch;
  */
 
 import ca.uhn.fhir.jpa.bulk.job.BulkExportJobConfig;
+import ca.uhn.fhir.jpa.bulk.job.BulkImportJobConfig;
+import ca.uhn.fhir.jpa.dao.expunge.job.ExpungeJobConfig;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
@@ -28,7 +30,9 @@ import org.springframework.context.annotation.Import;
 //When you define a new batch job, add it here.
 @Import({
 	CommonBatchJobConfig.class,
-	BulkExportJobConfig.class,})
+	BulkExportJobConfig.class,
+	BulkImportJobConfig.class,
+	ExpungeJobConfig.class,})
 public class BatchJobsConfig {
 	//Empty config, as this is just an aggregator for all the various batch jobs defined around the system.
 }
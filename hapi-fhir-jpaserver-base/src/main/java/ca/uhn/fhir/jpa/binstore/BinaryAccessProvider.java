@@ -58,9 +58,12 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static ca.uhn.fhir.util.UrlUtil.sanitizeUrlPart;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
  * This plain provider class can be registered with a JPA RestfulServer
@@ -106,20 +109,29 @@ public class BinaryAccessProvider {
 				throw new InvalidRequestException(msg);
 			}
 
-			theServletResponse.setStatus(200);
-			theServletResponse.setContentType(blobDetails.getContentType());
-			if (blobDetails.getBytes() <= Integer.MAX_VALUE) {
-				theServletResponse.setContentLength((int) blobDetails.getBytes());
+			String eTag = '"' + blobDetails.getHash() + '"';
+			String lastModified = DateUtils.formatDate(blobDetails.getPublished());
+			ByteRange range = null;
+			String ifRange = theServletRequest.getHeader(Constants.HEADER_IF_RANGE);
+			if (isBlank(ifRange) || ifRange.equals(eTag) || ifRange.equals(lastModified)) {
+				range = ByteRange.parse(theServletRequest.getHeader(Constants.HEADER_RANGE), blobDetails.getBytes());
 			}
 
+			theServletResponse.setContentType(blobDetails.getContentType());
 			RestfulServer server = theRequestDetails.getServer();
 			server.addHeadersToResponse(theServletResponse);
 
 			theServletResponse.addHeader(Constants.HEADER_CACHE_CONTROL, Constants.CACHE_CONTROL_PRIVATE);
-			theServletResponse.addHeader(Constants.HEADER_ETAG, '"' + blobDetails.getHash() + '"');
-			theServletResponse.addHeader(Constants.HEADER_LAST_MODIFIED, DateUtils.formatDate(blobDetails.getPublished()));
-
-			myBinaryStorageSvc.writeBlob(theResourceId, blobId, theServletResponse.getOutputStream());
+			theServletResponse.addHeader(Constants.HEADER_ETAG, eTag);
+			theServletResponse.addHeader(Constants.HEADER_LAST_MODIFIED, lastModified);
+
+			if (startResponse(theServletResponse, range, blobDetails.getBytes())) {
+				if (range != null) {
+					myBinaryStorageSvc.writeBlob(theResourceId, blobId, theServletResponse.getOutputStream(), range.getOffset(), range.getLength());
+				} else {
+					myBinaryStorageSvc.writeBlob(theResourceId, blobId, theServletResponse.getOutputStream());
+				}
+			}
 			theServletResponse.getOutputStream().close();
 
 		} else {
@@ -133,14 +145,22 @@ public class BinaryAccessProvider {
 				throw new InvalidRequestException(msg);
 			}
 
-			theServletResponse.setStatus(200);
-			theServletResponse.setContentType(contentType);
-			theServletResponse.setContentLength(data.length);
+			ByteRange range = null;
+			if (isBlank(theServletRequest.getHeader(Constants.HEADER_IF_RANGE))) {
+				range = ByteRange.parse(theServletRequest.getHeader(Constants.HEADER_RANGE), data.length);
+			}
 
+			theServletResponse.setContentType(contentType);
 			RestfulServer server = theRequestDetails.getServer();
 			server.addHeadersToResponse(theServletResponse);
 
-			theServletResponse.getOutputStream().write(data);
+			if (startResponse(theServletResponse, range, data.length)) {
+				if (range != null) {
+					theServletResponse.getOutputStream().write(data, (int) range.getOffset(), (int) range.getLength());
+				} else {
+					theServletResponse.getOutputStream().write(data);
+				}
+			}
 			theServletResponse.getOutputStream().close();
 
 		}
@@ -346,6 +366,35 @@ public class BinaryAccessProvider {
 		return thePath.getValue();
 	}
 
+	/**
+	 * Sets the status and length headers for a <code>$binary-access-read</code> response
+	 *
+	 * @param theRange The requested range, or <code>null</code> if the whole entity should be returned
+	 * @return Returns <code>false</code> if the range can not be satisfied, meaning that no body should be written
+	 */
+	private static boolean startResponse(HttpServletResponse theServletResponse, ByteRange theRange, long theEntityLength) {
+		theServletResponse.addHeader(Constants.HEADER_ACCEPT_RANGES, "bytes");
+
+		if (theRange == null) {
+			theServletResponse.setStatus(Constants.STATUS_HTTP_200_OK);
+			theServletResponse.setContentLengthLong(theEntityLength);
+			return true;
+		}
+
+		if (!theRange.isSatisfiable()) {
+			theServletResponse.setStatus(Constants.STATUS_HTTP_416_RANGE_NOT_SATISFIABLE);
+			theServletResponse.addHeader(Constants.HEADER_CONTENT_RANGE, "bytes */" + theEntityLength);
+			theServletResponse.setContentLength(0);
+			return false;
+		}
+
+		long last = theRange.getOffset() + theRange.getLength() - 1;
+		theServletResponse.setStatus(Constants.STATUS_HTTP_206_PARTIAL_CONTENT);
+		theServletResponse.addHeader(Constants.HEADER_CONTENT_RANGE, "bytes " + theRange.getOffset() + "-" + last + "/" + theEntityLength);
+		theServletResponse.setContentLengthLong(theRange.getLength());
+		return true;
+	}
+
 	@Nonnull
 	private IFhirResourceDao getDaoForRequest(@IdParam IIdType theResourceId) {
 		String resourceType = theResourceId.getResourceType();
@@ -356,5 +405,84 @@ public class BinaryAccessProvider {
 		return dao;
 	}
 
+	/**
+	 * A single range of bytes requested using an HTTP <code>Range</code> header
+	 */
+	static class ByteRange {
+
+		private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=([0-9]*)-([0-9]*)$");
+		private static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+		private final long myOffset;
+		private final long myLength;
+
+		ByteRange(long theOffset, long theLength) {
+			myOffset = theOffset;
+			myLength = theLength;
+		}
+
+		long getOffset() {
+			return myOffset;
+		}
+
+		long getLength() {
+			return myLength;
+		}
+
+		boolean isSatisfiable() {
+			return myOffset >= 0;
+		}
+
+		/**
+		 * Parses a <code>Range</code> header. Only a single byte range is supported. Returns
+		 * <code>null</code> if the header is absent, malformed, or requests multiple ranges, since
+		 * in all of these cases the whole entity should be returned.
+		 */
+		static ByteRange parse(String theRangeHeader, long theEntityLength) {
+			if (isBlank(theRangeHeader)) {
+				return null;
+			}
+			Matcher matcher = RANGE_PATTERN.matcher(theRangeHeader.trim());
+			if (!matcher.matches()) {
+				return null;
+			}
+
+			String first = matcher.group(1);
+			String last = matcher.group(2);
+			long start;
+			long end;
+			try {
+				if (isBlank(first)) {
+					if (isBlank(last)) {
+						return null;
+					}
+					// Suffix range, e.g. "bytes=-500" for the final 500 bytes
+					long suffixLength = Long.parseLong(last);
+					if (suffixLength == 0) {
+						return UNSATISFIABLE;
+					}
+					start = Math.max(0, theEntityLength - suffixLength);
+					end = theEntityLength - 1;
+				} else {
+					start = Long.parseLong(first);
+					end = theEntityLength - 1;
+					if (isNotBlank(last)) {
+						long requestedEnd = Long.parseLong(last);
+						if (requestedEnd < start) {
+							return null;
+						}
+						end = Math.min(requestedEnd, end);
+					}
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+
+			if (start >= theEntityLength) {
+				return UNSATISFIABLE;
+			}
+			return new ByteRange(start, end - start + 1);
+		}
+	}
 
 }
@@ -28,8 +28,10 @@ import ca.uhn.fhir.interceptor.api.Interceptor;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.jpa.dao.BaseHapiFhirDao;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.parser.SpooledBinaryData;
 import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import ca.uhn.fhir.rest.api.server.IPreResourceShowDetails;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.util.HapiExtensions;
 import ca.uhn.fhir.util.IModelVisitor2;
@@ -188,28 +190,55 @@ public class BinaryStorageInterceptor {
 
 		List<IBinaryTarget> attachments = recursivelyScanResourceForBinaryData(theResource);
 		for (IBinaryTarget nextTarget : attachments) {
-			byte[] data = nextTarget.getData();
-			if (data != null && data.length > 0) {
-
-				long nextPayloadLength = data.length;
-				String nextContentType = nextTarget.getContentType();
-				boolean shouldStoreBlob = myBinaryStorageSvc.shouldStoreBlob(nextPayloadLength, resourceId, nextContentType);
-				if (shouldStoreBlob) {
-
-					String newBlobId;
-					if (resourceId.hasIdPart()) {
-						ByteArrayInputStream inputStream = new ByteArrayInputStream(data);
-						StoredDetails storedDetails = myBinaryStorageSvc.storeBlob(resourceId, null, nextContentType, inputStream);
-						newBlobId = storedDetails.getBlobId();
-					} else {
-						assert thePointcut == Pointcut.STORAGE_PRESTORAGE_RESOURCE_CREATED : thePointcut.name();
-						newBlobId = myBinaryStorageSvc.newBlobId();
-						List<DeferredBinaryTarget> deferredBinaryTargets = getOrCreateDeferredBinaryStorageMap(theTransactionDetails);
-						DeferredBinaryTarget newDeferredBinaryTarget = new DeferredBinaryTarget(newBlobId, nextTarget, data);
-						deferredBinaryTargets.add(newDeferredBinaryTarget);
+
+			// Data may have been spooled to disk by the parser (see ParserOptions#setBinarySpoolThreshold)
+			SpooledBinaryData spooledData = SpooledBinaryData.fromElement(nextTarget.getTarget());
+			SpooledBinaryData.removeFromElement(nextTarget.getTarget());
+			boolean deferred = false;
+			try {
+
+				byte[] data = null;
+				long nextPayloadLength = 0;
+				if (spooledData != null) {
+					nextPayloadLength = spooledData.getSize();
+				} else {
+					data = nextTarget.getData();
+					if (data != null) {
+						nextPayloadLength = data.length;
 					}
+				}
 
-					myBinaryAccessProvider.replaceDataWithExtension(nextTarget, newBlobId);
+				if (nextPayloadLength > 0) {
+
+					String nextContentType = nextTarget.getContentType();
+					boolean shouldStoreBlob = myBinaryStorageSvc.shouldStoreBlob(nextPayloadLength, resourceId, nextContentType);
+					if (shouldStoreBlob) {
+
+						String newBlobId;
+						if (resourceId.hasIdPart()) {
+							try (InputStream inputStream = spooledData != null ? spooledData.openInputStream() : new ByteArrayInputStream(data)) {
+								StoredDetails storedDetails = myBinaryStorageSvc.storeBlob(resourceId, null, nextContentType, inputStream);
+								newBlobId = storedDetails.getBlobId();
+							}
+						} else {
+							assert thePointcut == Pointcut.STORAGE_PRESTORAGE_RESOURCE_CREATED : thePointcut.name();
+							newBlobId = myBinaryStorageSvc.newBlobId();
+							List<DeferredBinaryTarget> deferredBinaryTargets = getOrCreateDeferredBinaryStorageMap(theTransactionDetails);
+							DeferredBinaryTarget newDeferredBinaryTarget = new DeferredBinaryTarget(newBlobId, nextTarget, data, spooledData);
+							deferredBinaryTargets.add(newDeferredBinaryTarget);
+							deferred = true;
+						}
+
+						myBinaryAccessProvider.replaceDataWithExtension(nextTarget, newBlobId);
+
+					} else if (spooledData != null) {
+						nextTarget.setData(spooledData.toByteArray());
+					}
+				}
+
+			} finally {
+				if (spooledData != null && !deferred) {
+					spooledData.delete();
 				}
 			}
 
@@ -233,9 +262,12 @@ public class BinaryStorageInterceptor {
 			for (DeferredBinaryTarget next : deferredBinaryTargets) {
 				String blobId = next.getBlobId();
 				IBinaryTarget target = next.getBinaryTarget();
-				InputStream dataStream = next.getDataStream();
 				String contentType = target.getContentType();
-				myBinaryStorageSvc.storeBlob(resourceId, blobId, contentType, dataStream);
+				try (InputStream dataStream = next.openDataStream()) {
+					myBinaryStorageSvc.storeBlob(resourceId, blobId, contentType, dataStream);
+				} finally {
+					next.release();
+				}
 			}
 		}
 	}
@@ -245,7 +277,12 @@ public class BinaryStorageInterceptor {
 	}
 
 	@Hook(Pointcut.STORAGE_PRESHOW_RESOURCES)
-	public void preShow(IPreResourceShowDetails theDetails) throws IOException {
+	public void preShow(IPreResourceShowDetails theDetails, RequestDetails theRequestDetails) throws IOException {
+		if (theRequestDetails != null && JpaConstants.OPERATION_BINARY_ACCESS_READ.equals(theRequestDetails.getOperation())) {
+			// The operation streams externalized binaries itself, so don't load them into memory
+			return;
+		}
+
 		long unmarshalledByteCount = 0;
 
 		for (IBaseResource nextResource : theDetails) {
@@ -296,12 +333,14 @@ public class BinaryStorageInterceptor {
 	private static class DeferredBinaryTarget {
 		private final String myBlobId;
 		private final IBinaryTarget myBinaryTarget;
-		private final InputStream myDataStream;
+		private final byte[] myData;
+		private final SpooledBinaryData mySpooledData;
 
-		private DeferredBinaryTarget(String theBlobId, IBinaryTarget theBinaryTarget, byte[] theData) {
+		private DeferredBinaryTarget(String theBlobId, IBinaryTarget theBinaryTarget, byte[] theData, SpooledBinaryData theSpooledData) {
 			myBlobId = theBlobId;
 			myBinaryTarget = theBinaryTarget;
-			myDataStream = new ByteArrayInputStream(theData);
+			myData = theData;
+			mySpooledData = theSpooledData;
 		}
 
 		String getBlobId() {
@@ -312,8 +351,17 @@ public class BinaryStorageInterceptor {
 			return myBinaryTarget;
 		}
 
-		InputStream getDataStream() {
-			return myDataStream;
+		InputStream openDataStream() throws IOException {
+			if (mySpooledData != null) {
+				return mySpooledData.openInputStream();
+			}
+			return new ByteArrayInputStream(myData);
+		}
+
+		void release() {
+			if (mySpooledData != null) {
+				mySpooledData.delete();
+			}
 		}
 	}
 
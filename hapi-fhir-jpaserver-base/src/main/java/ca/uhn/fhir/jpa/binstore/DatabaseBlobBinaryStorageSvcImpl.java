@@ -25,8 +25,10 @@ import ca.uhn.fhir.jpa.dao.data.IBinaryStorageEntityDao;
 import ca.uhn.fhir.jpa.model.entity.BinaryStorageEntity;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import com.google.common.hash.HashingInputStream;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.hibernate.LobHelper;
 import org.hibernate.Session;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -39,6 +41,8 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceContextType;
 import javax.transaction.Transactional;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -50,6 +54,13 @@ import java.util.Optional;
 @Transactional
 public class DatabaseBlobBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 
+	/**
+	 * Uploads larger than this (1 MB) are spooled to a temporary file in the directory named by the
+	 * <code>java.io.tmpdir</code> system property rather than to memory. The file is deleted once the
+	 * blob has been stored, so the temporary directory needs room for the largest concurrent uploads.
+	 */
+	static final int SPOOL_TO_FILE_THRESHOLD_BYTES = 1024 * 1024;
+
 	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
 	private EntityManager myEntityManager;
 	@Autowired
@@ -82,27 +93,60 @@ public class DatabaseBlobBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 		entity.setBlobContentType(theContentType);
 		entity.setPublished(publishedDate);
 
-		Session session = (Session) myEntityManager.getDelegate();
-		LobHelper lobHelper = session.getLobHelper();
-		byte[] loadedStream = IOUtils.toByteArray(countingInputStream);
-		Blob dataBlob = lobHelper.createBlob(loadedStream);
-		entity.setBlob(dataBlob);
-
-		// Update the entity with the final byte count and hash
-		long bytes = countingInputStream.getCount();
-		String hash = hashingInputStream.hash().toString();
-		entity.setSize((int) bytes);
-		entity.setHash(hash);
-
-		// Save the entity
-		myEntityManager.persist(entity);
-
-		return new StoredDetails()
-			.setBlobId(id)
-			.setBytes(bytes)
-			.setPublished(publishedDate)
-			.setHash(hash)
-			.setContentType(theContentType);
+		/*
+		 * Some databases (e.g. MS SQL Server) need to know the size of a blob before
+		 * it is written, so the content is spooled first. Small payloads are kept in
+		 * memory, but anything larger than the threshold is spooled to a temporary
+		 * file and streamed from there so that large uploads don't consume heap.
+		 */
+		DeferredFileOutputStream spool = new DeferredFileOutputStream(SPOOL_TO_FILE_THRESHOLD_BYTES, "hapi-fhir-blob-", ".tmp", null);
+		InputStream spoolInputStream = null;
+		try {
+			try {
+				IOUtils.copyLarge(countingInputStream, spool);
+			} finally {
+				spool.close();
+			}
+
+			Session session = (Session) myEntityManager.getDelegate();
+			LobHelper lobHelper = session.getLobHelper();
+			Blob dataBlob;
+			if (spool.isInMemory()) {
+				dataBlob = lobHelper.createBlob(spool.getData());
+			} else {
+				File spoolFile = spool.getFile();
+				spoolInputStream = new FileInputStream(spoolFile);
+				dataBlob = lobHelper.createBlob(spoolInputStream, spoolFile.length());
+			}
+			entity.setBlob(dataBlob);
+
+			// Update the entity with the final byte count and hash
+			long bytes = countingInputStream.getCount();
+			String hash = hashingInputStream.hash().toString();
+			entity.setSize((int) bytes);
+			entity.setHash(hash);
+
+			// Save the entity
+			myEntityManager.persist(entity);
+
+			// The spooled file must be read before it is deleted below
+			if (!spool.isInMemory()) {
+				myEntityManager.flush();
+			}
+
+			return new StoredDetails()
+				.setBlobId(id)
+				.setBytes(bytes)
+				.setPublished(publishedDate)
+				.setHash(hash)
+				.setContentType(theContentType);
+
+		} finally {
+			IOUtils.closeQuietly(spoolInputStream);
+			if (!spool.isInMemory()) {
+				FileUtils.deleteQuietly(spool.getFile());
+			}
+		}
 	}
 
 	@Override
@@ -21,6 +21,9 @@ package ca.uhn.fhir.jpa.binstore;
  */
 
 import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -31,21 +34,42 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.jetbrains.annotations.Nullable;
+import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.Nonnull;
 import javax.annotation.PostConstruct;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FilesystemBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 
+	static final String CONTENT_DIRECTORY_NAME = "cas";
 	private static final Logger ourLog = LoggerFactory.getLogger(FilesystemBinaryStorageSvcImpl.class);
+	private static final String INCOMING_PREFIX = "incoming-";
+	private static final long INCOMING_FILE_MAX_AGE_MILLIS = DateUtils.MILLIS_PER_DAY;
+	private static final int MAX_LINK_ATTEMPTS = 3;
 	private final File myBasePath;
 	private final ObjectMapper myJsonSerializer;
+	private boolean myContentAddressed;
+	@Autowired(required = false)
+	private ISchedulerService mySchedulerService;
 
 	public FilesystemBinaryStorageSvcImpl(String theBasePath) {
 		Validate.notBlank(theBasePath);
@@ -62,6 +86,49 @@ public class FilesystemBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 		ourLog.info("Starting binary storage service with base path: {}", myBasePath);
 
 		mkdir(myBasePath);
+
+		if (myContentAddressed && mySchedulerService != null) {
+			ScheduledJobDefinition jobDetail = new ScheduledJobDefinition();
+			jobDetail.setId(getClass().getName());
+			jobDetail.setJobClass(ContentGarbageCollectionJob.class);
+			mySchedulerService.scheduleClusteredJob(DateUtils.MILLIS_PER_HOUR, jobDetail);
+		}
+	}
+
+	/**
+	 * Is content-addressed storage enabled? See {@link #setContentAddressed(boolean)}.
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isContentAddressed() {
+		return myContentAddressed;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), binary content is
+	 * deduplicated. Each distinct payload is stored only once, in a file named by the
+	 * SHA-256 hash of its contents, and every blob with that content is a hard link to
+	 * this file. The number of links therefore acts as a reference count which is
+	 * maintained atomically by the filesystem, even when several servers share the
+	 * same base path.
+	 * <p>
+	 * Blob IDs are still assigned per blob, so a blob can only be read using both its
+	 * resource ID and blob ID, and expunging a blob only removes that blob's link.
+	 * Content which is no longer referenced by any blob is removed by
+	 * {@link #collectGarbage()}, which is scheduled to run hourly when this service is
+	 * started by Spring.
+	 * </p>
+	 * <p>
+	 * This mode requires a filesystem which supports hard links and POSIX link counts.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public void setContentAddressed(boolean theContentAddressed) {
+		if (theContentAddressed && !myBasePath.toPath().getFileSystem().supportedFileAttributeViews().contains("unix")) {
+			throw new ConfigurationException("Content-addressed binary storage requires a filesystem with support for hard links");
+		}
+		myContentAddressed = theContentAddressed;
 	}
 
 	@Override
@@ -74,13 +141,27 @@ public class FilesystemBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 		ourLog.info("Writing to file: {}", storageFilename.getAbsolutePath());
 		CountingInputStream countingInputStream = createCountingInputStream(theInputStream);
 		HashingInputStream hashingInputStream = createHashingInputStream(countingInputStream);
-		try (FileOutputStream outputStream = new FileOutputStream(storageFilename)) {
-			IOUtils.copy(hashingInputStream, outputStream);
+
+		// Never write through an existing file, since it may be linked to shared content
+		Files.deleteIfExists(storageFilename.toPath());
+		String hash;
+		if (myContentAddressed) {
+			hash = storeContentAddressedBlob(countingInputStream, hashingInputStream, storageFilename);
+		} else {
+			try (FileOutputStream outputStream = new FileOutputStream(storageFilename)) {
+				IOUtils.copy(hashingInputStream, outputStream);
+			}
+			hash = hashingInputStream.hash().toString();
 		}
 
 		// Write descriptor file
 		long count = countingInputStream.getCount();
-		StoredDetails details = new StoredDetails(id, count, theContentType, hashingInputStream, new Date());
+		StoredDetails details = new StoredDetails()
+			.setBlobId(id)
+			.setBytes(count)
+			.setContentType(theContentType)
+			.setHash(hash)
+			.setPublished(new Date());
 		File descriptorFilename = getDescriptorFilename(storagePath, theResourceId, id);
 		ourLog.info("Writing to file: {}", descriptorFilename.getAbsolutePath());
 		try (FileWriter writer = new FileWriter(descriptorFilename)) {
@@ -92,6 +173,113 @@ public class FilesystemBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 		return details;
 	}
 
+	/**
+	 * The hash of the content isn't known until it has been read, so the content is
+	 * written to an incoming file first. That file is then either published as the
+	 * content file for its hash or, if identical content was already stored, discarded.
+	 */
+	@SuppressWarnings("UnstableApiUsage")
+	private String storeContentAddressedBlob(CountingInputStream theCountingInputStream, HashingInputStream theHashingInputStream, File theStorageFilename) throws IOException {
+		File contentDirectory = getContentDirectory();
+		mkdir(contentDirectory);
+
+		File incomingFile = File.createTempFile(INCOMING_PREFIX, ".tmp", contentDirectory);
+		try {
+			try (FileOutputStream outputStream = new FileOutputStream(incomingFile)) {
+				IOUtils.copy(theHashingInputStream, outputStream);
+			}
+
+			// Enforces the maximum size before anything is published
+			theCountingInputStream.getCount();
+
+			String hash = theHashingInputStream.hash().toString();
+			File contentFile = getContentFilename(hash);
+			mkdir(contentFile.getParentFile());
+
+			for (int attempt = 1; ; attempt++) {
+				try {
+					Files.createLink(contentFile.toPath(), incomingFile.toPath());
+				} catch (FileAlreadyExistsException e) {
+					ourLog.debug("Content with hash {} is already stored, reusing it", hash);
+				}
+				try {
+					Files.createLink(theStorageFilename.toPath(), contentFile.toPath());
+					return hash;
+				} catch (NoSuchFileException e) {
+					// The content was garbage collected between the two steps above
+					if (attempt >= MAX_LINK_ATTEMPTS) {
+						throw e;
+					}
+				}
+			}
+
+		} finally {
+			FileUtils.deleteQuietly(incomingFile);
+		}
+	}
+
+	/**
+	 * Deletes any stored content which is no longer referenced by a blob, as well as any
+	 * incoming files abandoned by uploads which did not complete. This method does nothing
+	 * unless {@link #setContentAddressed(boolean) content-addressed storage} is enabled.
+	 * <p>
+	 * This is safe to run while blobs are being stored and expunged. A blob holds its own
+	 * link to its content, so deleting a content file which has just gained a new reference
+	 * never removes the data for that blob.
+	 * </p>
+	 *
+	 * @return Returns the number of unreferenced content files which were deleted
+	 * @since 5.2.0
+	 */
+	public synchronized int collectGarbage() throws IOException {
+		File contentDirectory = getContentDirectory();
+		if (!myContentAddressed || !contentDirectory.exists()) {
+			return 0;
+		}
+
+		long incomingCutoff = System.currentTimeMillis() - INCOMING_FILE_MAX_AGE_MILLIS;
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(contentDirectory.toPath())) {
+			files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+
+		int deleted = 0;
+		long deletedBytes = 0;
+		for (Path next : files) {
+			try {
+				String name = next.getFileName().toString();
+				if (name.startsWith(INCOMING_PREFIX)) {
+					if (Files.getLastModifiedTime(next).toMillis() < incomingCutoff) {
+						Files.deleteIfExists(next);
+					}
+				} else if (getLinkCount(next) <= 1) {
+					long size = Files.size(next);
+					if (Files.deleteIfExists(next)) {
+						deleted++;
+						deletedBytes += size;
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// Removed concurrently
+			}
+		}
+
+		ourLog.info("Binary storage garbage collection deleted {} unreferenced content files ({} bytes)", deleted, deletedBytes);
+		return deleted;
+	}
+
+	/**
+	 * Returns the number of blobs which reference the given content file (the
+	 * content file's own name is not counted)
+	 */
+	static int getReferenceCount(File theContentFile) throws IOException {
+		return getLinkCount(theContentFile.toPath()) - 1;
+	}
+
+	private static int getLinkCount(Path thePath) throws IOException {
+		return (Integer) Files.getAttribute(thePath, "unix:nlink");
+	}
+
 	@Override
 	public StoredDetails fetchBlobDetails(IIdType theResourceId, String theBlobId) throws IOException {
 		StoredDetails retVal = null;
@@ -113,31 +301,57 @@ public class FilesystemBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 
 	@Override
 	public boolean writeBlob(IIdType theResourceId, String theBlobId, OutputStream theOutputStream) throws IOException {
-		InputStream inputStream = getInputStream(theResourceId, theBlobId);
+		return writeBlob(theResourceId, theBlobId, theOutputStream, 0, Long.MAX_VALUE);
+	}
 
-		if (inputStream != null) {
-			try {
-				IOUtils.copy(inputStream, theOutputStream);
-				theOutputStream.close();
-			} finally {
-				inputStream.close();
+	@Override
+	public boolean writeBlob(IIdType theResourceId, String theBlobId, OutputStream theOutputStream, long theOffset, long theLength) throws IOException {
+		File file = getStorageFile(theResourceId, theBlobId);
+		if (file == null) {
+			return false;
+		}
+
+		/*
+		 * Reading through a channel lets us start at the requested offset without
+		 * reading the bytes before it. Note that this isn't a zero-copy transfer:
+		 * the target is a stream wrapped as a channel, so transferTo still copies
+		 * the bytes through a small heap buffer.
+		 */
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(theOutputStream);
+			long position = theOffset;
+			long end = position + Math.min(theLength, Math.max(0, channel.size() - position));
+			while (position < end) {
+				long transferred = channel.transferTo(position, end - position, target);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
 			}
 		}
 
-		return false;
+		return true;
 	}
 
 	@Nullable
-	private InputStream getInputStream(IIdType theResourceId, String theBlobId) throws FileNotFoundException {
+	private File getStorageFile(IIdType theResourceId, String theBlobId) {
 		File storagePath = getStoragePath(theBlobId, false);
-		InputStream inputStream = null;
 		if (storagePath != null) {
 			File file = getStorageFilename(storagePath, theResourceId, theBlobId);
 			if (file.exists()) {
-				inputStream = new FileInputStream(file);
+				return file;
 			}
 		}
-		return inputStream;
+		return null;
+	}
+
+	@Nullable
+	private InputStream getInputStream(IIdType theResourceId, String theBlobId) throws FileNotFoundException {
+		File file = getStorageFile(theResourceId, theBlobId);
+		if (file != null) {
+			return new FileInputStream(file);
+		}
+		return null;
 	}
 
 	@Override
@@ -173,6 +387,16 @@ public class FilesystemBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 		Validate.isTrue(theStorageFile.delete(), "Failed to delete file for blob %s", theBlobId);
 	}
 
+	private File getContentDirectory() {
+		return new File(myBasePath, CONTENT_DIRECTORY_NAME);
+	}
+
+	@Nonnull
+	File getContentFilename(String theHash) {
+		File directory = new File(new File(getContentDirectory(), theHash.substring(0, 2)), theHash.substring(2, 4));
+		return new File(directory, theHash + ".bin");
+	}
+
 	@Nonnull
 	private File getDescriptorFilename(File theStoragePath, IIdType theResourceId, String theId) {
 		return getStorageFilename(theStoragePath, theResourceId, theId, ".json");
@@ -213,4 +437,20 @@ public class FilesystemBinaryStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 			throw new ConfigurationException("Unable to create path " + myBasePath + ": " + e.toString());
 		}
 	}
+
+	public static class ContentGarbageCollectionJob implements HapiJob {
+		@Autowired
+		private IBinaryStorageSvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			if (myTarget instanceof FilesystemBinaryStorageSvcImpl) {
+				try {
+					((FilesystemBinaryStorageSvcImpl) myTarget).collectGarbage();
+				} catch (IOException e) {
+					ourLog.error("Failed to collect unreferenced binary content", e);
+				}
+			}
+		}
+	}
 }
@@ -91,6 +91,23 @@ public interface IBinaryStorageSvc {
 	 */
 	boolean writeBlob(IIdType theResourceId, String theBlobId, OutputStream theOutputStream) throws IOException;
 
+	/**
+	 * Writes a range of bytes from the given blob, as used to satisfy an HTTP <code>Range</code> request.
+	 * <p>
+	 * The default implementation writes the whole blob using {@link #writeBlob(IIdType, String, OutputStream)},
+	 * skipping the bytes before the range and discarding the bytes after it. Implementations which can
+	 * seek within a blob should override this method.
+	 * </p>
+	 *
+	 * @param theOffset The index of the first byte to write
+	 * @param theLength The number of bytes to write. If fewer bytes are available after <code>theOffset</code>, only the available bytes are written.
+	 * @return Returns <code>true</code> if the blob was found and written, of <code>false</code> if the blob was not found (i.e. it was expunged or the ID was invalid)
+	 * @since 5.2.0
+	 */
+	default boolean writeBlob(IIdType theResourceId, String theBlobId, OutputStream theOutputStream, long theOffset, long theLength) throws IOException {
+		return writeBlob(theResourceId, theBlobId, new RangeOutputStream(theOutputStream, theOffset, theLength));
+	}
+
 	void expungeBlob(IIdType theResourceId, String theBlobId);
 
 	/**
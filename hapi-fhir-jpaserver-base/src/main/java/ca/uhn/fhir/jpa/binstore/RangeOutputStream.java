@@ -0,0 +1,70 @@
+package ca.uhn.fhir.jpa.binstore;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Passes on only the bytes within a given range of everything written to it, discarding
+ * any bytes before and after that range
+ *
+ * @see IBinaryStorageSvc#writeBlob(org.hl7.fhir.instance.model.api.IIdType, String, OutputStream, long, long)
+ */
+class RangeOutputStream extends OutputStream {
+
+	private final OutputStream myTarget;
+	private long mySkipRemaining;
+	private long myWriteRemaining;
+
+	RangeOutputStream(OutputStream theTarget, long theOffset, long theLength) {
+		myTarget = theTarget;
+		mySkipRemaining = theOffset;
+		myWriteRemaining = theLength;
+	}
+
+	@Override
+	public void write(int theByte) throws IOException {
+		if (mySkipRemaining > 0) {
+			mySkipRemaining--;
+		} else if (myWriteRemaining > 0) {
+			myWriteRemaining--;
+			myTarget.write(theByte);
+		}
+	}
+
+	@Override
+	public void write(byte[] theBytes, int theOffset, int theLength) throws IOException {
+		int skip = (int) Math.min(mySkipRemaining, theLength);
+		mySkipRemaining -= skip;
+		int write = (int) Math.min(myWriteRemaining, theLength - skip);
+		if (write > 0) {
+			myWriteRemaining -= write;
+			myTarget.write(theBytes, theOffset + skip, write);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		myTarget.flush();
+	}
+
+}
@@ -20,6 +20,7 @@ package ca.uhn.fhir.jpa.bulk.api;
  * #L%
  */
 
+import ca.uhn.fhir.jpa.bulk.model.BulkExportStyleEnum;
 import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
 import org.hl7.fhir.instance.model.api.IIdType;
 
@@ -37,6 +38,15 @@ public interface IBulkDataExportSvc {
 
 	JobInfo submitJob(String theOutputFormat, Set<String> theResourceTypes, Date theSince, Set<String> theFilters);
 
+	/**
+	 * Submits a new bulk export job at the given level. Patient-level and Group-level exports only
+	 * include resources in the Patient compartment (of the members of the Group, for a Group-level export).
+	 *
+	 * @param theGroupId The ID of the Group to export, which must be provided if (and only if) the export style is {@link BulkExportStyleEnum#GROUP}
+	 * @since 5.2.0
+	 */
+	JobInfo submitJob(String theOutputFormat, Set<String> theResourceTypes, Date theSince, Set<String> theFilters, BulkExportStyleEnum theExportStyle, String theGroupId);
+
 	JobInfo getJobInfoOrThrowResourceNotFound(String theJobId);
 
 	void cancelAndPurgeAllJobs();
@@ -48,6 +58,42 @@ public interface IBulkDataExportSvc {
 		private String myRequest;
 		private Date myStatusTime;
 		private String myStatusMessage;
+		private BulkExportStyleEnum myExportStyle = BulkExportStyleEnum.SYSTEM;
+		private String myGroupId;
+
+		/**
+		 * @since 5.2.0
+		 */
+		public BulkExportStyleEnum getExportStyle() {
+			return myExportStyle;
+		}
+
+		/**
+		 * @since 5.2.0
+		 */
+		public JobInfo setExportStyle(BulkExportStyleEnum theExportStyle) {
+			myExportStyle = theExportStyle;
+			return this;
+		}
+
+		/**
+		 * The ID (without the resource type) of the Group being exported, for a Group-level export
+		 *
+		 * @since 5.2.0
+		 */
+		public String getGroupId() {
+			return myGroupId;
+		}
+
+		/**
+		 * The ID (without the resource type) of the Group being exported, for a Group-level export
+		 *
+		 * @since 5.2.0
+		 */
+		public JobInfo setGroupId(String theGroupId) {
+			myGroupId = theGroupId;
+			return this;
+		}
 
 		public String getRequest() {
 			return myRequest;
@@ -0,0 +1,49 @@
+package ca.uhn.fhir.jpa.bulk.api;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+/**
+ * Imports resources from NDJSON files located on the local filesystem of the server. Jobs are
+ * tracked in the same tables as bulk export jobs, so their status is reported using
+ * {@link IBulkDataExportSvc.JobInfo}.
+ *
+ * @since 5.2.0
+ */
+public interface IBulkDataImportSvc {
+
+	/**
+	 * Starts a new import job
+	 *
+	 * @param theInputs                       The NDJSON files to import, relative to the configured
+	 *                                        {@link ca.uhn.fhir.jpa.api.config.DaoConfig#setBulkImportDirectory(String) bulk import directory}.
+	 *                                        If an input is a directory, all of the <code>.ndjson</code> files
+	 *                                        directly within it are imported.
+	 * @param theEnforceReferentialIntegrity If <code>false</code>, references to resources which do not exist
+	 *                                        (e.g. because they appear in a later file) are not treated as
+	 *                                        errors. The links are indexed once the import has completed.
+	 */
+	IBulkDataExportSvc.JobInfo submitJob(List<String> theInputs, boolean theEnforceReferentialIntegrity);
+
+	IBulkDataExportSvc.JobInfo getJobInfoOrThrowResourceNotFound(String theJobId);
+
+}
@@ -48,6 +48,7 @@ public class BulkExportJobCloser implements Tasklet {
 		} else {
 			myBulkExportDaoSvc.setJobToStatus(myJobUUID, BulkJobStatusEnum.ERROR);
 		}
+		myBulkExportDaoSvc.clearGroupMemberPids(myJobUUID);
 		return RepeatStatus.FINISHED;
 	}
 }
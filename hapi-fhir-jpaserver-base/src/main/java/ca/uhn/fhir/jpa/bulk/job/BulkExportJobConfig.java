@@ -20,6 +20,7 @@ package ca.uhn.fhir.jpa.bulk.job;
  * #L%
  */
 
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
 import ca.uhn.fhir.jpa.batch.processors.PidToIBaseResourceProcessor;
 import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -30,17 +31,23 @@ import org.springframework.batch.core.configuration.annotation.JobBuilderFactory
 import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.List;
 
 /**
  * Spring batch Job configuration file. Contains all necessary plumbing to run a
  * Bulk Export job.
+ * <p>
+ * Each resource type is split into partitions covering ranges of PIDs, which are exported concurrently
+ * by {@link DaoConfig#getBulkExportThreadCount()} worker threads, using a thread pool which is created
+ * once and shared by all runs of the job.
+ * </p>
  */
 @Configuration
 public class BulkExportJobConfig {
@@ -54,6 +61,9 @@ public class BulkExportJobConfig {
 	@Autowired
 	private PidToIBaseResourceProcessor myPidToIBaseResourceProcessor;
 
+	@Autowired
+	private DaoConfig myDaoConfig;
+
 	@Bean
 	@Lazy
 	public Job bulkExportJob() {
@@ -86,7 +96,7 @@ public class BulkExportJobConfig {
 	@Bean
 	public Step bulkExportGenerateResourceFilesStep() {
 		return myStepBuilderFactory.get("bulkExportGenerateResourceFilesStep")
-			.<List<ResourcePersistentId>, List<IBaseResource>> chunk(100) //1000 resources per generated file, as the reader returns 10 resources at a time.
+			.<List<ResourcePersistentId>, List<IBaseResource>> chunk(10) //1000 resources per transaction, as the reader returns 100 resources at a time.
 			.reader(bulkItemReader())
 			.processor(myPidToIBaseResourceProcessor)
 			.writer(resourceToFileWriter())
@@ -117,6 +127,7 @@ public class BulkExportJobConfig {
 		return myStepBuilderFactory.get("partitionStep")
 			.partitioner("bulkExportGenerateResourceFilesStep", bulkExportResourceTypePartitioner())
 			.step(bulkExportGenerateResourceFilesStep())
+			.taskExecutor(bulkExportTaskExecutor())
 			.build();
 	}
 
@@ -134,8 +145,19 @@ public class BulkExportJobConfig {
 
 	@Bean
 	@StepScope
-	public ItemWriter<List<IBaseResource>> resourceToFileWriter() {
+	public ResourceToFileWriter resourceToFileWriter() {
 		return new ResourceToFileWriter();
 	}
 
+	@Bean
+	@Lazy
+	public TaskExecutor bulkExportTaskExecutor() {
+		ThreadPoolTaskExecutor retVal = new ThreadPoolTaskExecutor();
+		retVal.setCorePoolSize(myDaoConfig.getBulkExportThreadCount());
+		retVal.setMaxPoolSize(myDaoConfig.getBulkExportThreadCount());
+		retVal.setThreadNamePrefix("bulk-export-job-");
+		retVal.initialize();
+		return retVal;
+	}
+
 }
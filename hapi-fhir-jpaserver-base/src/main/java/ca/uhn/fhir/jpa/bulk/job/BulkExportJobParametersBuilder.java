@@ -20,6 +20,7 @@ package ca.uhn.fhir.jpa.bulk.job;
  * #L%
  */
 
+import ca.uhn.fhir.jpa.bulk.model.BulkExportStyleEnum;
 import ca.uhn.fhir.rest.api.Constants;
 import org.springframework.batch.core.JobParametersBuilder;
 
@@ -61,6 +62,24 @@ public class BulkExportJobParametersBuilder extends JobParametersBuilder {
 		this.addString("jobUUID", theJobUUID);
 		return this;
 	}
+	/**
+	 * @since 5.2.0
+	 */
+	public BulkExportJobParametersBuilder setExportStyle(BulkExportStyleEnum theExportStyle) {
+		this.addString("exportStyle", theExportStyle.name());
+		return this;
+	}
+
+	/**
+	 * The ID (without the resource type) of the Group to export, for a Group-level export
+	 *
+	 * @since 5.2.0
+	 */
+	public BulkExportJobParametersBuilder setGroupId(String theGroupId) {
+		this.addString("groupId", theGroupId);
+		return this;
+	}
+
 	public BulkExportJobParametersBuilder setReadChunkSize(Long theReadChunkSize) {
 		this.addLong("readChunkSize", theReadChunkSize);
 		return this;
@@ -0,0 +1,62 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.search.reindex.IResourceReindexingSvc;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * When referential integrity is not enforced, resources may be stored before the resources they
+ * refer to, in which case the links to those targets are not indexed. Once everything has been
+ * stored, this tasklet marks the imported resources for reindexing, so that the missing links are
+ * created in the background by the regular reindexing job.
+ */
+public class BulkImportDeferredIndexingTasklet implements Tasklet {
+
+	@Value("#{jobParameters['" + BulkImportJobParametersBuilder.ENFORCE_REFERENTIAL_INTEGRITY + "']}")
+	private String myEnforceReferentialIntegrity;
+	@Autowired
+	private IResourceReindexingSvc myResourceReindexingSvc;
+
+	@Override
+	public RepeatStatus execute(StepContribution theStepContribution, ChunkContext theChunkContext) {
+		if (Boolean.parseBoolean(myEnforceReferentialIntegrity)) {
+			return RepeatStatus.FINISHED;
+		}
+
+		JobExecution jobExecution = theChunkContext.getStepContext().getStepExecution().getJobExecution();
+		String resourceTypes = jobExecution.getExecutionContext().getString(BulkImportResourceWriter.IMPORTED_RESOURCE_TYPES, "");
+		for (String next : resourceTypes.split(",")) {
+			if (isNotBlank(next)) {
+				myResourceReindexingSvc.markResourcesForReindexing(next, jobExecution.getStartTime());
+			}
+		}
+		return RepeatStatus.FINISHED;
+	}
+}
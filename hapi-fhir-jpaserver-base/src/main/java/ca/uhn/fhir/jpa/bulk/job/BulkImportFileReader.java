@@ -0,0 +1,131 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.batch.log.Logs;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Reads the lines of the NDJSON files being imported, one file after another. Lines are returned
+ * unparsed, so that parsing happens in the worker threads of the step instead of in this reader.
+ * <p>
+ * This reader is shared by all of the worker threads of the step, so {@link #read()} is synchronized.
+ * </p>
+ */
+public class BulkImportFileReader implements ItemReader<BulkImportFileReader.NdJsonLine>, ItemStream {
+	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
+
+	@Value("#{jobParameters['" + BulkImportJobParametersBuilder.INPUT_FILES + "']}")
+	private String myInputFiles;
+
+	private Iterator<File> myFileIterator;
+	private File myCurrentFile;
+	private BufferedReader myCurrentReader;
+	private int myLineNumber;
+
+	@Override
+	public void open(ExecutionContext theExecutionContext) throws ItemStreamException {
+		myFileIterator = Arrays
+			.stream(myInputFiles.split(File.pathSeparator))
+			.map(File::new)
+			.iterator();
+	}
+
+	@Override
+	public synchronized NdJsonLine read() throws IOException {
+		while (true) {
+			if (myCurrentReader == null) {
+				if (!myFileIterator.hasNext()) {
+					return null;
+				}
+				myCurrentFile = myFileIterator.next();
+				myCurrentReader = Files.newBufferedReader(myCurrentFile.toPath(), StandardCharsets.UTF_8);
+				myLineNumber = 0;
+				ourLog.info("Importing resources from file: {}", myCurrentFile.getName());
+			}
+
+			String line = myCurrentReader.readLine();
+			if (line == null) {
+				myCurrentReader.close();
+				myCurrentReader = null;
+				continue;
+			}
+
+			myLineNumber++;
+			if (isBlank(line)) {
+				continue;
+			}
+
+			return new NdJsonLine(myCurrentFile.getName(), myLineNumber, line);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext theExecutionContext) throws ItemStreamException {
+		// nothing
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		IOUtils.closeQuietly(myCurrentReader);
+		myCurrentReader = null;
+	}
+
+	public static class NdJsonLine {
+		private final String myFileName;
+		private final int myLineNumber;
+		private final String myContent;
+
+		public NdJsonLine(String theFileName, int theLineNumber, String theContent) {
+			myFileName = theFileName;
+			myLineNumber = theLineNumber;
+			myContent = theContent;
+		}
+
+		public String getFileName() {
+			return myFileName;
+		}
+
+		public int getLineNumber() {
+			return myLineNumber;
+		}
+
+		public String getContent() {
+			return myContent;
+		}
+	}
+}
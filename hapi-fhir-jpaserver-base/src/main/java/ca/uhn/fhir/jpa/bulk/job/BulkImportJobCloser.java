@@ -0,0 +1,65 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
+import ca.uhn.fhir.jpa.bulk.svc.BulkExportDaoSvc;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Will run after a bulk import job to record its outcome in the job table. This is a listener rather
+ * than a final step so that the outcome is recorded even if one of the steps fails.
+ */
+public class BulkImportJobCloser implements JobExecutionListener {
+
+	@Autowired
+	private BulkExportDaoSvc myBulkExportDaoSvc;
+
+	@Override
+	public void beforeJob(JobExecution theJobExecution) {
+		// nothing
+	}
+
+	@Override
+	public void afterJob(JobExecution theJobExecution) {
+		String jobUUID = theJobExecution.getJobParameters().getString(BulkImportJobParametersBuilder.JOB_UUID);
+
+		if (theJobExecution.getStatus() == BatchStatus.COMPLETED) {
+			int fileCount = theJobExecution.getJobParameters().getString(BulkImportJobParametersBuilder.INPUT_FILES).split(File.pathSeparator).length;
+			int resourceCount = 0;
+			for (StepExecution next : theJobExecution.getStepExecutions()) {
+				resourceCount += next.getWriteCount();
+			}
+			myBulkExportDaoSvc.setJobToStatus(jobUUID, BulkJobStatusEnum.COMPLETE, "Imported " + resourceCount + " resources from " + fileCount + " files");
+		} else {
+			List<Throwable> failures = theJobExecution.getAllFailureExceptions();
+			String message = failures.isEmpty() ? "Job finished with status " + theJobExecution.getStatus() : failures.get(0).getMessage();
+			myBulkExportDaoSvc.setJobToStatus(jobUUID, BulkJobStatusEnum.ERROR, message);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Spring batch Job configuration file. Contains all necessary plumbing to run a
+ * Bulk Import job.
+ * <p>
+ * The lines of the input files are read sequentially, and are then parsed and stored by
+ * {@link DaoConfig#getBulkImportThreadCount()} worker threads. Each worker stores
+ * {@link DaoConfig#getBulkImportBatchSize()} resources per database transaction.
+ * </p>
+ * <p>
+ * When referential integrity is enforced, a resource can only be stored once the resources it
+ * refers to have been committed, so the chunks are instead stored one at a time, in the order in
+ * which they appear in the input files.
+ * </p>
+ */
+@Configuration
+public class BulkImportJobConfig {
+
+	public static final String BULK_IMPORT_JOB_NAME = "bulkImportJob";
+
+	@Autowired
+	private StepBuilderFactory myStepBuilderFactory;
+
+	@Autowired
+	private JobBuilderFactory myJobBuilderFactory;
+
+	@Autowired
+	private DaoConfig myDaoConfig;
+
+	@Bean
+	@Lazy
+	public Job bulkImportJob() {
+		return myJobBuilderFactory.get(BULK_IMPORT_JOB_NAME)
+			.validator(bulkImportJobParameterValidator())
+			.listener(bulkImportJobCloser())
+			.start(bulkImportResourcesStep())
+			.next(bulkImportDeferredIndexingStep())
+			.build();
+	}
+
+	@Bean
+	public JobParametersValidator bulkImportJobParameterValidator() {
+		return new BulkImportJobParameterValidator();
+	}
+
+	@Bean
+	public Step bulkImportResourcesStep() {
+		return myStepBuilderFactory.get("bulkImportResourcesStep")
+			.<BulkImportFileReader.NdJsonLine, IBaseResource>chunk(bulkImportCompletionPolicy())
+			.reader(bulkImportFileReader())
+			.processor(bulkImportParseProcessor())
+			.writer(bulkImportResourceWriter())
+			.taskExecutor(bulkImportChunkTaskExecutor(null))
+			.throttleLimit(myDaoConfig.getBulkImportThreadCount())
+			.build();
+	}
+
+	@Bean
+	public Step bulkImportDeferredIndexingStep() {
+		return myStepBuilderFactory.get("bulkImportDeferredIndexingStep")
+			.tasklet(bulkImportDeferredIndexingTasklet())
+			.build();
+	}
+
+	@Bean
+	@StepScope
+	public CompletionPolicy bulkImportCompletionPolicy() {
+		return new SimpleCompletionPolicy(myDaoConfig.getBulkImportBatchSize());
+	}
+
+	@Bean
+	@StepScope
+	public BulkImportFileReader bulkImportFileReader() {
+		return new BulkImportFileReader();
+	}
+
+	@Bean
+	public BulkImportParseProcessor bulkImportParseProcessor() {
+		return new BulkImportParseProcessor();
+	}
+
+	@Bean
+	@StepScope
+	public BulkImportResourceWriter bulkImportResourceWriter() {
+		return new BulkImportResourceWriter();
+	}
+
+	@Bean
+	@StepScope
+	public BulkImportDeferredIndexingTasklet bulkImportDeferredIndexingTasklet() {
+		return new BulkImportDeferredIndexingTasklet();
+	}
+
+	@Bean
+	public BulkImportJobCloser bulkImportJobCloser() {
+		return new BulkImportJobCloser();
+	}
+
+	/**
+	 * Chunks are stored in parallel unless referential integrity is enforced, in which case they
+	 * are stored sequentially in file order, so that chunks containing reference targets are always
+	 * committed before the chunks which refer to them. The shared pool is not shut down when the
+	 * job scope ends.
+	 */
+	@Bean(destroyMethod = "")
+	@JobScope
+	public TaskExecutor bulkImportChunkTaskExecutor(@Value("#{jobParameters['" + BulkImportJobParametersBuilder.ENFORCE_REFERENTIAL_INTEGRITY + "']}") String theEnforceReferentialIntegrity) {
+		if (Boolean.parseBoolean(theEnforceReferentialIntegrity)) {
+			return new SyncTaskExecutor();
+		}
+		return bulkImportTaskExecutor();
+	}
+
+	@Bean
+	public TaskExecutor bulkImportTaskExecutor() {
+		ThreadPoolTaskExecutor retVal = new ThreadPoolTaskExecutor();
+		retVal.setCorePoolSize(myDaoConfig.getBulkImportThreadCount());
+		retVal.setMaxPoolSize(myDaoConfig.getBulkImportThreadCount());
+		retVal.setThreadNamePrefix("bulk-import-job-");
+		retVal.initialize();
+		return retVal;
+	}
+
+}
@@ -0,0 +1,71 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
+
+/**
+ * This class will prevent a bulk import job from running if bulk import is disabled or any of the input files can not be read.
+ */
+public class BulkImportJobParameterValidator implements JobParametersValidator {
+	@Autowired
+	private DaoConfig myDaoConfig;
+
+	@Override
+	public void validate(JobParameters theJobParameters) throws JobParametersInvalidException {
+		if (theJobParameters == null) {
+			throw new JobParametersInvalidException("This job needs Parameters: [jobUUID], [inputFiles]");
+		}
+
+		StringBuilder errorBuilder = new StringBuilder();
+		if (StringUtils.isBlank(myDaoConfig.getBulkImportDirectory())) {
+			errorBuilder.append("$import is not enabled on this server. ");
+		}
+
+		if (StringUtils.isBlank(theJobParameters.getString(BulkImportJobParametersBuilder.JOB_UUID))) {
+			errorBuilder.append("Missing parameter: [jobUUID]. ");
+		}
+
+		String inputFiles = theJobParameters.getString(BulkImportJobParametersBuilder.INPUT_FILES);
+		if (StringUtils.isBlank(inputFiles)) {
+			errorBuilder.append("Missing parameter: [inputFiles]. ");
+		} else {
+			for (String next : inputFiles.split(File.pathSeparator)) {
+				File file = new File(next);
+				if (!file.isFile() || !file.canRead()) {
+					errorBuilder.append("Can not read input file: ").append(file.getName()).append(". ");
+				}
+			}
+		}
+
+		String errorMessage = errorBuilder.toString().trim();
+		if (!StringUtils.isEmpty(errorMessage)) {
+			throw new JobParametersInvalidException(errorMessage);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.springframework.batch.core.JobParametersBuilder;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * This builder is a helper so you don't have to go lookup what job parameters are required for a bulk import job.
+ */
+public class BulkImportJobParametersBuilder extends JobParametersBuilder {
+
+	public static final String JOB_UUID = "jobUUID";
+	public static final String INPUT_FILES = "inputFiles";
+	public static final String ENFORCE_REFERENTIAL_INTEGRITY = "enforceReferentialIntegrity";
+
+	public BulkImportJobParametersBuilder setJobUUID(String theJobUUID) {
+		this.addString(JOB_UUID, theJobUUID);
+		return this;
+	}
+
+	/**
+	 * The absolute paths of the NDJSON files to import, in the order that they should be read
+	 */
+	public BulkImportJobParametersBuilder setInputFiles(List<String> theInputFiles) {
+		this.addString(INPUT_FILES, String.join(File.pathSeparator, theInputFiles));
+		return this;
+	}
+
+	public BulkImportJobParametersBuilder setEnforceReferentialIntegrity(boolean theEnforceReferentialIntegrity) {
+		this.addString(ENFORCE_REFERENTIAL_INTEGRITY, Boolean.toString(theEnforceReferentialIntegrity));
+		return this;
+	}
+}
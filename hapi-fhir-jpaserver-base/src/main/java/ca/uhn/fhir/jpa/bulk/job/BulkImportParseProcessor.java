@@ -0,0 +1,46 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Parses a single line of an NDJSON file. This runs in the worker threads of the import step, so
+ * the files are parsed in parallel.
+ */
+public class BulkImportParseProcessor implements ItemProcessor<BulkImportFileReader.NdJsonLine, IBaseResource> {
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Override
+	public IBaseResource process(BulkImportFileReader.NdJsonLine theLine) {
+		try {
+			return myFhirContext.newJsonParser().parseResource(theLine.getContent());
+		} catch (DataFormatException e) {
+			throw new DataFormatException("Failed to parse line " + theLine.getLineNumber() + " of file " + theLine.getFileName() + ": " + e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package ca.uhn.fhir.jpa.bulk.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.batch.log.Logs;
+import ca.uhn.fhir.jpa.searchparam.extractor.IResourceLinkResolver;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores a chunk of parsed resources. Each chunk is written in a single database transaction (the
+ * chunk transaction of the step), and all of the resources in the chunk share a single
+ * {@link TransactionDetails}, so that references which have already been resolved for one resource
+ * in the chunk are not looked up again for the next.
+ * <p>
+ * Resources which have an ID are stored using an update (so the ID is kept), and resources without
+ * one are created with a server assigned ID.
+ * </p>
+ */
+public class BulkImportResourceWriter implements ItemWriter<IBaseResource>, StepExecutionListener {
+	public static final String IMPORTED_RESOURCE_TYPES = "importedResourceTypes";
+	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
+
+	@Value("#{jobParameters['" + BulkImportJobParametersBuilder.ENFORCE_REFERENTIAL_INTEGRITY + "']}")
+	private String myEnforceReferentialIntegrity;
+	@Autowired
+	private FhirContext myFhirContext;
+	@Autowired
+	private DaoRegistry myDaoRegistry;
+
+	private final Set<String> myResourceTypes = ConcurrentHashMap.newKeySet();
+
+	@Override
+	public void write(List<? extends IBaseResource> theResources) {
+		TransactionDetails transactionDetails = new TransactionDetails();
+		if (!Boolean.parseBoolean(myEnforceReferentialIntegrity)) {
+			transactionDetails.putUserData(IResourceLinkResolver.USER_DATA_ENFORCE_REFERENTIAL_INTEGRITY, Boolean.FALSE);
+		}
+
+		for (IBaseResource next : theResources) {
+			String resourceType = myFhirContext.getResourceType(next);
+			IFhirResourceDao<IBaseResource> dao = myDaoRegistry.getResourceDao(resourceType);
+			if (next.getIdElement().hasIdPart()) {
+				next.setId(next.getIdElement().toUnqualifiedVersionless());
+				dao.update(next, null, true, false, null, transactionDetails);
+			} else {
+				dao.create(next, null, true, transactionDetails, null);
+			}
+			myResourceTypes.add(resourceType);
+		}
+
+		ourLog.debug("Stored a batch of {} resources", theResources.size());
+	}
+
+	@Override
+	public void beforeStep(StepExecution theStepExecution) {
+		// nothing
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution theStepExecution) {
+		String resourceTypes = String.join(",", new TreeSet<>(myResourceTypes));
+		theStepExecution.getJobExecution().getExecutionContext().putString(IMPORTED_RESOURCE_TYPES, resourceTypes);
+		ourLog.info("Imported {} resources of types: {}", theStepExecution.getWriteCount(), resourceTypes);
+		return null;
+	}
+}
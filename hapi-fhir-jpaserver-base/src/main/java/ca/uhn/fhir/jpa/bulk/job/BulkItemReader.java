@@ -21,20 +21,14 @@ package ca.uhn.fhir.jpa.bulk.job;
  */
 
 import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.interceptor.model.RequestPartitionId;
-import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
-import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.batch.log.Logs;
-import ca.uhn.fhir.jpa.dao.IResultIterator;
-import ca.uhn.fhir.jpa.dao.ISearchBuilder;
-import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
+import ca.uhn.fhir.jpa.bulk.model.BulkExportStyleEnum;
+import ca.uhn.fhir.jpa.bulk.svc.BulkExportDaoSvc;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportJobDao;
+import ca.uhn.fhir.jpa.dao.data.IResourceLinkDao;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.entity.BulkExportJobEntity;
-import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
-import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
-import ca.uhn.fhir.rest.param.DateRangeParam;
-import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.NonTransientResourceException;
@@ -42,12 +36,27 @@ import org.springframework.batch.item.ParseException;
 import org.springframework.batch.item.UnexpectedInputException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the PIDs of the resources within a single partition (a resource type and a range
+ * of PIDs, see {@link ResourceTypePartitioner}). PIDs are fetched one page at a time using
+ * keyset paging, so the full set of PIDs is never held in memory.
+ * <p>
+ * For Patient-level and Group-level exports, the resources of each type are found by paging
+ * through the resource links from that type to Patients along the Patient compartment paths,
+ * and keeping the resources which link to a member of the exported Group. The Group members
+ * are resolved once for the whole job (see {@link BulkExportDaoSvc#getGroupMemberPids(String, String)}).
+ * </p>
+ */
 public class BulkItemReader implements ItemReader<List<ResourcePersistentId>> {
 	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
 
@@ -58,67 +67,155 @@ public class BulkItemReader implements ItemReader<List<ResourcePersistentId>> {
 	private IBulkExportJobDao myBulkExportJobDao;
 
 	@Autowired
-	private DaoRegistry myDaoRegistry;
+	private IResourceTableDao myResourceTableDao;
 
 	@Autowired
-	private FhirContext myContext;
+	private IResourceLinkDao myResourceLinkDao;
 
 	@Autowired
-	private SearchBuilderFactory mySearchBuilderFactory;
+	private BulkExportDaoSvc myBulkExportDaoSvc;
+
+	@Autowired
+	private FhirContext myContext;
 
 	private BulkExportJobEntity myJobEntity;
 
 	@Value("#{jobExecutionContext['jobUUID']}")
 	private String myJobUUID;
 
+	@Value("#{jobExecutionContext['exportStyle']}")
+	private String myExportStyle;
+
+	@Value("#{jobExecutionContext['groupId']}")
+	private String myGroupId;
+
 	@Value("#{stepExecutionContext['resourceType']}")
 	private String myResourceType;
 
-	Iterator<ResourcePersistentId> myPidIterator;
+	@Value("#{stepExecutionContext['lowPid']}")
+	private Long myLowPid;
+
+	@Value("#{stepExecutionContext['highPid']}")
+	private Long myHighPid;
 
-	private void loadResourcePids() {
+	private Long myLastPid;
+	private boolean myDone;
+	private List<String> myCompartmentPaths;
+	private Set<Long> myGroupMemberPids;
+
+	private void loadJob() {
 		Optional<BulkExportJobEntity> jobOpt = myBulkExportJobDao.findByJobId(myJobUUID);
 		if (!jobOpt.isPresent()) {
 			ourLog.warn("Job appears to be deleted");
+			myDone = true;
 			return;
 		}
 		myJobEntity = jobOpt.get();
-		ourLog.info("Bulk export starting generation for batch export job: {}", myJobEntity);
+		myLastPid = myLowPid - 1;
 
-		IFhirResourceDao dao = myDaoRegistry.getResourceDao(myResourceType);
+		BulkExportStyleEnum exportStyle = myExportStyle != null ? BulkExportStyleEnum.valueOf(myExportStyle) : BulkExportStyleEnum.SYSTEM;
+		if (exportStyle == BulkExportStyleEnum.GROUP) {
+			myGroupMemberPids = myBulkExportDaoSvc.getGroupMemberPids(myJobUUID, myGroupId);
+		}
+		if (exportStyle != BulkExportStyleEnum.SYSTEM && !"Patient".equals(myResourceType)) {
+			myCompartmentPaths = myContext
+				.getResourceDefinition(myResourceType)
+				.getSearchParamsForCompartmentName("Patient")
+				.stream()
+				.flatMap(t -> t.getPathsSplit().stream())
+				.map(String::trim)
+				.filter(t -> t.startsWith(myResourceType + "."))
+				.distinct()
+				.collect(Collectors.toList());
+			if (myCompartmentPaths.isEmpty()) {
+				ourLog.warn("Resource type {} is not part of the Patient compartment", myResourceType);
+				myDone = true;
+			}
+		}
 
-		ourLog.info("Bulk export assembling export of type {} for job {}", myResourceType, myJobUUID);
+		ourLog.info("Bulk export assembling {} export of type {} with PIDs {} to {} for job {}", exportStyle, myResourceType, myLowPid, myHighPid, myJobUUID);
+	}
 
-		Class<? extends IBaseResource> nextTypeClass = myContext.getResourceDefinition(myResourceType).getImplementingClass();
-		ISearchBuilder sb = mySearchBuilderFactory.newSearchBuilder(dao, myResourceType, nextTypeClass);
+	@Override
+	public List<ResourcePersistentId> read() throws Exception, UnexpectedInputException, ParseException, NonTransientResourceException {
+		if (myJobEntity == null && !myDone) {
+			loadJob();
+		}
 
-		SearchParameterMap map = new SearchParameterMap();
-		map.setLoadSynchronous(true);
+		// A page may not contain anything from the compartment(s) being exported, so keep going until something is found
+		while (!myDone) {
+			List<Long> pids = myCompartmentPaths != null ? readNextPageOfCompartmentPids() : readNextPageOfPids();
+			if (!pids.isEmpty()) {
+				return pids.stream().map(ResourcePersistentId::new).collect(Collectors.toList());
+			}
+		}
+		return null;
+	}
+
+	private List<Long> readNextPageOfPids() {
+		Pageable page = PageRequest.of(0, READ_CHUNK_SIZE.intValue());
+		Slice<Long> pids;
 		if (myJobEntity.getSince() != null) {
-			map.setLastUpdated(new DateRangeParam(myJobEntity.getSince(), null));
+			pids = myResourceTableDao.findIdsOfResourcesOfTypeAfterPidUpdatedSince(page, myResourceType, myLastPid, myHighPid, myJobEntity.getSince());
+		} else {
+			pids = myResourceTableDao.findIdsOfResourcesOfTypeAfterPid(page, myResourceType, myLastPid, myHighPid);
 		}
 
-		IResultIterator myResultIterator = sb.createQuery(map, new SearchRuntimeDetails(null, myJobUUID), null, RequestPartitionId.allPartitions());
-		List<ResourcePersistentId> myReadPids = new ArrayList<>();
-		while (myResultIterator.hasNext()) {
-			myReadPids.add(myResultIterator.next());
+		if (!pids.hasNext()) {
+			myDone = true;
+		}
+		if (pids.getContent().isEmpty()) {
+			return Collections.emptyList();
 		}
-		myPidIterator = myReadPids.iterator();
+		myLastPid = pids.getContent().get(pids.getContent().size() - 1);
+
+		// For a Group-level export, only the Patients which are members of the Group are included
+		return pids
+			.getContent()
+			.stream()
+			.filter(t -> myGroupMemberPids == null || myGroupMemberPids.contains(t))
+			.collect(Collectors.toList());
 	}
 
-	@Override
-	public List<ResourcePersistentId> read() throws Exception, UnexpectedInputException, ParseException, NonTransientResourceException {
-		if (myPidIterator == null) {
-			loadResourcePids();
-		}
-		int count = 0;
-		List<ResourcePersistentId> outgoing = new ArrayList<>();
-		while (myPidIterator.hasNext() && count < READ_CHUNK_SIZE) {
-			outgoing.add(myPidIterator.next());
-			count += 1;
+	private List<Long> readNextPageOfCompartmentPids() {
+		Slice<Object[]> links = findCompartmentLinks(PageRequest.of(0, READ_CHUNK_SIZE.intValue()), myLastPid, myHighPid);
+		List<Object[]> rows = links.getContent();
+
+		if (!links.hasNext()) {
+			myDone = true;
+		} else {
+			// The links of the last resource on this page may continue on the next page, so they are left
+			// for the next page. If there is only one resource on this page, all of its links are loaded.
+			Long lastSourcePid = (Long) rows.get(rows.size() - 1)[0];
+			List<Object[]> completeRows = rows
+				.stream()
+				.filter(t -> !lastSourcePid.equals(t[0]))
+				.collect(Collectors.toList());
+			if (completeRows.isEmpty()) {
+				rows = findCompartmentLinks(Pageable.unpaged(), lastSourcePid - 1, lastSourcePid).getContent();
+			} else {
+				rows = completeRows;
+			}
 		}
 
-		return outgoing.size() == 0 ? null : outgoing;
+		if (rows.isEmpty()) {
+			return Collections.emptyList();
+		}
+		myLastPid = (Long) rows.get(rows.size() - 1)[0];
+
+		// For a Patient-level export any Patient will do, otherwise the linked Patient must be a member of the Group
+		return rows
+			.stream()
+			.filter(t -> myGroupMemberPids == null || myGroupMemberPids.contains((Long) t[1]))
+			.map(t -> (Long) t[0])
+			.distinct()
+			.collect(Collectors.toList());
+	}
 
+	private Slice<Object[]> findCompartmentLinks(Pageable thePage, Long theLastPid, Long theHighPid) {
+		if (myJobEntity.getSince() != null) {
+			return myResourceLinkDao.findSourceAndTargetPidsAfterPidUpdatedSince(thePage, myResourceType, myCompartmentPaths, "Patient", theLastPid, theHighPid, myJobEntity.getSince());
+		}
+		return myResourceLinkDao.findSourceAndTargetPidsAfterPid(thePage, myResourceType, myCompartmentPaths, "Patient", theLastPid, theHighPid);
 	}
 }
@@ -21,11 +21,13 @@ package ca.uhn.fhir.jpa.bulk.job;
  */
 
 import ca.uhn.fhir.jpa.bulk.api.IBulkDataExportSvc;
+import ca.uhn.fhir.jpa.bulk.model.BulkExportStyleEnum;
 import ca.uhn.fhir.rest.api.Constants;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.batch.core.StepContribution;
 import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -46,7 +48,7 @@ public class CreateBulkExportEntityTasklet implements Tasklet {
 
 		//We can leave early if they provided us with an existing job.
 		if (jobParameters.containsKey("jobUUID")) {
-			addUUIDToJobContext(theChunkContext, (String)jobParameters.get("jobUUID"));
+			addJobDetailsToJobContext(theChunkContext, myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound((String)jobParameters.get("jobUUID")));
 			return RepeatStatus.FINISHED;
 		} else {
 			String resourceTypes = (String)jobParameters.get("resourceTypes");
@@ -65,19 +67,32 @@ public class CreateBulkExportEntityTasklet implements Tasklet {
 				outputFormat = Constants.CT_FHIR_NDJSON;
 			}
 
-			IBulkDataExportSvc.JobInfo jobInfo = myBulkDataExportSvc.submitJob(outputFormat, resourceTypeSet, since, filterSet);
+			String exportStyle = (String)jobParameters.get("exportStyle");
+			BulkExportStyleEnum exportStyleEnum = BulkExportStyleEnum.SYSTEM;
+			if (StringUtils.isNotBlank(exportStyle)) {
+				exportStyleEnum = BulkExportStyleEnum.valueOf(exportStyle);
+			}
+			String groupId = (String)jobParameters.get("groupId");
+
+			IBulkDataExportSvc.JobInfo jobInfo = myBulkDataExportSvc.submitJob(outputFormat, resourceTypeSet, since, filterSet, exportStyleEnum, groupId);
 
-			addUUIDToJobContext(theChunkContext, jobInfo.getJobId());
+			addJobDetailsToJobContext(theChunkContext, myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound(jobInfo.getJobId()));
 			return RepeatStatus.FINISHED;
 		}
 	}
 
-	private void addUUIDToJobContext(ChunkContext theChunkContext, String theJobUUID) {
-		theChunkContext
+	private void addJobDetailsToJobContext(ChunkContext theChunkContext, IBulkDataExportSvc.JobInfo theJobInfo) {
+		ExecutionContext jobExecutionContext = theChunkContext
 			.getStepContext()
 			.getStepExecution()
 			.getJobExecution()
-			.getExecutionContext()
-			.putString("jobUUID", theJobUUID);
+			.getExecutionContext();
+		jobExecutionContext.putString("jobUUID", theJobInfo.getJobId());
+
+		// The readers need to know which resources of each type belong in the export
+		jobExecutionContext.putString("exportStyle", theJobInfo.getExportStyle().name());
+		if (theJobInfo.getGroupId() != null) {
+			jobExecutionContext.putString("groupId", theJobInfo.getGroupId());
+		}
 	}
 }
@@ -21,6 +21,7 @@ package ca.uhn.fhir.jpa.bulk.job;
  */
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.batch.log.Logs;
@@ -28,22 +29,41 @@ import ca.uhn.fhir.jpa.bulk.svc.BulkExportDaoSvc;
 import ca.uhn.fhir.jpa.entity.BulkExportCollectionFileEntity;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.util.BinaryUtil;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.PostConstruct;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.List;
-import java.util.Optional;
-
-public class ResourceToFileWriter implements ItemWriter<List<IBaseResource>> {
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the resources of a single partition to NDJSON files, which are stored as Binary
+ * resources. Resources are collected across chunks, and a new file is started whenever the
+ * current one reaches {@link DaoConfig#getBulkExportFileMaximumSize()}. Whatever remains
+ * once the partition has been read is written when the step completes.
+ * <p>
+ * The current file is buffered in memory, so that setting bounds the memory used by each
+ * export thread.
+ * </p>
+ */
+public class ResourceToFileWriter implements ItemWriter<List<IBaseResource>>, StepExecutionListener {
 	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
 
 	@Autowired
@@ -55,9 +75,16 @@ public class ResourceToFileWriter implements ItemWriter<List<IBaseResource>> {
 	@Autowired
 	private BulkExportDaoSvc myBulkExportDaoSvc;
 
+	@Autowired
+	private DaoConfig myDaoConfig;
+
 	private ByteArrayOutputStream myOutputStream;
-	private OutputStreamWriter myWriter;
+	private CountingOutputStream myCountingOutputStream;
+	private Writer myWriter;
+	private int myResourceCount;
 	private IParser myParser;
+	private boolean myGzip;
+	private long myFileMaximumSize;
 
 	@Value("#{stepExecutionContext['bulkExportCollectionEntityId']}")
 	private Long myBulkExportCollectionEntityId;
@@ -67,37 +94,49 @@ public class ResourceToFileWriter implements ItemWriter<List<IBaseResource>> {
 
 	private IFhirResourceDao<IBaseBinary> myBinaryDao;
 
-
-	public ResourceToFileWriter() {
-		myOutputStream = new ByteArrayOutputStream();
-		myWriter = new OutputStreamWriter(myOutputStream, Constants.CHARSET_UTF8);
-	}
-
 	@PostConstruct
 	public void start() {
 		myParser = myFhirContext.newJsonParser().setPrettyPrint(false);
 		myBinaryDao = getBinaryDao();
+		myGzip = myDaoConfig.isBulkExportGzipEnabled();
+		myFileMaximumSize = myDaoConfig.getBulkExportFileMaximumSize();
+		myOutputStream = new ByteArrayOutputStream();
+		try {
+			startFile();
+		} catch (IOException e) {
+			throw new InternalErrorException(e);
+		}
+	}
+
+	private void startFile() throws IOException {
+		myOutputStream.reset();
+		OutputStream outputStream = myGzip ? new GZIPOutputStream(myOutputStream) : myOutputStream;
+		myCountingOutputStream = new CountingOutputStream(outputStream);
+		myWriter = new OutputStreamWriter(myCountingOutputStream, Constants.CHARSET_UTF8);
+		myResourceCount = 0;
 	}
 
-	private Optional<IIdType> flushToFiles() {
-		if (myOutputStream.size() > 0) {
-			IIdType createdId = createBinaryFromOutputStream();
-			BulkExportCollectionFileEntity file = new BulkExportCollectionFileEntity();
-			file.setResource(createdId.getIdPart());
+	private void flushToFile() throws IOException {
+		if (myResourceCount == 0) {
+			return;
+		}
 
-			myBulkExportDaoSvc.addFileToCollectionWithId(myBulkExportCollectionEntityId, file);
+		// Closing the writer also finishes the gzip stream, if any
+		myWriter.close();
 
-			myOutputStream.reset();
+		IIdType createdId = createBinaryFromOutputStream();
+		BulkExportCollectionFileEntity file = new BulkExportCollectionFileEntity();
+		file.setResource(createdId.getIdPart());
 
-			return Optional.of(createdId);
-		}
+		myBulkExportDaoSvc.addFileToCollectionWithId(myBulkExportCollectionEntityId, file);
+		ourLog.info("Created bulk export file {} containing {} resources of type {}", createdId.toUnqualifiedVersionless().getValue(), myResourceCount, myReosurceType);
 
-		return Optional.empty();
+		startFile();
 	}
 
 	private IIdType createBinaryFromOutputStream() {
 		IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
-		binary.setContentType(Constants.CT_FHIR_NDJSON);
+		binary.setContentType(myGzip ? Constants.CT_APPLICATION_GZIP : Constants.CT_FHIR_NDJSON);
 		binary.setContent(myOutputStream.toByteArray());
 
 		return myBinaryDao.create(binary).getResource().getIdElement();
@@ -111,19 +150,40 @@ public class ResourceToFileWriter implements ItemWriter<List<IBaseResource>> {
 
 	@Override
 	public void write(List<? extends List<IBaseResource>> theList) throws Exception {
-
-		int count = 0;
 		for (List<IBaseResource> resourceList : theList) {
 			for (IBaseResource nextFileResource : resourceList) {
 				myParser.encodeResourceToWriter(nextFileResource, myWriter);
 				myWriter.append("\n");
-				count++;
+				myResourceCount++;
 			}
 		}
 
-		Optional<IIdType> createdId = flushToFiles();
-		if (createdId.isPresent()) {
-			ourLog.info("Created {} resources for bulk export file containing {} resources of type {} ", count, createdId.get().toUnqualifiedVersionless().getValue(), myReosurceType);
+		myWriter.flush();
+		if (myCountingOutputStream.getByteCount() >= myFileMaximumSize) {
+			flushToFile();
+		}
+	}
+
+	@Override
+	public void beforeStep(StepExecution theStepExecution) {
+		// nothing
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution theStepExecution) {
+		if (theStepExecution.getStatus() != BatchStatus.COMPLETED) {
+			return null;
+		}
+
+		try {
+			flushToFile();
+		} catch (Exception e) {
+			// Exceptions thrown here would only be logged, so explicitly fail the step
+			ourLog.error("Failed to write bulk export file for resource type {}", myReosurceType, e);
+			theStepExecution.addFailureException(e);
+			theStepExecution.setStatus(BatchStatus.FAILED);
+			return ExitStatus.FAILED.addExitDescription(e);
 		}
+		return null;
 	}
 }
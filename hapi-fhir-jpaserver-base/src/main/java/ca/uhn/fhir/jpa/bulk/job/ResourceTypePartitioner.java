@@ -20,19 +20,33 @@ package ca.uhn.fhir.jpa.bulk.job;
  * #L%
  */
 
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
 import ca.uhn.fhir.jpa.bulk.svc.BulkExportDaoSvc;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import org.slf4j.Logger;
 import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * Creates one partition per range of resource PIDs for each resource type being exported, so that
+ * large resource types can be exported by several threads in parallel. Each range contains at most
+ * {@link DaoConfig#getBulkExportPartitionSize()} resources of its type. The range boundaries are found
+ * by walking the PIDs of the type in order, since PIDs are shared by all resource types and so the
+ * resources of one type are usually spread unevenly across them.
+ */
 public class ResourceTypePartitioner implements Partitioner {
+	public static final String LOW_PID = "lowPid";
+	public static final String HIGH_PID = "highPid";
 	private static final Logger ourLog = getLogger(ResourceTypePartitioner.class);
 
 
@@ -42,34 +56,76 @@ public class ResourceTypePartitioner implements Partitioner {
 	@Autowired
 	private BulkExportDaoSvc myBulkExportDaoSvc;
 
+	@Autowired
+	private IResourceTableDao myResourceTableDao;
+
+	@Autowired
+	private DaoConfig myDaoConfig;
+
 	@Override
 	public Map<String, ExecutionContext> partition(int gridSize) {
 		Map<String, ExecutionContext> partitionContextMap = new HashMap<>();
 
 		Map<Long, String> idToResourceType = myBulkExportDaoSvc.getBulkJobCollectionIdToResourceTypeMap(myJobUUID);
+		int partitionSize = (int) Math.min(myDaoConfig.getBulkExportPartitionSize(), Integer.MAX_VALUE);
 
 		idToResourceType.entrySet().stream()
 			.forEach(entry -> {
 				String resourceType = entry.getValue();
 				Long collectionEntityId = entry.getKey();
-				ourLog.debug("Creating a partition step for CollectionEntity: [{}] processing resource type [{}]", collectionEntityId, resourceType);
-
-				ExecutionContext context = new ExecutionContext();
-				//The worker step needs to know what resource type it is looking for.
-				context.putString("resourceType", resourceType);
 
-				// The worker step needs to know which parent job it is processing for, and which collection entity it will be
-				// attaching its results to.
-				context.putString("jobUUID", myJobUUID);
-				context.putLong("bulkExportCollectionEntityId", collectionEntityId);
-
-				// Name the partition based on the resource type
-				partitionContextMap.put(resourceType, context);
-				});
+				// Resource types without any resources still get a (single, empty) partition
+				long lowPid = 0;
+				long highPid = 0;
+				List<Object[]> pidRange = myResourceTableDao.findPidRangeOfResourcesOfType(resourceType);
+				if (!pidRange.isEmpty() && pidRange.get(0)[0] != null) {
+					lowPid = ((Number) pidRange.get(0)[0]).longValue();
+					highPid = ((Number) pidRange.get(0)[1]).longValue();
+				}
+
+				int index = 0;
+				long nextLowPid = lowPid;
+				while (true) {
+					long nextHighPid = findPartitionHighPid(resourceType, nextLowPid, partitionSize, highPid);
+					String partitionName = resourceType + "-" + index++;
+					ourLog.debug("Creating partition step {} for CollectionEntity: [{}] processing resource type [{}] with PIDs {} to {}", partitionName, collectionEntityId, resourceType, nextLowPid, nextHighPid);
+
+					ExecutionContext context = new ExecutionContext();
+					//The worker step needs to know what resource type it is looking for, and which resources of that type.
+					context.putString("resourceType", resourceType);
+					context.putLong(LOW_PID, nextLowPid);
+					context.putLong(HIGH_PID, nextHighPid);
+
+					// The worker step needs to know which parent job it is processing for, and which collection entity it will be
+					// attaching its results to.
+					context.putString("jobUUID", myJobUUID);
+					context.putLong("bulkExportCollectionEntityId", collectionEntityId);
+
+					// Name the partition based on the resource type and range
+					partitionContextMap.put(partitionName, context);
+
+					if (nextHighPid >= highPid) {
+						break;
+					}
+					nextLowPid = nextHighPid + 1;
+				}
+			});
 
 
 		return partitionContextMap;
 	}
 
+	/**
+	 * Returns the PID of the last resource in a partition which starts at the given PID: the
+	 * <code>thePartitionSize</code>th PID of the type from there, or <code>theMaxPid</code> if
+	 * there aren't that many left. This only skips over the index entries of the type itself.
+	 */
+	private long findPartitionHighPid(String theResourceType, long theLowPid, int thePartitionSize, long theMaxPid) {
+		Slice<Long> boundary = myResourceTableDao.findIdsOfResourcesOfTypeAfterPid(PageRequest.of(thePartitionSize - 1, 1), theResourceType, theLowPid - 1);
+		if (boundary.getContent().isEmpty()) {
+			return theMaxPid;
+		}
+		return Math.min(boundary.getContent().get(0), theMaxPid);
+	}
 
 }
@@ -0,0 +1,46 @@
+package ca.uhn.fhir.jpa.bulk.model;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * The level at which a bulk export was requested, which determines which resources are exported
+ *
+ * @since 5.2.0
+ */
+public enum BulkExportStyleEnum {
+
+	/**
+	 * System-level export (<code>/$export</code>) of all resources of the requested types
+	 */
+	SYSTEM,
+
+	/**
+	 * Patient-level export (<code>/Patient/$export</code>) of the resources in the compartment of any Patient
+	 */
+	PATIENT,
+
+	/**
+	 * Group-level export (<code>/Group/[id]/$export</code>) of the resources in the compartments of the
+	 * Patients which are members of the Group
+	 */
+	GROUP
+
+}
@@ -26,6 +26,7 @@ import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.model.ExpungeOptions;
 import ca.uhn.fhir.jpa.batch.api.IBatchJobSubmitter;
 import ca.uhn.fhir.jpa.bulk.api.IBulkDataExportSvc;
+import ca.uhn.fhir.jpa.bulk.model.BulkExportStyleEnum;
 import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportCollectionDao;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportCollectionFileDao;
@@ -40,6 +41,7 @@ import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -61,6 +63,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -71,7 +74,7 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class BulkDataExportSvcImpl implements IBulkDataExportSvc {
 
-	private static final Long READ_CHUNK_SIZE = 10L;
+	private static final Long READ_CHUNK_SIZE = 100L;
 	private static final Logger ourLog = LoggerFactory.getLogger(BulkDataExportSvcImpl.class);
 	private int myReuseBulkExportForMillis = (int) (60 * DateUtils.MILLIS_PER_MINUTE);
 
@@ -231,6 +234,17 @@ public class BulkDataExportSvcImpl implements IBulkDataExportSvc {
 	@Transactional
 	@Override
 	public JobInfo submitJob(String theOutputFormat, Set<String> theResourceTypes, Date theSince, Set<String> theFilters) {
+		return submitJob(theOutputFormat, theResourceTypes, theSince, theFilters, BulkExportStyleEnum.SYSTEM, null);
+	}
+
+	@Transactional
+	@Override
+	public JobInfo submitJob(String theOutputFormat, Set<String> theResourceTypes, Date theSince, Set<String> theFilters, BulkExportStyleEnum theExportStyle, String theGroupId) {
+		Validate.notNull(theExportStyle, "theExportStyle must not be null");
+		if ((theExportStyle == BulkExportStyleEnum.GROUP) != isNotBlank(theGroupId)) {
+			throw new InvalidRequestException("A Group ID must be provided for (and only for) a Group-level export");
+		}
+
 		String outputFormat = Constants.CT_FHIR_NDJSON;
 		if (isNotBlank(theOutputFormat)) {
 			outputFormat = theOutputFormat;
@@ -240,6 +254,16 @@ public class BulkDataExportSvcImpl implements IBulkDataExportSvc {
 		}
 
 		StringBuilder requestBuilder = new StringBuilder();
+		switch (theExportStyle) {
+			case PATIENT:
+				requestBuilder.append("/Patient");
+				break;
+			case GROUP:
+				requestBuilder.append("/Group/").append(theGroupId);
+				break;
+			case SYSTEM:
+				break;
+		}
 		requestBuilder.append("/").append(JpaConstants.OPERATION_EXPORT);
 		requestBuilder.append("?").append(JpaConstants.PARAM_EXPORT_OUTPUT_FORMAT).append("=").append(escapeUrlParam(outputFormat));
 		Set<String> resourceTypes = theResourceTypes;
@@ -267,7 +291,24 @@ public class BulkDataExportSvcImpl implements IBulkDataExportSvc {
 			throw new InvalidRequestException(msg);
 		}
 
-		if (resourceTypes == null || resourceTypes.isEmpty()) {
+		if (theExportStyle != BulkExportStyleEnum.SYSTEM) {
+			if (theExportStyle == BulkExportStyleEnum.GROUP) {
+				// Fail early if the Group doesn't exist
+				myDaoRegistry.getResourceDao("Group").read(toId("Group/" + theGroupId));
+			}
+
+			Set<String> compartmentResourceTypes = getPatientCompartmentResourceTypes();
+			if (resourceTypes == null || resourceTypes.isEmpty()) {
+				resourceTypes = compartmentResourceTypes;
+			} else {
+				for (String nextType : resourceTypes) {
+					if (myDaoRegistry.isResourceTypeSupported(nextType) && !compartmentResourceTypes.contains(nextType)) {
+						String msg = myContext.getLocalizer().getMessage(BulkDataExportSvcImpl.class, "resourceTypeNotInPatientCompartment", nextType);
+						throw new InvalidRequestException(msg);
+					}
+				}
+			}
+		} else if (resourceTypes == null || resourceTypes.isEmpty()) {
 			// This is probably not a useful default, but having the default be "download the whole
 			// server" seems like a risky default too. We'll deal with that by having the default involve
 			// only returning a small time span
@@ -311,6 +352,23 @@ public class BulkDataExportSvcImpl implements IBulkDataExportSvc {
 		return toSubmittedJobInfo(job);
 	}
 
+	/**
+	 * Returns the resource types which can be exported by a Patient-level or Group-level export, i.e. the
+	 * Patient resource type itself, and the types which are part of the Patient compartment
+	 */
+	private Set<String> getPatientCompartmentResourceTypes() {
+		Set<String> retVal = new HashSet<>();
+		for (String nextType : myContext.getResourceTypes()) {
+			if (!myDaoRegistry.isResourceTypeSupported(nextType) || "Binary".equals(nextType)) {
+				continue;
+			}
+			if ("Patient".equals(nextType) || !myContext.getResourceDefinition(nextType).getSearchParamsForCompartmentName("Patient").isEmpty()) {
+				retVal.add(nextType);
+			}
+		}
+		return retVal;
+	}
+
 	private JobInfo toSubmittedJobInfo(BulkExportJobEntity theJob) {
 		return new JobInfo().setJobId(theJob.getJobId());
 	}
@@ -325,6 +383,7 @@ public class BulkDataExportSvcImpl implements IBulkDataExportSvc {
 	public JobInfo getJobInfoOrThrowResourceNotFound(String theJobId) {
 		BulkExportJobEntity job = myBulkExportJobDao
 			.findByJobId(theJobId)
+			.filter(t -> !t.isImportJob())
 			.orElseThrow(() -> new ResourceNotFoundException(theJobId));
 
 		JobInfo retVal = new JobInfo();
@@ -335,6 +394,15 @@ public class BulkDataExportSvcImpl implements IBulkDataExportSvc {
 		retVal.setStatusMessage(job.getStatusMessage());
 		retVal.setRequest(job.getRequest());
 
+		// The level of the export is recorded as the path of the request
+		String requestPath = job.getRequest().substring(0, job.getRequest().indexOf('?'));
+		if (requestPath.startsWith("/Patient/")) {
+			retVal.setExportStyle(BulkExportStyleEnum.PATIENT);
+		} else if (requestPath.startsWith("/Group/")) {
+			retVal.setExportStyle(BulkExportStyleEnum.GROUP);
+			retVal.setGroupId(requestPath.substring("/Group/".length(), requestPath.lastIndexOf('/')));
+		}
+
 		if (job.getStatus() == BulkJobStatusEnum.COMPLETE) {
 			for (BulkExportCollectionEntity nextCollection : job.getCollections()) {
 				for (BulkExportCollectionFileEntity nextFile : nextCollection.getFiles()) {
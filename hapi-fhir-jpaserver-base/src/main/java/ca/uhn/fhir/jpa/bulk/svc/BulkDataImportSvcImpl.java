@@ -0,0 +1,184 @@
+package ca.uhn.fhir.jpa.bulk.svc;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import ca.uhn.fhir.jpa.batch.api.IBatchJobSubmitter;
+import ca.uhn.fhir.jpa.bulk.api.IBulkDataExportSvc.JobInfo;
+import ca.uhn.fhir.jpa.bulk.api.IBulkDataImportSvc;
+import ca.uhn.fhir.jpa.bulk.job.BulkImportJobConfig;
+import ca.uhn.fhir.jpa.bulk.job.BulkImportJobParametersBuilder;
+import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
+import ca.uhn.fhir.jpa.dao.data.IBulkExportJobDao;
+import ca.uhn.fhir.jpa.entity.BulkExportJobEntity;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static ca.uhn.fhir.util.UrlUtil.escapeUrlParam;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+public class BulkDataImportSvcImpl implements IBulkDataImportSvc {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(BulkDataImportSvcImpl.class);
+	private static final String NDJSON_FILE_SUFFIX = ".ndjson";
+
+	@Autowired
+	private DaoConfig myDaoConfig;
+	@Autowired
+	private IBulkExportJobDao myBulkExportJobDao;
+	@Autowired
+	private BulkExportDaoSvc myBulkExportDaoSvc;
+	@Autowired
+	private PlatformTransactionManager myTxManager;
+	private TransactionTemplate myTxTemplate;
+
+	@Autowired
+	private IBatchJobSubmitter myJobSubmitter;
+
+	@Autowired
+	@Qualifier(BulkImportJobConfig.BULK_IMPORT_JOB_NAME)
+	private org.springframework.batch.core.Job myBulkImportJob;
+
+	@PostConstruct
+	public void start() {
+		myTxTemplate = new TransactionTemplate(myTxManager);
+	}
+
+	@Override
+	public JobInfo submitJob(List<String> theInputs, boolean theEnforceReferentialIntegrity) {
+		String importDirectory = myDaoConfig.getBulkImportDirectory();
+		if (isBlank(importDirectory)) {
+			throw new InvalidRequestException("$import is not enabled on this server");
+		}
+		if (theInputs == null || theInputs.isEmpty()) {
+			throw new InvalidRequestException("No input files were specified for $import");
+		}
+
+		List<String> inputFiles = resolveInputFiles(importDirectory, theInputs);
+		if (inputFiles.isEmpty()) {
+			throw new InvalidRequestException("No NDJSON files found in input: " + String.join(", ", theInputs));
+		}
+
+		String request = "/" + JpaConstants.OPERATION_IMPORT +
+			"?" + JpaConstants.PARAM_IMPORT_INPUT + "=" + escapeUrlParam(String.join(",", theInputs)) +
+			"&" + JpaConstants.PARAM_IMPORT_ENFORCE_REFERENTIAL_INTEGRITY + "=" + theEnforceReferentialIntegrity;
+
+		// Import jobs are launched immediately, so they are never left in the SUBMITTED
+		// status (which would cause the bulk export scheduler to pick them up). They have no
+		// expiry until they finish, however long they run, so they are never purged while running.
+		BulkExportJobEntity job = new BulkExportJobEntity();
+		job.setJobId(UUID.randomUUID().toString());
+		job.setStatus(BulkJobStatusEnum.BUILDING);
+		job.setCreated(new Date());
+		job.setRequest(StringUtils.left(request, BulkExportJobEntity.REQUEST_LENGTH));
+		myTxTemplate.execute(t -> myBulkExportJobDao.save(job));
+
+		JobParameters parameters = new BulkImportJobParametersBuilder()
+			.setJobUUID(job.getJobId())
+			.setInputFiles(inputFiles)
+			.setEnforceReferentialIntegrity(theEnforceReferentialIntegrity)
+			.toJobParameters();
+
+		ourLog.info("Bulk import job {} submitted for {} files", job.getJobId(), inputFiles.size());
+		try {
+			myJobSubmitter.runJob(myBulkImportJob, parameters);
+		} catch (JobParametersInvalidException e) {
+			myBulkExportDaoSvc.setJobToStatus(job.getJobId(), BulkJobStatusEnum.ERROR, e.getMessage());
+			throw new InvalidRequestException("Unable to start bulk import job: " + e.getMessage());
+		}
+
+		return new JobInfo().setJobId(job.getJobId());
+	}
+
+	/**
+	 * Resolves the requested inputs to the absolute paths of the files to import, making sure that
+	 * none of them are outside of the bulk import directory
+	 */
+	private List<String> resolveInputFiles(String theImportDirectory, List<String> theInputs) {
+		try {
+			File importDirectory = new File(theImportDirectory).getCanonicalFile();
+			List<String> retVal = new ArrayList<>();
+			for (String next : theInputs) {
+				File input = new File(importDirectory, next).getCanonicalFile();
+				if (!input.toPath().startsWith(importDirectory.toPath())) {
+					throw new InvalidRequestException("Input is not located within the bulk import directory: " + next);
+				}
+
+				if (input.isDirectory()) {
+					File[] files = input.listFiles(t -> t.isFile() && t.getName().endsWith(NDJSON_FILE_SUFFIX));
+					if (files != null) {
+						Arrays.sort(files, Comparator.comparing(File::getName));
+						for (File nextFile : files) {
+							retVal.add(nextFile.getAbsolutePath());
+						}
+					}
+				} else if (input.isFile()) {
+					retVal.add(input.getAbsolutePath());
+				} else {
+					throw new InvalidRequestException("Input not found: " + next);
+				}
+			}
+			return retVal;
+		} catch (IOException e) {
+			throw new InternalErrorException("Failed to resolve input files for $import: " + e.getMessage(), e);
+		}
+	}
+
+	@Transactional
+	@Override
+	public JobInfo getJobInfoOrThrowResourceNotFound(String theJobId) {
+		BulkExportJobEntity job = myBulkExportJobDao
+			.findByJobId(theJobId)
+			.filter(BulkExportJobEntity::isImportJob)
+			.orElseThrow(() -> new ResourceNotFoundException(theJobId));
+
+		JobInfo retVal = new JobInfo();
+		retVal.setJobId(theJobId);
+		retVal.setStatus(job.getStatus());
+		retVal.setStatusTime(job.getStatusTime());
+		retVal.setStatusMessage(job.getStatusMessage());
+		retVal.setRequest(job.getRequest());
+		return retVal;
+	}
+
+}
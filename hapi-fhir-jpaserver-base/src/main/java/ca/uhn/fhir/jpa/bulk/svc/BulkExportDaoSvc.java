@@ -21,18 +21,24 @@ package ca.uhn.fhir.jpa.bulk.svc;
  */
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.bulk.api.IBulkDataExportSvc;
 import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportCollectionDao;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportCollectionFileDao;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportJobDao;
+import ca.uhn.fhir.jpa.dao.data.IResourceLinkDao;
+import ca.uhn.fhir.jpa.dao.index.IdHelperService;
 import ca.uhn.fhir.jpa.entity.BulkExportCollectionEntity;
 import ca.uhn.fhir.jpa.entity.BulkExportCollectionFileEntity;
 import ca.uhn.fhir.jpa.entity.BulkExportJobEntity;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.r4.model.InstantType;
 import org.slf4j.Logger;
@@ -45,10 +51,13 @@ import org.springframework.stereotype.Service;
 import javax.transaction.Transactional;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.util.UrlUtil.escapeUrlParam;
@@ -76,6 +85,18 @@ public class BulkExportDaoSvc {
 	@Autowired
 	IBulkExportCollectionFileDao myBulkExportCollectionFileDao;
 
+	@Autowired
+	private IdHelperService myIdHelperService;
+
+	@Autowired
+	private IResourceLinkDao myResourceLinkDao;
+
+	/**
+	 * Group members are resolved once per job, and shared by all of the partitions of that job. Entries are
+	 * removed when the job completes, and otherwise expire so that failed jobs don't leave them behind.
+	 */
+	private final Cache<String, Set<Long>> myJobUuidToGroupMemberPids = Caffeine.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).build();
+
 	@Transactional
 	public void addFileToCollectionWithId(Long theCollectionEntityId, BulkExportCollectionFileEntity theFile) {
 		Optional<BulkExportCollectionEntity> byId = myBulkExportCollectionDao.findById(theCollectionEntityId);
@@ -100,6 +121,30 @@ public class BulkExportDaoSvc {
 			));
 	}
 
+	/**
+	 * Returns the PIDs of the Patients which are members of the given Group. These are loaded from the
+	 * resource link index the first time they are requested for a given job, and cached until
+	 * {@link #clearGroupMemberPids(String)} is called for the job.
+	 *
+	 * @since 5.2.0
+	 */
+	public Set<Long> getGroupMemberPids(String theJobUUID, String theGroupId) {
+		return myJobUuidToGroupMemberPids.get(theJobUUID, t -> {
+			Long groupPid = myIdHelperService.resolveResourcePersistentIds(RequestPartitionId.allPartitions(), "Group", theGroupId).getIdAsLong();
+			List<String> memberPaths = myFhirContext.getResourceDefinition("Group").getSearchParam("member").getPathsSplit();
+			Set<Long> retVal = new HashSet<>(myResourceLinkDao.findTargetPidsForSourceResourceId(groupPid, memberPaths, "Patient"));
+			ourLog.info("Resolved {} Patient members of Group/{} for bulk export job {}", retVal.size(), theGroupId, theJobUUID);
+			return retVal;
+		});
+	}
+
+	/**
+	 * @since 5.2.0
+	 */
+	public void clearGroupMemberPids(String theJobUUID) {
+		myJobUuidToGroupMemberPids.invalidate(theJobUUID);
+	}
+
 	private BulkExportJobEntity loadJob(String theJobUUID) {
 		Optional<BulkExportJobEntity> jobOpt = myBulkExportJobDao.findByJobId(theJobUUID);
 		if (!jobOpt.isPresent()) {
@@ -124,6 +169,32 @@ public class BulkExportDaoSvc {
 
 	}
 
+	/**
+	 * Sets the status of the job along with a message describing it. Once the job has finished (i.e. the
+	 * new status is {@link BulkJobStatusEnum#COMPLETE} or {@link BulkJobStatusEnum#ERROR}), its retention
+	 * period starts. This method always commits in a new transaction, so that progress is visible while
+	 * a job is still running.
+	 *
+	 * @since 5.2.0
+	 */
+	@Transactional(Transactional.TxType.REQUIRES_NEW)
+	public void setJobToStatus(String theJobUUID, BulkJobStatusEnum theStatus, String theStatusMessage) {
+		Optional<BulkExportJobEntity> oJob = myBulkExportJobDao.findByJobId(theJobUUID);
+		if (!oJob.isPresent()) {
+			ourLog.error("Job with UUID {} doesn't exist!", theJobUUID);
+			return;
+		}
+
+		ourLog.info("Setting job with UUID {} to {}: {}", theJobUUID, theStatus, theStatusMessage);
+		BulkExportJobEntity bulkExportJobEntity = oJob.get();
+		bulkExportJobEntity.setStatus(theStatus);
+		bulkExportJobEntity.setStatusMessage(StringUtils.left(theStatusMessage, BulkExportJobEntity.STATUS_MESSAGE_LEN));
+		if (theStatus == BulkJobStatusEnum.COMPLETE || theStatus == BulkJobStatusEnum.ERROR) {
+			updateExpiry(bulkExportJobEntity);
+		}
+		myBulkExportJobDao.save(bulkExportJobEntity);
+	}
+
 	public IBulkDataExportSvc.JobInfo submitJob(String theOutputFormat, Set<String> theResourceTypes, Date theSince, Set<String> theFilters, int theReuseMillis) {
 		String outputFormat = Constants.CT_FHIR_NDJSON;
 		if (isNotBlank(theOutputFormat)) {
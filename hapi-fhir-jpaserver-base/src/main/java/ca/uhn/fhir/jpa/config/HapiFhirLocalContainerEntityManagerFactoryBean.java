@@ -20,9 +20,11 @@ package ca.uhn.fhir.jpa.config;
  * #L%
  */
 
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
 import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.query.criteria.LiteralHandlingMode;
 import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 
 import java.util.Map;
@@ -32,6 +34,10 @@ import java.util.Map;
  * that sets some sensible default property values
  */
 public class HapiFhirLocalContainerEntityManagerFactoryBean extends LocalContainerEntityManagerFactoryBean {
+
+	@Autowired(required = false)
+	private DaoConfig myDaoConfig;
+
 	@Override
 	public Map<String, Object> getJpaPropertyMap() {
 		Map<String, Object> retVal = super.getJpaPropertyMap();
@@ -64,6 +70,16 @@ public class HapiFhirLocalContainerEntityManagerFactoryBean extends LocalContain
 			retVal.put(AvailableSettings.BATCH_VERSIONED_DATA, "true");
 		}
 
+		/*
+		 * Pad collection-valued IN parameters (e.g. lists of resource PIDs) to the next power
+		 * of 2, so that a small number of distinct SQL strings are generated. This keeps the
+		 * Hibernate query plan cache and the database statement cache effective.
+		 */
+		if (!retVal.containsKey(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING)) {
+			boolean padding = myDaoConfig == null || myDaoConfig.isInClauseParameterPaddingEnabled();
+			retVal.put(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, Boolean.toString(padding));
+		}
+
 		return retVal;
 	}
 
@@ -59,6 +59,7 @@ import ca.uhn.fhir.jpa.term.api.ITermReadSvc;
 import ca.uhn.fhir.jpa.util.AddRemoveCount;
 import ca.uhn.fhir.jpa.util.JpaInterceptorBroadcaster;
 import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.jpa.util.ResourceCountCache;
 import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
 import ca.uhn.fhir.model.api.Tag;
@@ -71,6 +72,7 @@ import ca.uhn.fhir.model.valueset.BundleEntryTransactionMethodEnum;
 import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.parser.LenientErrorHandler;
+import ca.uhn.fhir.parser.SpooledBinaryData;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
@@ -206,6 +208,8 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 	protected IInterceptorBroadcaster myInterceptorBroadcaster;
 	@Autowired
 	protected DaoRegistry myDaoRegistry;
+	@Autowired(required = false)
+	protected ResourceCountCache myResourceCountsCache;
 	@Autowired
 	ExpungeService myExpungeService;
 	@Autowired
@@ -998,11 +1002,15 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		ourLog.debug("Starting entity update");
 
 		ResourceTable entity = (ResourceTable) theEntity;
+		boolean wasCounted = entity.getId() != null && entity.getDeleted() == null;
 
 		/*
 		 * This should be the very first thing..
 		 */
 		if (theResource != null) {
+			if (myContext.getParserOptions().getBinarySpoolThreshold() > 0 && SpooledBinaryData.hasSpooledElements(myContext, theResource)) {
+				throw new InternalErrorException("Binary content was spooled while parsing the request (ParserOptions#setBinarySpoolThreshold) but was not consumed. A BinaryStorageInterceptor must be registered when binary spooling is enabled.");
+			}
 			if (thePerformIndexing) {
 				if (!ourValidationDisabledForUnitTest) {
 					validateResourceForStorage((T) theResource, entity);
@@ -1106,6 +1114,18 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			postUpdate(entity, (T) theResource);
 		}
 
+		/*
+		 * Keep the resource counts in step with creates and deletes
+		 */
+		if (myResourceCountsCache != null) {
+			boolean isCounted = entity.getDeleted() == null;
+			if (isCounted && !wasCounted) {
+				myResourceCountsCache.incrementCountAfterCommit(entity.getResourceType());
+			} else if (!isCounted && wasCounted) {
+				myResourceCountsCache.decrementCountAfterCommit(entity.getResourceType());
+			}
+		}
+
 		/*
 		 * Create history entry
 		 */
@@ -1313,7 +1313,9 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 	@Override
 	public Set<ResourcePersistentId> searchForIds(SearchParameterMap theParams, RequestDetails theRequest) {
 		return myTransactionService.execute(theRequest, tx -> {
-			theParams.setLoadSynchronousUpTo(10000);
+			if (theParams.getLoadSynchronousUpTo() == null) {
+				theParams.setLoadSynchronousUpTo(10000);
+			}
 
 			ISearchBuilder builder = mySearchBuilderFactory.newSearchBuilder(this, getResourceName(), getResourceType());
 
@@ -1479,6 +1481,9 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		 */
 		boolean wasDeleted = entity.getDeleted() != null;
 		entity.setDeleted(null);
+		if (wasDeleted && myResourceCountsCache != null) {
+			myResourceCountsCache.incrementCountAfterCommit(entity.getResourceType());
+		}
 
 		/*
 		 * If we aren't indexing, that means we're doing this inside a transaction.
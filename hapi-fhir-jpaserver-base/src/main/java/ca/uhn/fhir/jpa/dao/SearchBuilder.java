@@ -1042,15 +1042,23 @@ public class SearchBuilder implements ISearchBuilder {
 		return lastUpdatedPredicates;
 	}
 
+	/**
+	 * Walks the resources linked from a set of PIDs one round of links at a time,
+	 * so that the resources found in each round can be returned before the next
+	 * round is loaded. Only the PIDs found in the previous round are used to look
+	 * for links in the next one.
+	 */
 	public class IncludesIterator extends BaseIterator<ResourcePersistentId> implements Iterator<ResourcePersistentId> {
 
 		private final RequestDetails myRequest;
 		private Iterator<ResourcePersistentId> myCurrentIterator;
 		private final Set<ResourcePersistentId> myCurrentPids;
+		private Set<ResourcePersistentId> myNextRoundPids;
 		private ResourcePersistentId myNext;
 
 		IncludesIterator(Set<ResourcePersistentId> thePidSet, RequestDetails theRequest) {
 			myCurrentPids = new HashSet<>(thePidSet);
+			myNextRoundPids = new HashSet<>(thePidSet);
 			myCurrentIterator = EMPTY_LONG_LIST.iterator();
 			myRequest = theRequest;
 		}
@@ -1063,12 +1071,15 @@ public class SearchBuilder implements ISearchBuilder {
 					break;
 				}
 
-				Set<Include> includes = Collections.singleton(new Include("*", true));
-				Set<ResourcePersistentId> newPids = loadIncludes(myContext, myEntityManager, myCurrentPids, includes, false, getParams().getLastUpdated(), mySearchUuid, myRequest);
+				Set<Include> includes = Collections.singleton(new Include("*", false));
+				Set<ResourcePersistentId> newPids = loadIncludes(myContext, myEntityManager, new ArrayList<>(myNextRoundPids), includes, false, getParams().getLastUpdated(), mySearchUuid, myRequest);
+				newPids.removeAll(myCurrentPids);
 				if (newPids.isEmpty()) {
 					myNext = NO_MORE;
 					break;
 				}
+				myCurrentPids.addAll(newPids);
+				myNextRoundPids = newPids;
 				myCurrentIterator = newPids.iterator();
 			}
 		}
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+
 /*
  * #%L
  * HAPI FHIR JPA Server
@@ -57,6 +59,26 @@ public interface IResourceHistoryTableDao extends JpaRepository<ResourceHistoryT
 		"WHERE v.myResourceVersion != t.myVersion")
 	Slice<Long> findIdsOfPreviousVersionsOfResources(Pageable thePage);
 
+	@Query("" +
+		"SELECT v.myId FROM ResourceHistoryTable v " +
+		"LEFT OUTER JOIN ResourceTable t ON (v.myResourceId = t.myId) " +
+		"WHERE v.myResourceVersion != t.myVersion AND " +
+		"v.myId > :lastPid " +
+		"ORDER BY v.myId ASC")
+	Slice<Long> findIdsOfPreviousVersionsOfResourcesAfterPid(Pageable thePage, @Param("lastPid") Long theLastPid);
+
+	@Query("" +
+		"SELECT v.myId FROM ResourceHistoryTable v " +
+		"LEFT OUTER JOIN ResourceTable t ON (v.myResourceId = t.myId) " +
+		"WHERE v.myResourceVersion != t.myVersion AND " +
+		"t.myResourceType = :restype AND " +
+		"v.myId > :lastPid " +
+		"ORDER BY v.myId ASC")
+	Slice<Long> findIdsOfPreviousVersionsOfResourcesAfterPid(Pageable thePage, @Param("restype") String theResourceName, @Param("lastPid") Long theLastPid);
+
+	@Query("SELECT t FROM ResourceHistoryTable t WHERE t.myResourceId IN (:resIds)")
+	List<ResourceHistoryTable> findAllVersionsForResourceIdsIn(@Param("resIds") List<Long> theResourceIds);
+
 	@Modifying
 	@Query("UPDATE ResourceHistoryTable r SET r.myResourceVersion = :newVersion WHERE r.myResourceId = :id AND r.myResourceVersion = :oldVersion")
 	void updateVersion(@Param("id") long theId, @Param("oldVersion") long theOldVersion, @Param("newVersion") long theNewVersion);
@@ -21,11 +21,14 @@ package ca.uhn.fhir.jpa.dao.data;
  */
 
 import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
 import java.util.List;
 
 public interface IResourceLinkDao extends JpaRepository<ResourceLink, Long> {
@@ -39,4 +42,13 @@ public interface IResourceLinkDao extends JpaRepository<ResourceLink, Long> {
 
 	@Query("SELECT t FROM ResourceLink t WHERE t.myTargetResourcePid in :resIds")
 	List<ResourceLink> findWithTargetPidIn(@Param("resIds") List<Long> thePids);
+
+	@Query("SELECT t.myTargetResourcePid FROM ResourceLink t WHERE t.mySourceResourcePid = :resId AND t.mySourcePath IN (:paths) AND t.myTargetResourceType = :targetType")
+	List<Long> findTargetPidsForSourceResourceId(@Param("resId") Long theSourcePid, @Param("paths") List<String> thePaths, @Param("targetType") String theTargetResourceType);
+
+	@Query("SELECT t.mySourceResourcePid, t.myTargetResourcePid FROM ResourceLink t WHERE t.mySourceResourceType = :restype AND t.mySourcePath IN (:paths) AND t.myTargetResourceType = :targetType AND t.mySourceResourcePid > :lastPid AND t.mySourceResourcePid <= :highPid ORDER BY t.mySourceResourcePid ASC")
+	Slice<Object[]> findSourceAndTargetPidsAfterPid(Pageable thePageable, @Param("restype") String theSourceResourceType, @Param("paths") List<String> thePaths, @Param("targetType") String theTargetResourceType, @Param("lastPid") Long theLastPid, @Param("highPid") Long theHighPid);
+
+	@Query("SELECT t.mySourceResourcePid, t.myTargetResourcePid FROM ResourceLink t WHERE t.mySourceResourceType = :restype AND t.mySourcePath IN (:paths) AND t.myTargetResourceType = :targetType AND t.mySourceResourcePid > :lastPid AND t.mySourceResourcePid <= :highPid AND t.mySourceResource.myUpdated >= :since ORDER BY t.mySourceResourcePid ASC")
+	Slice<Object[]> findSourceAndTargetPidsAfterPidUpdatedSince(Pageable thePageable, @Param("restype") String theSourceResourceType, @Param("paths") List<String> thePaths, @Param("targetType") String theTargetResourceType, @Param("lastPid") Long theLastPid, @Param("highPid") Long theHighPid, @Param("since") Date theSince);
 }
@@ -42,10 +42,31 @@ public interface IResourceTableDao extends JpaRepository<ResourceTable, Long> {
 	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myResourceType = :restype AND t.myDeleted IS NOT NULL")
 	Slice<Long> findIdsOfDeletedResourcesOfType(Pageable thePageable, @Param("restype") String theResourceName);
 
+	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myDeleted IS NOT NULL AND t.myId > :lastPid ORDER BY t.myId ASC")
+	Slice<Long> findIdsOfDeletedResourcesAfterPid(Pageable thePageable, @Param("lastPid") Long theLastPid);
+
+	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myResourceType = :restype AND t.myDeleted IS NOT NULL AND t.myId > :lastPid ORDER BY t.myId ASC")
+	Slice<Long> findIdsOfDeletedResourcesAfterPid(Pageable thePageable, @Param("restype") String theResourceName, @Param("lastPid") Long theLastPid);
+
+	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myId IN (:pids) AND t.myDeleted IS NOT NULL")
+	List<Long> findIdsOfDeletedResourcesIn(@Param("pids") List<Long> thePids);
+
 	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myId = :resid AND t.myResourceType = :restype AND t.myDeleted IS NOT NULL")
 	Slice<Long> findIdsOfDeletedResourcesOfType(Pageable thePageable, @Param("resid") Long theResourceId, @Param("restype") String theResourceName);
 
-	@Query("SELECT t.myResourceType as type, COUNT(t.myResourceType) as count FROM ResourceTable t GROUP BY t.myResourceType")
+	@Query("SELECT MIN(t.myId), MAX(t.myId) FROM ResourceTable t WHERE t.myResourceType = :restype AND t.myDeleted IS NULL")
+	List<Object[]> findPidRangeOfResourcesOfType(@Param("restype") String theResourceType);
+
+	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myResourceType = :restype AND t.myDeleted IS NULL AND t.myId > :lastPid ORDER BY t.myId ASC")
+	Slice<Long> findIdsOfResourcesOfTypeAfterPid(Pageable thePageable, @Param("restype") String theResourceType, @Param("lastPid") Long theLastPid);
+
+	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myResourceType = :restype AND t.myDeleted IS NULL AND t.myId > :lastPid AND t.myId <= :highPid ORDER BY t.myId ASC")
+	Slice<Long> findIdsOfResourcesOfTypeAfterPid(Pageable thePageable, @Param("restype") String theResourceType, @Param("lastPid") Long theLastPid, @Param("highPid") Long theHighPid);
+
+	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myResourceType = :restype AND t.myDeleted IS NULL AND t.myId > :lastPid AND t.myId <= :highPid AND t.myUpdated >= :since ORDER BY t.myId ASC")
+	Slice<Long> findIdsOfResourcesOfTypeAfterPidUpdatedSince(Pageable thePageable, @Param("restype") String theResourceType, @Param("lastPid") Long theLastPid, @Param("highPid") Long theHighPid, @Param("since") Date theSince);
+
+	@Query("SELECT t.myResourceType as type, COUNT(t.myResourceType) as count FROM ResourceTable t WHERE t.myDeleted IS NULL GROUP BY t.myResourceType")
 	List<Map<?, ?>> getResourceCounts();
 
 	@Query("SELECT t.myId FROM ResourceTable t WHERE t.myUpdated >= :low AND t.myUpdated <= :high ORDER BY t.myUpdated DESC")
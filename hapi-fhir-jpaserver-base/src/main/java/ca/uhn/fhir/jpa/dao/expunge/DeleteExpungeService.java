@@ -169,6 +169,18 @@ public class DeleteExpungeService {
 			.addIfMatchesType(ServletRequestDetails.class, theRequest);
 		JpaInterceptorBroadcaster.doCallHooks(myInterceptorBroadcaster, theRequest, Pointcut.STORAGE_PRE_DELETE_EXPUNGE_PID_LIST, params);
 
+		int entitiesDeleted = deleteResourcesAndLinkedRecords(thePids, theExpungedEntitiesCount);
+		theExpungedResourcesCount.addAndGet(entitiesDeleted);
+	}
+
+	/**
+	 * Deletes the given resources, along with all rows in other tables which link to them, using
+	 * one set-based DELETE statement per table. This must be called within a transaction, and
+	 * does not invoke any interceptor hooks.
+	 *
+	 * @return Returns the number of resources which were deleted
+	 */
+	public int deleteResourcesAndLinkedRecords(List<Long> thePids, AtomicLong theExpungedEntitiesCount) {
 		String pidListString = thePids.toString().replace("[", "(").replace("]", ")");
 		List<ResourceForeignKey> resourceForeignKeys = myResourceTableFKProvider.getResourceForeignKeys();
 
@@ -178,8 +190,7 @@ public class DeleteExpungeService {
 
 		// Lastly we need to delete records from the resource table all of these other tables link to:
 		ResourceForeignKey resourceTablePk = new ResourceForeignKey("HFJ_RESOURCE", "RES_ID");
-		int entitiesDeleted = deleteRecordsByColumn(pidListString, resourceTablePk, theExpungedEntitiesCount);
-		theExpungedResourcesCount.addAndGet(entitiesDeleted);
+		return deleteRecordsByColumn(pidListString, resourceTablePk, theExpungedEntitiesCount);
 	}
 
 	private int deleteRecordsByColumn(String thePidListString, ResourceForeignKey theResourceForeignKey, AtomicLong theExpungedEntitiesCount) {
@@ -22,14 +22,26 @@ package ca.uhn.fhir.jpa.dao.expunge;
 
 import ca.uhn.fhir.jpa.api.model.ExpungeOptions;
 import ca.uhn.fhir.jpa.api.model.ExpungeOutcome;
+import ca.uhn.fhir.jpa.batch.api.IBatchJobSubmitter;
+import ca.uhn.fhir.jpa.dao.expunge.job.ExpungeJobConfig;
+import ca.uhn.fhir.jpa.dao.expunge.job.ExpungeJobParametersBuilder;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Lookup;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Nullable;
+import java.util.UUID;
+
 @Service
 public abstract class ExpungeService {
 	private static final Logger ourLog = LoggerFactory.getLogger(ExpungeService.class);
@@ -38,6 +50,12 @@ public abstract class ExpungeService {
 	private ExpungeEverythingService myExpungeEverythingService;
 	@Autowired
 	private IResourceExpungeService myExpungeDaoService;
+	@Autowired
+	private IBatchJobSubmitter myBatchJobSubmitter;
+	@Autowired
+	@Lazy
+	@Qualifier(ExpungeJobConfig.EXPUNGE_JOB_NAME)
+	private Job myExpungeJob;
 
 	@Lookup
 	protected abstract ExpungeOperation getExpungeOperation(String theResourceName, Long theResourceId, Long theVersion, ExpungeOptions theExpungeOptions, RequestDetails theRequestDetails);
@@ -59,6 +77,35 @@ public abstract class ExpungeService {
 		return expungeOperation.call();
 	}
 
+	/**
+	 * Submits a batch job which expunges old versions and/or deleted resources in the
+	 * background, as specified by {@link ExpungeOptions#isExpungeOldVersions()} and
+	 * {@link ExpungeOptions#isExpungeDeletedResources()}. Unlike {@link #expunge(String, Long, Long, ExpungeOptions, RequestDetails)},
+	 * the job is not bounded by {@link ExpungeOptions#getLimit()}; it runs until every
+	 * matching row has been expunged, which makes it suitable for very large tables.
+	 *
+	 * @param theResourceName If not <code>null</code>, only resources of this type are expunged
+	 * @return Returns the execution of the job, which may be used to monitor its progress
+	 * @since 5.2.0
+	 */
+	public JobExecution submitExpungeJob(@Nullable String theResourceName, ExpungeOptions theExpungeOptions) {
+		ExpungeJobParametersBuilder parametersBuilder = new ExpungeJobParametersBuilder();
+		parametersBuilder.setJobUUID(UUID.randomUUID().toString());
+		parametersBuilder.setExpungeOldVersions(theExpungeOptions.isExpungeOldVersions());
+		parametersBuilder.setExpungeDeletedResources(theExpungeOptions.isExpungeDeletedResources());
+		if (theResourceName != null) {
+			parametersBuilder.setResourceType(theResourceName);
+		}
+		JobParameters parameters = parametersBuilder.toJobParameters();
+
+		ourLog.info("Submitting expunge job: ResourceName[{}] Options[{}]", theResourceName, theExpungeOptions);
+		try {
+			return myBatchJobSubmitter.runJob(myExpungeJob, parameters);
+		} catch (JobParametersInvalidException e) {
+			throw new InvalidRequestException("Unable to start expunge job: " + e.getMessage());
+		}
+	}
+
 	public void deleteAllSearchParams(Long theResourceId) {
 		myExpungeDaoService.deleteAllSearchParams(theResourceId);
 	}
@@ -0,0 +1,99 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import ca.uhn.fhir.jpa.batch.log.Logs;
+import org.slf4j.Logger;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the PIDs of the rows to be expunged, one batch at a time. Rather than paging with an
+ * offset, each query asks for the PIDs following the last one already returned (keyset paging),
+ * so the cost of each page stays constant no matter how far through the table the job is, and
+ * rows which have already been deleted by the writers do not shift the pages.
+ * <p>
+ * This reader is shared by all of the worker threads of a step, so {@link #read()} is synchronized.
+ * </p>
+ */
+public abstract class BaseExpungePidReader implements ItemReader<List<Long>> {
+	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
+
+	@Value("#{jobParameters['" + ExpungeJobParametersBuilder.RESOURCE_TYPE + "']}")
+	private String myResourceType;
+	@Value("#{jobParameters['" + ExpungeJobParametersBuilder.BATCH_SIZE + "']}")
+	private Long myBatchSize;
+	@Autowired
+	private DaoConfig myDaoConfig;
+	@Autowired
+	private PlatformTransactionManager myTxManager;
+
+	private Long myLastPid = Long.MIN_VALUE;
+	private boolean myDone;
+
+	@Override
+	public synchronized List<Long> read() {
+		if (myDone || !isEnabled()) {
+			return null;
+		}
+
+		int batchSize = myBatchSize != null && myBatchSize > 0 ? myBatchSize.intValue() : myDaoConfig.getExpungeBatchSize();
+		Pageable page = PageRequest.of(0, batchSize);
+
+		TransactionTemplate txTemplate = new TransactionTemplate(myTxManager);
+		txTemplate.setReadOnly(true);
+		List<Long> retVal = txTemplate.execute(t -> new ArrayList<>(fetchPage(page, myResourceType, myLastPid).getContent()));
+
+		if (retVal == null || retVal.isEmpty()) {
+			myDone = true;
+			return null;
+		}
+		if (retVal.size() < batchSize) {
+			myDone = true;
+		}
+
+		myLastPid = retVal.get(retVal.size() - 1);
+		ourLog.debug("Read {} PIDs to expunge, up to {}", retVal.size(), myLastPid);
+		return retVal;
+	}
+
+	/**
+	 * Should this reader return anything for the current job?
+	 */
+	protected abstract boolean isEnabled();
+
+	/**
+	 * Fetch the next page of PIDs in ascending order, starting after the given PID
+	 *
+	 * @param theResourceType The resource type to restrict to, or <code>null</code>
+	 */
+	protected abstract Slice<Long> fetchPage(Pageable thePage, String theResourceType, Long theLastPid);
+}
@@ -0,0 +1,154 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.batch.log.Logs;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
+import ca.uhn.fhir.util.StopWatch;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.slf4j.Logger;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expunges each batch of PIDs in its own transaction using set-based DELETE statements, and
+ * reports the progress and throughput of the step. The totals are stored in the step's
+ * execution context under {@link #EXPUNGED_COUNT} and {@link #EXPUNGED_ENTITIES_COUNT} when
+ * the step completes.
+ */
+public abstract class BaseExpungeWriter implements ItemWriter<List<Long>>, StepExecutionListener {
+	public static final String EXPUNGED_COUNT = "expungedCount";
+	public static final String EXPUNGED_ENTITIES_COUNT = "expungedEntitiesCount";
+	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
+	private static final long PROGRESS_LOG_INTERVAL_MILLIS = 10 * DateUtils.MILLIS_PER_SECOND;
+
+	private final AtomicLong myExpungedCount = new AtomicLong();
+	private final AtomicLong myExpungedEntitiesCount = new AtomicLong();
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+	@Autowired
+	private PlatformTransactionManager myTxManager;
+	@Autowired
+	private IInterceptorBroadcaster myInterceptorBroadcaster;
+	@Autowired
+	private DaoRegistry myDaoRegistry;
+	private StopWatch myStopWatch = new StopWatch();
+	private long myNextProgressLog;
+
+	@Override
+	public void beforeStep(StepExecution theStepExecution) {
+		myStopWatch = new StopWatch();
+		myNextProgressLog = PROGRESS_LOG_INTERVAL_MILLIS;
+	}
+
+	@Override
+	public void write(List<? extends List<Long>> thePidBatches) {
+		TransactionTemplate txTemplate = new TransactionTemplate(myTxManager);
+		for (List<Long> nextBatch : thePidBatches) {
+			txTemplate.executeWithoutResult(t -> expunge(nextBatch, myExpungedCount, myExpungedEntitiesCount));
+		}
+		logProgressIfDue();
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution theStepExecution) {
+		theStepExecution.getExecutionContext().putLong(EXPUNGED_COUNT, myExpungedCount.get());
+		theStepExecution.getExecutionContext().putLong(EXPUNGED_ENTITIES_COUNT, myExpungedEntitiesCount.get());
+		ourLog.info("Expunged {} {} ({} rows in total) in {} - {}/sec", myExpungedCount.get(), getDescription(), myExpungedEntitiesCount.get(), myStopWatch, myStopWatch.formatThroughput(myExpungedCount.get(), TimeUnit.SECONDS));
+		return null;
+	}
+
+	private synchronized void logProgressIfDue() {
+		if (myStopWatch.getMillis() >= myNextProgressLog) {
+			myNextProgressLog = myStopWatch.getMillis() + PROGRESS_LOG_INTERVAL_MILLIS;
+			ourLog.info("Expunge in progress: {} {} ({} rows in total) expunged after {} - {}/sec", myExpungedCount.get(), getDescription(), myExpungedEntitiesCount.get(), myStopWatch, myStopWatch.formatThroughput(myExpungedCount.get(), TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * A plural description of what is being expunged, for logging
+	 */
+	protected abstract String getDescription();
+
+	/**
+	 * Expunge the given batch. Called within a transaction.
+	 *
+	 * @param theExpungedCount         Should be incremented by the number of PIDs which were actually expunged
+	 * @param theExpungedEntitiesCount Should be incremented by the total number of rows deleted
+	 */
+	protected abstract void expunge(List<Long> thePids, AtomicLong theExpungedCount, AtomicLong theExpungedEntitiesCount);
+
+	/**
+	 * Deletes all rows in the given table whose column value is in the given list of PIDs
+	 *
+	 * @return Returns the number of rows deleted
+	 */
+	protected int deleteByColumn(String theTable, String theColumn, List<Long> thePids) {
+		String pidListString = thePids.toString().replace("[", "(").replace("]", ")");
+		return myEntityManager.createNativeQuery("DELETE FROM " + theTable + " WHERE " + theColumn + " IN " + pidListString).executeUpdate();
+	}
+
+	protected boolean hasExpungeHooks() {
+		return myInterceptorBroadcaster.hasHooks(Pointcut.STORAGE_PRESTORAGE_EXPUNGE_RESOURCE);
+	}
+
+	/**
+	 * Invokes the {@link Pointcut#STORAGE_PRESTORAGE_EXPUNGE_RESOURCE} hooks for each of the
+	 * given versions. Interceptors may rely on these (e.g. to remove externalized binary content),
+	 * so this must be called whenever {@link #hasExpungeHooks()} returns <code>true</code>.
+	 */
+	protected void callExpungeHooks(List<ResourceHistoryTable> theVersions) {
+		for (ResourceHistoryTable nextVersion : theVersions) {
+			IIdType id = nextVersion.getIdDt();
+			IFhirResourceDao<?> resourceDao = myDaoRegistry.getResourceDao(id.getResourceType());
+			IBaseResource resource = resourceDao.toResource(nextVersion, false);
+			HookParams params = new HookParams()
+				.add(AtomicInteger.class, new AtomicInteger())
+				.add(IIdType.class, id)
+				.add(IBaseResource.class, resource)
+				.add(RequestDetails.class, null)
+				.add(ServletRequestDetails.class, null);
+			myInterceptorBroadcaster.callHooks(Pointcut.STORAGE_PRESTORAGE_EXPUNGE_RESOURCE, params);
+		}
+	}
+}
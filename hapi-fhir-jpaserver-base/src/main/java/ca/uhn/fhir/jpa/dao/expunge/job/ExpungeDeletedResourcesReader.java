@@ -0,0 +1,51 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Reads the PIDs of resources (HFJ_RESOURCE) which are currently deleted
+ */
+public class ExpungeDeletedResourcesReader extends BaseExpungePidReader {
+
+	@Value("#{jobParameters['" + ExpungeJobParametersBuilder.EXPUNGE_DELETED_RESOURCES + "']}")
+	private String myExpungeDeletedResources;
+	@Autowired
+	private IResourceTableDao myResourceTableDao;
+
+	@Override
+	protected boolean isEnabled() {
+		return Boolean.parseBoolean(myExpungeDeletedResources);
+	}
+
+	@Override
+	protected Slice<Long> fetchPage(Pageable thePage, String theResourceType, Long theLastPid) {
+		if (theResourceType != null) {
+			return myResourceTableDao.findIdsOfDeletedResourcesAfterPid(thePage, theResourceType, theLastPid);
+		}
+		return myResourceTableDao.findIdsOfDeletedResourcesAfterPid(thePage, theLastPid);
+	}
+}
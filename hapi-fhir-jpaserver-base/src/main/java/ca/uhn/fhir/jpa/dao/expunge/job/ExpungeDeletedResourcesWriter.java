@@ -0,0 +1,63 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
+import ca.uhn.fhir.jpa.dao.expunge.DeleteExpungeService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes resources, along with all of their versions and index rows, by resource PID
+ */
+public class ExpungeDeletedResourcesWriter extends BaseExpungeWriter {
+
+	@Autowired
+	private IResourceTableDao myResourceTableDao;
+	@Autowired
+	private IResourceHistoryTableDao myResourceHistoryTableDao;
+	@Autowired
+	private DeleteExpungeService myDeleteExpungeService;
+
+	@Override
+	protected String getDescription() {
+		return "deleted resources";
+	}
+
+	@Override
+	protected void expunge(List<Long> thePids, AtomicLong theExpungedCount, AtomicLong theExpungedEntitiesCount) {
+		// A resource may have been undeleted since it was read
+		List<Long> pids = myResourceTableDao.findIdsOfDeletedResourcesIn(thePids);
+		if (pids.isEmpty()) {
+			return;
+		}
+
+		if (hasExpungeHooks()) {
+			callExpungeHooks(myResourceHistoryTableDao.findAllVersionsForResourceIdsIn(pids));
+		}
+
+		int resourcesDeleted = myDeleteExpungeService.deleteResourcesAndLinkedRecords(pids, theExpungedEntitiesCount);
+		theExpungedCount.addAndGet(resourcesDeleted);
+	}
+}
@@ -0,0 +1,147 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+
+/**
+ * Spring batch Job configuration file. Contains all necessary plumbing to run an
+ * expunge job, which removes old versions and/or deleted resources in bulk.
+ * <p>
+ * Each step streams batches of PIDs from a keyset-paged reader, and expunges each batch in its
+ * own transaction using set-based DELETE statements. Batches are processed concurrently by
+ * {@link DaoConfig#getExpungeThreadCount()} worker threads, using a thread pool which is created
+ * once and shared by all runs of the job.
+ * </p>
+ */
+@Configuration
+public class ExpungeJobConfig {
+
+	public static final String EXPUNGE_JOB_NAME = "expungeJob";
+
+	@Autowired
+	private StepBuilderFactory myStepBuilderFactory;
+
+	@Autowired
+	private JobBuilderFactory myJobBuilderFactory;
+
+	@Autowired
+	private DaoConfig myDaoConfig;
+
+	@Bean
+	@Lazy
+	public Job expungeJob() {
+		return myJobBuilderFactory.get(EXPUNGE_JOB_NAME)
+			.validator(expungeJobParameterValidator())
+			.start(expungeOldVersionsStep())
+			.next(expungeDeletedResourcesStep())
+			.next(expungeJobCloserStep())
+			.build();
+	}
+
+	@Bean
+	public JobParametersValidator expungeJobParameterValidator() {
+		return new ExpungeJobParameterValidator();
+	}
+
+	@Bean
+	public Step expungeOldVersionsStep() {
+		return myStepBuilderFactory.get("expungeOldVersionsStep")
+			.<List<Long>, List<Long>>chunk(1) // Each item is already a batch of PIDs, and each batch gets its own transaction
+			.reader(expungeOldVersionsReader())
+			.writer(expungeOldVersionsWriter())
+			.taskExecutor(expungeTaskExecutor())
+			.throttleLimit(myDaoConfig.getExpungeThreadCount())
+			.build();
+	}
+
+	@Bean
+	public Step expungeDeletedResourcesStep() {
+		return myStepBuilderFactory.get("expungeDeletedResourcesStep")
+			.<List<Long>, List<Long>>chunk(1)
+			.reader(expungeDeletedResourcesReader())
+			.writer(expungeDeletedResourcesWriter())
+			.taskExecutor(expungeTaskExecutor())
+			.throttleLimit(myDaoConfig.getExpungeThreadCount())
+			.build();
+	}
+
+	@Bean
+	public Step expungeJobCloserStep() {
+		return myStepBuilderFactory.get("expungeJobCloserStep")
+			.tasklet(expungeJobCloser())
+			.build();
+	}
+
+	@Bean
+	@StepScope
+	public ExpungeOldVersionsReader expungeOldVersionsReader() {
+		return new ExpungeOldVersionsReader();
+	}
+
+	@Bean
+	@StepScope
+	public ExpungeOldVersionsWriter expungeOldVersionsWriter() {
+		return new ExpungeOldVersionsWriter();
+	}
+
+	@Bean
+	@StepScope
+	public ExpungeDeletedResourcesReader expungeDeletedResourcesReader() {
+		return new ExpungeDeletedResourcesReader();
+	}
+
+	@Bean
+	@StepScope
+	public ExpungeDeletedResourcesWriter expungeDeletedResourcesWriter() {
+		return new ExpungeDeletedResourcesWriter();
+	}
+
+	@Bean
+	public ExpungeJobCloser expungeJobCloser() {
+		return new ExpungeJobCloser();
+	}
+
+	@Bean
+	public TaskExecutor expungeTaskExecutor() {
+		ThreadPoolTaskExecutor retVal = new ThreadPoolTaskExecutor();
+		retVal.setCorePoolSize(myDaoConfig.getExpungeThreadCount());
+		retVal.setMaxPoolSize(myDaoConfig.getExpungeThreadCount());
+		retVal.setThreadNamePrefix("expunge-job-");
+		retVal.initialize();
+		return retVal;
+	}
+
+}
@@ -0,0 +1,72 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * This class will prevent an expunge job from running if expunge is disabled or the parameters are invalid.
+ */
+public class ExpungeJobParameterValidator implements JobParametersValidator {
+	@Autowired
+	private DaoConfig myDaoConfig;
+	@Autowired
+	private DaoRegistry myDaoRegistry;
+
+	@Override
+	public void validate(JobParameters theJobParameters) throws JobParametersInvalidException {
+		if (theJobParameters == null) {
+			throw new JobParametersInvalidException("This job needs Parameters: [jobUUID], [expungeOldVersions], [expungeDeletedResources]");
+		}
+
+		StringBuilder errorBuilder = new StringBuilder();
+		if (!myDaoConfig.isExpungeEnabled()) {
+			errorBuilder.append("$expunge is not enabled on this server. ");
+		}
+
+		String resourceType = theJobParameters.getString(ExpungeJobParametersBuilder.RESOURCE_TYPE);
+		if (StringUtils.isNotBlank(resourceType) && !myDaoRegistry.isResourceTypeSupported(resourceType)) {
+			errorBuilder.append("Unknown resource type: ").append(resourceType).append(". ");
+		}
+
+		boolean expungeOldVersions = Boolean.parseBoolean(theJobParameters.getString(ExpungeJobParametersBuilder.EXPUNGE_OLD_VERSIONS));
+		boolean expungeDeletedResources = Boolean.parseBoolean(theJobParameters.getString(ExpungeJobParametersBuilder.EXPUNGE_DELETED_RESOURCES));
+		if (!expungeOldVersions && !expungeDeletedResources) {
+			errorBuilder.append("At least one of [expungeOldVersions] and [expungeDeletedResources] must be true. ");
+		}
+
+		Long batchSize = theJobParameters.getLong(ExpungeJobParametersBuilder.BATCH_SIZE, 0L);
+		if (batchSize < 0) {
+			errorBuilder.append("[batchSize] must not be negative. ");
+		}
+
+		String errorMessage = errorBuilder.toString().trim();
+		if (!StringUtils.isEmpty(errorMessage)) {
+			throw new JobParametersInvalidException(errorMessage);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.springframework.batch.core.JobParametersBuilder;
+
+/**
+ * This builder is a helper so you don't have to go lookup what job parameters are required for an expunge job.
+ */
+public class ExpungeJobParametersBuilder extends JobParametersBuilder {
+
+	public static final String JOB_UUID = "jobUUID";
+	public static final String RESOURCE_TYPE = "resourceType";
+	public static final String EXPUNGE_OLD_VERSIONS = "expungeOldVersions";
+	public static final String EXPUNGE_DELETED_RESOURCES = "expungeDeletedResources";
+	public static final String BATCH_SIZE = "batchSize";
+
+	/**
+	 * Each run of the job needs a unique parameter set
+	 */
+	public ExpungeJobParametersBuilder setJobUUID(String theJobUUID) {
+		this.addString(JOB_UUID, theJobUUID);
+		return this;
+	}
+
+	/**
+	 * If set, only resources of the given type are expunged
+	 */
+	public ExpungeJobParametersBuilder setResourceType(String theResourceType) {
+		this.addString(RESOURCE_TYPE, theResourceType);
+		return this;
+	}
+
+	public ExpungeJobParametersBuilder setExpungeOldVersions(boolean theExpungeOldVersions) {
+		this.addString(EXPUNGE_OLD_VERSIONS, Boolean.toString(theExpungeOldVersions));
+		return this;
+	}
+
+	public ExpungeJobParametersBuilder setExpungeDeletedResources(boolean theExpungeDeletedResources) {
+		this.addString(EXPUNGE_DELETED_RESOURCES, Boolean.toString(theExpungeDeletedResources));
+		return this;
+	}
+
+	/**
+	 * The number of PIDs deleted in each transaction. Defaults to {@link ca.uhn.fhir.jpa.api.config.DaoConfig#getExpungeBatchSize()}.
+	 */
+	public ExpungeJobParametersBuilder setBatchSize(Long theBatchSize) {
+		this.addLong(BATCH_SIZE, theBatchSize);
+		return this;
+	}
+}
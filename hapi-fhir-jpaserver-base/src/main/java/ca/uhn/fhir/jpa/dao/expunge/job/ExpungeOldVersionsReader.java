@@ -0,0 +1,51 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Reads the PIDs of history rows (HFJ_RES_VER) which are not the current version of their resource
+ */
+public class ExpungeOldVersionsReader extends BaseExpungePidReader {
+
+	@Value("#{jobParameters['" + ExpungeJobParametersBuilder.EXPUNGE_OLD_VERSIONS + "']}")
+	private String myExpungeOldVersions;
+	@Autowired
+	private IResourceHistoryTableDao myResourceHistoryTableDao;
+
+	@Override
+	protected boolean isEnabled() {
+		return Boolean.parseBoolean(myExpungeOldVersions);
+	}
+
+	@Override
+	protected Slice<Long> fetchPage(Pageable thePage, String theResourceType, Long theLastPid) {
+		if (theResourceType != null) {
+			return myResourceHistoryTableDao.findIdsOfPreviousVersionsOfResourcesAfterPid(thePage, theResourceType, theLastPid);
+		}
+		return myResourceHistoryTableDao.findIdsOfPreviousVersionsOfResourcesAfterPid(thePage, theLastPid);
+	}
+}
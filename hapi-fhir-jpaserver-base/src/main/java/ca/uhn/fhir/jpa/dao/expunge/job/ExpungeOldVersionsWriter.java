@@ -0,0 +1,54 @@
+package ca.uhn.fhir.jpa.dao.expunge.job;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes historical versions (and their tags and provenance) by history PID
+ */
+public class ExpungeOldVersionsWriter extends BaseExpungeWriter {
+
+	@Autowired
+	private IResourceHistoryTableDao myResourceHistoryTableDao;
+
+	@Override
+	protected String getDescription() {
+		return "historical versions";
+	}
+
+	@Override
+	protected void expunge(List<Long> thePids, AtomicLong theExpungedCount, AtomicLong theExpungedEntitiesCount) {
+		if (hasExpungeHooks()) {
+			callExpungeHooks(myResourceHistoryTableDao.findAllById(thePids));
+		}
+
+		theExpungedEntitiesCount.addAndGet(deleteByColumn("HFJ_HISTORY_TAG", "RES_VER_PID", thePids));
+		theExpungedEntitiesCount.addAndGet(deleteByColumn("HFJ_RES_VER_PROV", "RES_VER_PID", thePids));
+		int versionsDeleted = deleteByColumn("HFJ_RES_VER", "PID", thePids);
+		theExpungedEntitiesCount.addAndGet(versionsDeleted);
+		theExpungedCount.addAndGet(versionsDeleted);
+	}
+}
@@ -34,6 +34,7 @@ import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.searchparam.extractor.IResourceLinkResolver;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
@@ -65,6 +66,11 @@ public class DaoResourceLinkResolver implements IResourceLinkResolver {
 
 	@Override
 	public IResourceLookup findTargetResource(@Nonnull RequestPartitionId theRequestPartitionId, RuntimeSearchParam theSearchParam, String theSourcePath, IIdType theSourceResourceId, String theResourceType, Class<? extends IBaseResource> theType, IBaseReference theReference, RequestDetails theRequest) {
+		return findTargetResource(theRequestPartitionId, theSearchParam, theSourcePath, theSourceResourceId, theResourceType, theType, theReference, theRequest, null);
+	}
+
+	@Override
+	public IResourceLookup findTargetResource(@Nonnull RequestPartitionId theRequestPartitionId, RuntimeSearchParam theSearchParam, String theSourcePath, IIdType theSourceResourceId, String theResourceType, Class<? extends IBaseResource> theType, IBaseReference theReference, RequestDetails theRequest, TransactionDetails theTransactionDetails) {
 		IResourceLookup resolvedResource;
 		String idPart = theSourceResourceId.getIdPart();
 		try {
@@ -78,6 +84,9 @@ public class DaoResourceLinkResolver implements IResourceLinkResolver {
 				if (myDaoConfig.isEnforceReferentialIntegrityOnWrite() == false) {
 					return null;
 				}
+				if (theTransactionDetails != null && Boolean.FALSE.equals(theTransactionDetails.getUserData(USER_DATA_ENFORCE_REFERENTIAL_INTEGRITY))) {
+					return null;
+				}
 
 				RuntimeResourceDefinition missingResourceDef = myContext.getResourceDefinition(theType);
 				String resName = missingResourceDef.getName();
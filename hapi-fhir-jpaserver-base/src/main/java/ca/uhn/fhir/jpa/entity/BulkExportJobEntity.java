@@ -21,6 +21,7 @@ package ca.uhn.fhir.jpa.entity;
  */
 
 import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.hl7.fhir.r5.model.InstantType;
@@ -77,7 +78,7 @@ public class BulkExportJobEntity implements Serializable {
 	@Column(name = "STATUS_TIME", nullable = false)
 	private Date myStatusTime;
 	@Temporal(TemporalType.TIMESTAMP)
-	@Column(name = "EXP_TIME", nullable = false)
+	@Column(name = "EXP_TIME", nullable = true)
 	private Date myExpiry;
 	@Column(name = "REQUEST", nullable = false, length = REQUEST_LENGTH)
 	private String myRequest;
@@ -116,10 +117,27 @@ public class BulkExportJobEntity implements Serializable {
 		myRequest = theRequest;
 	}
 
+	public Date getExpiry() {
+		return myExpiry;
+	}
+
+	/**
+	 * Sets the time after which this job and its files may be purged. Bulk import jobs
+	 * have no expiry until they have finished.
+	 */
 	public void setExpiry(Date theExpiry) {
 		myExpiry = theExpiry;
 	}
 
+	/**
+	 * Bulk import jobs are stored alongside bulk export jobs, and are told apart by their request
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isImportJob() {
+		return myRequest != null && myRequest.startsWith("/" + JpaConstants.OPERATION_IMPORT + "?");
+	}
+
 	public Collection<BulkExportCollectionEntity> getCollections() {
 		if (myCollections == null) {
 			myCollections = new ArrayList<>();
@@ -0,0 +1,138 @@
+package ca.uhn.fhir.jpa.interceptor;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.util.SqlQuery;
+import ca.uhn.fhir.jpa.util.SqlQueryList;
+import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
+import ca.uhn.fhir.util.StopWatch;
+import ca.uhn.fhir.util.UrlUtil;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This interceptor adds diagnostic details about the SQL executed by a JPA search to the
+ * HTTP response, for any search request that includes the parameter <code>_explain=true</code>.
+ * <p>
+ * For each SQL query executed while loading search results, the following response headers are added:
+ * </p>
+ * <ul>
+ *    <li><code>X-Executed-SQL</code> - The SQL, with bind values inlined</li>
+ *    <li><code>X-Executed-SQL-Outcome</code> - The number of rows returned and the query time</li>
+ *    <li><code>X-Executed-SQL-Tables</code> - The HAPI FHIR tables (e.g. search index tables) used by the query</li>
+ * </ul>
+ * <p>
+ * Note that the SQL exposes details about the database and the values being searched for, so by
+ * default no request is permitted to see it. Requests from specific client addresses can be permitted
+ * using {@link #setPermittedRemoteAddresses(Collection)}, and subclasses may override
+ * {@link #isExplainPermitted(ServletRequestDetails)} in order to apply other rules (e.g. based on the
+ * user's authorization).
+ * </p>
+ *
+ * @since 5.2.0
+ */
+@Interceptor
+public class SearchExplainInterceptor {
+
+	public static final String EXPLAIN_PARAM = "_explain";
+	public static final String HEADER_EXECUTED_SQL = "X-Executed-SQL";
+	public static final String HEADER_EXECUTED_SQL_OUTCOME = "X-Executed-SQL-Outcome";
+	public static final String HEADER_EXECUTED_SQL_TABLES = "X-Executed-SQL-Tables";
+	private static final Pattern TABLE_PATTERN = Pattern.compile("\\b(HFJ_[A-Z_]+|TRM_[A-Z_]+)\\b", Pattern.CASE_INSENSITIVE);
+	private Set<String> myPermittedRemoteAddresses = Collections.emptySet();
+
+	@Hook(Pointcut.JPA_PERFTRACE_RAW_SQL)
+	public void captureSql(ServletRequestDetails theRequestDetails, SqlQueryList theQueries) {
+		if (theRequestDetails == null || theRequestDetails.getParameters() == null) {
+			return;
+		}
+
+		String[] explain = theRequestDetails.getParameters().get(EXPLAIN_PARAM);
+		if (explain == null || explain.length == 0 || !"true".equals(explain[0])) {
+			return;
+		}
+
+		if (!isExplainPermitted(theRequestDetails)) {
+			return;
+		}
+
+		for (int i = 0; i < theQueries.size(); i++) {
+			SqlQuery nextQuery = theQueries.get(i);
+			String sql = nextQuery.getSql(true, false);
+
+			theRequestDetails.getResponse().addHeader(HEADER_EXECUTED_SQL, UrlUtil.sanitizeUrlPart(sql));
+			theRequestDetails.getResponse().addHeader(HEADER_EXECUTED_SQL_OUTCOME, "Returned " + nextQuery.getSize() + " in " + StopWatch.formatMillis(nextQuery.getElapsedTime()));
+			theRequestDetails.getResponse().addHeader(HEADER_EXECUTED_SQL_TABLES, String.join(", ", extractTableNames(sql)));
+		}
+	}
+
+	/**
+	 * Returns the client addresses which are permitted to see the executed SQL
+	 *
+	 * @see #setPermittedRemoteAddresses(Collection)
+	 */
+	public Set<String> getPermittedRemoteAddresses() {
+		return myPermittedRemoteAddresses;
+	}
+
+	/**
+	 * Sets the client addresses (as reported by {@link javax.servlet.ServletRequest#getRemoteAddr()},
+	 * e.g. <code>127.0.0.1</code>) which are permitted to see the executed SQL. By default this is
+	 * empty, meaning that no request is permitted.
+	 */
+	public void setPermittedRemoteAddresses(Collection<String> thePermittedRemoteAddresses) {
+		Validate.notNull(thePermittedRemoteAddresses, "thePermittedRemoteAddresses must not be null");
+		myPermittedRemoteAddresses = new HashSet<>(thePermittedRemoteAddresses);
+	}
+
+	/**
+	 * Determines whether the given request is permitted to see the executed SQL. The default
+	 * implementation only permits requests from the addresses supplied to
+	 * {@link #setPermittedRemoteAddresses(Collection)}. Subclasses may override this method
+	 * in order to apply other rules (e.g. based on the user's authorization).
+	 */
+	protected boolean isExplainPermitted(ServletRequestDetails theRequestDetails) {
+		if (theRequestDetails.getServletRequest() == null) {
+			return false;
+		}
+		return myPermittedRemoteAddresses.contains(theRequestDetails.getServletRequest().getRemoteAddr());
+	}
+
+	static Set<String> extractTableNames(String theSql) {
+		Set<String> retVal = new TreeSet<>();
+		Matcher matcher = TABLE_PATTERN.matcher(theSql);
+		while (matcher.find()) {
+			retVal.add(matcher.group(1).toUpperCase());
+		}
+		return retVal;
+	}
+
+}
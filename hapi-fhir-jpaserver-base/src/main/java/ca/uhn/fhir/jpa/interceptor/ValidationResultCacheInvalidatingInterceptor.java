@@ -0,0 +1,103 @@
+package ca.uhn.fhir.jpa.interceptor;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.rest.server.interceptor.ValidationResultCache;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Clears a {@link ValidationResultCache} whenever a StructureDefinition, ValueSet or CodeSystem
+ * is created, updated or deleted, since any of these may change the outcome of validation.
+ * <p>
+ * The cache is only cleared once the transaction storing the resource has committed. Clearing it
+ * any earlier would allow a concurrent validation to cache a result which was calculated against
+ * the old conformance resources.
+ * </p>
+ *
+ * @since 5.2.0
+ */
+@Interceptor
+public class ValidationResultCacheInvalidatingInterceptor {
+
+	private static final Set<String> CONFORMANCE_RESOURCE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("StructureDefinition", "ValueSet", "CodeSystem")));
+	private final ValidationResultCache myValidationResultCache;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theValidationResultCache The cache to invalidate
+	 */
+	public ValidationResultCacheInvalidatingInterceptor(ValidationResultCache theValidationResultCache) {
+		Validate.notNull(theValidationResultCache, "theValidationResultCache must not be null");
+		myValidationResultCache = theValidationResultCache;
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_CREATED)
+	public void resourceCreated(IBaseResource theResource) {
+		invalidateIfConformanceResource(theResource);
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_UPDATED)
+	public void resourceUpdated(IBaseResource theOldResource, IBaseResource theNewResource) {
+		invalidateIfConformanceResource(theNewResource);
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_DELETED)
+	public void resourceDeleted(IBaseResource theResource) {
+		invalidateIfConformanceResource(theResource);
+	}
+
+	private void invalidateIfConformanceResource(IBaseResource theResource) {
+		if (theResource == null) {
+			return;
+		}
+		String resourceType = theResource.fhirType();
+		if (resourceType == null) {
+			resourceType = theResource.getClass().getSimpleName();
+		}
+		if (!CONFORMANCE_RESOURCE_TYPES.contains(resourceType)) {
+			return;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					myValidationResultCache.invalidate();
+				}
+			});
+		} else {
+			myValidationResultCache.invalidate();
+		}
+	}
+
+}
@@ -23,6 +23,8 @@ package ca.uhn.fhir.jpa.partition;
 import ca.uhn.fhir.jpa.entity.PartitionEntity;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 
+import java.util.List;
+
 public interface IPartitionLookupSvc {
 
 	/**
@@ -48,4 +50,9 @@ public interface IPartitionLookupSvc {
 
 	void deletePartition(Integer thePartitionId);
 
+	/**
+	 * Returns all defined partitions
+	 */
+	List<PartitionEntity> listPartitions();
+
 }
@@ -39,6 +39,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
@@ -176,6 +177,12 @@ public class PartitionLookupSvcImpl implements IPartitionLookupSvc {
 		clearCaches();
 	}
 
+	@Override
+	@Transactional
+	public List<PartitionEntity> listPartitions() {
+		return myPartitionDao.findAll();
+	}
+
 	private void validatePartitionNameDoesntAlreadyExist(String theName) {
 		if (myPartitionDao.findForName(theName).isPresent()) {
 			String msg = myFhirCtx.getLocalizer().getMessageSanitized(PartitionLookupSvcImpl.class, "cantCreateDuplicatePartitionName", theName);
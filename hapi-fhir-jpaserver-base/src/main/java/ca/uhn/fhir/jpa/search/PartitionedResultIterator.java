@@ -0,0 +1,130 @@
+package ca.uhn.fhir.jpa.search;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.dao.IResultIterator;
+import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the resource PIDs found by a separate query for each partition of a search
+ * across all partitions. The PIDs found in each partition are sorted, and the partitions
+ * are merged in ascending PID order.
+ */
+class PartitionedResultIterator implements IResultIterator {
+
+	private static final Comparator<PeekingIterator<ResourcePersistentId>> HEAD_COMPARATOR = Comparator.comparing(t -> t.peek().getIdAsLong());
+	private final PriorityQueue<PeekingIterator<ResourcePersistentId>> myPartitionHeads;
+	private final int mySkippedCount;
+	private int myNonSkippedCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param thePartitionResults The results of each partition
+	 */
+	PartitionedResultIterator(List<PartitionResult> thePartitionResults) {
+		myPartitionHeads = new PriorityQueue<>(Math.max(1, thePartitionResults.size()), HEAD_COMPARATOR);
+		int skippedCount = 0;
+		for (PartitionResult next : thePartitionResults) {
+			skippedCount += next.getSkippedCount();
+			List<ResourcePersistentId> pids = new ArrayList<>(next.getPids());
+			pids.sort(Comparator.comparing(ResourcePersistentId::getIdAsLong));
+			if (!pids.isEmpty()) {
+				myPartitionHeads.add(Iterators.peekingIterator(pids.iterator()));
+			}
+		}
+		mySkippedCount = skippedCount;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !myPartitionHeads.isEmpty();
+	}
+
+	@Override
+	public ResourcePersistentId next() {
+		PeekingIterator<ResourcePersistentId> head = myPartitionHeads.poll();
+		if (head == null) {
+			throw new NoSuchElementException();
+		}
+		ResourcePersistentId retVal = head.next();
+		if (head.hasNext()) {
+			myPartitionHeads.add(head);
+		}
+		myNonSkippedCount++;
+		return retVal;
+	}
+
+	@Override
+	public int getSkippedCount() {
+		return mySkippedCount;
+	}
+
+	@Override
+	public int getNonSkippedCount() {
+		return myNonSkippedCount;
+	}
+
+	@Override
+	public Collection<ResourcePersistentId> getNextResultBatch(long theBatchSize) {
+		Collection<ResourcePersistentId> batch = new ArrayList<>();
+		while (hasNext() && batch.size() < theBatchSize) {
+			batch.add(next());
+		}
+		return batch;
+	}
+
+	@Override
+	public void close() {
+		// nothing
+	}
+
+	/**
+	 * The PIDs found by the query for a single partition
+	 */
+	static class PartitionResult {
+
+		private final List<ResourcePersistentId> myPids;
+		private final int mySkippedCount;
+
+		PartitionResult(List<ResourcePersistentId> thePids, int theSkippedCount) {
+			myPids = thePids;
+			mySkippedCount = theSkippedCount;
+		}
+
+		List<ResourcePersistentId> getPids() {
+			return myPids;
+		}
+
+		int getSkippedCount() {
+			return mySkippedCount;
+		}
+	}
+}
@@ -33,6 +33,7 @@ import ca.uhn.fhir.jpa.api.svc.ISearchCoordinatorSvc;
 import ca.uhn.fhir.jpa.dao.IResultIterator;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
+import ca.uhn.fhir.jpa.entity.PartitionEntity;
 import ca.uhn.fhir.jpa.entity.Search;
 import ca.uhn.fhir.jpa.entity.SearchInclude;
 import ca.uhn.fhir.jpa.entity.SearchTypeEnum;
@@ -41,7 +42,10 @@ import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.partition.PartitionLookupSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -71,6 +75,7 @@ import co.elastic.apm.api.ElasticApm;
 import co.elastic.apm.api.Span;
 import co.elastic.apm.api.Transaction;
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.time.DateUtils;
@@ -110,10 +115,15 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 
@@ -133,6 +143,8 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 	private ExecutorService myExecutor;
 	private Integer myLoadingThrottleForUnitTests = null;
 	private long myMaxMillisToWaitForRemoteResults = DateUtils.MILLIS_PER_MINUTE;
+	private long myMaxMillisToWaitForBackgroundCount = DateUtils.MILLIS_PER_MINUTE;
+	private Integer myBackgroundCountThrottleForUnitTests = null;
 	private boolean myNeverUseLocalSearchForUnitTests;
 	@Autowired
 	private IInterceptorBroadcaster myInterceptorBroadcaster;
@@ -158,6 +170,10 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 	private PersistedJpaBundleProviderFactory myPersistedJpaBundleProviderFactory;
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionHelperService;
+	@Autowired
+	private PartitionSettings myPartitionSettings;
+	@Autowired
+	private IPartitionLookupSvc myPartitionLookupSvc;
 
 	/**
 	 * Constructor
@@ -201,6 +217,11 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 		myMaxMillisToWaitForRemoteResults = theMaxMillisToWaitForRemoteResults;
 	}
 
+	@VisibleForTesting
+	public void setBackgroundCountThrottleForUnitTests(Integer theBackgroundCountThrottleForUnitTests) {
+		myBackgroundCountThrottleForUnitTests = theBackgroundCountThrottleForUnitTests;
+	}
+
 	/**
 	 * This method is called by the HTTP client processing thread in order to
 	 * fetch resources.
@@ -315,7 +336,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 
 		if (theParams.isLoadSynchronous() || loadSynchronousUpTo != null) {
 			ourLog.debug("Search {} is loading in synchronous mode", searchUuid);
-			return executeQuery(theResourceType, theParams, theRequestDetails, searchUuid, sb, loadSynchronousUpTo);
+			return executeQuery(theCallingDao, theResourceType, theParams, theRequestDetails, searchUuid, sb, loadSynchronousUpTo);
 		}
 
 		/*
@@ -456,7 +477,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 		return searchToUse;
 	}
 
-	private IBundleProvider executeQuery(String theResourceType, SearchParameterMap theParams, RequestDetails theRequestDetails, String theSearchUuid, ISearchBuilder theSb, Integer theLoadSynchronousUpTo) {
+	private IBundleProvider executeQuery(IDao theCallingDao, String theResourceType, SearchParameterMap theParams, RequestDetails theRequestDetails, String theSearchUuid, ISearchBuilder theSb, Integer theLoadSynchronousUpTo) {
 		SearchRuntimeDetails searchRuntimeDetails = new SearchRuntimeDetails(theRequestDetails, theSearchUuid);
 		searchRuntimeDetails.setLoadSynchronous(true);
 
@@ -482,12 +503,11 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 				List<List<IQueryParameterType>> contentAndTerms = theParams.get(Constants.PARAM_CONTENT);
 				List<List<IQueryParameterType>> textAndTerms = theParams.get(Constants.PARAM_TEXT);
 
-				Iterator<Long> countIterator = theSb.createCountQuery(theParams, theSearchUuid, theRequestDetails, requestPartitionId);
+				count = performCount(theCallingDao, theResourceType, theSb, theParams, theSearchUuid, theRequestDetails, requestPartitionId);
 
 				if (contentAndTerms != null) theParams.put(Constants.PARAM_CONTENT, contentAndTerms);
 				if (textAndTerms != null) theParams.put(Constants.PARAM_TEXT, textAndTerms);
 
-				count = countIterator.next();
 				ourLog.trace("Got count {}", count);
 			}
 
@@ -497,7 +517,12 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 				return bundleProvider;
 			}
 
-			try (IResultIterator resultIter = theSb.createQuery(theParams, searchRuntimeDetails, theRequestDetails, requestPartitionId)) {
+			Integer maxResultsToFetch = theLoadSynchronousUpTo;
+			if (theParams.getLoadSynchronousUpTo() != null && (maxResultsToFetch == null || theParams.getLoadSynchronousUpTo() < maxResultsToFetch)) {
+				maxResultsToFetch = theParams.getLoadSynchronousUpTo();
+			}
+
+			try (IResultIterator resultIter = createQuery(theCallingDao, theResourceType, theSb, theParams, searchRuntimeDetails, theRequestDetails, requestPartitionId, maxResultsToFetch, null)) {
 				while (resultIter.hasNext()) {
 					pids.add(resultIter.next());
 					if (theLoadSynchronousUpTo != null && pids.size() >= theLoadSynchronousUpTo) {
@@ -697,6 +722,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 		private Integer myMaxResultsToFetch;
 		private final SearchRuntimeDetails mySearchRuntimeDetails;
 		private final Transaction myParentTransaction;
+		private FutureTask<Integer> myBackgroundCountTask;
 
 		/**
 		 * Constructor
@@ -906,6 +932,13 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 						myInitialCollectionLatch.countDown();
 					}
 
+					/*
+					 * If this pass is ending without the search being finished, wait for any
+					 * background count so that the total is stored before the next pass
+					 * can pick up the search. The client already has its first page by now.
+					 */
+					applyBackgroundCount(mySearch.getStatus() == SearchStatusEnum.PASSCMPLET);
+
 					doSaveSearch();
 
 				}
@@ -1025,6 +1058,9 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 				span.captureException(t);
 			} finally {
 
+				if (myBackgroundCountTask != null) {
+					myBackgroundCountTask.cancel(false);
+				}
 				myIdToSearchTask.remove(mySearch.getUuid());
 				myInitialCollectionLatch.countDown();
 				markComplete();
@@ -1044,6 +1080,80 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 			}
 		}
 
+		/**
+		 * Starts the count query for this search on a separate thread, so that the
+		 * first page of results does not have to wait for the count. The result is
+		 * stored on the search by {@link #applyBackgroundCount(boolean)}.
+		 */
+		private void startBackgroundCount() {
+			// The search builder modifies the parameter map, so the count gets its own copy
+			SearchParameterMap params = SerializationUtils.clone(myParams);
+			myBackgroundCountTask = new FutureTask<>(() -> {
+				TransactionTemplate txTemplate = new TransactionTemplate(myManagedTxManager);
+				txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+				return txTemplate.execute(t -> {
+					if (myBackgroundCountThrottleForUnitTests != null) {
+						AsyncUtil.sleep(myBackgroundCountThrottleForUnitTests);
+					}
+					ourLog.trace("Performing background count");
+					Long count = performCount(myCallingDao, myResourceType, newSearchBuilder(), params, mySearch.getUuid(), myRequest, myRequestPartitionId);
+					ourLog.trace("Got background count {}", count);
+					return count.intValue();
+				});
+			});
+
+			try {
+				myExecutor.submit(myBackgroundCountTask);
+			} catch (RejectedExecutionException e) {
+				// The count will be run by the search thread in applyBackgroundCount(true)
+				ourLog.debug("Unable to submit background count for search {}: {}", mySearch.getUuid(), e.toString());
+			}
+		}
+
+		/**
+		 * Stores the result of the background count (if any) on the search entity
+		 *
+		 * @param theWaitForCompletion If <code>true</code>, block until the count is available (or
+		 *                             until the maximum wait for a background count has elapsed)
+		 */
+		private void applyBackgroundCount(boolean theWaitForCompletion) {
+			if (myBackgroundCountTask == null) {
+				return;
+			}
+
+			if (mySearch.getTotalCount() != null) {
+				// The search finished on its own, so the total is already exact
+				myBackgroundCountTask.cancel(false);
+				myBackgroundCountTask = null;
+				return;
+			}
+
+			if (!theWaitForCompletion && !myBackgroundCountTask.isDone()) {
+				return;
+			}
+
+			try {
+				Integer count;
+				if (theWaitForCompletion) {
+					// If the executor hasn't started the count yet, this runs it in the current thread. If
+					// the count is already running on the executor, this does nothing and we wait for it.
+					myBackgroundCountTask.run();
+					count = myBackgroundCountTask.get(myMaxMillisToWaitForBackgroundCount, TimeUnit.MILLISECONDS);
+				} else {
+					count = myBackgroundCountTask.get();
+				}
+				mySearch.setTotalCount(count);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (TimeoutException e) {
+				ourLog.warn("Gave up waiting for total for search {} after {}ms", mySearch.getUuid(), myMaxMillisToWaitForBackgroundCount);
+				myBackgroundCountTask.cancel(true);
+			} catch (ExecutionException | CancellationException e) {
+				ourLog.warn("Failed to calculate total for search {}: {}", mySearch.getUuid(), e.toString());
+			}
+			myBackgroundCountTask = null;
+		}
+
 		/**
 		 * This method actually creates the database query to perform the
 		 * search, and starts it.
@@ -1059,11 +1169,11 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 			 */
 			boolean wantOnlyCount = isWantOnlyCount(myParams);
 			boolean wantCount = isWantCount(myParams, wantOnlyCount);
-			if (wantCount) {
+			if (!wantOnlyCount && mySearch.getTotalCount() == null && isWantBackgroundCount(myParams)) {
+				startBackgroundCount();
+			} else if (wantCount) {
 				ourLog.trace("Performing count");
-				ISearchBuilder sb = newSearchBuilder();
-				Iterator<Long> countIterator = sb.createCountQuery(myParams, mySearch.getUuid(), myRequest, myRequestPartitionId);
-				Long count = countIterator.next();
+				Long count = performCount(myCallingDao, myResourceType, newSearchBuilder(), myParams, mySearch.getUuid(), myRequest, myRequestPartitionId);
 				ourLog.trace("Got count {}", count);
 
 				TransactionTemplate txTemplate = new TransactionTemplate(myManagedTxManager);
@@ -1099,6 +1209,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 				minWanted += currentlyLoaded;
 			}
 
+			Integer maxResultsToFetch = null;
 			for (Iterator<Integer> iter = myDaoConfig.getSearchPreFetchThresholds().iterator(); iter.hasNext(); ) {
 				int next = iter.next();
 				if (next != -1 && next <= currentlyLoaded) {
@@ -1109,6 +1220,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 					sb.setMaxResultsToFetch(null);
 				} else {
 					myMaxResultsToFetch = Math.max(next, minWanted);
+					maxResultsToFetch = myMaxResultsToFetch;
 					sb.setMaxResultsToFetch(myMaxResultsToFetch);
 				}
 
@@ -1138,7 +1250,7 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 			/*
 			 * Construct the SQL query we'll be sending to the database
 			 */
-			try (IResultIterator resultIterator = sb.createQuery(myParams, mySearchRuntimeDetails, myRequest, myRequestPartitionId)) {
+			try (IResultIterator resultIterator = createQuery(myCallingDao, myResourceType, sb, myParams, mySearchRuntimeDetails, myRequest, myRequestPartitionId, maxResultsToFetch, myPreviouslyAddedResourcePids)) {
 				assert (resultIterator != null);
 
 				/*
@@ -1193,6 +1305,163 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc {
 			(myParams.getSearchTotalMode() == null && SearchTotalModeEnum.ACCURATE.equals(myDaoConfig.getDefaultTotalMode()));
 	}
 
+	/**
+	 * Should queries for this search be fanned out, with a separate query for each partition
+	 * (see {@link PartitionSettings#isParallelPartitionSearchEnabled()})?
+	 */
+	private boolean isParallelPartitionSearch(RequestPartitionId theRequestPartitionId) {
+		return theRequestPartitionId != null
+			&& theRequestPartitionId.isAllPartitions()
+			&& myPartitionSettings.isPartitioningEnabled()
+			&& myPartitionSettings.isParallelPartitionSearchEnabled();
+	}
+
+	/**
+	 * Performs the count query for a search. If the search spans all partitions and
+	 * {@link PartitionSettings#isParallelPartitionSearchEnabled()} is set, a separate
+	 * count is performed for each partition in parallel on the search executor and
+	 * the results are added together.
+	 */
+	private Long performCount(IDao theCallingDao, String theResourceType, ISearchBuilder theSb, SearchParameterMap theParams, String theSearchUuid, RequestDetails theRequest, RequestPartitionId theRequestPartitionId) {
+		if (!isParallelPartitionSearch(theRequestPartitionId)) {
+			return theSb.createCountQuery(theParams, theSearchUuid, theRequest, theRequestPartitionId).next();
+		}
+
+		List<Long> counts = executeForEachPartition(theCallingDao, theResourceType, theParams, theSearchUuid, (sb, params, partitionId) -> sb.createCountQuery(params, theSearchUuid, theRequest, partitionId).next());
+		long retVal = counts.stream().mapToLong(t -> t).sum();
+		ourLog.debug("Counted {} results across {} partitions for search {}", retVal, counts.size(), theSearchUuid);
+		return retVal;
+	}
+
+	/**
+	 * Creates the query which loads the PIDs matching a search. If the search spans all partitions and
+	 * {@link PartitionSettings#isParallelPartitionSearchEnabled()} is set, a separate query is performed
+	 * for each partition in parallel on the search executor, loading at most <code>theMaxResultsToFetch</code>
+	 * PIDs from each partition, and the PIDs of all partitions are merged in ascending order.
+	 * <p>
+	 * Searches which need an order across partitions (a sort or an offset), or whose results are not
+	 * loaded by a single query (fulltext, <code>$everything</code> and <code>$lastn</code>) always
+	 * use a single query.
+	 * </p>
+	 */
+	private IResultIterator createQuery(IDao theCallingDao, String theResourceType, ISearchBuilder theSb, SearchParameterMap theParams, SearchRuntimeDetails theSearchRuntimeDetails, RequestDetails theRequest, RequestPartitionId theRequestPartitionId, Integer theMaxResultsToFetch, List<ResourcePersistentId> thePreviouslyAddedResourcePids) {
+		boolean fanOut = isParallelPartitionSearch(theRequestPartitionId)
+			&& theParams.getSort() == null
+			&& theParams.getOffset() == null
+			&& theParams.getEverythingMode() == null
+			&& !theParams.isLastN()
+			&& !theParams.containsKey(Constants.PARAM_CONTENT)
+			&& !theParams.containsKey(Constants.PARAM_TEXT);
+		if (!fanOut) {
+			return theSb.createQuery(theParams, theSearchRuntimeDetails, theRequest, theRequestPartitionId);
+		}
+
+		String searchUuid = theSearchRuntimeDetails.getSearchUuid();
+		List<PartitionedResultIterator.PartitionResult> partitionResults = executeForEachPartition(theCallingDao, theResourceType, theParams, searchUuid, (sb, params, partitionId) -> {
+			sb.setFetchSize(mySyncSize);
+			if (theMaxResultsToFetch != null) {
+				sb.setMaxResultsToFetch(theMaxResultsToFetch);
+			}
+			if (thePreviouslyAddedResourcePids != null) {
+				sb.setPreviouslyAddedResourcePids(new ArrayList<>(thePreviouslyAddedResourcePids));
+			}
+
+			List<ResourcePersistentId> pids = new ArrayList<>();
+			SearchRuntimeDetails searchRuntimeDetails = new SearchRuntimeDetails(theRequest, searchUuid);
+			searchRuntimeDetails.setLoadSynchronous(theSearchRuntimeDetails.getLoadSynchronous());
+			try (IResultIterator resultIter = sb.createQuery(params, searchRuntimeDetails, theRequest, partitionId)) {
+				while (resultIter.hasNext()) {
+					pids.add(resultIter.next());
+					if (theMaxResultsToFetch != null && pids.size() >= theMaxResultsToFetch) {
+						break;
+					}
+				}
+				return new PartitionedResultIterator.PartitionResult(pids, resultIter.getSkippedCount());
+			} catch (IOException e) {
+				ourLog.error("IO failure during database access", e);
+				throw new InternalErrorException(e);
+			}
+		});
+
+		int foundCount = partitionResults.stream().mapToInt(t -> t.getPids().size()).sum();
+		theSearchRuntimeDetails.setFoundMatchesCount(foundCount);
+		ourLog.debug("Found {} results across {} partitions for search {}", foundCount, partitionResults.size(), searchUuid);
+		return new PartitionedResultIterator(partitionResults);
+	}
+
+	/**
+	 * Runs a task for each partition in parallel on the search executor, each in its own transaction
+	 * with its own search builder and copy of the parameter map, and returns the results in partition
+	 * order. Tasks which the executor has not started yet are run by the calling thread, so a saturated
+	 * pool cannot deadlock the search.
+	 */
+	private <T> List<T> executeForEachPartition(IDao theCallingDao, String theResourceType, SearchParameterMap theParams, String theSearchUuid, IPartitionTask<T> theTask) {
+		// Resources in the default partition have no partition ID. The default partition also has a
+		// persisted definition, which must be skipped so that it isn't searched a second time.
+		List<RequestPartitionId> partitionIds = new ArrayList<>();
+		partitionIds.add(RequestPartitionId.defaultPartition());
+		for (PartitionEntity next : myPartitionLookupSvc.listPartitions()) {
+			if (next.getId() == PartitionLookupSvcImpl.DEFAULT_PERSISTED_PARTITION_ID) {
+				continue;
+			}
+			partitionIds.add(RequestPartitionId.fromPartitionIdAndName(next.getId(), next.getName()));
+		}
+
+		Class<? extends IBaseResource> resourceTypeClass = myContext.getResourceDefinition(theResourceType).getImplementingClass();
+		List<FutureTask<T>> tasks = new ArrayList<>(partitionIds.size());
+		for (RequestPartitionId nextPartitionId : partitionIds) {
+			// The search builder modifies the parameter map, so each partition gets its own copy
+			SearchParameterMap params = SerializationUtils.clone(theParams);
+			FutureTask<T> task = new FutureTask<>(() -> {
+				TransactionTemplate txTemplate = new TransactionTemplate(myManagedTxManager);
+				txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+				return txTemplate.execute(t -> {
+					ISearchBuilder sb = mySearchBuilderFactory.newSearchBuilder(theCallingDao, theResourceType, resourceTypeClass);
+					return theTask.execute(sb, params, nextPartitionId);
+				});
+			});
+			tasks.add(task);
+			try {
+				myExecutor.submit(task);
+			} catch (RejectedExecutionException e) {
+				ourLog.debug("Unable to submit partition query for search {}: {}", theSearchUuid, e.toString());
+			}
+		}
+
+		List<T> retVal = new ArrayList<>(tasks.size());
+		for (FutureTask<T> next : tasks) {
+			// If the executor hasn't started this task yet, this runs it in the current thread
+			next.run();
+			try {
+				retVal.add(next.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InternalErrorException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new InternalErrorException(e.getCause());
+			}
+		}
+		return retVal;
+	}
+
+	@FunctionalInterface
+	private interface IPartitionTask<T> {
+		T execute(ISearchBuilder theSb, SearchParameterMap theParams, RequestPartitionId thePartitionId);
+	}
+
+	/**
+	 * Should the total for this search be calculated in the background, instead of
+	 * before the first page is returned? Searches using <code>_total=estimated</code>
+	 * never perform a count query.
+	 */
+	private boolean isWantBackgroundCount(SearchParameterMap theParams) {
+		SearchTotalModeEnum totalMode = defaultIfNull(theParams.getSearchTotalMode(), myDaoConfig.getDefaultTotalMode());
+		return SearchTotalModeEnum.ACCURATE.equals(totalMode) && myDaoConfig.isSearchTotalCalculatedInBackground();
+	}
+
 	private static boolean isWantOnlyCount(SearchParameterMap myParams) {
 		return SummaryEnum.COUNT.equals(myParams.getSummaryMode())
 			| INTEGER_0.equals(myParams.getCount());
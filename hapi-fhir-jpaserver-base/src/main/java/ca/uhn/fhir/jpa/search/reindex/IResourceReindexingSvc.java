@@ -20,6 +20,8 @@ package ca.uhn.fhir.jpa.search.reindex;
  * #L%
  */
 
+import java.util.Date;
+
 public interface IResourceReindexingSvc {
 
 	/**
@@ -36,6 +38,22 @@ public interface IResourceReindexingSvc {
 	 */
 	Long markAllResourcesForReindexing(String theType);
 
+	/**
+	 * Marks the indexes of the resources of the given type which were last updated at or
+	 * after the given time as needing fresh indexing. Unlike {@link #markAllResourcesForReindexing(String)},
+	 * this does not cancel any other reindexing jobs.
+	 * <p>
+	 * The default implementation delegates to {@link #markAllResourcesForReindexing(String)},
+	 * reindexing every resource of the given type.
+	 * </p>
+	 *
+	 * @return Returns the job ID
+	 * @since 5.2.0
+	 */
+	default Long markResourcesForReindexing(String theType, Date theUpdatedSince) {
+		return markAllResourcesForReindexing(theType);
+	}
+
 	/**
 	 * @return Returns null if the system did not attempt to perform a pass because one was
 	 * already proceeding. Otherwise, returns the number of resources affected.
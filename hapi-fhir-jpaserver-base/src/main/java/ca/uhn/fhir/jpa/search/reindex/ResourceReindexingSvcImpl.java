@@ -214,6 +214,21 @@ public class ResourceReindexingSvcImpl implements IResourceReindexingSvc {
 		return job.getId();
 	}
 
+	@Override
+	@Transactional(Transactional.TxType.REQUIRED)
+	public Long markResourcesForReindexing(String theType, Date theUpdatedSince) {
+		myContext.getResourceDefinition(theType);
+
+		ResourceReindexJobEntity job = new ResourceReindexJobEntity();
+		job.setResourceType(theType);
+		job.setThresholdLow(theUpdatedSince);
+		job.setThresholdHigh(DateUtils.addMinutes(new Date(), 5));
+		job = myReindexJobDao.saveAndFlush(job);
+
+		ourLog.info("Marking resources of type {} updated since {} for reindexing - Got job ID[{}]", theType, theUpdatedSince, job.getId());
+		return job.getId();
+	}
+
 	public static class Job implements HapiJob {
 		@Autowired
 		private IResourceReindexingSvc myTarget;
@@ -137,6 +137,8 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
 import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Nonnull;
@@ -188,6 +190,7 @@ public abstract class BaseTermReadSvcImpl implements ITermReadSvc {
 	private static Runnable myInvokeOnNextCallForUnitTest;
 	private final int myFetchSize = DEFAULT_FETCH_SIZE;
 	private final Cache<String, TermCodeSystemVersion> myCodeSystemCurrentVersionCache = Caffeine.newBuilder().expireAfterWrite(1, TimeUnit.MINUTES).build();
+	private final Cache<Long, Set<String>> myCodeIndexCache = Caffeine.newBuilder().maximumSize(50).expireAfterWrite(10, TimeUnit.MINUTES).build();
 	@Autowired
 	protected DaoRegistry myDaoRegistry;
 	@Autowired
@@ -331,6 +334,27 @@ public abstract class BaseTermReadSvcImpl implements ITermReadSvc {
 		myTranslationCache.invalidateAll();
 		myTranslationWithReverseCache.invalidateAll();
 		myCodeSystemCurrentVersionCache.invalidateAll();
+		myCodeIndexCache.invalidateAll();
+	}
+
+	@Override
+	public void invalidateCodeIndex(Long theCodeSystemVersionPid) {
+		/*
+		 * The index is shared between threads, so it mustn't be discarded until the transaction
+		 * changing the concepts has finished. Otherwise another thread could rebuild it from the
+		 * concepts as they were before the change (or from this transaction's uncommitted ones)
+		 * and that stale copy would be kept.
+		 */
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int theStatus) {
+					myCodeIndexCache.invalidate(theCodeSystemVersionPid);
+				}
+			});
+		} else {
+			myCodeIndexCache.invalidate(theCodeSystemVersionPid);
+		}
 	}
 
 	public void deleteConceptMap(ResourceTable theResourceTable) {
@@ -2322,9 +2346,14 @@ public abstract class BaseTermReadSvcImpl implements ITermReadSvc {
 			return validateCodeInValueSet(theValidationSupportContext, theOptions, theValueSetUrl, theCodeSystem, theCode, theDisplay);
 		}
 
-		TransactionTemplate txTemplate = new TransactionTemplate(myTransactionManager);
-		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
-		Optional<FhirVersionIndependentConcept> codeOpt = txTemplate.execute(t -> findCode(theCodeSystem, theCode).map(c -> new FhirVersionIndependentConcept(theCodeSystem, c.getCode())));
+		Optional<FhirVersionIndependentConcept> codeOpt;
+		if (isCodeInCodeIndex(theCodeSystem, theCode)) {
+			codeOpt = Optional.of(new FhirVersionIndependentConcept(theCodeSystem, theCode));
+		} else {
+			TransactionTemplate txTemplate = new TransactionTemplate(myTransactionManager);
+			txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+			codeOpt = txTemplate.execute(t -> findCode(theCodeSystem, theCode).map(c -> new FhirVersionIndependentConcept(theCodeSystem, c.getCode())));
+		}
 
 		if (codeOpt != null && codeOpt.isPresent()) {
 			FhirVersionIndependentConcept code = codeOpt.get();
@@ -2341,6 +2370,48 @@ public abstract class BaseTermReadSvcImpl implements ITermReadSvc {
 	}
 
 
+	/**
+	 * Checks the in-memory code index (if enabled) for the given code. A return value of <code>false</code>
+	 * does not mean that the code doesn't exist, only that the caller needs to check the database.
+	 */
+	private boolean isCodeInCodeIndex(String theCodeSystem, String theCode) {
+		if (!myDaoConfig.isInMemoryTerminologyCodeIndexEnabled() || isBlank(theCodeSystem) || isBlank(theCode)) {
+			return false;
+		}
+
+		TermCodeSystemVersion csv = getCurrentCodeSystemVersion(theCodeSystem);
+		if (csv == null) {
+			return false;
+		}
+
+		// The cached version may be an uninitialized proxy, so read its ID without initializing it
+		Long csvPid = (Long) myEntityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(csv);
+		if (csvPid == null) {
+			return false;
+		}
+
+		Set<String> codes = myCodeIndexCache.getIfPresent(csvPid);
+		if (codes == null) {
+
+			// Concepts may still be trickling into the database, so don't index a partial code system
+			if (isNotSafeToPreExpandValueSets()) {
+				return false;
+			}
+
+			codes = myCodeIndexCache.get(csvPid, t -> loadCodeIndex(theCodeSystem, csvPid));
+		}
+
+		return codes.contains(theCode);
+	}
+
+	private Set<String> loadCodeIndex(String theCodeSystem, Long theCodeSystemVersionPid) {
+		StopWatch sw = new StopWatch();
+		List<String> codes = myTxTemplate.execute(t -> myConceptDao.findCodesByCodeSystemVersion(theCodeSystemVersionPid));
+		Set<String> retVal = new HashSet<>(codes);
+		ourLog.info("Loaded in-memory code index for CodeSystem {} version PID {} with {} codes in {}", theCodeSystem, theCodeSystemVersionPid, retVal.size(), sw);
+		return Collections.unmodifiableSet(retVal);
+	}
+
 	IValidationSupport.CodeValidationResult validateCodeInValueSet(ValidationSupportContext theValidationSupportContext, ConceptValidationOptions theValidationOptions, String theValueSetUrl, String theCodeSystem, String theCode, String theDisplay) {
 		IBaseResource valueSet = theValidationSupportContext.getRootValidationSupport().fetchValueSet(theValueSetUrl);
 
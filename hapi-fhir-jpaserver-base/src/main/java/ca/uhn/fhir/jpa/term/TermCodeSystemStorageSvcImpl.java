@@ -164,6 +164,8 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 		UploadStatistics retVal = new UploadStatistics(codeSystemId);
 		HashMap<String, TermConcept> codeToConcept = new HashMap<>();
 
+		myTerminologySvc.invalidateCodeIndex(csv.getPid());
+
 		// Add root concepts
 		for (TermConcept nextRootConcept : theAdditions.getRootConcepts()) {
 			List<String> parentCodes = Collections.emptyList();
@@ -186,6 +188,10 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 
 		AtomicInteger removeCounter = new AtomicInteger(0);
 
+		if (cs.getCurrentVersion() != null) {
+			myTerminologySvc.invalidateCodeIndex(cs.getCurrentVersion().getPid());
+		}
+
 		for (TermConcept nextSuppliedConcept : theValue.getRootConcepts()) {
 			Optional<TermConcept> conceptOpt = myTerminologySvc.findCode(theSystem, nextSuppliedConcept.getCode());
 			if (conceptOpt.isPresent()) {
@@ -429,6 +435,8 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 	private void deleteCodeSystemVersion(final Long theCodeSystemVersionPid) {
 		ourLog.info(" * Deleting code system version {}", theCodeSystemVersionPid);
 
+		myTerminologySvc.invalidateCodeIndex(theCodeSystemVersionPid);
+
 		PageRequest page1000 = PageRequest.of(0, 1000);
 
 		// Parent/Child links
@@ -53,7 +53,12 @@ import org.springframework.transaction.support.TransactionTemplate;
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc {
@@ -70,10 +75,15 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc {
 	private boolean myProcessDeferred = true;
 	final private List<TermCodeSystem> myDefferedCodeSystemsDeletions = Collections.synchronizedList(new ArrayList<>());
 	final private List<TermCodeSystemVersion> myDefferedCodeSystemVersionsDeletions = Collections.synchronizedList(new ArrayList<>());
-	final private List<TermConcept> myDeferredConcepts = Collections.synchronizedList(new ArrayList<>());
+	/*
+	 * Concepts and links are drained from the head of these queues one at a time, so
+	 * these are linked lists - removing the head of an ArrayList is O(n) and makes
+	 * draining a large (e.g. SNOMED CT) upload quadratic
+	 */
+	final private List<TermConcept> myDeferredConcepts = Collections.synchronizedList(new LinkedList<>());
 	final private List<ValueSet> myDeferredValueSets = Collections.synchronizedList(new ArrayList<>());
 	final private List<ConceptMap> myDeferredConceptMaps = Collections.synchronizedList(new ArrayList<>());
-	final private List<TermConceptParentChildLink> myConceptLinksToSaveLater = Collections.synchronizedList(new ArrayList<>());
+	final private List<TermConceptParentChildLink> myConceptLinksToSaveLater = Collections.synchronizedList(new LinkedList<>());
 	@Autowired
 	private ITermConceptParentChildLinkDao myConceptParentChildLinkDao;
 	@Autowired
@@ -158,9 +168,12 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc {
 
 		int count = Math.min(1000, myDeferredConcepts.size());
 		ourLog.info("Saving {} deferred concepts...", count);
+		Map<Long, Boolean> codeSystemVersionPidToExists = new HashMap<>();
 		while (codeCount < count && myDeferredConcepts.size() > 0) {
 			TermConcept next = myDeferredConcepts.remove(0);
-			if(myCodeSystemVersionDao.findById(next.getCodeSystemVersion().getPid()).isPresent()) {
+			Long codeSystemVersionPid = next.getCodeSystemVersion().getPid();
+			boolean codeSystemVersionExists = codeSystemVersionPidToExists.computeIfAbsent(codeSystemVersionPid, t -> myCodeSystemVersionDao.findById(t).isPresent());
+			if (codeSystemVersionExists) {
 				try {
 					codeCount += myCodeSystemStorageSvc.saveConcept(next);
 				} catch (Exception theE) {
@@ -181,13 +194,15 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc {
 		if (codeCount == 0) {
 			count = Math.min(1000, myConceptLinksToSaveLater.size());
 			ourLog.info("Saving {} deferred concept relationships...", count);
+
+			// Parents are typically shared by many children, so only check each one once per batch
+			Set<Long> existingConceptPids = new HashSet<>();
 			while (relCount < count && myConceptLinksToSaveLater.size() > 0) {
 				TermConceptParentChildLink next = myConceptLinksToSaveLater.remove(0);
 				assert next.getChild() != null;
 				assert next.getParent() != null;
 
-				if ((next.getChild().getId() == null || !myConceptDao.findById(next.getChild().getId()).isPresent())
-					|| (next.getParent().getId() == null || !myConceptDao.findById(next.getParent().getId()).isPresent())) {
+				if (!conceptExists(next.getChild(), existingConceptPids) || !conceptExists(next.getParent(), existingConceptPids)) {
 					ourLog.warn("Not inserting link from child {} to parent {} because it appears to have been deleted", next.getParent().getCode(), next.getChild().getCode());
 					continue;
 				}
@@ -207,6 +222,21 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc {
 		}
 	}
 
+	private boolean conceptExists(TermConcept theConcept, Set<Long> theExistingConceptPids) {
+		Long pid = theConcept.getId();
+		if (pid == null) {
+			return false;
+		}
+		if (theExistingConceptPids.contains(pid)) {
+			return true;
+		}
+		if (myConceptDao.existsById(pid)) {
+			theExistingConceptPids.add(pid);
+			return true;
+		}
+		return false;
+	}
+
 	private void processDeferredValueSets() {
 		int count = Math.min(myDeferredValueSets.size(), 200);
 		for (ValueSet nextValueSet : new ArrayList<>(myDeferredValueSets.subList(0, count))) {
@@ -376,6 +406,11 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc {
 		myConceptDao = theConceptDao;
 	}
 
+	@VisibleForTesting
+	void setConceptParentChildLinkDaoForUnitTest(ITermConceptParentChildLinkDao theConceptParentChildLinkDao) {
+		myConceptParentChildLinkDao = theConceptParentChildLinkDao;
+	}
+
 	@VisibleForTesting
 	void setCodeSystemVersionDaoForUnitTest(ITermCodeSystemVersionDao theCodeSystemVersionDao) {
 		myCodeSystemVersionDao = theCodeSystemVersionDao;
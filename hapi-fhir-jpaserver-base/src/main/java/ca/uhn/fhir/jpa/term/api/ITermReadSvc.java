@@ -124,4 +124,13 @@ public interface ITermReadSvc extends IValidationSupport {
 	 */
 	CodeValidationResult codeSystemValidateCode(IIdType theCodeSystemId, String theValueSetUrl, String theVersion, String theCode, String theDisplay, IBaseDatatype theCoding, IBaseDatatype theCodeableConcept);
 
+	/**
+	 * Discards the in-memory code index for the given code system version (if one has been built)
+	 * so that it is reloaded from the database on next use. If a transaction is active, the index
+	 * is discarded once that transaction has completed.
+	 *
+	 * @see ca.uhn.fhir.jpa.api.config.DaoConfig#setInMemoryTerminologyCodeIndexEnabled(boolean)
+	 */
+	void invalidateCodeIndex(Long theCodeSystemVersionPid);
+
 }
@@ -30,12 +30,24 @@ import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
-
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the number of resources of each type. The counts are loaded by the fetcher (which
+ * counts all resources which aren't deleted) when the cache expires, and in between loads they
+ * are kept up to date by counting the resources created, deleted and undeleted since the last
+ * load. The DAOs report these changes directly, and they are applied once the transaction which
+ * made them has committed.
+ */
 public class ResourceCountCache {
 
 	private static final Logger ourLog = LoggerFactory.getLogger(ResourceCountCache.class);
@@ -43,6 +55,7 @@ public class ResourceCountCache {
 	private final Callable<Map<String, Long>> myFetcher;
 	private volatile long myCacheMillis;
 	private AtomicReference<Map<String, Long>> myCapabilityStatement = new AtomicReference<>();
+	private final ConcurrentHashMap<String, LongAdder> myCountChanges = new ConcurrentHashMap<>();
 	private long myLastFetched;
 	@Autowired
 	private ISchedulerService mySchedulerService;
@@ -57,15 +70,57 @@ public class ResourceCountCache {
 	public synchronized void clear() {
 		ourLog.info("Clearing cache");
 		myCapabilityStatement.set(null);
+		myCountChanges.clear();
 		myLastFetched = 0;
 	}
 
 	public synchronized Map<String, Long> get() {
-		return myCapabilityStatement.get();
+		Map<String, Long> retVal = myCapabilityStatement.get();
+		if (retVal == null || myCountChanges.isEmpty()) {
+			return retVal;
+		}
+
+		Map<String, Long> counts = new HashMap<>(retVal);
+		myCountChanges.forEach((type, increment) -> counts.merge(type, increment.sum(), Long::sum));
+		return counts;
+	}
+
+	/**
+	 * Records that a resource of the given type has been created since the counts were last loaded
+	 */
+	public void incrementCount(String theResourceType) {
+		myCountChanges.computeIfAbsent(theResourceType, t -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Records that a resource of the given type has been deleted since the counts were last loaded
+	 */
+	public void decrementCount(String theResourceType) {
+		myCountChanges.computeIfAbsent(theResourceType, t -> new LongAdder()).decrement();
+	}
+
+	/**
+	 * Records that a resource of the given type has been created (or undeleted) once the
+	 * current transaction commits
+	 */
+	public void incrementCountAfterCommit(String theResourceType) {
+		runAfterCommit(() -> incrementCount(theResourceType));
+	}
+
+	/**
+	 * Records that a resource of the given type has been deleted once the current
+	 * transaction commits
+	 */
+	public void decrementCountAfterCommit(String theResourceType) {
+		runAfterCommit(() -> decrementCount(theResourceType));
 	}
 
 	private Map<String, Long> refresh() {
 		Map<String, Long> retVal;
+
+		// Resources created or deleted from here on may or may not be included in the fetched
+		// counts, but either way the counts are corrected on the next refresh
+		myCountChanges.clear();
 		try {
 			retVal = myFetcher.call();
 		} catch (Exception e) {
@@ -109,6 +164,23 @@ public class ResourceCountCache {
 		}
 	}
 
+	/**
+	 * Counts are only changed once the transaction commits, so that a rolled back
+	 * create or delete doesn't leave the counts off until the next refresh
+	 */
+	private static void runAfterCommit(Runnable theTask) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					theTask.run();
+				}
+			});
+		} else {
+			theTask.run();
+		}
+	}
+
 	private static long now() {
 		if (ourNowForUnitTest != null) {
 			return ourNowForUnitTest;
@@ -20,6 +20,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.sql.Blob;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -203,6 +205,26 @@ public class DatabaseBlobBinaryStorageSvcImplTest extends BaseJpaR4Test {
 
 	}
 
+	@Test
+	public void testStoreLargeBlobAndReadRange() throws IOException {
+		byte[] bytes = new byte[DatabaseBlobBinaryStorageSvcImpl.SPOOL_TO_FILE_THRESHOLD_BYTES * 3];
+		new Random(1).nextBytes(bytes);
+
+		IdType resourceId = new IdType("Binary/123");
+		StoredDetails outcome = mySvc.storeBlob(resourceId, null, "image/png", new ByteArrayInputStream(bytes));
+		assertEquals(bytes.length, outcome.getBytes());
+		assertArrayEquals(bytes, mySvc.fetchBlob(resourceId, outcome.getBlobId()));
+
+		ByteArrayOutputStream capture = new ByteArrayOutputStream();
+		assertTrue(mySvc.writeBlob(resourceId, outcome.getBlobId(), capture, 1000, 2000));
+		assertArrayEquals(Arrays.copyOfRange(bytes, 1000, 3000), capture.toByteArray());
+
+		// Range extending beyond the end of the blob
+		capture = new ByteArrayOutputStream();
+		assertTrue(mySvc.writeBlob(resourceId, outcome.getBlobId(), capture, bytes.length - 10, 100));
+		assertArrayEquals(Arrays.copyOfRange(bytes, bytes.length - 10, bytes.length), capture.toByteArray());
+	}
+
 	@Test
 	public void testCopyBlobToOutputStream_Exception() throws SQLException {
 		DatabaseBlobBinaryStorageSvcImpl svc = new DatabaseBlobBinaryStorageSvcImpl();
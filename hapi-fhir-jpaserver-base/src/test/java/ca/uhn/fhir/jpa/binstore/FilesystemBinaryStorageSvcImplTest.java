@@ -15,6 +15,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -82,6 +83,27 @@ public class FilesystemBinaryStorageSvcImplTest {
 		assertArrayEquals(SOME_BYTES, mySvc.fetchBlob(id, outcome.getBlobId()));
 	}
 
+	@Test
+	public void testWriteRange() throws IOException {
+		IIdType id = new IdType("Patient/123");
+		StoredDetails outcome = mySvc.storeBlob(id, null, "image/png", new ByteArrayInputStream(SOME_BYTES));
+
+		ByteArrayOutputStream capture = new ByteArrayOutputStream();
+		assertTrue(mySvc.writeBlob(id, outcome.getBlobId(), capture, 3, 4));
+		assertArrayEquals(new byte[]{5, 6, 7, 8}, capture.toByteArray());
+
+		// Range extending beyond the end of the blob
+		capture = new ByteArrayOutputStream();
+		assertTrue(mySvc.writeBlob(id, outcome.getBlobId(), capture, 14, 10));
+		assertArrayEquals(new byte[]{2, 1}, capture.toByteArray());
+
+		// Range starting beyond the end of the blob
+		capture = new ByteArrayOutputStream();
+		assertTrue(mySvc.writeBlob(id, outcome.getBlobId(), capture, 16, 10));
+		assertEquals(0, capture.size());
+
+		assertFalse(mySvc.writeBlob(id, "ABCDEFGHIJKLMNOPQRSTUV", new ByteArrayOutputStream(), 0, 10));
+	}
 
 	@Test
 	public void testFetchBlobUnknown() throws IOException {
@@ -116,6 +138,79 @@ public class FilesystemBinaryStorageSvcImplTest {
 		assertEquals(0, capture.size());
 	}
 
+	@Test
+	public void testContentAddressedStoreDeduplicates() throws IOException {
+		mySvc.setContentAddressed(true);
+
+		IIdType id1 = new IdType("Patient/123");
+		IIdType id2 = new IdType("Patient/456");
+		StoredDetails outcome1 = mySvc.storeBlob(id1, null, "application/pdf", new ByteArrayInputStream(SOME_BYTES));
+		StoredDetails outcome2 = mySvc.storeBlob(id2, null, "application/pdf", new ByteArrayInputStream(SOME_BYTES));
+		StoredDetails outcome3 = mySvc.storeBlob(id2, null, "application/pdf", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+		assertNotEquals(outcome1.getBlobId(), outcome2.getBlobId());
+		assertEquals(outcome1.getHash(), outcome2.getHash());
+
+		File contentFile = mySvc.getContentFilename(outcome1.getHash());
+		assertTrue(contentFile.exists());
+		assertEquals(2, FilesystemBinaryStorageSvcImpl.getReferenceCount(contentFile));
+		assertEquals(1, FilesystemBinaryStorageSvcImpl.getReferenceCount(mySvc.getContentFilename(outcome3.getHash())));
+
+		// Only the content files should remain in the content directory
+		Collection<File> files = FileUtils.listFiles(new File(myPath, FilesystemBinaryStorageSvcImpl.CONTENT_DIRECTORY_NAME), null, true);
+		assertEquals(2, files.size(), files.toString());
+
+		assertArrayEquals(SOME_BYTES, mySvc.fetchBlob(id1, outcome1.getBlobId()));
+		assertArrayEquals(SOME_BYTES, mySvc.fetchBlob(id2, outcome2.getBlobId()));
+		assertArrayEquals(new byte[]{1, 2, 3}, mySvc.fetchBlob(id2, outcome3.getBlobId()));
+
+		// A blob ID is only valid along with the resource ID it was stored for
+		assertFalse(mySvc.writeBlob(id2, outcome1.getBlobId(), new ByteArrayOutputStream()));
+	}
+
+	@Test
+	public void testContentAddressedGarbageCollection() throws IOException {
+		mySvc.setContentAddressed(true);
+
+		IIdType id1 = new IdType("Patient/123");
+		IIdType id2 = new IdType("Patient/456");
+		StoredDetails outcome1 = mySvc.storeBlob(id1, null, "application/pdf", new ByteArrayInputStream(SOME_BYTES));
+		StoredDetails outcome2 = mySvc.storeBlob(id2, null, "application/pdf", new ByteArrayInputStream(SOME_BYTES));
+		File contentFile = mySvc.getContentFilename(outcome1.getHash());
+
+		mySvc.expungeBlob(id1, outcome1.getBlobId());
+		assertEquals(1, FilesystemBinaryStorageSvcImpl.getReferenceCount(contentFile));
+		assertEquals(0, mySvc.collectGarbage());
+		assertArrayEquals(SOME_BYTES, mySvc.fetchBlob(id2, outcome2.getBlobId()));
+
+		mySvc.expungeBlob(id2, outcome2.getBlobId());
+		assertEquals(0, FilesystemBinaryStorageSvcImpl.getReferenceCount(contentFile));
+		assertEquals(1, mySvc.collectGarbage());
+		assertFalse(contentFile.exists());
+
+		// Storing the same content again after collection works
+		StoredDetails outcome3 = mySvc.storeBlob(id1, null, "application/pdf", new ByteArrayInputStream(SOME_BYTES));
+		assertArrayEquals(SOME_BYTES, mySvc.fetchBlob(id1, outcome3.getBlobId()));
+		assertEquals(1, FilesystemBinaryStorageSvcImpl.getReferenceCount(contentFile));
+	}
+
+	@Test
+	public void testContentAddressedRejectOversized() throws IOException {
+		mySvc.setContentAddressed(true);
+		mySvc.setMaximumBinarySize(5);
+
+		try {
+			mySvc.storeBlob(new IdType("Patient/123"), null, "image/png", new ByteArrayInputStream(SOME_BYTES));
+			fail();
+		} catch (PayloadTooLargeException e) {
+			assertEquals("Binary size exceeds maximum: 5", e.getMessage());
+		}
+
+		// The incoming file should have been cleaned up
+		Collection<File> files = FileUtils.listFiles(new File(myPath, FilesystemBinaryStorageSvcImpl.CONTENT_DIRECTORY_NAME), null, true);
+		assertEquals(0, files.size(), files.toString());
+	}
+
 	@Test
 	public void testRejectOversized() throws IOException {
 		mySvc.setMinimumBinarySize(0);
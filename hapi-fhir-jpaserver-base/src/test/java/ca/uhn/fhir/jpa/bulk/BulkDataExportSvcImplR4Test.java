@@ -1,8 +1,10 @@
 package ca.uhn.fhir.jpa.bulk;
 
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
 import ca.uhn.fhir.jpa.batch.api.IBatchJobSubmitter;
 import ca.uhn.fhir.jpa.bulk.api.IBulkDataExportSvc;
 import ca.uhn.fhir.jpa.bulk.job.BulkExportJobParametersBuilder;
+import ca.uhn.fhir.jpa.bulk.model.BulkExportStyleEnum;
 import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportCollectionDao;
 import ca.uhn.fhir.jpa.dao.data.IBulkExportCollectionFileDao;
@@ -13,15 +15,21 @@ import ca.uhn.fhir.jpa.entity.BulkExportCollectionFileEntity;
 import ca.uhn.fhir.jpa.entity.BulkExportJobEntity;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import com.google.common.base.Charsets;
 import com.google.common.collect.Sets;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.hamcrest.Matchers;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.Group;
+import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.InstantType;
 import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Organization;
 import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,18 +43,28 @@ import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -72,6 +90,14 @@ public class BulkDataExportSvcImplR4Test extends BaseJpaR4Test {
 	@Qualifier("bulkExportJob")
 	private Job myBulkJob;
 
+	@AfterEach
+	public void after() {
+		DaoConfig defaults = new DaoConfig();
+		myDaoConfig.setBulkExportPartitionSize(defaults.getBulkExportPartitionSize());
+		myDaoConfig.setBulkExportFileMaximumSize(defaults.getBulkExportFileMaximumSize());
+		myDaoConfig.setBulkExportGzipEnabled(defaults.isBulkExportGzipEnabled());
+	}
+
 	@Test
 	public void testPurgeExpiredJobs() {
 
@@ -400,6 +426,204 @@ public class BulkDataExportSvcImplR4Test extends BaseJpaR4Test {
 		}
 	}
 
+	@Test
+	public void testSubmit_PartitionedByPidRangeAndGzipped() throws IOException {
+		myDaoConfig.setBulkExportPartitionSize(4);
+		myDaoConfig.setBulkExportGzipEnabled(true);
+
+		// Create some resources to load
+		createResources();
+
+		// Create a bulk job
+		IBulkDataExportSvc.JobInfo jobDetails = myBulkDataExportSvc.submitJob(null, Sets.newHashSet("Patient"), null, null);
+		myBulkDataExportSvc.buildExportFiles();
+		awaitAllBulkJobCompletions();
+
+		// The patients are spread across several PID ranges, each of which produces its own file
+		IBulkDataExportSvc.JobInfo status = myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound(jobDetails.getJobId());
+		assertEquals(BulkJobStatusEnum.COMPLETE, status.getStatus());
+		assertThat(status.getFiles().size(), greaterThan(1));
+
+		Set<String> exportedIds = new HashSet<>();
+		for (IBulkDataExportSvc.FileEntry next : status.getFiles()) {
+			Binary nextBinary = myBinaryDao.read(next.getResourceId());
+			assertEquals(Constants.CT_APPLICATION_GZIP, nextBinary.getContentType());
+			String nextContents = IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(nextBinary.getContent())), Constants.CHARSET_UTF8);
+			for (String nextLine : nextContents.split("\n")) {
+				exportedIds.add(myFhirCtx.newJsonParser().parseResource(Patient.class, nextLine).getIdElement().getIdPart());
+			}
+		}
+		assertEquals(10, exportedIds.size());
+	}
+
+	@Test
+	public void testSubmit_PartitionedByResourceCountWithInterleavedTypes() throws Exception {
+		myDaoConfig.setBulkExportPartitionSize(4);
+
+		// Each patient is followed by several other resources, so the patient PIDs are far apart
+		for (int i = 0; i < 10; i++) {
+			Patient patient = new Patient();
+			patient.setId("PAT" + i);
+			myPatientDao.update(patient);
+			for (int j = 0; j < 3; j++) {
+				Observation obs = new Observation();
+				obs.setId("OBS" + i + "-" + j);
+				obs.getSubject().setReference("Patient/PAT" + i);
+				myObservationDao.update(obs);
+			}
+		}
+
+		IBulkDataExportSvc.JobInfo jobDetails = myBulkDataExportSvc.submitJob(null, Sets.newHashSet("Patient"), null, null);
+		myBulkDataExportSvc.buildExportFiles();
+		awaitAllBulkJobCompletions();
+
+		// Partitions are sized by the number of patients they contain, not by the width of their PID range
+		IBulkDataExportSvc.JobInfo status = myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound(jobDetails.getJobId());
+		assertEquals(BulkJobStatusEnum.COMPLETE, status.getStatus());
+		List<Integer> lineCounts = status
+			.getFiles()
+			.stream()
+			.map(t -> new String(myBinaryDao.read(t.getResourceId()).getContent(), Charsets.UTF_8).split("\n").length)
+			.sorted()
+			.collect(Collectors.toList());
+		assertThat(lineCounts, contains(2, 4, 4));
+	}
+
+	@Test
+	public void testSubmit_FilesShardedBySize() throws Exception {
+		myDaoConfig.setBulkExportFileMaximumSize(1);
+
+		for (int i = 0; i < 25; i++) {
+			Patient patient = new Patient();
+			patient.setId("PAT" + i);
+			myPatientDao.update(patient);
+		}
+
+		// Each chunk (10 reads of 1 resource) exceeds the maximum size, so each one is written to its own file
+		BulkExportJobParametersBuilder paramBuilder = new BulkExportJobParametersBuilder()
+			.setReadChunkSize(1L)
+			.setOutputFormat(Constants.CT_FHIR_NDJSON)
+			.setResourceTypes(Arrays.asList("Patient"));
+		JobExecution jobExecution = myBatchJobSubmitter.runJob(myBulkJob, paramBuilder.toJobParameters());
+		awaitJobCompletion(jobExecution);
+
+		String jobUUID = (String) jobExecution.getExecutionContext().get("jobUUID");
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound(jobUUID);
+		assertThat(jobInfo.getStatus(), equalTo(BulkJobStatusEnum.COMPLETE));
+
+		List<Integer> lineCounts = jobInfo
+			.getFiles()
+			.stream()
+			.map(t -> new String(myBinaryDao.read(t.getResourceId()).getContent(), Charsets.UTF_8).split("\n").length)
+			.sorted()
+			.collect(Collectors.toList());
+		assertThat(lineCounts, contains(5, 10, 10));
+	}
+
+	@Test
+	public void testSubmitGroupExport() throws Exception {
+		createResources();
+
+		// Observations are linked to a second patient through the performer, which is also a Patient compartment path
+		for (int i = 0; i < 10; i++) {
+			Observation obs = myObservationDao.read(new IdType("Observation/OBS" + i));
+			obs.addPerformer().setReference("Patient/PAT" + ((i + 5) % 10));
+			myObservationDao.update(obs);
+		}
+		// Linked to two members, but must only be exported once
+		Observation obs = new Observation();
+		obs.setId("OBS-BOTH");
+		obs.getSubject().setReference("Patient/PAT0");
+		obs.addPerformer().setReference("Patient/PAT1");
+		myObservationDao.update(obs);
+
+		Group group = new Group();
+		group.setId("G1");
+		group.setType(Group.GroupType.PERSON);
+		group.addMember().getEntity().setReference("Patient/PAT0");
+		group.addMember().getEntity().setReference("Patient/PAT1");
+		group.addMember().getEntity().setReference("Patient/PAT2");
+		myGroupDao.update(group);
+
+		// Read one link at a time so that the links of a single resource are spread across pages
+		BulkExportJobParametersBuilder paramBuilder = new BulkExportJobParametersBuilder()
+			.setReadChunkSize(1L)
+			.setOutputFormat(Constants.CT_FHIR_NDJSON)
+			.setResourceTypes(Arrays.asList("Patient", "Observation"))
+			.setExportStyle(BulkExportStyleEnum.GROUP)
+			.setGroupId("G1");
+		JobExecution jobExecution = myBatchJobSubmitter.runJob(myBulkJob, paramBuilder.toJobParameters());
+		awaitJobCompletion(jobExecution);
+
+		String jobUUID = (String) jobExecution.getExecutionContext().get("jobUUID");
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound(jobUUID);
+		assertEquals(BulkJobStatusEnum.COMPLETE, jobInfo.getStatus());
+		assertEquals(BulkExportStyleEnum.GROUP, jobInfo.getExportStyle());
+		assertEquals("G1", jobInfo.getGroupId());
+		assertThat(jobInfo.getRequest(), startsWith("/Group/G1/$export?"));
+
+		assertThat(getExportedIds(jobInfo, "Patient"), containsInAnyOrder("PAT0", "PAT1", "PAT2"));
+		assertThat(getExportedIds(jobInfo, "Observation"), containsInAnyOrder("OBS0", "OBS1", "OBS2", "OBS5", "OBS6", "OBS7", "OBS-BOTH"));
+	}
+
+	@Test
+	public void testSubmitPatientExport() {
+		createResources();
+
+		// Neither of these is in the compartment of any patient
+		Observation obs = new Observation();
+		obs.setId("OBS-NOSUBJECT");
+		myObservationDao.update(obs);
+		Organization org = new Organization();
+		org.setName("ORG");
+		myOrganizationDao.create(org);
+
+		IBulkDataExportSvc.JobInfo jobDetails = myBulkDataExportSvc.submitJob(null, null, null, null, BulkExportStyleEnum.PATIENT, null);
+		myBulkDataExportSvc.buildExportFiles();
+		awaitAllBulkJobCompletions();
+
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound(jobDetails.getJobId());
+		assertEquals(BulkJobStatusEnum.COMPLETE, jobInfo.getStatus());
+		assertEquals(BulkExportStyleEnum.PATIENT, jobInfo.getExportStyle());
+		assertThat(jobInfo.getRequest(), startsWith("/Patient/$export?"));
+		assertThat(jobInfo.getFiles().stream().map(IBulkDataExportSvc.FileEntry::getResourceType).collect(Collectors.toSet()), containsInAnyOrder("Patient", "Observation"));
+		assertEquals(10, getExportedIds(jobInfo, "Patient").size());
+		assertEquals(10, getExportedIds(jobInfo, "Observation").size());
+	}
+
+	@Test
+	public void testSubmitGroupExport_UnknownGroup() {
+		try {
+			myBulkDataExportSvc.submitJob(null, Sets.newHashSet("Patient"), null, null, BulkExportStyleEnum.GROUP, "FOO");
+			fail();
+		} catch (ResourceNotFoundException e) {
+			// good
+		}
+	}
+
+	@Test
+	public void testSubmitPatientExport_TypeNotInCompartment() {
+		try {
+			myBulkDataExportSvc.submitJob(null, Sets.newHashSet("Patient", "Organization"), null, null, BulkExportStyleEnum.PATIENT, null);
+			fail();
+		} catch (InvalidRequestException e) {
+			assertEquals("Resource type Organization is not part of the Patient compartment, and can not be exported at the Patient or Group level", e.getMessage());
+		}
+	}
+
+	private List<String> getExportedIds(IBulkDataExportSvc.JobInfo theJobInfo, String theResourceType) {
+		List<String> retVal = new ArrayList<>();
+		for (IBulkDataExportSvc.FileEntry next : theJobInfo.getFiles()) {
+			if (theResourceType.equals(next.getResourceType())) {
+				String nextContents = new String(myBinaryDao.read(next.getResourceId()).getContent(), Constants.CHARSET_UTF8);
+				for (String nextLine : nextContents.split("\n")) {
+					retVal.add(myFhirCtx.newJsonParser().parseResource(nextLine).getIdElement().getIdPart());
+				}
+			}
+		}
+		return retVal;
+	}
+
 	private void createResources() {
 		for (int i = 0; i < 10; i++) {
 			Patient patient = new Patient();
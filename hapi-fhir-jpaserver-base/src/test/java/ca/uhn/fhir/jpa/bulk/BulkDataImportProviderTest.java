@@ -0,0 +1,202 @@
+package ca.uhn.fhir.jpa.bulk;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.jpa.bulk.api.IBulkDataExportSvc;
+import ca.uhn.fhir.jpa.bulk.api.IBulkDataImportSvc;
+import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
+import ca.uhn.fhir.jpa.bulk.provider.BulkDataImportProvider;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.client.apache.ResourceEntity;
+import ca.uhn.fhir.rest.server.RestfulServer;
+import ca.uhn.fhir.test.utilities.JettyUtil;
+import com.google.common.base.Charsets;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.hl7.fhir.r4.model.BooleanType;
+import org.hl7.fhir.r4.model.InstantType;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkDataImportProviderTest {
+
+	private static final String A_JOB_ID = "0000000-AAAAAA";
+	private static final Logger ourLog = LoggerFactory.getLogger(BulkDataImportProviderTest.class);
+	private Server myServer;
+	private FhirContext myCtx = FhirContext.forCached(FhirVersionEnum.R4);
+	private int myPort;
+	@Mock
+	private IBulkDataImportSvc myBulkDataImportSvc;
+	private CloseableHttpClient myClient;
+	@Captor
+	private ArgumentCaptor<List<String>> myInputsCaptor;
+	@Captor
+	private ArgumentCaptor<Boolean> myEnforceReferentialIntegrityCaptor;
+
+	@AfterEach
+	public void after() throws Exception {
+		JettyUtil.closeServer(myServer);
+		myClient.close();
+	}
+
+	@BeforeEach
+	public void start() throws Exception {
+		myServer = new Server(0);
+
+		BulkDataImportProvider provider = new BulkDataImportProvider();
+		provider.setBulkDataImportSvcForUnitTests(myBulkDataImportSvc);
+		provider.setFhirContextForUnitTest(myCtx);
+
+		ServletHandler proxyHandler = new ServletHandler();
+		RestfulServer servlet = new RestfulServer(myCtx);
+		servlet.registerProvider(provider);
+		ServletHolder servletHolder = new ServletHolder(servlet);
+		proxyHandler.addServletWithMapping(servletHolder, "/*");
+		myServer.setHandler(proxyHandler);
+		JettyUtil.startServer(myServer);
+		myPort = JettyUtil.getPortForStartedServer(myServer);
+
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(5000, TimeUnit.MILLISECONDS);
+		HttpClientBuilder builder = HttpClientBuilder.create();
+		builder.setConnectionManager(connectionManager);
+		myClient = builder.build();
+	}
+
+	@Test
+	public void testSuccessfulInitiateImport() throws IOException {
+		IBulkDataExportSvc.JobInfo jobInfo = new IBulkDataExportSvc.JobInfo()
+			.setJobId(A_JOB_ID);
+		when(myBulkDataImportSvc.submitJob(any(), anyBoolean())).thenReturn(jobInfo);
+
+		Parameters input = new Parameters();
+		input.addParameter(JpaConstants.PARAM_IMPORT_INPUT, new StringType("patients.ndjson"));
+		input.addParameter(JpaConstants.PARAM_IMPORT_INPUT, new StringType("observations"));
+		input.addParameter(JpaConstants.PARAM_IMPORT_ENFORCE_REFERENTIAL_INTEGRITY, new BooleanType(false));
+
+		HttpPost post = new HttpPost("http://localhost:" + myPort + "/" + JpaConstants.OPERATION_IMPORT);
+		post.addHeader(Constants.HEADER_PREFER, Constants.HEADER_PREFER_RESPOND_ASYNC);
+		post.setEntity(new ResourceEntity(myCtx, input));
+		try (CloseableHttpResponse response = myClient.execute(post)) {
+			ourLog.info("Response: {}", response.toString());
+
+			assertEquals(202, response.getStatusLine().getStatusCode());
+			assertEquals("http://localhost:" + myPort + "/$import-poll-status?_jobId=" + A_JOB_ID, response.getFirstHeader(Constants.HEADER_CONTENT_LOCATION).getValue());
+		}
+
+		verify(myBulkDataImportSvc, times(1)).submitJob(myInputsCaptor.capture(), myEnforceReferentialIntegrityCaptor.capture());
+		assertThat(myInputsCaptor.getValue(), contains("patients.ndjson", "observations"));
+		assertEquals(false, myEnforceReferentialIntegrityCaptor.getValue());
+	}
+
+	@Test
+	public void testInitiateImportWithoutPreferAsync() throws IOException {
+		Parameters input = new Parameters();
+		input.addParameter(JpaConstants.PARAM_IMPORT_INPUT, new StringType("patients.ndjson"));
+
+		HttpPost post = new HttpPost("http://localhost:" + myPort + "/" + JpaConstants.OPERATION_IMPORT);
+		post.setEntity(new ResourceEntity(myCtx, input));
+		try (CloseableHttpResponse response = myClient.execute(post)) {
+			String responseContent = IOUtils.toString(response.getEntity().getContent(), Charsets.UTF_8);
+			assertEquals(400, response.getStatusLine().getStatusCode());
+			assertThat(responseContent, containsString("Must request async processing for $import"));
+		}
+
+		verifyNoInteractions(myBulkDataImportSvc);
+	}
+
+	@Test
+	public void testPollForStatus_BUILDING() throws IOException {
+		IBulkDataExportSvc.JobInfo jobInfo = new IBulkDataExportSvc.JobInfo()
+			.setJobId(A_JOB_ID)
+			.setStatus(BulkJobStatusEnum.BUILDING)
+			.setStatusTime(InstantType.now().getValue());
+		when(myBulkDataImportSvc.getJobInfoOrThrowResourceNotFound(eq(A_JOB_ID))).thenReturn(jobInfo);
+
+		HttpGet get = new HttpGet(getPollUrl());
+		try (CloseableHttpResponse response = myClient.execute(get)) {
+			assertEquals(202, response.getStatusLine().getStatusCode());
+			assertEquals("120", response.getFirstHeader(Constants.HEADER_RETRY_AFTER).getValue());
+			assertThat(response.getFirstHeader(Constants.HEADER_X_PROGRESS).getValue(), containsString("Import in progress - Status set to BUILDING at 20"));
+		}
+	}
+
+	@Test
+	public void testPollForStatus_COMPLETE() throws IOException {
+		IBulkDataExportSvc.JobInfo jobInfo = new IBulkDataExportSvc.JobInfo()
+			.setJobId(A_JOB_ID)
+			.setStatus(BulkJobStatusEnum.COMPLETE)
+			.setStatusTime(InstantType.now().getValue())
+			.setStatusMessage("Imported 10 resources from 2 files");
+		when(myBulkDataImportSvc.getJobInfoOrThrowResourceNotFound(eq(A_JOB_ID))).thenReturn(jobInfo);
+
+		HttpGet get = new HttpGet(getPollUrl());
+		try (CloseableHttpResponse response = myClient.execute(get)) {
+			String responseContent = IOUtils.toString(response.getEntity().getContent(), Charsets.UTF_8);
+			assertEquals(200, response.getStatusLine().getStatusCode());
+
+			OperationOutcome oo = myCtx.newJsonParser().parseResource(OperationOutcome.class, responseContent);
+			assertEquals(OperationOutcome.IssueSeverity.INFORMATION, oo.getIssueFirstRep().getSeverity());
+			assertEquals("Imported 10 resources from 2 files", oo.getIssueFirstRep().getDiagnostics());
+		}
+	}
+
+	@Test
+	public void testPollForStatus_ERROR() throws IOException {
+		IBulkDataExportSvc.JobInfo jobInfo = new IBulkDataExportSvc.JobInfo()
+			.setJobId(A_JOB_ID)
+			.setStatus(BulkJobStatusEnum.ERROR)
+			.setStatusTime(InstantType.now().getValue())
+			.setStatusMessage("Failed to parse line 3 of file bad.ndjson");
+		when(myBulkDataImportSvc.getJobInfoOrThrowResourceNotFound(eq(A_JOB_ID))).thenReturn(jobInfo);
+
+		HttpGet get = new HttpGet(getPollUrl());
+		try (CloseableHttpResponse response = myClient.execute(get)) {
+			String responseContent = IOUtils.toString(response.getEntity().getContent(), Charsets.UTF_8);
+			assertEquals(500, response.getStatusLine().getStatusCode());
+			assertThat(responseContent, containsString("Failed to parse line 3 of file bad.ndjson"));
+		}
+	}
+
+	private String getPollUrl() {
+		return "http://localhost:" + myPort + "/" + JpaConstants.OPERATION_IMPORT_POLL_STATUS + "?" +
+			JpaConstants.PARAM_EXPORT_POLL_STATUS_JOB_ID + "=" + A_JOB_ID;
+	}
+
+}
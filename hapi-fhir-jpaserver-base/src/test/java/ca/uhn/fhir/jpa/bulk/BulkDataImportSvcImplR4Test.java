@@ -0,0 +1,273 @@
+package ca.uhn.fhir.jpa.bulk;
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import ca.uhn.fhir.jpa.bulk.api.IBulkDataExportSvc;
+import ca.uhn.fhir.jpa.bulk.api.IBulkDataImportSvc;
+import ca.uhn.fhir.jpa.bulk.model.BulkJobStatusEnum;
+import ca.uhn.fhir.jpa.dao.data.IBulkExportJobDao;
+import ca.uhn.fhir.jpa.dao.r4.BaseJpaR4Test;
+import ca.uhn.fhir.jpa.entity.BulkExportJobEntity;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class BulkDataImportSvcImplR4Test extends BaseJpaR4Test {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(BulkDataImportSvcImplR4Test.class);
+	@Autowired
+	private IBulkDataImportSvc myBulkDataImportSvc;
+	@Autowired
+	private IBulkDataExportSvc myBulkDataExportSvc;
+	@Autowired
+	private IBulkExportJobDao myBulkExportJobDao;
+	private File myImportDirectory;
+
+	@BeforeEach
+	public void before() throws IOException {
+		myImportDirectory = Files.createTempDirectory("hapi-fhir-bulk-import").toFile();
+		myDaoConfig.setBulkImportDirectory(myImportDirectory.getAbsolutePath());
+		myDaoConfig.setBulkImportBatchSize(3);
+	}
+
+	@AfterEach
+	public void after() throws IOException {
+		DaoConfig defaults = new DaoConfig();
+		myDaoConfig.setBulkImportDirectory(defaults.getBulkImportDirectory());
+		myDaoConfig.setBulkImportBatchSize(defaults.getBulkImportBatchSize());
+		FileUtils.deleteDirectory(myImportDirectory);
+	}
+
+	@Test
+	public void testImportFilesFromDirectory() throws IOException {
+		List<IBaseResource> patients = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Patient patient = new Patient();
+			patient.setId("PT" + i);
+			patient.setActive(true);
+			patients.add(patient);
+		}
+		Patient withoutId = new Patient();
+		withoutId.addName().setFamily("NOID");
+		patients.add(withoutId);
+
+		File subDirectory = new File(myImportDirectory, "patients");
+		assertEquals(true, subDirectory.mkdir());
+		writeNdJsonFile(new File(subDirectory, "1.ndjson"), patients.subList(0, 5));
+		writeNdJsonFile(new File(subDirectory, "2.ndjson"), patients.subList(5, 11));
+		FileUtils.write(new File(subDirectory, "ignored.txt"), "This is not NDJSON", StandardCharsets.UTF_8);
+
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataImportSvc.submitJob(Lists.newArrayList("patients"), true);
+		jobInfo = awaitJobCompletion(jobInfo.getJobId());
+
+		assertEquals(BulkJobStatusEnum.COMPLETE, jobInfo.getStatus());
+		assertEquals("Imported 11 resources from 2 files", jobInfo.getStatusMessage());
+		assertThat(jobInfo.getRequest(), startsWith("/$import?"));
+		runInTransaction(() -> assertEquals(11, myResourceTableDao.count()));
+		assertEquals(true, myPatientDao.read(new IdType("Patient/PT7"), mySrd).getActive());
+
+		// The retention period only starts once the job has finished
+		String jobId = jobInfo.getJobId();
+		runInTransaction(() -> assertNotNull(myBulkExportJobDao.findByJobId(jobId).get().getExpiry()));
+	}
+
+	@Test
+	public void testImportWithoutReferentialIntegrity() throws IOException {
+		List<IBaseResource> observations = new ArrayList<>();
+		List<IBaseResource> patients = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Observation obs = new Observation();
+			obs.setId("OBS" + i);
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.getSubject().setReference("Patient/PT" + i);
+			observations.add(obs);
+
+			Patient patient = new Patient();
+			patient.setId("PT" + i);
+			patients.add(patient);
+		}
+
+		// The observations refer to patients which are only created later on
+		writeNdJsonFile(new File(myImportDirectory, "observations.ndjson"), observations);
+		writeNdJsonFile(new File(myImportDirectory, "patients.ndjson"), patients);
+
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataImportSvc.submitJob(Lists.newArrayList("observations.ndjson", "patients.ndjson"), false);
+		jobInfo = awaitJobCompletion(jobInfo.getJobId());
+		assertEquals(BulkJobStatusEnum.COMPLETE, jobInfo.getStatus(), jobInfo.getStatusMessage());
+		runInTransaction(() -> assertEquals(10, myResourceTableDao.count()));
+
+		// The links are created once the deferred reindexing has run
+		myResourceReindexingSvc.forceReindexingPass();
+		SearchParameterMap map = SearchParameterMap.newSynchronous(Observation.SP_SUBJECT, new ReferenceParam("Patient/PT3"));
+		assertThat(toUnqualifiedVersionlessIdValues(myObservationDao.search(map)), containsInAnyOrder("Observation/OBS3"));
+	}
+
+	@Test
+	public void testImportWithReferentialIntegrityFailsForMissingTarget() throws IOException {
+		Observation obs = new Observation();
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		obs.getSubject().setReference("Patient/MISSING");
+		writeNdJsonFile(new File(myImportDirectory, "observations.ndjson"), Lists.newArrayList(obs));
+
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataImportSvc.submitJob(Lists.newArrayList("observations.ndjson"), true);
+		jobInfo = awaitJobCompletion(jobInfo.getJobId());
+
+		assertEquals(BulkJobStatusEnum.ERROR, jobInfo.getStatus());
+		assertThat(jobInfo.getStatusMessage(), containsString("Patient/MISSING not found"));
+		runInTransaction(() -> assertEquals(0, myResourceTableDao.count()));
+	}
+
+	@Test
+	public void testImportWithReferentialIntegrityStoresChunksInFileOrder() throws IOException {
+		myDaoConfig.setBulkImportBatchSize(1);
+
+		// Each observation refers to the patient on the line before it, which is stored in a separate chunk
+		List<IBaseResource> resources = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Patient patient = new Patient();
+			patient.setId("PT" + i);
+			resources.add(patient);
+
+			Observation obs = new Observation();
+			obs.setId("OBS" + i);
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.getSubject().setReference("Patient/PT" + i);
+			resources.add(obs);
+		}
+		writeNdJsonFile(new File(myImportDirectory, "resources.ndjson"), resources);
+
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataImportSvc.submitJob(Lists.newArrayList("resources.ndjson"), true);
+		jobInfo = awaitJobCompletion(jobInfo.getJobId());
+
+		assertEquals(BulkJobStatusEnum.COMPLETE, jobInfo.getStatus(), jobInfo.getStatusMessage());
+		runInTransaction(() -> assertEquals(40, myResourceTableDao.count()));
+		SearchParameterMap map = SearchParameterMap.newSynchronous(Observation.SP_SUBJECT, new ReferenceParam("Patient/PT13"));
+		assertThat(toUnqualifiedVersionlessIdValues(myObservationDao.search(map)), containsInAnyOrder("Observation/OBS13"));
+	}
+
+	@Test
+	public void testImportReportsParseErrors() throws IOException {
+		Patient patient = new Patient();
+		patient.setId("PT0");
+		String content = myFhirCtx.newJsonParser().encodeResourceToString(patient) + "\n\n{\"resourceType\":\"Patient\",\"active\":\"foo\"\n";
+		FileUtils.write(new File(myImportDirectory, "bad.ndjson"), content, StandardCharsets.UTF_8);
+
+		IBulkDataExportSvc.JobInfo jobInfo = myBulkDataImportSvc.submitJob(Lists.newArrayList("bad.ndjson"), true);
+		jobInfo = awaitJobCompletion(jobInfo.getJobId());
+
+		assertEquals(BulkJobStatusEnum.ERROR, jobInfo.getStatus());
+		assertThat(jobInfo.getStatusMessage(), startsWith("Failed to parse line 3 of file bad.ndjson"));
+	}
+
+	@Test
+	public void testRejectInputOutsideOfImportDirectory() throws IOException {
+		File outside = File.createTempFile("hapi-fhir-bulk-import", ".ndjson");
+		try {
+			myBulkDataImportSvc.submitJob(Lists.newArrayList("../" + outside.getName()), true);
+			fail();
+		} catch (InvalidRequestException e) {
+			assertThat(e.getMessage(), containsString("not located within the bulk import directory"));
+		} finally {
+			FileUtils.deleteQuietly(outside);
+		}
+	}
+
+	@Test
+	public void testRejectWhenImportDisabled() {
+		myDaoConfig.setBulkImportDirectory(null);
+		try {
+			myBulkDataImportSvc.submitJob(Lists.newArrayList("patients.ndjson"), true);
+			fail();
+		} catch (InvalidRequestException e) {
+			assertEquals("$import is not enabled on this server", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testExportJobIsNotAnImportJob() {
+		String exportJobId = myBulkDataExportSvc.submitJob(null, null, null, null).getJobId();
+		try {
+			myBulkDataImportSvc.getJobInfoOrThrowResourceNotFound(exportJobId);
+			fail();
+		} catch (ResourceNotFoundException e) {
+			// good
+		}
+	}
+
+	@Test
+	public void testImportJobIsNotAnExportJob() throws IOException {
+		writeNdJsonFile(new File(myImportDirectory, "patients.ndjson"), Lists.newArrayList(new Patient()));
+		String importJobId = myBulkDataImportSvc.submitJob(Lists.newArrayList("patients.ndjson"), true).getJobId();
+		try {
+			myBulkDataExportSvc.getJobInfoOrThrowResourceNotFound(importJobId);
+			fail();
+		} catch (ResourceNotFoundException e) {
+			// good
+		}
+		awaitJobCompletion(importJobId);
+	}
+
+	@Test
+	public void testRunningImportJobIsNotPurged() {
+		BulkExportJobEntity job = new BulkExportJobEntity();
+		job.setJobId("RUNNING-IMPORT");
+		job.setStatus(BulkJobStatusEnum.BUILDING);
+		job.setCreated(new Date(System.currentTimeMillis() - DateUtils.MILLIS_PER_DAY * 7));
+		job.setRequest("/$import?input=patients");
+		runInTransaction(() -> myBulkExportJobDao.save(job));
+
+		myBulkDataExportSvc.purgeExpiredFiles();
+
+		runInTransaction(() -> assertTrue(myBulkExportJobDao.findByJobId("RUNNING-IMPORT").isPresent()));
+	}
+
+	private void writeNdJsonFile(File theFile, List<IBaseResource> theResources) throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (IBaseResource next : theResources) {
+			content.append(myFhirCtx.newJsonParser().encodeResourceToString(next)).append("\n");
+		}
+		FileUtils.write(theFile, content.toString(), StandardCharsets.UTF_8);
+	}
+
+	private IBulkDataExportSvc.JobInfo awaitJobCompletion(String theJobId) {
+		await().atMost(60, TimeUnit.SECONDS).until(() -> {
+			BulkJobStatusEnum status = myBulkDataImportSvc.getJobInfoOrThrowResourceNotFound(theJobId).getStatus();
+			ourLog.info("Import job {} currently has status: {}", theJobId, status);
+			return status == BulkJobStatusEnum.COMPLETE || status == BulkJobStatusEnum.ERROR;
+		});
+		return myBulkDataImportSvc.getJobInfoOrThrowResourceNotFound(theJobId);
+	}
+
+}
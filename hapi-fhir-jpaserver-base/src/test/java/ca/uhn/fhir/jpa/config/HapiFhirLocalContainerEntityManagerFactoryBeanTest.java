@@ -0,0 +1,47 @@
+package ca.uhn.fhir.jpa.config;
+
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HapiFhirLocalContainerEntityManagerFactoryBeanTest {
+
+	@Test
+	public void testInClauseParameterPaddingEnabledByDefault() {
+		HapiFhirLocalContainerEntityManagerFactoryBean factoryBean = new HapiFhirLocalContainerEntityManagerFactoryBean();
+		assertEquals("true", factoryBean.getJpaPropertyMap().get(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING));
+
+		factoryBean = new HapiFhirLocalContainerEntityManagerFactoryBean();
+		ReflectionTestUtils.setField(factoryBean, "myDaoConfig", new DaoConfig());
+		assertEquals("true", factoryBean.getJpaPropertyMap().get(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING));
+	}
+
+	@Test
+	public void testInClauseParameterPaddingDisabledInDaoConfig() {
+		DaoConfig daoConfig = new DaoConfig();
+		daoConfig.setInClauseParameterPaddingEnabled(false);
+		HapiFhirLocalContainerEntityManagerFactoryBean factoryBean = new HapiFhirLocalContainerEntityManagerFactoryBean();
+		ReflectionTestUtils.setField(factoryBean, "myDaoConfig", daoConfig);
+
+		assertEquals("false", factoryBean.getJpaPropertyMap().get(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING));
+	}
+
+	@Test
+	public void testInClauseParameterPaddingExplicitPropertyWins() {
+		DaoConfig daoConfig = new DaoConfig();
+		daoConfig.setInClauseParameterPaddingEnabled(false);
+		HapiFhirLocalContainerEntityManagerFactoryBean factoryBean = new HapiFhirLocalContainerEntityManagerFactoryBean();
+		ReflectionTestUtils.setField(factoryBean, "myDaoConfig", daoConfig);
+		Properties properties = new Properties();
+		properties.put(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, "true");
+		factoryBean.setJpaProperties(properties);
+
+		assertEquals("true", factoryBean.getJpaPropertyMap().get(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING));
+	}
+
+}
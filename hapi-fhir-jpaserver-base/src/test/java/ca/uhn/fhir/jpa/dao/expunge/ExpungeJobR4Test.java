@@ -0,0 +1,179 @@
+package ca.uhn.fhir.jpa.dao.expunge;
+
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
+import ca.uhn.fhir.jpa.api.model.ExpungeOptions;
+import ca.uhn.fhir.jpa.dao.expunge.job.BaseExpungeWriter;
+import ca.uhn.fhir.jpa.dao.r4.BaseJpaR4Test;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import com.google.common.collect.Lists;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class ExpungeJobR4Test extends BaseJpaR4Test {
+	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(ExpungeJobR4Test.class);
+
+	@Autowired
+	private ExpungeService myExpungeService;
+	@Autowired
+	private JobExplorer myJobExplorer;
+
+	@BeforeEach
+	public void before() {
+		myDaoConfig.setExpungeEnabled(true);
+		myDaoConfig.setExpungeBatchSize(3);
+	}
+
+	@AfterEach
+	public void after() {
+		DaoConfig defaults = new DaoConfig();
+		myDaoConfig.setExpungeEnabled(defaults.isExpungeEnabled());
+		myDaoConfig.setExpungeBatchSize(defaults.getExpungeBatchSize());
+	}
+
+	@Test
+	public void testExpungeOldVersionsAndDeletedResources() {
+		List<IIdType> liveIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			liveIds.add(createPatientWithVersions(i, 3));
+		}
+		List<IIdType> deletedIds = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			IIdType id = createPatientWithVersions(100 + i, 2);
+			myPatientDao.delete(id, mySrd);
+			deletedIds.add(id);
+		}
+		runInTransaction(() -> {
+			assertEquals(9, myResourceTableDao.count());
+			assertEquals(5 * 3 + 4 * 3, myResourceHistoryTableDao.count());
+		});
+
+		ExpungeOptions options = new ExpungeOptions()
+			.setExpungeOldVersions(true)
+			.setExpungeDeletedResources(true);
+		JobExecution jobExecution = myExpungeService.submitExpungeJob(null, options);
+		jobExecution = awaitJobCompletion(jobExecution);
+
+		runInTransaction(() -> {
+			assertEquals(5, myResourceTableDao.count());
+			assertEquals(5, myResourceHistoryTableDao.count());
+		});
+		for (IIdType next : liveIds) {
+			assertEquals("3", myPatientDao.read(next, mySrd).getIdElement().getVersionIdPart());
+		}
+
+		// Old versions of the deleted resources are removed in the first step, and the rest of them in the second
+		assertEquals(10 + 8, getExpungedCount(jobExecution, "expungeOldVersionsStep"));
+		assertEquals(4, getExpungedCount(jobExecution, "expungeDeletedResourcesStep"));
+	}
+
+	@Test
+	public void testExpungeRestrictedToResourceType() {
+		IIdType patientId = createPatientWithVersions(0, 3);
+		Observation obs = new Observation();
+		obs.setStatus(Observation.ObservationStatus.PRELIMINARY);
+		IIdType obsId = myObservationDao.create(obs, mySrd).getId().toUnqualifiedVersionless();
+		obs.setId(obsId);
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		myObservationDao.update(obs, mySrd);
+
+		ExpungeOptions options = new ExpungeOptions()
+			.setExpungeOldVersions(true);
+		awaitJobCompletion(myExpungeService.submitExpungeJob("Observation", options));
+
+		runInTransaction(() -> {
+			assertEquals(1, myResourceHistoryTableDao.findAllVersionsForResourceIdsIn(Lists.newArrayList(obsId.getIdPartAsLong())).size());
+			assertEquals(3, myResourceHistoryTableDao.findAllVersionsForResourceIdsIn(Lists.newArrayList(patientId.getIdPartAsLong())).size());
+		});
+	}
+
+	@Test
+	public void testExpungeCallsHooks() {
+		AtomicInteger hookCount = new AtomicInteger();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) -> hookCount.incrementAndGet();
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.STORAGE_PRESTORAGE_EXPUNGE_RESOURCE, interceptor);
+		try {
+			createPatientWithVersions(0, 3);
+			IIdType deletedId = createPatientWithVersions(1, 1);
+			myPatientDao.delete(deletedId, mySrd);
+
+			ExpungeOptions options = new ExpungeOptions()
+				.setExpungeOldVersions(true)
+				.setExpungeDeletedResources(true);
+			awaitJobCompletion(myExpungeService.submitExpungeJob(null, options));
+
+			// 2 old versions of the live patient, 1 old and 1 current version of the deleted one
+			assertEquals(4, hookCount.get());
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+	}
+
+	@Test
+	public void testExpungeJobRejectedWhenExpungeDisabled() {
+		myDaoConfig.setExpungeEnabled(false);
+		try {
+			myExpungeService.submitExpungeJob(null, new ExpungeOptions().setExpungeOldVersions(true));
+			fail();
+		} catch (InvalidRequestException e) {
+			assertThat(e.getMessage(), containsString("$expunge is not enabled on this server"));
+		}
+	}
+
+	private IIdType createPatientWithVersions(int theIndex, int theVersionCount) {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://foo").setValue("A" + theIndex);
+		IIdType id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+		for (int i = 1; i < theVersionCount; i++) {
+			patient.setId(id);
+			patient.setActive(i % 2 == 0);
+			myPatientDao.update(patient, mySrd);
+		}
+		return id;
+	}
+
+	private long getExpungedCount(JobExecution theJobExecution, String theStepName) {
+		for (StepExecution next : theJobExecution.getStepExecutions()) {
+			if (next.getStepName().equals(theStepName)) {
+				return next.getExecutionContext().getLong(BaseExpungeWriter.EXPUNGED_COUNT);
+			}
+		}
+		fail("No step named " + theStepName);
+		return 0;
+	}
+
+	private JobExecution awaitJobCompletion(JobExecution theJobExecution) {
+		await().atMost(60, TimeUnit.SECONDS).until(() -> {
+			JobExecution jobExecution = myJobExplorer.getJobExecution(theJobExecution.getId());
+			ourLog.info("JobExecution {} currently has status: {}", theJobExecution.getId(), jobExecution.getStatus());
+			assertFalse(jobExecution.getStatus().isUnsuccessful(), jobExecution.getAllFailureExceptions().toString());
+			return jobExecution.getStatus() == BatchStatus.COMPLETED;
+		});
+		JobExecution retVal = myJobExplorer.getJobExecution(theJobExecution.getId());
+		assertTrue(retVal.getAllFailureExceptions().isEmpty());
+		return retVal;
+	}
+}
@@ -66,9 +66,11 @@ public class FhirResourceDaoR4SearchOptimizedTest extends BaseJpaR4Test {
 	public final void after() {
 		mySearchCoordinatorSvcImpl.setLoadingThrottleForUnitTests(null);
 		mySearchCoordinatorSvcImpl.setSyncSizeForUnitTests(SearchCoordinatorSvcImpl.DEFAULT_SYNC_SIZE);
+		mySearchCoordinatorSvcImpl.setBackgroundCountThrottleForUnitTests(null);
 		myDaoConfig.setSearchPreFetchThresholds(new DaoConfig().getSearchPreFetchThresholds());
 		myCaptureQueriesListener.setCaptureQueryStackTrace(false);
 		myDaoConfig.setIndexMissingFields(new DaoConfig().getIndexMissingFields());
+		myDaoConfig.setSearchTotalCalculatedInBackground(new DaoConfig().isSearchTotalCalculatedInBackground());
 	}
 
 	private void create200Patients() {
@@ -197,6 +199,85 @@ public class FhirResourceDaoR4SearchOptimizedTest extends BaseJpaR4Test {
 		assertEquals(200, search2Size.intValue());
 	}
 
+	@Test
+	public void testFetchTotalEstimatedDoesNotCount() {
+		create200Patients();
+
+		myDaoConfig.setSearchPreFetchThresholds(Arrays.asList(20, 50, -1));
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap params = new SearchParameterMap();
+		params.setSort(new SortSpec(Patient.SP_NAME));
+		params.setSearchTotalMode(SearchTotalModeEnum.ESTIMATED);
+		IBundleProvider results = myPatientDao.search(params);
+		String uuid = results.getUuid();
+		ourLog.info("** Search returned UUID: {}", uuid);
+
+		List<String> ids = toUnqualifiedVersionlessIdValues(results, 0, 10, true);
+		assertEquals("Patient/PT00000", ids.get(0));
+		assertEquals("Patient/PT00009", ids.get(9));
+
+		// No total is known after the first pass, and it is never counted
+		await().until(() -> runInTransaction(() -> mySearchEntityDao.findByUuidAndFetchIncludes(uuid).orElseThrow(() -> new IllegalStateException()).getStatus()), equalTo(SearchStatusEnum.PASSCMPLET));
+		Search search = runInTransaction(() -> mySearchEntityDao.findByUuidAndFetchIncludes(uuid).orElseThrow(() -> new IllegalStateException()));
+		assertEquals(20, search.getNumFound());
+		assertNull(search.getTotalCount());
+		assertEquals(0, myCaptureQueriesListener.getSelectQueries().stream().filter(t -> t.getSql(true, false).contains("count(")).count());
+
+		// Once the search has loaded every result, its total is known
+		ids = toUnqualifiedVersionlessIdValues(results, 0, 5000, false);
+		assertEquals(200, ids.size());
+		search = runInTransaction(() -> mySearchEntityDao.findByUuidAndFetchIncludes(uuid).orElseThrow(() -> new IllegalStateException()));
+		assertEquals(SearchStatusEnum.FINISHED, search.getStatus());
+		assertEquals(200, search.getTotalCount().intValue());
+		assertEquals(0, myCaptureQueriesListener.getSelectQueries().stream().filter(t -> t.getSql(true, false).contains("count(")).count());
+	}
+
+	@Test
+	public void testFetchTotalAccurateInBackgroundWaitsForCountStillInFlight() {
+		create200Patients();
+
+		// The count is still running on another thread when the first pass completes
+		mySearchCoordinatorSvcImpl.setBackgroundCountThrottleForUnitTests(2000);
+		myDaoConfig.setSearchTotalCalculatedInBackground(true);
+		myDaoConfig.setSearchPreFetchThresholds(Arrays.asList(20, 50, -1));
+
+		SearchParameterMap params = new SearchParameterMap();
+		params.setSort(new SortSpec(Patient.SP_NAME));
+		params.setSearchTotalMode(SearchTotalModeEnum.ACCURATE);
+		IBundleProvider results = myPatientDao.search(params);
+		String uuid = results.getUuid();
+
+		await().until(() -> runInTransaction(() -> mySearchEntityDao.findByUuidAndFetchIncludes(uuid).orElseThrow(() -> new IllegalStateException()).getStatus()), equalTo(SearchStatusEnum.PASSCMPLET));
+		Search search = runInTransaction(() -> mySearchEntityDao.findByUuidAndFetchIncludes(uuid).orElseThrow(() -> new IllegalStateException()));
+		assertEquals(20, search.getNumFound());
+		assertEquals(200, search.getTotalCount().intValue());
+	}
+
+	@Test
+	public void testFetchTotalAccurateCalculatedInBackground() {
+		create200Patients();
+
+		myDaoConfig.setSearchTotalCalculatedInBackground(true);
+		myDaoConfig.setSearchPreFetchThresholds(Arrays.asList(20, 50, -1));
+
+		SearchParameterMap params = new SearchParameterMap();
+		params.setSort(new SortSpec(Patient.SP_NAME));
+		params.setSearchTotalMode(SearchTotalModeEnum.ACCURATE);
+		IBundleProvider results = myPatientDao.search(params);
+		String uuid = results.getUuid();
+
+		List<String> ids = toUnqualifiedVersionlessIdValues(results, 0, 10, true);
+		assertEquals("Patient/PT00000", ids.get(0));
+
+		// The total is attached to the cached search before the first pass completes
+		await().until(() -> runInTransaction(() -> mySearchEntityDao.findByUuidAndFetchIncludes(uuid).orElseThrow(() -> new IllegalStateException()).getStatus()), equalTo(SearchStatusEnum.PASSCMPLET));
+		Search search = runInTransaction(() -> mySearchEntityDao.findByUuidAndFetchIncludes(uuid).orElseThrow(() -> new IllegalStateException()));
+		assertEquals(20, search.getNumFound());
+		assertEquals(200, search.getTotalCount().intValue());
+		assertEquals(200, myDatabaseBackedPagingProvider.retrieveResultList(null, uuid).size().intValue());
+	}
+
 	@Test
 	public void testFetchCountAndData() {
 		create200Patients();
@@ -1123,7 +1204,8 @@ public class FhirResourceDaoR4SearchOptimizedTest extends BaseJpaR4Test {
 		// Forced ID resolution
 		String resultingQueryNotFormatted = queries.get(0);
 		assertThat(resultingQueryNotFormatted, containsString("RESOURCE_TYPE='Organization'"));
-		assertThat(resultingQueryNotFormatted, containsString("FORCED_ID in ('ORG0' , 'ORG1' , 'ORG2' , 'ORG3' , 'ORG4')"));
+		// The IN list is padded to a power of 2 by repeating the last value
+		assertThat(resultingQueryNotFormatted, containsString("FORCED_ID in ('ORG0' , 'ORG1' , 'ORG2' , 'ORG3' , 'ORG4' , 'ORG4' , 'ORG4' , 'ORG4')"));
 
 		// The search itself
 		resultingQueryNotFormatted = queries.get(1);
@@ -23,6 +23,8 @@ import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.util.SqlQuery;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.api.SummaryEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateAndListParam;
 import ca.uhn.fhir.rest.param.DateOrListParam;
@@ -103,6 +105,7 @@ public class PartitioningR4Test extends BaseJpaR4SystemTest {
 		myPartitionSettings.setIncludePartitionInSearchHashes(new PartitionSettings().isIncludePartitionInSearchHashes());
 		myPartitionSettings.setPartitioningEnabled(new PartitionSettings().isPartitioningEnabled());
 		myPartitionSettings.setAllowReferencesAcrossPartitions(new PartitionSettings().getAllowReferencesAcrossPartitions());
+		myPartitionSettings.setParallelPartitionSearchEnabled(new PartitionSettings().isParallelPartitionSearchEnabled());
 
 		myInterceptorRegistry.unregisterInterceptorsIf(t -> t instanceof MyReadWriteInterceptor);
 		myInterceptor = null;
@@ -1303,6 +1306,135 @@ public class PartitioningR4Test extends BaseJpaR4SystemTest {
 		assertEquals(0, StringUtils.countMatches(searchSql, "PARTITION_ID"));
 	}
 
+	@Test
+	public void testSearch_Count_SearchAllPartitionsInParallel() {
+		myPartitionSettings.setParallelPartitionSearchEnabled(true);
+
+		createPatient(withPartition(null), withActiveTrue());
+		createPatient(withPartition(1), withActiveTrue());
+		createPatient(withPartition(1), withActiveTrue());
+		createPatient(withPartition(1), withActiveFalse());
+		createPatient(withPartition(2), withActiveTrue());
+
+		addReadAllPartitions();
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = new SearchParameterMap();
+		map.add(Patient.SP_ACTIVE, new TokenParam("true"));
+		map.setSummaryMode(SummaryEnum.COUNT);
+		map.setLoadSynchronous(true);
+		IBundleProvider results = myPatientDao.search(map);
+		assertEquals(4, results.size().intValue());
+
+		// One count for the default partition, and one for each of PART-1, PART-2 and PART-3
+		myCaptureQueriesListener.logSelectQueries();
+		long countQueries = myCaptureQueriesListener
+			.getSelectQueries()
+			.stream()
+			.map(t -> t.getSql(true, false))
+			.filter(t -> t.contains("count(") && t.contains("PARTITION_ID"))
+			.count();
+		assertEquals(4, countQueries);
+	}
+
+	@Test
+	public void testSearch_Count_SearchAllPartitionsInParallel_DefaultPartitionCountedOnce() {
+		myPartitionSettings.setParallelPartitionSearchEnabled(true);
+
+		createPatient(withPartition(null), withActiveTrue());
+		createPatient(withPartition(null), withActiveTrue());
+
+		addReadAllPartitions();
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = new SearchParameterMap();
+		map.add(Patient.SP_ACTIVE, new TokenParam("true"));
+		map.setSummaryMode(SummaryEnum.COUNT);
+		map.setLoadSynchronous(true);
+		IBundleProvider results = myPatientDao.search(map);
+		assertEquals(2, results.size().intValue());
+
+		// The persisted definition of the default partition is not counted separately
+		myCaptureQueriesListener.logSelectQueries();
+		long defaultPartitionCountQueries = myCaptureQueriesListener
+			.getSelectQueries()
+			.stream()
+			.map(t -> t.getSql(true, false))
+			.filter(t -> t.contains("count(") && t.contains("PARTITION_ID is null"))
+			.count();
+		assertEquals(1, defaultPartitionCountQueries);
+	}
+
+	@Test
+	public void testSearch_SearchAllPartitionsInParallel() {
+		myPartitionSettings.setParallelPartitionSearchEnabled(true);
+
+		IIdType patientIdNull = createPatient(withPartition(null), withActiveTrue());
+		IIdType patientId2a = createPatient(withPartition(2), withActiveTrue());
+		IIdType patientId1 = createPatient(withPartition(1), withActiveTrue());
+		createPatient(withPartition(1), withActiveFalse());
+		IIdType patientId2b = createPatient(withPartition(2), withActiveTrue());
+
+		addReadAllPartitions();
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = new SearchParameterMap();
+		map.add(Patient.SP_ACTIVE, new TokenParam("true"));
+		map.setLoadSynchronous(true);
+		IBundleProvider results = myPatientDao.search(map);
+		List<IIdType> ids = toUnqualifiedVersionlessIds(results);
+
+		// The results of each partition are merged in the order they were created
+		assertThat(ids, Matchers.contains(patientIdNull, patientId2a, patientId1, patientId2b));
+
+		// One query for the default partition, and one for each of PART-1, PART-2 and PART-3
+		myCaptureQueriesListener.logSelectQueries();
+		long searchQueries = myCaptureQueriesListener
+			.getSelectQueries()
+			.stream()
+			.map(t -> t.getSql(true, false))
+			.filter(t -> t.contains("HFJ_SPIDX_TOKEN") && t.contains("PARTITION_ID") && !t.contains("count("))
+			.count();
+		assertEquals(4, searchQueries);
+	}
+
+	@Test
+	public void testSearch_SearchAllPartitionsInParallel_Paged() {
+		myPartitionSettings.setParallelPartitionSearchEnabled(true);
+
+		IIdType patientIdNull = createPatient(withPartition(null), withActiveTrue());
+		IIdType patientId2 = createPatient(withPartition(2), withActiveTrue());
+		IIdType patientId1 = createPatient(withPartition(1), withActiveTrue());
+		createPatient(withPartition(1), withActiveFalse());
+
+		addReadAllPartitions();
+
+		SearchParameterMap map = new SearchParameterMap();
+		map.add(Patient.SP_ACTIVE, new TokenParam("true"));
+		IBundleProvider results = myPatientDao.search(map);
+		List<IIdType> ids = toUnqualifiedVersionlessIds(results.getResources(0, 10));
+		assertThat(ids, Matchers.contains(patientIdNull, patientId2, patientId1));
+	}
+
+	@Test
+	public void testSearch_SearchAllPartitionsInParallel_SortedUsesSingleQuery() {
+		myPartitionSettings.setParallelPartitionSearchEnabled(true);
+
+		IIdType patientIdNull = createPatient(withPartition(null), withActiveTrue(), withFamily("C"));
+		IIdType patientId1 = createPatient(withPartition(1), withActiveTrue(), withFamily("A"));
+		IIdType patientId2 = createPatient(withPartition(2), withActiveTrue(), withFamily("B"));
+
+		addReadAllPartitions();
+
+		SearchParameterMap map = new SearchParameterMap();
+		map.add(Patient.SP_ACTIVE, new TokenParam("true"));
+		map.setSort(new SortSpec(Patient.SP_FAMILY));
+		map.setLoadSynchronous(true);
+		IBundleProvider results = myPatientDao.search(map);
+		List<IIdType> ids = toUnqualifiedVersionlessIds(results);
+		assertThat(ids, Matchers.contains(patientId1, patientId2, patientIdNull));
+	}
+
 	@Test
 	public void testSearch_NoParams_SearchOnePartition() {
 		createPatient(withPartition(null), withActiveTrue());
@@ -0,0 +1,95 @@
+package ca.uhn.fhir.jpa.interceptor;
+
+import ca.uhn.fhir.jpa.provider.r4.BaseResourceProviderR4Test;
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SearchExplainInterceptorTest extends BaseResourceProviderR4Test {
+
+	private SearchExplainInterceptor myInterceptor = new SearchExplainInterceptor();
+
+	@Override
+	@AfterEach
+	public void after() throws Exception {
+		super.after();
+		myInterceptorRegistry.unregisterInterceptor(myInterceptor);
+	}
+
+	@Test
+	public void testExplainSearch() throws Exception {
+		myInterceptor.setPermittedRemoteAddresses(Arrays.asList("127.0.0.1", "0:0:0:0:0:0:0:1"));
+		myInterceptorRegistry.registerInterceptor(myInterceptor);
+
+		Patient p = new Patient();
+		p.addName().setFamily("SIMPSON");
+		myPatientDao.create(p);
+
+		HttpGet get = new HttpGet(ourServerBase + "/Patient?family=SIMPSON&_explain=true");
+		try (CloseableHttpResponse response = ourHttpClient.execute(get)) {
+			assertEquals(200, response.getStatusLine().getStatusCode());
+
+			Header[] sql = response.getHeaders(SearchExplainInterceptor.HEADER_EXECUTED_SQL);
+			assertEquals(1, sql.length);
+			assertThat(sql[0].getValue(), containsString("HFJ_SPIDX_STRING"));
+
+			Header[] outcome = response.getHeaders(SearchExplainInterceptor.HEADER_EXECUTED_SQL_OUTCOME);
+			assertThat(outcome[0].getValue(), containsString("Returned 1 in "));
+
+			Header[] tables = response.getHeaders(SearchExplainInterceptor.HEADER_EXECUTED_SQL_TABLES);
+			assertThat(tables[0].getValue(), containsString("HFJ_SPIDX_STRING"));
+		}
+	}
+
+	@Test
+	public void testExplainNotRequested() throws Exception {
+		myInterceptorRegistry.registerInterceptor(myInterceptor);
+
+		HttpGet get = new HttpGet(ourServerBase + "/Patient?family=SIMPSON");
+		try (CloseableHttpResponse response = ourHttpClient.execute(get)) {
+			assertEquals(200, response.getStatusLine().getStatusCode());
+			assertEquals(0, response.getHeaders(SearchExplainInterceptor.HEADER_EXECUTED_SQL).length);
+		}
+	}
+
+	@Test
+	public void testExplainNotPermittedByDefault() throws Exception {
+		myInterceptorRegistry.registerInterceptor(myInterceptor);
+
+		HttpGet get = new HttpGet(ourServerBase + "/Patient?family=SIMPSON&_explain=true");
+		try (CloseableHttpResponse response = ourHttpClient.execute(get)) {
+			assertEquals(200, response.getStatusLine().getStatusCode());
+			assertEquals(0, response.getHeaders(SearchExplainInterceptor.HEADER_EXECUTED_SQL).length);
+		}
+	}
+
+	@Test
+	public void testExplainNotPermitted() throws Exception {
+		myInterceptor.setPermittedRemoteAddresses(Collections.singletonList("10.1.2.3"));
+		myInterceptorRegistry.registerInterceptor(myInterceptor);
+
+		HttpGet get = new HttpGet(ourServerBase + "/Patient?family=SIMPSON&_explain=true");
+		try (CloseableHttpResponse response = ourHttpClient.execute(get)) {
+			assertEquals(200, response.getStatusLine().getStatusCode());
+			assertEquals(0, response.getHeaders(SearchExplainInterceptor.HEADER_EXECUTED_SQL).length);
+		}
+	}
+
+	@Test
+	public void testExtractTableNames() {
+		String sql = "select r.RES_ID from HFJ_RESOURCE r inner join HFJ_SPIDX_STRING s on s.RES_ID = r.RES_ID inner join hfj_spidx_token t on t.RES_ID = r.RES_ID";
+		assertThat(SearchExplainInterceptor.extractTableNames(sql), contains("HFJ_RESOURCE", "HFJ_SPIDX_STRING", "HFJ_SPIDX_TOKEN"));
+	}
+
+}
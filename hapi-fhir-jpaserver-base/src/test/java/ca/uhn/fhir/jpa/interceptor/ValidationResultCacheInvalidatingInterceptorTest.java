@@ -0,0 +1,71 @@
+package ca.uhn.fhir.jpa.interceptor;
+
+import ca.uhn.fhir.jpa.dao.r4.BaseJpaR4Test;
+import ca.uhn.fhir.rest.server.interceptor.ValidationResultCache;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ValidationResultCacheInvalidatingInterceptorTest extends BaseJpaR4Test {
+
+	private final AtomicInteger myInvalidationCount = new AtomicInteger();
+	private ValidationResultCacheInvalidatingInterceptor myInterceptor;
+
+	@BeforeEach
+	public void before() {
+		ValidationResultCache cache = new ValidationResultCache() {
+			@Override
+			public void invalidate() {
+				myInvalidationCount.incrementAndGet();
+				super.invalidate();
+			}
+		};
+		myInterceptor = new ValidationResultCacheInvalidatingInterceptor(cache);
+		myInterceptorRegistry.registerInterceptor(myInterceptor);
+	}
+
+	@AfterEach
+	public void after() {
+		myInterceptorRegistry.unregisterInterceptor(myInterceptor);
+	}
+
+	@Test
+	public void testInvalidatedAfterCommit() {
+		StructureDefinition sd = new StructureDefinition();
+		sd.setUrl("http://foo/StructureDefinition/bar");
+
+		new TransactionTemplate(myTxManager).execute(t -> {
+			myStructureDefinitionDao.create(sd);
+			assertEquals(0, myInvalidationCount.get());
+			return null;
+		});
+		assertEquals(1, myInvalidationCount.get());
+	}
+
+	@Test
+	public void testNotInvalidatedOnRollback() {
+		StructureDefinition sd = new StructureDefinition();
+		sd.setUrl("http://foo/StructureDefinition/bar");
+
+		new TransactionTemplate(myTxManager).execute(t -> {
+			myStructureDefinitionDao.create(sd);
+			t.setRollbackOnly();
+			return null;
+		});
+		assertEquals(0, myInvalidationCount.get());
+	}
+
+	@Test
+	public void testNotInvalidatedForOtherResourceTypes() {
+		myPatientDao.create(new Patient().setActive(true));
+		assertEquals(0, myInvalidationCount.get());
+	}
+
+}
@@ -129,6 +129,103 @@ public class BinaryAccessProviderR4Test extends BaseResourceProviderR4Test {
 
 	}
 
+	@Test
+	public void testReadRange() throws IOException {
+		IIdType id = createDocumentReference(false);
+
+		// Write the binary using the operation so that it is stored as a blob
+
+		String path = ourServerBase +
+			"/DocumentReference/" + id.getIdPart() + "/" +
+			JpaConstants.OPERATION_BINARY_ACCESS_WRITE +
+			"?path=DocumentReference.content.attachment";
+		HttpPost post = new HttpPost(path);
+		post.setEntity(new ByteArrayEntity(SOME_BYTES, ContentType.IMAGE_JPEG));
+		try (CloseableHttpResponse resp = ourHttpClient.execute(post)) {
+			assertEquals(200, resp.getStatusLine().getStatusCode());
+		}
+
+		path = ourServerBase +
+			"/DocumentReference/" + id.getIdPart() + "/" +
+			JpaConstants.OPERATION_BINARY_ACCESS_READ +
+			"?path=DocumentReference.content.attachment";
+
+		// Explicit range
+		HttpGet get = new HttpGet(path);
+		get.addHeader(Constants.HEADER_RANGE, "bytes=2-5");
+		String eTag;
+		try (CloseableHttpResponse resp = ourHttpClient.execute(get)) {
+			assertEquals(206, resp.getStatusLine().getStatusCode());
+			assertEquals("bytes", resp.getFirstHeader(Constants.HEADER_ACCEPT_RANGES).getValue());
+			assertEquals("bytes 2-5/15", resp.getFirstHeader(Constants.HEADER_CONTENT_RANGE).getValue());
+			assertEquals(4, resp.getEntity().getContentLength());
+			assertArrayEquals(new byte[]{3, 4, 5, 6}, IOUtils.toByteArray(resp.getEntity().getContent()));
+			eTag = resp.getFirstHeader(Constants.HEADER_ETAG).getValue();
+		}
+
+		// Open-ended range
+		get = new HttpGet(path);
+		get.addHeader(Constants.HEADER_RANGE, "bytes=12-");
+		try (CloseableHttpResponse resp = ourHttpClient.execute(get)) {
+			assertEquals(206, resp.getStatusLine().getStatusCode());
+			assertEquals("bytes 12-14/15", resp.getFirstHeader(Constants.HEADER_CONTENT_RANGE).getValue());
+			assertArrayEquals(new byte[]{3, 2, 1}, IOUtils.toByteArray(resp.getEntity().getContent()));
+		}
+
+		// Suffix range which is longer than the entity
+		get = new HttpGet(path);
+		get.addHeader(Constants.HEADER_RANGE, "bytes=-100");
+		try (CloseableHttpResponse resp = ourHttpClient.execute(get)) {
+			assertEquals(206, resp.getStatusLine().getStatusCode());
+			assertEquals("bytes 0-14/15", resp.getFirstHeader(Constants.HEADER_CONTENT_RANGE).getValue());
+			assertArrayEquals(SOME_BYTES, IOUtils.toByteArray(resp.getEntity().getContent()));
+		}
+
+		// Matching If-Range
+		get = new HttpGet(path);
+		get.addHeader(Constants.HEADER_RANGE, "bytes=0-0");
+		get.addHeader(Constants.HEADER_IF_RANGE, eTag);
+		try (CloseableHttpResponse resp = ourHttpClient.execute(get)) {
+			assertEquals(206, resp.getStatusLine().getStatusCode());
+			assertArrayEquals(new byte[]{1}, IOUtils.toByteArray(resp.getEntity().getContent()));
+		}
+
+		// Stale If-Range returns the whole entity
+		get = new HttpGet(path);
+		get.addHeader(Constants.HEADER_RANGE, "bytes=0-0");
+		get.addHeader(Constants.HEADER_IF_RANGE, "\"foo\"");
+		try (CloseableHttpResponse resp = ourHttpClient.execute(get)) {
+			assertEquals(200, resp.getStatusLine().getStatusCode());
+			assertNull(resp.getFirstHeader(Constants.HEADER_CONTENT_RANGE));
+			assertArrayEquals(SOME_BYTES, IOUtils.toByteArray(resp.getEntity().getContent()));
+		}
+
+		// Unsatisfiable range
+		get = new HttpGet(path);
+		get.addHeader(Constants.HEADER_RANGE, "bytes=15-20");
+		try (CloseableHttpResponse resp = ourHttpClient.execute(get)) {
+			assertEquals(416, resp.getStatusLine().getStatusCode());
+			assertEquals("bytes */15", resp.getFirstHeader(Constants.HEADER_CONTENT_RANGE).getValue());
+		}
+	}
+
+	@Test
+	public void testReadRangeFromInlineData() throws IOException {
+		IIdType id = createDocumentReference(true);
+
+		String path = ourServerBase +
+			"/DocumentReference/" + id.getIdPart() + "/" +
+			JpaConstants.OPERATION_BINARY_ACCESS_READ +
+			"?path=DocumentReference.content[1].attachment";
+		HttpGet get = new HttpGet(path);
+		get.addHeader(Constants.HEADER_RANGE, "bytes=-2");
+		try (CloseableHttpResponse resp = ourHttpClient.execute(get)) {
+			assertEquals(206, resp.getStatusLine().getStatusCode());
+			assertEquals("bytes 2-3/4", resp.getFirstHeader(Constants.HEADER_CONTENT_RANGE).getValue());
+			assertArrayEquals(new byte[]{5, 6}, IOUtils.toByteArray(resp.getEntity().getContent()));
+		}
+	}
+
 	@Test
 	public void testReadNoPath() throws IOException {
 		IIdType id = createDocumentReference(true);
@@ -5,12 +5,15 @@ import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.binstore.BinaryStorageInterceptor;
 import ca.uhn.fhir.jpa.binstore.IBinaryStorageSvc;
 import ca.uhn.fhir.jpa.binstore.MemoryBinaryStorageSvcImpl;
+import ca.uhn.fhir.parser.SpooledBinaryData;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.util.HapiExtensions;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Binary;
 import org.hl7.fhir.r4.model.DocumentReference;
 import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,6 +54,7 @@ public class BinaryStorageInterceptorR4Test extends BaseResourceProviderR4Test {
 		myStorageSvc.setMinimumBinarySize(0);
 		myDaoConfig.setExpungeEnabled(new DaoConfig().isExpungeEnabled());
 		myBinaryStorageInterceptor.setAutoDeExternalizeMaximumBytes(new BinaryStorageInterceptor().getAutoDeExternalizeMaximumBytes());
+		myFhirCtx.getParserOptions().setBinarySpoolThreshold(0);
 
 		MemoryBinaryStorageSvcImpl binaryStorageSvc = (MemoryBinaryStorageSvcImpl) myBinaryStorageSvc;
 		binaryStorageSvc.clear();
@@ -104,6 +108,124 @@ public class BinaryStorageInterceptorR4Test extends BaseResourceProviderR4Test {
 	}
 
 
+	@Test
+	public void testCreateAndRetrieveBinary_ServerAssignedId_SpooledBinary() {
+		myFhirCtx.getParserOptions().setBinarySpoolThreshold(10);
+
+		// Parse a resource with a big enough binary
+		Binary input = new Binary();
+		input.setContentType("application/octet-stream");
+		input.setData(SOME_BYTES);
+		String inputString = myFhirCtx.newJsonParser().encodeResourceToString(input);
+		Binary binary = myFhirCtx.newJsonParser().setBinarySpoolingEnabled(true).parseResource(Binary.class, inputString);
+		SpooledBinaryData spooledData = SpooledBinaryData.fromElement(binary.getDataElement());
+		assertNotNull(spooledData);
+		assertNull(binary.getData());
+
+		DaoMethodOutcome outcome = myBinaryDao.create(binary, mySrd);
+
+		// Make sure it was externalized
+		IIdType id = outcome.getId().toUnqualifiedVersionless();
+		String encoded = myFhirCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(outcome.getResource());
+		ourLog.info("Encoded: {}", encoded);
+		assertThat(encoded, containsString(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID));
+		assertThat(encoded, not(containsString(HapiExtensions.EXT_SPOOLED_BINARY_DATA)));
+		assertThat(encoded, not(containsString("\"data\"")));
+
+		// Now read it back and make sure it was de-externalized
+		Binary output = myBinaryDao.read(id, mySrd);
+		assertEquals("application/octet-stream", output.getContentType());
+		assertArrayEquals(SOME_BYTES, output.getData());
+	}
+
+	@Test
+	public void testCreateAndRetrieveBinary_ClientAssignedId_SpooledBinary() {
+		myFhirCtx.getParserOptions().setBinarySpoolThreshold(10);
+
+		Binary input = new Binary();
+		input.setId("FOO");
+		input.setContentType("application/octet-stream");
+		input.setData(SOME_BYTES);
+		String inputString = myFhirCtx.newXmlParser().encodeResourceToString(input);
+		Binary binary = myFhirCtx.newXmlParser().setBinarySpoolingEnabled(true).parseResource(Binary.class, inputString);
+		assertNotNull(SpooledBinaryData.fromElement(binary.getDataElement()));
+
+		DaoMethodOutcome outcome = myBinaryDao.update(binary, mySrd);
+
+		String encoded = myFhirCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(outcome.getResource());
+		ourLog.info("Encoded: {}", encoded);
+		assertThat(encoded, containsString(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID));
+		assertThat(encoded, not(containsString(HapiExtensions.EXT_SPOOLED_BINARY_DATA)));
+
+		Binary output = myBinaryDao.read(new IdType("Binary/FOO"), mySrd);
+		assertArrayEquals(SOME_BYTES, output.getData());
+	}
+
+	@Test
+	public void testCreateSpooledBinary_NoBinaryStorageInterceptor() {
+		myInterceptorRegistry.unregisterInterceptor(myBinaryStorageInterceptor);
+		myFhirCtx.getParserOptions().setBinarySpoolThreshold(10);
+
+		Binary input = new Binary();
+		input.setContentType("application/octet-stream");
+		input.setData(SOME_BYTES);
+		String inputString = myFhirCtx.newJsonParser().encodeResourceToString(input);
+		Binary binary = myFhirCtx.newJsonParser().setBinarySpoolingEnabled(true).parseResource(Binary.class, inputString);
+		assertNotNull(SpooledBinaryData.fromElement(binary.getDataElement()));
+
+		try {
+			myBinaryDao.create(binary, mySrd);
+			fail();
+		} catch (InternalErrorException e) {
+			assertThat(e.getMessage(), containsString("A BinaryStorageInterceptor must be registered"));
+		}
+	}
+
+	@Test
+	public void testCreateAndRetrieveBinary_SpooledBinaryBelowStorageThreshold() {
+		myFhirCtx.getParserOptions().setBinarySpoolThreshold(1);
+
+		// The binary is spooled by the parser but is too small to externalize
+		Binary input = new Binary();
+		input.setContentType("application/octet-stream");
+		input.setData(FEW_BYTES);
+		String inputString = myFhirCtx.newJsonParser().encodeResourceToString(input);
+		Binary binary = myFhirCtx.newJsonParser().setBinarySpoolingEnabled(true).parseResource(Binary.class, inputString);
+		assertNotNull(SpooledBinaryData.fromElement(binary.getDataElement()));
+
+		DaoMethodOutcome outcome = myBinaryDao.create(binary, mySrd);
+
+		IIdType id = outcome.getId().toUnqualifiedVersionless();
+		String encoded = myFhirCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(outcome.getResource());
+		ourLog.info("Encoded: {}", encoded);
+		assertThat(encoded, containsString("\"data\": \"BAMCAQ==\""));
+		assertThat(encoded, not(containsString(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID)));
+		assertThat(encoded, not(containsString(HapiExtensions.EXT_SPOOLED_BINARY_DATA)));
+
+		Binary output = myBinaryDao.read(id, mySrd);
+		assertArrayEquals(FEW_BYTES, output.getData());
+	}
+
+	@Test
+	public void testCreateAndRetrieveInlineBinaryAboveSpoolThreshold() {
+		myFhirCtx.getParserOptions().setBinarySpoolThreshold(10);
+		myStorageSvc.setMinimumBinarySize(1000);
+
+		// The request body is spooled, but the data is too small to externalize so it is stored inline
+		DocumentReference docRef = new DocumentReference();
+		docRef.addContent().getAttachment().setContentType("application/octet-stream").setData(SOME_BYTES);
+		IIdType id = myClient.create().resource(docRef).execute().getId().toUnqualifiedVersionless();
+
+		// Reading the stored resource back must not spool it
+		DocumentReference output = myDocumentReferenceDao.read(id, mySrd);
+		assertArrayEquals(SOME_BYTES, output.getContentFirstRep().getAttachment().getData());
+		assertNull(SpooledBinaryData.fromElement(output.getContentFirstRep().getAttachment().getDataElement()));
+
+		output = myClient.read().resource(DocumentReference.class).withId(id).execute();
+		assertArrayEquals(SOME_BYTES, output.getContentFirstRep().getAttachment().getData());
+		assertFalse(output.getContentFirstRep().getAttachment().getDataElement().hasExtension(HapiExtensions.EXT_SPOOLED_BINARY_DATA));
+	}
+
 	@Test
 	public void testCreateAndRetrieveBinary_ServerAssignedId_NonExternalizedBinary() {
 
@@ -193,6 +193,36 @@ public class PatientEverythingR4Test extends BaseResourceProviderR4Test {
 		bundle = fetchBundle(bundle.getLink("next").getUrl(), EncodingEnum.XML);
 	}
 
+	@Test
+	public void testEverythingFollowsLinksSeveralLevelsDeep() throws Exception {
+		Organization parentOrg = new Organization();
+		parentOrg.setName("parent org");
+		String parentOrgId = myClient.create().resource(parentOrg).execute().getId().toUnqualifiedVersionless().getValue();
+
+		Organization childOrg = new Organization();
+		childOrg.setName("child org");
+		childOrg.getPartOf().setReference(parentOrgId);
+		String childOrgId = myClient.create().resource(childOrg).execute().getId().toUnqualifiedVersionless().getValue();
+
+		Encounter enc = new Encounter();
+		enc.setStatus(EncounterStatus.ARRIVED);
+		enc.getSubject().setReference(patId);
+		enc.getServiceProvider().setReference(childOrgId);
+		String encId = myClient.create().resource(enc).execute().getId().toUnqualifiedVersionless().getValue();
+
+		Bundle bundle = fetchBundle(ourServerBase + "/" + patId + "/$everything?_format=json&_count=100", EncodingEnum.JSON);
+
+		Set<String> actual = new TreeSet<>();
+		for (BundleEntryComponent nextEntry : bundle.getEntry()) {
+			actual.add(nextEntry.getResource().getIdElement().toUnqualifiedVersionless().getValue());
+		}
+		ourLog.info("Found IDs: {}", actual);
+
+		assertThat(actual, hasItems(patId, encId, childOrgId, parentOrgId, orgId));
+		assertThat(actual, not(hasItem(myWrongPatId)));
+		assertEquals(actual.size(), bundle.getEntry().size());
+	}
+
 	private Bundle fetchBundle(String theUrl, EncodingEnum theEncoding) throws IOException, ClientProtocolException {
 		Bundle bundle;
 		HttpGet get = new HttpGet(theUrl);
@@ -8,6 +8,7 @@ import ca.uhn.fhir.util.ExtensionConstants;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.CapabilityStatement;
 import org.hl7.fhir.r4.model.CapabilityStatement.CapabilityStatementRestResourceComponent;
 import org.hl7.fhir.r4.model.CapabilityStatement.CapabilityStatementRestResourceSearchParamComponent;
@@ -15,6 +16,7 @@ import org.hl7.fhir.r4.model.Extension;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -140,4 +142,41 @@ public class ServerR4Test extends BaseResourceProviderR4Test {
 
 	}
 
+	@Test
+	public void testResourceCountsFollowCommittedCreatesAndDeletes() {
+		myResourceCountsCache.clear();
+		myResourceCountsCache.update();
+		long initialCount = myResourceCountsCache.get().getOrDefault("Patient", 0L);
+
+		IIdType id = myPatientDao.create(new Patient().setActive(true), mySrd).getId().toUnqualifiedVersionless();
+		assertEquals(initialCount + 1, myResourceCountsCache.get().get("Patient").longValue());
+
+		// A create which is rolled back isn't counted
+		new TransactionTemplate(myTxManager).execute(t -> {
+			myPatientDao.create(new Patient().setActive(true), mySrd);
+			t.setRollbackOnly();
+			return null;
+		});
+		assertEquals(initialCount + 1, myResourceCountsCache.get().get("Patient").longValue());
+
+		myPatientDao.delete(id, mySrd);
+		assertEquals(initialCount, myResourceCountsCache.get().get("Patient").longValue());
+
+		// Updating a deleted resource brings it back
+		myPatientDao.update((Patient) new Patient().setActive(false).setId(id), mySrd);
+		assertEquals(initialCount + 1, myResourceCountsCache.get().get("Patient").longValue());
+
+		// Updating a live resource doesn't change the count
+		myPatientDao.update((Patient) new Patient().setActive(true).setId(id), mySrd);
+		assertEquals(initialCount + 1, myResourceCountsCache.get().get("Patient").longValue());
+
+		myPatientDao.delete(id, mySrd);
+		assertEquals(initialCount, myResourceCountsCache.get().get("Patient").longValue());
+
+		// A full count agrees with the counted changes
+		myResourceCountsCache.clear();
+		myResourceCountsCache.update();
+		assertEquals(initialCount, myResourceCountsCache.get().getOrDefault("Patient", 0L).longValue());
+	}
+
 }
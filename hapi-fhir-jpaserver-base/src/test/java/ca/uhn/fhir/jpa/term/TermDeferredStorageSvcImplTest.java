@@ -2,6 +2,7 @@ package ca.uhn.fhir.jpa.term;
 
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptParentChildLinkDao;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
 import ca.uhn.fhir.jpa.entity.TermConcept;
 import ca.uhn.fhir.jpa.entity.TermConceptParentChildLink;
@@ -14,7 +15,9 @@ import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -32,6 +35,8 @@ public class TermDeferredStorageSvcImplTest {
 	private ITermConceptDao myConceptDao;
 	@Mock
 	private ITermCodeSystemVersionDao myTermCodeSystemVersionDao;
+	@Mock
+	private ITermConceptParentChildLinkDao myConceptParentChildLinkDao;
 
 	@Test
 	public void testSaveDeferredWithExecutionSuspended() {
@@ -115,6 +120,57 @@ public class TermDeferredStorageSvcImplTest {
 
 	}
 
+	@Test
+	public void testSaveDeferred_MultipleConcepts_CodeSystemVersionCheckedOnce() {
+		TermCodeSystemVersion myTermCodeSystemVersion = new TermCodeSystemVersion();
+		myTermCodeSystemVersion.setId(1L);
+
+		TermDeferredStorageSvcImpl svc = new TermDeferredStorageSvcImpl();
+		svc.setTransactionManagerForUnitTest(myTxManager);
+		svc.setCodeSystemStorageSvcForUnitTest(myTermConceptStorageSvc);
+
+		when(myTermCodeSystemVersionDao.findById(anyLong())).thenReturn(Optional.of(myTermCodeSystemVersion));
+		when(myTermConceptStorageSvc.saveConcept(any())).thenReturn(1);
+		svc.setCodeSystemVersionDaoForUnitTest(myTermCodeSystemVersionDao);
+		svc.setProcessDeferred(true);
+		for (int i = 0; i < 10; i++) {
+			TermConcept concept = new TermConcept();
+			concept.setCode("CODE_" + i);
+			concept.setCodeSystemVersion(myTermCodeSystemVersion);
+			svc.addConceptToStorageQueue(concept);
+		}
+		svc.saveDeferred();
+
+		verify(myTermConceptStorageSvc, times(10)).saveConcept(any());
+		verify(myTermCodeSystemVersionDao, times(1)).findById(eq(1L));
+	}
+
+	@Test
+	public void testSaveDeferred_ConceptParentChildLink_SharedParentCheckedOnce() {
+		TermConcept parent = new TermConcept().setId(222L);
+		TermConceptParentChildLink conceptLink1 = new TermConceptParentChildLink();
+		conceptLink1.setChild(new TermConcept().setId(111L));
+		conceptLink1.setParent(parent);
+		TermConceptParentChildLink conceptLink2 = new TermConceptParentChildLink();
+		conceptLink2.setChild(new TermConcept().setId(112L));
+		conceptLink2.setParent(parent);
+
+		TermDeferredStorageSvcImpl svc = new TermDeferredStorageSvcImpl();
+		svc.setTransactionManagerForUnitTest(myTxManager);
+		svc.setCodeSystemStorageSvcForUnitTest(myTermConceptStorageSvc);
+		svc.setConceptDaoForUnitTest(myConceptDao);
+		svc.setConceptParentChildLinkDaoForUnitTest(myConceptParentChildLinkDao);
+		when(myConceptDao.existsById(anyLong())).thenReturn(true);
+		svc.setProcessDeferred(true);
+		svc.addConceptLinkToStorageQueue(conceptLink1);
+		svc.addConceptLinkToStorageQueue(conceptLink2);
+		svc.saveDeferred();
+
+		verify(myConceptDao, times(1)).existsById(eq(222L));
+		verify(myConceptParentChildLinkDao, times(1)).save(same(conceptLink1));
+		verify(myConceptParentChildLinkDao, times(1)).save(same(conceptLink2));
+	}
+
 	@Test
 	public void testSaveDeferred_ConceptParentChildLink_ConceptsMissing() {
 		TermConceptParentChildLink conceptLink = new TermConceptParentChildLink();
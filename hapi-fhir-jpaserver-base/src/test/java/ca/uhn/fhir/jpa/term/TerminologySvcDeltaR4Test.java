@@ -1,5 +1,6 @@
 package ca.uhn.fhir.jpa.term;
 
+import ca.uhn.fhir.context.support.ConceptValidationOptions;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.jpa.api.config.DaoConfig;
@@ -11,6 +12,7 @@ import ca.uhn.fhir.jpa.term.api.ITermDeferredStorageSvc;
 import ca.uhn.fhir.jpa.term.custom.CustomTerminologySet;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.UriParam;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import org.hl7.fhir.r4.model.CodeSystem;
 import org.hl7.fhir.r4.model.CodeType;
@@ -28,6 +30,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.leftPad;
@@ -36,6 +41,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.matchesPattern;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class TerminologySvcDeltaR4Test extends BaseJpaR4Test {
@@ -574,6 +580,47 @@ public class TerminologySvcDeltaR4Test extends BaseJpaR4Test {
 	}
 
 
+	@Test
+	public void testRemoveWithInMemoryCodeIndex() throws Exception {
+		myDaoConfig.setInMemoryTerminologyCodeIndexEnabled(true);
+		try {
+			createNotPresentCodeSystem();
+			CustomTerminologySet delta = new CustomTerminologySet();
+			delta.addRootConcept("codeA", "displayA");
+			delta.addRootConcept("codeB", "displayB");
+			myTermCodeSystemStorageSvc.applyDeltaCodeSystemsAdd("http://foo/cs", delta);
+			assertTrue(validateCode("codeB"));
+
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			try {
+				runInTransaction(() -> {
+					CustomTerminologySet removal = new CustomTerminologySet();
+					removal.addRootConcept("codeB");
+					myTermCodeSystemStorageSvc.applyDeltaCodeSystemsRemove("http://foo/cs", removal);
+
+					// Another thread can't see the removal yet, so it rebuilds the index including codeB
+					try {
+						assertTrue(executor.submit(() -> validateCode("codeB")).get());
+					} catch (InterruptedException | ExecutionException e) {
+						throw new InternalErrorException(e);
+					}
+				});
+			} finally {
+				executor.shutdown();
+			}
+
+			// The index built before the commit must not be used afterwards
+			assertFalse(validateCode("codeB"));
+			assertTrue(validateCode("codeA"));
+		} finally {
+			myDaoConfig.setInMemoryTerminologyCodeIndexEnabled(new DaoConfig().isInMemoryTerminologyCodeIndexEnabled());
+		}
+	}
+
+	private boolean validateCode(String theCode) {
+		return myTermSvc.validateCode(new ValidationSupportContext(myValidationSupport), new ConceptValidationOptions(), "http://foo/cs", theCode, null, null).isOk();
+	}
+
 	@Test
 	public void testRemove_UnknownSystem() {
 
@@ -3,6 +3,7 @@ package ca.uhn.fhir.jpa.term;
 import ca.uhn.fhir.context.support.ConceptValidationOptions;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
+import ca.uhn.fhir.jpa.api.config.DaoConfig;
 import ca.uhn.fhir.jpa.api.model.TranslationRequest;
 import ca.uhn.fhir.jpa.entity.TermCodeSystem;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
@@ -1815,6 +1816,28 @@ public class TerminologySvcImplR4Test extends BaseTermR4Test {
 		assertFalse(validation.isOk());
 	}
 
+	@Test
+	public void testValidateCodeWithInMemoryCodeIndex() {
+		myDaoConfig.setInMemoryTerminologyCodeIndexEnabled(true);
+		try {
+			createCodeSystem();
+
+			IValidationSupport.CodeValidationResult validation = myTermSvc.validateCode(new ValidationSupportContext(myValidationSupport), new ConceptValidationOptions(), CS_URL, "ParentWithNoChildrenA", null, null);
+			assertTrue(validation.isOk());
+
+			// Second validation should be served from the index
+			myCaptureQueriesListener.clear();
+			validation = myTermSvc.validateCode(new ValidationSupportContext(myValidationSupport), new ConceptValidationOptions(), CS_URL, "ParentWithNoChildrenB", null, null);
+			assertTrue(validation.isOk());
+			assertEquals(0, myCaptureQueriesListener.getSelectQueries().size());
+
+			validation = myTermSvc.validateCode(new ValidationSupportContext(myValidationSupport), new ConceptValidationOptions(), CS_URL, "ZZZZZZZ", null, null);
+			assertFalse(validation.isOk());
+		} finally {
+			myDaoConfig.setInMemoryTerminologyCodeIndexEnabled(new DaoConfig().isInMemoryTerminologyCodeIndexEnabled());
+		}
+	}
+
 	@Test
 	public void testValidateCodeIsInPreExpandedValueSet() throws Exception {
 		myDaoConfig.setPreExpandValueSets(true);
@@ -87,4 +87,40 @@ public class ResourceCountCacheTest {
 
 	}
 
+	@Test
+	public void testIncrementsAppliedUntilRefresh() throws Exception {
+		AtomicLong id = new AtomicLong();
+		when(myFetcher.call()).thenAnswer(t -> {
+			Map<String, Long> retVal = new HashMap<>();
+			retVal.put("A", 10 * id.incrementAndGet());
+			return retVal;
+		});
+
+		long start = System.currentTimeMillis();
+		ResourceCountCache.setNowForUnitTest(start);
+
+		ResourceCountCache cache = new ResourceCountCache(myFetcher);
+		cache.setCacheMillis(500);
+
+		// Increments before the first load have no counts to apply to
+		cache.incrementCount("A");
+		assertEquals(null, cache.get());
+
+		cache.update();
+		assertEquals(Long.valueOf(10), cache.get().get("A"));
+
+		// Creates are counted without reloading
+		cache.incrementCount("A");
+		cache.incrementCount("A");
+		cache.incrementCount("B");
+		assertEquals(Long.valueOf(12), cache.get().get("A"));
+		assertEquals(Long.valueOf(1), cache.get().get("B"));
+
+		// A reload replaces the counted creates
+		ResourceCountCache.setNowForUnitTest(start + 800);
+		cache.update();
+		assertEquals(Long.valueOf(20), cache.get().get("A"));
+		assertEquals(null, cache.get().get("B"));
+	}
+
 }
@@ -0,0 +1,162 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Enterprise Master Patient Index
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.batch.processors.PidToIBaseResourceProcessor;
+import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
+import ca.uhn.fhir.rest.server.exceptions.ResourceVersionConflictException;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.persistence.PersistenceException;
+import java.util.List;
+
+/**
+ * Spring batch Job configuration file. Contains all necessary plumbing to run an
+ * EMPI batch job, which links all existing EMPI targets (or those matching a criteria)
+ * to Persons without going through the EMPI channel.
+ */
+@Configuration
+public class EmpiBatchJobConfig {
+
+	public static final String EMPI_BATCH_JOB_BEAN_NAME = "empiBatchJob";
+	private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+	@Autowired
+	private StepBuilderFactory myStepBuilderFactory;
+
+	@Autowired
+	private JobBuilderFactory myJobBuilderFactory;
+
+	@Autowired
+	private PidToIBaseResourceProcessor myPidToIBaseResourceProcessor;
+
+	@Bean(name = EMPI_BATCH_JOB_BEAN_NAME)
+	@Lazy
+	public Job empiBatchJob() {
+		return myJobBuilderFactory.get(EMPI_BATCH_JOB_BEAN_NAME)
+			.validator(empiBatchJobParameterValidator())
+			.start(empiTagDefinitionStep())
+			.next(empiBatchPartitionStep())
+			.build();
+	}
+
+	@Bean
+	public JobParametersValidator empiBatchJobParameterValidator() {
+		return new EmpiBatchJobParameterValidator();
+	}
+
+	@Bean
+	public Step empiTagDefinitionStep() {
+		return myStepBuilderFactory.get("empiTagDefinitionStep")
+			.tasklet(empiTagDefinitionTasklet())
+			.build();
+	}
+
+	/**
+	 * Patients are never matched against Practitioners (and vice versa), so each target
+	 * type is an independent block and the types are processed concurrently, with one
+	 * thread per type. Within a type resources are processed one chunk at a time, since
+	 * parallel matching within a block can miss matches.
+	 */
+	@Bean
+	public Step empiBatchPartitionStep() {
+		return myStepBuilderFactory.get("empiBatchPartitionStep")
+			.partitioner("empiBatchLinkStep", empiTargetTypePartitioner())
+			.step(empiBatchLinkStep())
+			.taskExecutor(empiBatchTaskExecutor())
+			.build();
+	}
+
+	/**
+	 * The tag definition shared by every Person is created up front by the {@link EmpiTagDefinitionTasklet}.
+	 * Chunks of different target types can still conflict on other shared rows, in which case the
+	 * losing chunk is rolled back in its entirety, and once the {@link EmpiMatchLinkWriter} has
+	 * cleared any cached rows which were rolled back with it, it is simply retried.
+	 */
+	@Bean
+	public Step empiBatchLinkStep() {
+		return myStepBuilderFactory.get("empiBatchLinkStep")
+			.<List<ResourcePersistentId>, List<IBaseResource>> chunk(1) // The reader returns [readChunkSize] resources at a time
+			.reader(empiTargetPidReader())
+			.processor(myPidToIBaseResourceProcessor)
+			.writer(empiMatchLinkWriter())
+			.faultTolerant()
+			.retry(ResourceVersionConflictException.class)
+			.retry(ConcurrencyFailureException.class)
+			.retry(DataIntegrityViolationException.class)
+			.retry(ObjectRetrievalFailureException.class)
+			.retry(PersistenceException.class)
+			.retryLimit(MAX_CHUNK_ATTEMPTS)
+			.build();
+	}
+
+	@Bean
+	@Lazy
+	public TaskExecutor empiBatchTaskExecutor() {
+		ThreadPoolTaskExecutor retVal = new ThreadPoolTaskExecutor();
+		retVal.setCorePoolSize(EmpiTargetTypePartitioner.getTargetTypeCount());
+		retVal.setMaxPoolSize(EmpiTargetTypePartitioner.getTargetTypeCount());
+		retVal.setThreadNamePrefix("empi-batch-job-");
+		retVal.initialize();
+		return retVal;
+	}
+
+	@Bean
+	@StepScope
+	public EmpiTagDefinitionTasklet empiTagDefinitionTasklet() {
+		return new EmpiTagDefinitionTasklet();
+	}
+
+	@Bean
+	@JobScope
+	public EmpiTargetTypePartitioner empiTargetTypePartitioner() {
+		return new EmpiTargetTypePartitioner();
+	}
+
+	@Bean
+	@StepScope
+	public EmpiTargetPidReader empiTargetPidReader() {
+		return new EmpiTargetPidReader();
+	}
+
+	@Bean
+	@StepScope
+	public EmpiMatchLinkWriter empiMatchLinkWriter() {
+		return new EmpiMatchLinkWriter();
+	}
+
+}
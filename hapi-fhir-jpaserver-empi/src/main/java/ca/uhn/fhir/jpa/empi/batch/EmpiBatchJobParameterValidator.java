@@ -0,0 +1,61 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Enterprise Master Patient Index
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.empi.util.EmpiUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+
+/**
+ * This class will prevent an EMPI batch job from running with an unsupported resource type
+ * or an invalid chunk size.
+ */
+public class EmpiBatchJobParameterValidator implements JobParametersValidator {
+	public static final String JOB_PARAM_RESOURCE_TYPE = "resourceType";
+	public static final String JOB_PARAM_CRITERIA = "criteria";
+	public static final String JOB_PARAM_READ_CHUNK_SIZE = "readChunkSize";
+	public static final String JOB_PARAM_JOB_UUID = "jobUUID";
+
+	@Override
+	public void validate(JobParameters theJobParameters) throws JobParametersInvalidException {
+		if (theJobParameters == null) {
+			throw new JobParametersInvalidException("This job needs Parameters: [" + JOB_PARAM_READ_CHUNK_SIZE + "], [" + JOB_PARAM_JOB_UUID + "]");
+		}
+
+		StringBuilder errorBuilder = new StringBuilder();
+		Long readChunkSize = theJobParameters.getLong(JOB_PARAM_READ_CHUNK_SIZE);
+		if (readChunkSize == null || readChunkSize < 1) {
+			errorBuilder.append("There must be a valid number for " + JOB_PARAM_READ_CHUNK_SIZE + ", which is at least 1. ");
+		}
+
+		String resourceType = theJobParameters.getString(JOB_PARAM_RESOURCE_TYPE);
+		if (StringUtils.isNotBlank(resourceType) && !EmpiUtil.supportedTargetType(resourceType)) {
+			errorBuilder.append("EMPI batch does not support resource type: " + resourceType + ". ");
+		}
+
+		String errorMessage = errorBuilder.toString();
+		if (!StringUtils.isEmpty(errorMessage)) {
+			throw new JobParametersInvalidException(errorMessage);
+		}
+	}
+}
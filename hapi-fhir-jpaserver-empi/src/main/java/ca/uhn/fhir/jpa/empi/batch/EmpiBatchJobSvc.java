@@ -0,0 +1,96 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Enterprise Master Patient Index
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.empi.log.Logs;
+import ca.uhn.fhir.jpa.batch.api.IBatchJobSubmitter;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.slf4j.Logger;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Starts EMPI batch jobs. Unlike submitting resources to the EMPI channel, a batch job matches
+ * the resources in chunks directly, with one transaction per chunk and with each EMPI target
+ * type being processed in parallel. An interrupted job step resumes after the last chunk that
+ * was written.
+ */
+public class EmpiBatchJobSvc {
+	private static final Logger ourLog = Logs.getEmpiTroubleshootingLog();
+	public static final long DEFAULT_READ_CHUNK_SIZE = 100;
+
+	@Autowired
+	private IBatchJobSubmitter myJobSubmitter;
+
+	@Autowired
+	@Qualifier(EmpiBatchJobConfig.EMPI_BATCH_JOB_BEAN_NAME)
+	private Job myEmpiBatchJob;
+
+	@Autowired
+	private PlatformTransactionManager myTxManager;
+
+	/**
+	 * Start a batch job linking all EMPI targets to Persons
+	 *
+	 * @param theResourceType The target type to process, or <code>null</code> for all EMPI target types
+	 * @param theCriteria     An optional search criteria (e.g. <code>Patient?name=smith</code>) restricting the resources processed
+	 * @return The execution of the job
+	 */
+	public JobExecution startBatchJob(@Nullable String theResourceType, @Nullable String theCriteria) {
+		String jobUuid = UUID.randomUUID().toString();
+		JobParametersBuilder builder = new JobParametersBuilder()
+			.addString(EmpiBatchJobParameterValidator.JOB_PARAM_JOB_UUID, jobUuid)
+			.addLong(EmpiBatchJobParameterValidator.JOB_PARAM_READ_CHUNK_SIZE, DEFAULT_READ_CHUNK_SIZE);
+		if (isNotBlank(theResourceType)) {
+			builder.addString(EmpiBatchJobParameterValidator.JOB_PARAM_RESOURCE_TYPE, theResourceType);
+		}
+		if (isNotBlank(theCriteria)) {
+			builder.addString(EmpiBatchJobParameterValidator.JOB_PARAM_CRITERIA, theCriteria);
+		}
+		JobParameters parameters = builder.toJobParameters();
+
+		// The job repository refuses to create a job inside an existing transaction, so
+		// the job is launched with the caller's transaction (if any) suspended
+		TransactionTemplate txTemplate = new TransactionTemplate(myTxManager);
+		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+		return txTemplate.execute(t -> {
+			try {
+				ourLog.info("Starting EMPI batch job with UUID: {}", jobUuid);
+				return myJobSubmitter.runJob(myEmpiBatchJob, parameters);
+			} catch (JobParametersInvalidException e) {
+				throw new InvalidRequestException("Unable to start EMPI batch job: " + e.getMessage());
+			}
+		});
+	}
+}
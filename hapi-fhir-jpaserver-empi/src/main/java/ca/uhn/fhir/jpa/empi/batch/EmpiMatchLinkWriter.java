@@ -0,0 +1,153 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Enterprise Master Patient Index
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.empi.log.Logs;
+import ca.uhn.fhir.empi.model.EmpiTransactionContext;
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.empi.svc.EmpiMatchLinkSvc;
+import ca.uhn.fhir.jpa.empi.svc.EmpiResourceFilteringSvc;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.rest.server.TransactionLogMessages;
+import ca.uhn.fhir.rest.server.messaging.BaseResourceMessage;
+import ca.uhn.fhir.rest.server.messaging.ResourceOperationMessage;
+import ca.uhn.fhir.util.StopWatch;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Links each resource in the chunk to a Person. All of the EMPI links for a chunk are written
+ * in the chunk transaction, instead of in one transaction per resource as the EMPI channel does.
+ * <p>
+ * One writer is created for each partition (i.e. each EMPI target type), so writers for different
+ * target types run concurrently. The chunk is flushed at the end of {@link #write(List)}, so that a
+ * conflict with a concurrent chunk is raised while the step can still retry the chunk, instead of
+ * when the chunk transaction commits.
+ * </p>
+ * <p>
+ * Chunks of different target types can race when they create the same shared rows (e.g. the tag
+ * definition used by every Person) for the first time. The DAOs cache such rows as soon as they are
+ * created, so when a chunk fails the JPA memory caches are cleared before the chunk is retried.
+ * Otherwise the retry (or a chunk of another type) could reuse a row that was rolled back.
+ * </p>
+ */
+public class EmpiMatchLinkWriter implements ItemWriter<List<IBaseResource>>, ChunkListener {
+	private static final Logger ourLog = Logs.getEmpiTroubleshootingLog();
+
+	@Autowired
+	private EmpiMatchLinkSvc myEmpiMatchLinkSvc;
+	@Autowired
+	private EmpiResourceFilteringSvc myEmpiResourceFilteringSvc;
+	@Autowired
+	private IInterceptorBroadcaster myInterceptorBroadcaster;
+	@Autowired
+	private FhirContext myFhirContext;
+	@Autowired
+	private MemoryCacheService myMemoryCacheService;
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	@Value("#{stepExecutionContext['resourceType']}")
+	private String myResourceType;
+
+	private final StopWatch myStopWatch = new StopWatch();
+	private final AtomicLong myProcessedCount = new AtomicLong();
+
+	@Override
+	public void write(List<? extends List<IBaseResource>> theList) {
+		List<HookParams> outgoingHookParams = new ArrayList<>();
+		for (List<IBaseResource> resourceList : theList) {
+			for (IBaseResource next : resourceList) {
+				IAnyResource resource = (IAnyResource) next;
+				if (!myEmpiResourceFilteringSvc.shouldBeProcessed(resource)) {
+					continue;
+				}
+
+				EmpiTransactionContext empiContext = new EmpiTransactionContext(TransactionLogMessages.createNew(), EmpiTransactionContext.OperationType.SUBMIT_RESOURCE_TO_EMPI);
+				myEmpiMatchLinkSvc.updateEmpiLinksForEmpiTarget(resource, empiContext);
+
+				ResourceOperationMessage outgoingMsg = new ResourceOperationMessage(myFhirContext, resource, BaseResourceMessage.OperationTypeEnum.MANUALLY_TRIGGERED);
+				outgoingHookParams.add(new HookParams()
+					.add(ResourceOperationMessage.class, outgoingMsg)
+					.add(TransactionLogMessages.class, empiContext.getTransactionLogMessages()));
+			}
+
+			long processed = myProcessedCount.addAndGet(resourceList.size());
+			ourLog.info("EMPI batch has processed {} {} resources in {} ({}/sec)", processed, myResourceType, myStopWatch, myStopWatch.formatThroughput(processed, TimeUnit.SECONDS));
+		}
+
+		myEntityManager.flush();
+
+		// Interceptor call: EMPI_AFTER_PERSISTED_RESOURCE_CHECKED
+		// The links are only visible once the chunk transaction commits, so wait until then to notify
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					callHooks(outgoingHookParams);
+				}
+			});
+		} else {
+			callHooks(outgoingHookParams);
+		}
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext theContext) {
+		// nothing
+	}
+
+	@Override
+	public void afterChunk(ChunkContext theContext) {
+		// nothing
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext theContext) {
+		ourLog.debug("EMPI batch chunk for {} failed, clearing cached entities which may have been rolled back", myResourceType);
+		myMemoryCacheService.invalidateAllCaches();
+	}
+
+	private void callHooks(List<HookParams> theHookParams) {
+		for (HookParams next : theHookParams) {
+			myInterceptorBroadcaster.callHooks(Pointcut.EMPI_AFTER_PERSISTED_RESOURCE_CHECKED, next);
+		}
+	}
+}
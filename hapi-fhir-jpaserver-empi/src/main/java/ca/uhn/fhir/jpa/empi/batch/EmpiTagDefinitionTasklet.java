@@ -0,0 +1,70 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Enterprise Master Patient Index
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.empi.api.EmpiConstants;
+import ca.uhn.fhir.jpa.model.entity.TagDefinition;
+import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+import java.util.List;
+
+/**
+ * Runs before the target types are partitioned, and makes sure the tag definition which
+ * is applied to every EMPI-managed Person exists and is committed. Otherwise the first
+ * chunks of each target type all try to create it concurrently, and every chunk but one
+ * fails on the shared row.
+ */
+public class EmpiTagDefinitionTasklet implements Tasklet {
+	private static final Logger ourLog = LoggerFactory.getLogger(EmpiTagDefinitionTasklet.class);
+
+	@Autowired
+	private MemoryCacheService myMemoryCacheService;
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	@Override
+	public RepeatStatus execute(StepContribution theStepContribution, ChunkContext theChunkContext) {
+		List<TagDefinition> existing = myEntityManager
+			.createQuery("SELECT t FROM TagDefinition t WHERE t.myTagType = :type AND t.mySystem = :system AND t.myCode = :code", TagDefinition.class)
+			.setParameter("type", TagTypeEnum.TAG)
+			.setParameter("system", EmpiConstants.SYSTEM_EMPI_MANAGED)
+			.setParameter("code", EmpiConstants.CODE_HAPI_EMPI_MANAGED)
+			.getResultList();
+		if (existing.isEmpty()) {
+			ourLog.debug("Creating EMPI managed tag definition before linking");
+			myEntityManager.persist(new TagDefinition(TagTypeEnum.TAG, EmpiConstants.SYSTEM_EMPI_MANAGED, EmpiConstants.CODE_HAPI_EMPI_MANAGED, EmpiConstants.DISPLAY_HAPI_EMPI_MANAGED));
+			// Any cached definition with this key refers to a row which no longer exists
+			myMemoryCacheService.invalidateAllCaches();
+		}
+		return RepeatStatus.FINISHED;
+	}
+}
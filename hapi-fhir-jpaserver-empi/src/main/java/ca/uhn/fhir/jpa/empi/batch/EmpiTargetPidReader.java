@@ -0,0 +1,173 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Enterprise Master Patient Index
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.empi.log.Logs;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.dao.IResultIterator;
+import ca.uhn.fhir.jpa.dao.ISearchBuilder;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
+import ca.uhn.fhir.jpa.dao.index.IdHelperService;
+import ca.uhn.fhir.jpa.empi.svc.EmpiSearchParamSvc;
+import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
+import ca.uhn.fhir.rest.param.StringOrListParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.slf4j.Logger;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Reads the PIDs of all EMPI targets of a single type (optionally filtered by a criteria) in
+ * ascending PID order. Rather than loading every PID up front, each call asks the database for the
+ * next page of PIDs following the last one already returned (keyset paging), so memory use and the
+ * cost of each page stay constant no matter how many resources there are. When a criteria is supplied,
+ * each page is narrowed to the resources matching it with an additional <code>_id</code> search.
+ * <p>
+ * The last PID handed out is stored in the step execution context, so a restarted step resumes after
+ * the last chunk that was successfully written.
+ * </p>
+ */
+public class EmpiTargetPidReader implements ItemStreamReader<List<ResourcePersistentId>> {
+	private static final Logger ourLog = Logs.getEmpiTroubleshootingLog();
+	static final String LAST_PID_KEY = "empiBatchLastPid";
+
+	@Value("#{jobParameters['" + EmpiBatchJobParameterValidator.JOB_PARAM_READ_CHUNK_SIZE + "']}")
+	private Long myReadChunkSize;
+
+	@Value("#{jobParameters['" + EmpiBatchJobParameterValidator.JOB_PARAM_CRITERIA + "']}")
+	private String myCriteria;
+
+	@Value("#{stepExecutionContext['resourceType']}")
+	private String myResourceType;
+
+	@Autowired
+	private EmpiSearchParamSvc myEmpiSearchParamSvc;
+	@Autowired
+	private IResourceTableDao myResourceTableDao;
+	@Autowired
+	private IdHelperService myIdHelperService;
+
+	private Long myLastPid;
+	private boolean myDone;
+
+	@Override
+	public List<ResourcePersistentId> read() {
+		while (!myDone) {
+			List<Long> page = readNextPageOfPids();
+			if (page.isEmpty()) {
+				continue;
+			}
+
+			List<ResourcePersistentId> outgoing = page
+				.stream()
+				.map(ResourcePersistentId::new)
+				.collect(Collectors.toList());
+			ourLog.debug("EMPI batch read {} {} resources, up to PID {}", outgoing.size(), myResourceType, myLastPid);
+			return outgoing;
+		}
+		return null;
+	}
+
+	private List<Long> readNextPageOfPids() {
+		int pageSize = myReadChunkSize.intValue();
+		long lastPid = myLastPid != null ? myLastPid : Long.MIN_VALUE;
+		Slice<Long> slice = myResourceTableDao.findIdsOfResourcesOfTypeAfterPid(PageRequest.of(0, pageSize), myResourceType, lastPid, Long.MAX_VALUE);
+		List<Long> pids = slice.getContent();
+		if (pids.size() < pageSize) {
+			myDone = true;
+		}
+		if (pids.isEmpty()) {
+			return pids;
+		}
+		myLastPid = pids.get(pids.size() - 1);
+
+		if (isBlank(myCriteria)) {
+			return pids;
+		}
+		Set<Long> matchingPids = findPidsMatchingCriteria(pids);
+		return pids
+			.stream()
+			.filter(matchingPids::contains)
+			.collect(Collectors.toList());
+	}
+
+	private Set<Long> findPidsMatchingCriteria(List<Long> thePids) {
+		StringOrListParam idParams = new StringOrListParam();
+		Map<Long, Optional<String>> forcedIds = myIdHelperService.translatePidsToForcedIds(new HashSet<>(thePids));
+		for (Long next : thePids) {
+			idParams.addOr(new StringParam(forcedIds.get(next).orElse(next.toString())));
+		}
+
+		SearchParameterMap map = myEmpiSearchParamSvc.getSearchParameterMapFromCriteria(myResourceType, myCriteria);
+		map.add(IAnyResource.SP_RES_ID, idParams);
+		map.setLoadSynchronous(true);
+		ISearchBuilder sb = myEmpiSearchParamSvc.generateSearchBuilderForType(myResourceType);
+
+		Set<Long> retVal = new HashSet<>();
+		try (IResultIterator resultIterator = sb.createQuery(map, new SearchRuntimeDetails(null, UUID.randomUUID().toString()), null, RequestPartitionId.allPartitions())) {
+			while (resultIterator.hasNext()) {
+				retVal.add(resultIterator.next().getIdAsLong());
+			}
+		} catch (IOException e) {
+			throw new ItemStreamException("Failure while attempting to query " + myResourceType + " resources for EMPI batch", e);
+		}
+		return retVal;
+	}
+
+	@Override
+	public void open(ExecutionContext theExecutionContext) throws ItemStreamException {
+		if (theExecutionContext.containsKey(LAST_PID_KEY)) {
+			myLastPid = theExecutionContext.getLong(LAST_PID_KEY);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext theExecutionContext) throws ItemStreamException {
+		if (myLastPid != null) {
+			theExecutionContext.putLong(LAST_PID_KEY, myLastPid);
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		// nothing
+	}
+}
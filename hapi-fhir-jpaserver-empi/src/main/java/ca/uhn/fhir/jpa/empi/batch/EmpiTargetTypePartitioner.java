@@ -0,0 +1,67 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Enterprise Master Patient Index
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.empi.log.Logs;
+import ca.uhn.fhir.empi.util.EmpiUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates one partition per EMPI target type being processed by the job
+ */
+public class EmpiTargetTypePartitioner implements Partitioner {
+	private static final Logger ourLog = Logs.getEmpiTroubleshootingLog();
+
+	@Value("#{jobParameters['" + EmpiBatchJobParameterValidator.JOB_PARAM_RESOURCE_TYPE + "']}")
+	private String myResourceType;
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		Map<String, ExecutionContext> partitionContextMap = new HashMap<>();
+
+		List<String> resourceTypes = StringUtils.isBlank(myResourceType) ? EmpiUtil.SUPPORTED_TARGET_TYPES : Collections.singletonList(myResourceType);
+		for (String resourceType : resourceTypes) {
+			ourLog.debug("Creating an EMPI batch partition step for resource type [{}]", resourceType);
+
+			ExecutionContext context = new ExecutionContext();
+			//The worker step needs to know what resource type it is looking for.
+			context.putString("resourceType", resourceType);
+
+			// Name the partition based on the resource type
+			partitionContextMap.put(resourceType, context);
+		}
+
+		return partitionContextMap;
+	}
+
+	static int getTargetTypeCount() {
+		return EmpiUtil.SUPPORTED_TARGET_TYPES.size();
+	}
+}
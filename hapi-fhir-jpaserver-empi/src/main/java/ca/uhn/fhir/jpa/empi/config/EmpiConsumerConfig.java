@@ -37,6 +37,8 @@ import ca.uhn.fhir.empi.rules.svc.EmpiResourceMatcherSvc;
 import ca.uhn.fhir.empi.util.EIDHelper;
 import ca.uhn.fhir.empi.util.PersonHelper;
 import ca.uhn.fhir.jpa.dao.empi.EmpiLinkDeleteSvc;
+import ca.uhn.fhir.jpa.empi.batch.EmpiBatchJobConfig;
+import ca.uhn.fhir.jpa.empi.batch.EmpiBatchJobSvc;
 import ca.uhn.fhir.jpa.empi.broker.EmpiMessageHandler;
 import ca.uhn.fhir.jpa.empi.broker.EmpiQueueConsumerLoader;
 import ca.uhn.fhir.jpa.empi.dao.EmpiLinkDaoSvc;
@@ -66,8 +68,10 @@ import ca.uhn.fhir.validation.IResourceLoader;
 import org.slf4j.Logger;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 @Configuration
+@Import(EmpiBatchJobConfig.class)
 public class EmpiConsumerConfig {
 	private static final Logger ourLog = Logs.getEmpiTroubleshootingLog();
 
@@ -227,4 +231,9 @@ public class EmpiConsumerConfig {
 
 	@Bean
 	IEmpiControllerSvc empiControllerSvc() {return new EmpiControllerSvcImpl(); }
+
+	@Bean
+	EmpiBatchJobSvc empiBatchJobSvc() {
+		return new EmpiBatchJobSvc();
+	}
 }
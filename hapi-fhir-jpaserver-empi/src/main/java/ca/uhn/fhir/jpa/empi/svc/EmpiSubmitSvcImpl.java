@@ -21,6 +21,7 @@ package ca.uhn.fhir.jpa.empi.svc;
  */
 
 import ca.uhn.fhir.empi.api.IEmpiChannelSubmitterSvc;
+import ca.uhn.fhir.empi.api.IEmpiSettings;
 import ca.uhn.fhir.empi.api.IEmpiSubmitSvc;
 import ca.uhn.fhir.empi.log.Logs;
 import ca.uhn.fhir.empi.util.EmpiUtil;
@@ -29,8 +30,10 @@ import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.dao.IResultIterator;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
+import ca.uhn.fhir.jpa.empi.batch.EmpiBatchJobSvc;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.SummaryEnum;
 import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
@@ -61,11 +64,28 @@ public class EmpiSubmitSvcImpl implements IEmpiSubmitSvc {
 	@Autowired
 	private IEmpiChannelSubmitterSvc myEmpiChannelSubmitterSvc;
 
+	@Autowired
+	private IEmpiSettings myEmpiSettings;
+
+	// Only present on servers which also consume EMPI messages
+	@Autowired(required = false)
+	private EmpiBatchJobSvc myEmpiBatchJobSvc;
+
 	private static final int BUFFER_SIZE = 100;
 
 	@Override
 	@Transactional
 	public long submitAllTargetTypesToEmpi(@Nullable String theCriteria) {
+		if (isSubmitUsingBatchJob()) {
+			long matchingCount = 0;
+			for (String next : EmpiUtil.SUPPORTED_TARGET_TYPES) {
+				matchingCount += countMatchingResources(next, theCriteria);
+			}
+			ourLog.info("Starting an EMPI batch job for {} resources of all EMPI target types", matchingCount);
+			myEmpiBatchJobSvc.startBatchJob(null, theCriteria);
+			return matchingCount;
+		}
+
 		long submittedCount = 0;
 		submittedCount += submitPatientTypeToEmpi(theCriteria);
 		submittedCount += submitPractitionerTypeToEmpi(theCriteria);
@@ -81,12 +101,34 @@ public class EmpiSubmitSvcImpl implements IEmpiSubmitSvc {
 			ourLog.info("Submitting resources of type {} with criteria {} to EMPI", theTargetType, theCriteria);
 		}
 		resolveTargetTypeOrThrowException(theTargetType);
+		if (isSubmitUsingBatchJob()) {
+			long matchingCount = countMatchingResources(theTargetType, theCriteria);
+			ourLog.info("Starting an EMPI batch job for {} resources of type {}", matchingCount, theTargetType);
+			myEmpiBatchJobSvc.startBatchJob(theTargetType, theCriteria);
+			return matchingCount;
+		}
 		SearchParameterMap spMap = myEmpiSearchParamSvc.getSearchParameterMapFromCriteria(theTargetType, theCriteria);
 		spMap.setLoadSynchronousUpTo(BUFFER_SIZE);
 		ISearchBuilder searchBuilder = myEmpiSearchParamSvc.generateSearchBuilderForType(theTargetType);
 		return submitAllMatchingResourcesToEmpiChannel(spMap, searchBuilder);
 	}
 
+	private boolean isSubmitUsingBatchJob() {
+		return myEmpiSettings.isSubmitUsingBatchJob() && myEmpiBatchJobSvc != null;
+	}
+
+	/**
+	 * The batch job runs asynchronously, so the number of resources it will process is
+	 * counted up front
+	 */
+	private long countMatchingResources(String theTargetType, @Nullable String theCriteria) {
+		SearchParameterMap spMap = myEmpiSearchParamSvc.getSearchParameterMapFromCriteria(theTargetType, theCriteria);
+		spMap.setLoadSynchronous(true);
+		spMap.setSummaryMode(SummaryEnum.COUNT);
+		Integer count = myDaoRegistry.getResourceDao(theTargetType).search(spMap).size();
+		return count != null ? count : 0;
+	}
+
 	private long submitAllMatchingResourcesToEmpiChannel(SearchParameterMap theSpMap, ISearchBuilder theSearchBuilder) {
 		SearchRuntimeDetails searchRuntimeDetails = new SearchRuntimeDetails(null, UUID.randomUUID().toString());
 		long total = 0;
@@ -26,29 +26,36 @@ import ca.uhn.fhir.empi.rules.json.EmpiFilterSearchParamJson;
 import ca.uhn.fhir.empi.rules.json.EmpiResourceSearchParamJson;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.dao.ISearchBuilder;
+import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.index.IdHelperService;
 import ca.uhn.fhir.jpa.empi.svc.EmpiSearchParamSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
-import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.storage.ResourcePersistentId;
+import ca.uhn.fhir.util.StopWatch;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.empi.api.EmpiConstants.ALL_RESOURCE_SEARCH_PARAM_TYPE;
 
 @Service
 public class EmpiCandidateSearchSvc {
-	private static final Logger ourLog = Logs.getEmpiTroubleshootingLog();
+	private static final Logger ourLog = LoggerFactory.getLogger(EmpiCandidateSearchSvc.class);
+	private static final Logger ourTroubleshootingLog = Logs.getEmpiTroubleshootingLog();
 
 	@Autowired
 	private IEmpiSettings myEmpiConfig;
@@ -60,6 +67,8 @@ public class EmpiCandidateSearchSvc {
 	private IdHelperService myIdHelperService;
 	@Autowired
 	private EmpiCandidateSearchCriteriaBuilderSvc myEmpiCandidateSearchCriteriaBuilderSvc;
+	@Autowired
+	private SearchBuilderFactory mySearchBuilderFactory;
 
 	public EmpiCandidateSearchSvc() {
 	}
@@ -73,8 +82,9 @@ public class EmpiCandidateSearchSvc {
 	 *
 	 * @return the list of candidate {@link IBaseResource} which could be matches to theResource
 	 */
+	@Transactional
 	public Collection<IAnyResource> findCandidates(String theResourceType, IAnyResource theResource) {
-		Map<Long, IAnyResource> matchedPidsToResources = new HashMap<>();
+		Set<ResourcePersistentId> matchedPids = new HashSet<>();
 		List<EmpiFilterSearchParamJson> filterSearchParams = myEmpiConfig.getEmpiRules().getCandidateFilterSearchParams();
 		List<String> filterCriteria = buildFilterQuery(filterSearchParams, theResourceType);
 		List<EmpiResourceSearchParamJson> candidateSearchParams = myEmpiConfig.getEmpiRules().getCandidateSearchParams();
@@ -82,7 +92,7 @@ public class EmpiCandidateSearchSvc {
 		//If there are zero EmpiResourceSearchParamJson, we end up only making a single search, otherwise we
 		//must perform one search per EmpiResourceSearchParamJson.
 		if (candidateSearchParams.isEmpty()) {
-			searchForIdsAndAddToMap(theResourceType, theResource, matchedPidsToResources, filterCriteria, null);
+			searchForIdsAndAddToSet(theResourceType, theResource, matchedPids, filterCriteria, null);
 		} else {
 			for (EmpiResourceSearchParamJson resourceSearchParam : candidateSearchParams) {
 
@@ -90,16 +100,20 @@ public class EmpiCandidateSearchSvc {
 					continue;
 				}
 
-				searchForIdsAndAddToMap(theResourceType, theResource, matchedPidsToResources, filterCriteria, resourceSearchParam);
+				searchForIdsAndAddToSet(theResourceType, theResource, matchedPids, filterCriteria, resourceSearchParam);
 			}
 		}
 		//Obviously we don't want to consider the freshly added resource as a potential candidate.
 		//Sometimes, we are running this function on a resource that has not yet been persisted,
 		//so it may not have an ID yet, precluding the need to remove it.
 		if (theResource.getIdElement().getIdPart() != null) {
-			matchedPidsToResources.remove(myIdHelperService.getPidOrNull(theResource));
+			Long pid = myIdHelperService.getPidOrNull(theResource);
+			if (pid != null) {
+				matchedPids.remove(new ResourcePersistentId(pid));
+			}
 		}
-		return matchedPidsToResources.values();
+
+		return loadCandidates(theResourceType, matchedPids);
 	}
 
 	private boolean isSearchParamForResource(String theResourceType, EmpiResourceSearchParamJson resourceSearchParam) {
@@ -111,42 +125,68 @@ public class EmpiCandidateSearchSvc {
 	 * Helper method which performs too much work currently.
 	 * 1. Build a full query string for the given filter and resource criteria.
 	 * 2. Convert that URL to a SearchParameterMap.
-	 * 3. Execute a Synchronous search on the DAO using that parameter map.
-	 * 4. Store all results in `theMatchedPidsToResources`
+	 * 3. Execute a Synchronous search on the DAO for the matching PIDs only.
+	 * 4. Store all results in `theMatchedPids`, unless the search matched too many candidates to be useful.
 	 */
-	@SuppressWarnings("rawtypes")
-	private void searchForIdsAndAddToMap(String theResourceType, IAnyResource theResource, Map<Long, IAnyResource> theMatchedPidsToResources, List<String> theFilterCriteria, EmpiResourceSearchParamJson resourceSearchParam) {
+	private void searchForIdsAndAddToSet(String theResourceType, IAnyResource theResource, Set<ResourcePersistentId> theMatchedPids, List<String> theFilterCriteria, EmpiResourceSearchParamJson resourceSearchParam) {
 		//1.
 		Optional<String> oResourceCriteria = myEmpiCandidateSearchCriteriaBuilderSvc.buildResourceQueryString(theResourceType, theResource, theFilterCriteria, resourceSearchParam);
 		if (!oResourceCriteria.isPresent()) {
 			return;
 		}
 		String resourceCriteria = oResourceCriteria.get();
-		ourLog.debug("Searching for {} candidates with {}", theResourceType, resourceCriteria);
+		ourTroubleshootingLog.debug("Searching for {} candidates with {}", theResourceType, resourceCriteria);
 
 		//2.
 		SearchParameterMap searchParameterMap = myEmpiSearchParamSvc.mapFromCriteria(theResourceType, resourceCriteria);
 
+		// Fetch one more than the limit so we can tell whether the limit was exceeded
+		int candidateSearchLimit = myEmpiConfig.getCandidateSearchLimit();
 		searchParameterMap.setLoadSynchronous(true);
+		searchParameterMap.setLoadSynchronousUpTo(candidateSearchLimit + 1);
 
-		//TODO EMPI this will blow up under large scale i think.
 		//3.
 		IFhirResourceDao<?> resourceDao = myDaoRegistry.getResourceDao(theResourceType);
-		IBundleProvider search = resourceDao.search(searchParameterMap);
-		List<IBaseResource> resources = search.getResources(0, search.size());
-
-		int initialSize = theMatchedPidsToResources.size();
+		Set<ResourcePersistentId> pids = resourceDao.searchForIds(searchParameterMap, null);
 
 		//4.
-		resources.forEach(resource -> theMatchedPidsToResources.put(myIdHelperService.getPidOrNull(resource), (IAnyResource) resource));
+		if (pids.size() > candidateSearchLimit) {
+			ourLog.warn("Candidate search {} for {} matched more than {} candidates, which is the candidate search limit. These candidates will not be considered.", resourceCriteria, theResourceType, candidateSearchLimit);
+			return;
+		}
 
-		int newSize = theMatchedPidsToResources.size();
+		int initialSize = theMatchedPids.size();
+		theMatchedPids.addAll(pids);
+		int newSize = theMatchedPids.size();
 
-		if (ourLog.isDebugEnabled()) {
-			ourLog.debug("Candidate search added {} {}s", newSize - initialSize, theResourceType);
+		if (ourTroubleshootingLog.isDebugEnabled()) {
+			ourTroubleshootingLog.debug("Candidate search added {} {}s", newSize - initialSize, theResourceType);
 		}
 	}
 
+	/**
+	 * Candidates found by more than one candidate search are only loaded once, and all of them
+	 * are loaded in a single pass
+	 */
+	@SuppressWarnings("rawtypes")
+	private Collection<IAnyResource> loadCandidates(String theResourceType, Set<ResourcePersistentId> thePids) {
+		if (thePids.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		StopWatch sw = new StopWatch();
+		IFhirResourceDao dao = myDaoRegistry.getResourceDao(theResourceType);
+		ISearchBuilder searchBuilder = mySearchBuilderFactory.newSearchBuilder(dao, theResourceType, dao.getResourceType());
+		List<IBaseResource> resources = new ArrayList<>(thePids.size());
+		searchBuilder.loadResourcesByPid(thePids, Collections.emptyList(), resources, false, null);
+		ourTroubleshootingLog.debug("Loaded {} {} candidates in {}", resources.size(), theResourceType, sw);
+
+		return resources
+			.stream()
+			.map(t -> (IAnyResource) t)
+			.collect(Collectors.toList());
+	}
+
 	private List<String> buildFilterQuery(List<EmpiFilterSearchParamJson> theFilterSearchParams, String theResourceType) {
 		return Collections.unmodifiableList(theFilterSearchParams.stream()
 			.filter(spFilterJson -> paramIsOnCorrectType(theResourceType, spFilterJson))
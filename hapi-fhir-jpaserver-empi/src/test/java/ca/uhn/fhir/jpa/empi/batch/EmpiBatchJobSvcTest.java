@@ -0,0 +1,122 @@
+package ca.uhn.fhir.jpa.empi.batch;
+
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.batch.api.IBatchJobSubmitter;
+import ca.uhn.fhir.jpa.empi.BaseEmpiR4Test;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.test.concurrency.PointcutLatch;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmpiBatchJobSvcTest extends BaseEmpiR4Test {
+
+	@Autowired
+	EmpiBatchJobSvc myEmpiBatchJobSvc;
+
+	@Autowired
+	IInterceptorService myInterceptorService;
+
+	@Autowired
+	IBatchJobSubmitter myBatchJobSubmitter;
+
+	@Autowired
+	@Qualifier(EmpiBatchJobConfig.EMPI_BATCH_JOB_BEAN_NAME)
+	Job myEmpiBatchJob;
+
+	PointcutLatch afterEmpiLatch = new PointcutLatch(Pointcut.EMPI_AFTER_PERSISTED_RESOURCE_CHECKED);
+
+	@BeforeEach
+	public void before() {
+		myInterceptorService.registerAnonymousInterceptor(Pointcut.EMPI_AFTER_PERSISTED_RESOURCE_CHECKED, afterEmpiLatch);
+	}
+
+	@AfterEach
+	public void after() throws IOException {
+		myInterceptorService.unregisterInterceptor(afterEmpiLatch);
+		afterEmpiLatch.clear();
+		super.after();
+	}
+
+	@Test
+	public void testBatchJobWorksOverMultipleTargetTypes() throws InterruptedException {
+		for (int i = 0; i < 10; i++) {
+			createPatient(buildJanePatient());
+		}
+		for (int i = 0; i < 10; i++) {
+			createPractitioner(buildPractitionerWithNameAndId("test", "id"));
+		}
+
+		assertLinkCount(0);
+
+		//SUT
+		afterEmpiLatch.runWithExpectedCount(20, () -> myEmpiBatchJobSvc.startBatchJob(null, null));
+
+		assertLinkCount(20);
+	}
+
+	@Test
+	public void testBatchJobOnTargetTypeWithCriteria() throws InterruptedException {
+		createPatient(buildPatientWithNameIdAndBirthday("gary", "gary_id", new Date()));
+		createPatient(buildPatientWithNameIdAndBirthday("john", "john_id", DateUtils.addDays(new Date(), -300)));
+
+		assertLinkCount(0);
+
+		//SUT
+		afterEmpiLatch.runWithExpectedCount(1, () -> myEmpiBatchJobSvc.startBatchJob("Patient", "Patient?name=gary"));
+
+		assertLinkCount(1);
+	}
+
+	@Test
+	public void testBatchJobPagesThroughTargetsMatchingCriteria() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			createPatient(buildPatientWithNameIdAndBirthday("gary", "gary_id_" + i, new Date()));
+			createPatient(buildPatientWithNameIdAndBirthday("john", "john_id_" + i, DateUtils.addDays(new Date(), -300)));
+		}
+
+		assertLinkCount(0);
+
+		// A read chunk size of 2 means the matching Patients are spread across several pages, and some pages match nothing
+		JobParameters parameters = new JobParametersBuilder()
+			.addString(EmpiBatchJobParameterValidator.JOB_PARAM_JOB_UUID, UUID.randomUUID().toString())
+			.addLong(EmpiBatchJobParameterValidator.JOB_PARAM_READ_CHUNK_SIZE, 2L)
+			.addString(EmpiBatchJobParameterValidator.JOB_PARAM_RESOURCE_TYPE, "Patient")
+			.addString(EmpiBatchJobParameterValidator.JOB_PARAM_CRITERIA, "Patient?name=gary")
+			.toJobParameters();
+
+		//SUT
+		afterEmpiLatch.runWithExpectedCount(3, () -> {
+			try {
+				myBatchJobSubmitter.runJob(myEmpiBatchJob, parameters);
+			} catch (JobParametersInvalidException e) {
+				throw new InternalErrorException(e);
+			}
+		});
+
+		assertLinkCount(3);
+	}
+
+	@Test
+	public void testBatchJobRejectsUnsupportedType() {
+		InvalidRequestException e = assertThrows(InvalidRequestException.class, () -> myEmpiBatchJobSvc.startBatchJob("Observation", null));
+		assertThat(e.getMessage(), containsString("EMPI batch does not support resource type: Observation"));
+	}
+}
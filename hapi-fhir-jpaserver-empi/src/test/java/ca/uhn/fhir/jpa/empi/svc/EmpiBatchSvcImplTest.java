@@ -1,6 +1,7 @@
 package ca.uhn.fhir.jpa.empi.svc;
 
 import ca.uhn.fhir.empi.api.IEmpiSubmitSvc;
+import ca.uhn.fhir.empi.rules.config.EmpiSettings;
 import ca.uhn.fhir.interceptor.api.IInterceptorService;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.jpa.empi.BaseEmpiR4Test;
@@ -13,6 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class EmpiBatchSvcImplTest extends BaseEmpiR4Test {
 
@@ -69,6 +73,29 @@ class EmpiBatchSvcImplTest extends BaseEmpiR4Test {
 		assertLinkCount(10);
 	}
 
+	@Test
+	public void testEmpiBatchOnPatientTypeUsingBatchJob() throws Exception {
+
+		for (int i =0; i < 10; i++) {
+			createPatient(buildPatientWithNameAndId("test", "id"));
+		}
+
+		assertLinkCount(0);
+
+		EmpiSettings empiSettings = (EmpiSettings) myEmpiConfig;
+		empiSettings.setSubmitUsingBatchJob(true);
+		AtomicLong submittedCount = new AtomicLong();
+		try {
+			//SUT
+			afterEmpiLatch.runWithExpectedCount(10, () -> submittedCount.set(myEmpiSubmitSvc.submitTargetTypeToEmpi("Patient", null)));
+		} finally {
+			empiSettings.setSubmitUsingBatchJob(false);
+		}
+
+		assertEquals(10, submittedCount.get());
+		assertLinkCount(10);
+	}
+
 	@Test
 	public void testEmpiBatchOnPractitionerType() throws Exception {
 
@@ -1,21 +1,35 @@
 package ca.uhn.fhir.jpa.empi.svc;
 
+import ca.uhn.fhir.empi.api.IEmpiSettings;
+import ca.uhn.fhir.empi.rules.config.EmpiSettings;
 import ca.uhn.fhir.jpa.empi.BaseEmpiR4Test;
 import ca.uhn.fhir.jpa.empi.svc.candidate.EmpiCandidateSearchSvc;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Practitioner;
 import org.hl7.fhir.r4.model.Reference;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class EmpiCandidateSearchSvcTest extends BaseEmpiR4Test {
 
@@ -48,6 +62,45 @@ public class EmpiCandidateSearchSvcTest extends BaseEmpiR4Test {
 		assertEquals(1, result.size());
 	}
 
+	@Test
+	public void testFindCandidatesIgnoresSearchesExceedingCandidateSearchLimit() {
+		Patient jane1 = buildJanePatient();
+		jane1.setActive(true);
+		createPatient(jane1);
+		Patient jane2 = buildJanePatient();
+		jane2.setActive(true);
+		createPatient(jane2);
+		Patient newJane = buildJanePatient();
+
+		EmpiSettings empiSettings = (EmpiSettings) myEmpiConfig;
+		empiSettings.setCandidateSearchLimit(1);
+		Logger logger = (Logger) LoggerFactory.getLogger(EmpiCandidateSearchSvc.class);
+		@SuppressWarnings("unchecked")
+		Appender<ILoggingEvent> appender = mock(Appender.class);
+		logger.addAppender(appender);
+		try {
+			Collection<IAnyResource> result = myEmpiCandidateSearchSvc.findCandidates("Patient", newJane);
+			assertThat(result, hasSize(0));
+		} finally {
+			logger.detachAppender(appender);
+			empiSettings.setCandidateSearchLimit(IEmpiSettings.EMPI_DEFAULT_CANDIDATE_SEARCH_LIMIT);
+		}
+
+		ArgumentCaptor<ILoggingEvent> eventCaptor = ArgumentCaptor.forClass(ILoggingEvent.class);
+		verify(appender, atLeastOnce()).doAppend(eventCaptor.capture());
+		List<ILoggingEvent> warnings = eventCaptor
+			.getAllValues()
+			.stream()
+			.filter(t -> t.getLevel() == Level.WARN)
+			.collect(Collectors.toList());
+		assertThat(warnings, hasSize(1));
+		assertThat(warnings.get(0).getFormattedMessage(), containsString("Candidate search Patient?"));
+		assertThat(warnings.get(0).getFormattedMessage(), containsString("matched more than 1 candidates, which is the candidate search limit"));
+
+		Collection<IAnyResource> result = myEmpiCandidateSearchSvc.findCandidates("Patient", newJane);
+		assertThat(result, hasSize(2));
+	}
+
 	@Test
 	public void testFindCandidatesCorrectlySearchesWithReferenceParams() {
 		Practitioner practitioner = new Practitioner();
@@ -28,6 +28,7 @@ public class PartitionSettings {
 	private boolean myPartitioningEnabled = false;
 	private CrossPartitionReferenceMode myAllowReferencesAcrossPartitions = CrossPartitionReferenceMode.NOT_ALLOWED;
 	private boolean myIncludePartitionInSearchHashes = false;
+	private boolean myParallelPartitionSearchEnabled = false;
 
 	/**
 	 * If set to <code>true</code> (default is <code>false</code>) the <code>PARTITION_ID</code> value will be factored into the
@@ -56,6 +57,49 @@ public class PartitionSettings {
 		return this;
 	}
 
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>) searches across all partitions are fanned out, with
+	 * a separate query for each partition performed in parallel on the search executor. The resource IDs found in each
+	 * partition are merged, and totals (e.g. <code>_total=accurate</code> or <code>_summary=count</code>) are added
+	 * together. This may perform better than a single query when the partitions are mapped to native database
+	 * partitions, since the work for each partition is bounded and small partitions are not held up by large ones.
+	 * <p>
+	 * Searches which specify a sort order (<code>_sort</code>), an offset, or which use fulltext, <code>$everything</code>
+	 * or <code>$lastn</code> are still performed using a single query, but their totals are still counted per partition.
+	 * Results from a fanned out search are returned in ascending order of their resource PIDs.
+	 * </p>
+	 * <p>
+	 * This setting has no effect if partitioning is not enabled via {@link #isPartitioningEnabled()}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public boolean isParallelPartitionSearchEnabled() {
+		return myParallelPartitionSearchEnabled;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>) searches across all partitions are fanned out, with
+	 * a separate query for each partition performed in parallel on the search executor. The resource IDs found in each
+	 * partition are merged, and totals (e.g. <code>_total=accurate</code> or <code>_summary=count</code>) are added
+	 * together. This may perform better than a single query when the partitions are mapped to native database
+	 * partitions, since the work for each partition is bounded and small partitions are not held up by large ones.
+	 * <p>
+	 * Searches which specify a sort order (<code>_sort</code>), an offset, or which use fulltext, <code>$everything</code>
+	 * or <code>$lastn</code> are still performed using a single query, but their totals are still counted per partition.
+	 * Results from a fanned out search are returned in ascending order of their resource PIDs.
+	 * </p>
+	 * <p>
+	 * This setting has no effect if partitioning is not enabled via {@link #isPartitioningEnabled()}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	public PartitionSettings setParallelPartitionSearchEnabled(boolean theParallelPartitionSearchEnabled) {
+		myParallelPartitionSearchEnabled = theParallelPartitionSearchEnabled;
+		return this;
+	}
+
 	/**
 	 * If enabled (default is <code>false</code>) the JPA server will support data partitioning
 	 *
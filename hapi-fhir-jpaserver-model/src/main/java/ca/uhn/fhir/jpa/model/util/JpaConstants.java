@@ -161,6 +161,14 @@ public class JpaConstants {
 	 * Operation name for the "$export-poll-status" operation
 	 */
 	public static final String OPERATION_EXPORT_POLL_STATUS = "$export-poll-status";
+	/**
+	 * Operation name for the "$import" operation
+	 */
+	public static final String OPERATION_IMPORT = "$import";
+	/**
+	 * Operation name for the "$import-poll-status" operation
+	 */
+	public static final String OPERATION_IMPORT_POLL_STATUS = "$import-poll-status";
 	/**
 	 * Operation name for the "$lastn" operation
 	 */
@@ -186,6 +194,14 @@ public class JpaConstants {
 	 * Parameter for the $export operation
 	 */
 	public static final String PARAM_EXPORT_TYPE_FILTER = "_typeFilter";
+	/**
+	 * Parameter for the $import operation
+	 */
+	public static final String PARAM_IMPORT_INPUT = "_input";
+	/**
+	 * Parameter for the $import operation
+	 */
+	public static final String PARAM_IMPORT_ENFORCE_REFERENTIAL_INTEGRITY = "_enforceReferentialIntegrity";
 
 	/**
 	 * Parameter for delete to indicate the deleted resources should also be expunged
@@ -24,12 +24,22 @@ import ca.uhn.fhir.context.RuntimeSearchParam;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import org.hl7.fhir.instance.model.api.IBaseReference;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
 public interface IResourceLinkResolver {
 
+	/**
+	 * If the {@link TransactionDetails} for a write contains this user data key with a value of
+	 * {@link Boolean#FALSE}, references to resources which do not exist are not treated as errors
+	 * for that write, even if the server is otherwise configured to enforce referential integrity.
+	 *
+	 * @since 5.2.0
+	 */
+	String USER_DATA_ENFORCE_REFERENTIAL_INTEGRITY = IResourceLinkResolver.class.getName() + ".enforceReferentialIntegrity";
+
 	/**
 	 * This method resolves the target of a reference found within a resource that is being created/updated. We do this
 	 * so that we can create indexed links between resources, and so that we can validate that the target actually
@@ -48,6 +58,22 @@ public interface IResourceLinkResolver {
 	 */
 	IResourceLookup findTargetResource(RequestPartitionId theRequestPartitionId, RuntimeSearchParam theSearchParam, String theSourcePath, IIdType theSourceResourceId, String theTypeString, Class<? extends IBaseResource> theType, IBaseReference theReference, RequestDetails theRequest);
 
+	/**
+	 * As {@link #findTargetResource(RequestPartitionId, RuntimeSearchParam, String, IIdType, String, Class, IBaseReference, RequestDetails)},
+	 * but also supplies the details of the transaction being performed, so that an implementation can
+	 * honour {@link #USER_DATA_ENFORCE_REFERENTIAL_INTEGRITY}.
+	 * <p>
+	 * The default implementation ignores <code>theTransactionDetails</code> and delegates to
+	 * {@link #findTargetResource(RequestPartitionId, RuntimeSearchParam, String, IIdType, String, Class, IBaseReference, RequestDetails)}.
+	 * </p>
+	 *
+	 * @param theTransactionDetails The details of the transaction being performed
+	 * @since 5.2.0
+	 */
+	default IResourceLookup findTargetResource(RequestPartitionId theRequestPartitionId, RuntimeSearchParam theSearchParam, String theSourcePath, IIdType theSourceResourceId, String theTypeString, Class<? extends IBaseResource> theType, IBaseReference theReference, RequestDetails theRequest, TransactionDetails theTransactionDetails) {
+		return findTargetResource(theRequestPartitionId, theSearchParam, theSourcePath, theSourceResourceId, theTypeString, theType, theReference, theRequest);
+	}
+
 	void validateTypeOrThrowException(Class<? extends IBaseResource> theType);
 
 }
@@ -1,6 +1,7 @@
 package ca.uhn.fhirtest.config;
 
 import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.jpa.interceptor.SearchExplainInterceptor;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.subscription.match.config.WebsocketDispatcherConfig;
 import ca.uhn.fhir.jpa.subscription.channel.config.SubscriptionChannelConfig;
@@ -9,6 +10,7 @@ import ca.uhn.fhir.jpa.subscription.match.config.WebsocketDispatcherConfig;
 import ca.uhn.fhir.jpa.subscription.submit.config.SubscriptionSubmitterConfig;
 import ca.uhn.fhir.rest.server.interceptor.IServerInterceptor;
 import ca.uhn.fhir.rest.server.interceptor.LoggingInterceptor;
+import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhirtest.interceptor.AnalyticsInterceptor;
 import ca.uhn.fhirtest.joke.HolyFooCowInterceptor;
 import org.springframework.context.annotation.Bean;
@@ -78,8 +80,14 @@ public class CommonConfig {
 	}
 
 	@Bean
-	public SqlCaptureInterceptor sqlCaptureInterceptor(IInterceptorService theInterceptorService) {
-		SqlCaptureInterceptor retVal = new SqlCaptureInterceptor();
+	public SearchExplainInterceptor searchExplainInterceptor(IInterceptorService theInterceptorService) {
+		// This is a public test server, so anyone may see the SQL behind their searches
+		SearchExplainInterceptor retVal = new SearchExplainInterceptor() {
+			@Override
+			protected boolean isExplainPermitted(ServletRequestDetails theRequestDetails) {
+				return true;
+			}
+		};
 		theInterceptorService.registerInterceptor(retVal);
 		return retVal;
 	}
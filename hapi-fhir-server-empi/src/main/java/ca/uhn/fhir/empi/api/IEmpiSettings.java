@@ -26,6 +26,7 @@ public interface IEmpiSettings {
 	String EMPI_CHANNEL_NAME = "empi";
 	// Parallel processing of EMPI can result in missed matches.  Best to single-thread.
 	int EMPI_DEFAULT_CONCURRENT_CONSUMERS = 1;
+	int EMPI_DEFAULT_CANDIDATE_SEARCH_LIMIT = 10000;
 
 	boolean isEnabled();
 
@@ -38,4 +39,30 @@ public interface IEmpiSettings {
 	boolean isPreventMultipleEids();
 
 	String getRuleVersion();
+
+	/**
+	 * Any single candidate search that matches more than this number of resources is considered too
+	 * unselective to be useful, and its results are not scored.
+	 * <p>
+	 * Defaults to {@link #EMPI_DEFAULT_CANDIDATE_SEARCH_LIMIT}.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	default int getCandidateSearchLimit() {
+		return EMPI_DEFAULT_CANDIDATE_SEARCH_LIMIT;
+	}
+
+	/**
+	 * If <code>true</code>, <code>$empi-submit</code> operations covering a whole resource type (rather
+	 * than a single instance) start an EMPI batch job instead of submitting each resource to the EMPI channel.
+	 * <p>
+	 * Defaults to <code>false</code>.
+	 * </p>
+	 *
+	 * @since 5.2.0
+	 */
+	default boolean isSubmitUsingBatchJob() {
+		return false;
+	}
 }
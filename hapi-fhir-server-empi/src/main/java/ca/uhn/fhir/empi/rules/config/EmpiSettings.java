@@ -38,6 +38,8 @@ public class EmpiSettings implements IEmpiSettings {
 	private String myScriptText;
 	private EmpiRulesJson myEmpiRules;
 	private boolean myPreventEidUpdates;
+	private int myCandidateSearchLimit = EMPI_DEFAULT_CANDIDATE_SEARCH_LIMIT;
+	private boolean mySubmitUsingBatchJob;
 
 	/**
 	 * If disabled, the underlying EMPI system will operate under the following assumptions:
@@ -117,4 +119,24 @@ public class EmpiSettings implements IEmpiSettings {
 		myPreventMultipleEids = thePreventMultipleEids;
 		return this;
 	}
+
+	@Override
+	public int getCandidateSearchLimit() {
+		return myCandidateSearchLimit;
+	}
+
+	public EmpiSettings setCandidateSearchLimit(int theCandidateSearchLimit) {
+		myCandidateSearchLimit = theCandidateSearchLimit;
+		return this;
+	}
+
+	@Override
+	public boolean isSubmitUsingBatchJob() {
+		return mySubmitUsingBatchJob;
+	}
+
+	public EmpiSettings setSubmitUsingBatchJob(boolean theSubmitUsingBatchJob) {
+		mySubmitUsingBatchJob = theSubmitUsingBatchJob;
+		return this;
+	}
 }
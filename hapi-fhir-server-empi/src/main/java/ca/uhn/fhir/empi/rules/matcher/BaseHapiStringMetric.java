@@ -21,14 +21,20 @@ package ca.uhn.fhir.empi.rules.matcher;
  */
 
 import ca.uhn.fhir.util.StringUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 public abstract class BaseHapiStringMetric {
+	private static final int NORMALIZED_CACHE_SIZE = 10000;
+
+	private final Cache<String, String> myNormalizedStringCache = Caffeine.newBuilder().maximumSize(NORMALIZED_CACHE_SIZE).build();
+
 	protected String extractString(IPrimitiveType<?> thePrimitive, boolean theExact) {
 		String theString = thePrimitive.getValueAsString();
-		if (theExact) {
+		if (theExact || theString == null) {
 			return theString;
 		}
-		return StringUtil.normalizeStringForSearchIndexing(theString);
+		return myNormalizedStringCache.get(theString, StringUtil::normalizeStringForSearchIndexing);
 	}
 }
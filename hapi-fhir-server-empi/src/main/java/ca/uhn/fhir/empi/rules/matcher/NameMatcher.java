@@ -23,6 +23,8 @@ package ca.uhn.fhir.empi.rules.matcher;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.empi.util.NameUtil;
 import ca.uhn.fhir.util.StringUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.instance.model.api.IBase;
 
@@ -34,7 +36,10 @@ import java.util.stream.Collectors;
  */
 public class NameMatcher implements IEmpiFieldMatcher {
 
+	private static final int NORMALIZED_CACHE_SIZE = 10000;
+
 	private final EmpiPersonNameMatchModeEnum myMatchMode;
+	private final Cache<String, String> myNormalizedNameCache = Caffeine.newBuilder().maximumSize(NORMALIZED_CACHE_SIZE).build();
 
 	public NameMatcher(EmpiPersonNameMatchModeEnum theMatchMode) {
 		myMatchMode = theMatchMode;
@@ -54,10 +59,10 @@ public class NameMatcher implements IEmpiFieldMatcher {
 		List<String> rightGivenNames = NameUtil.extractGivenNames(theFhirContext, theRightBase);
 
 		if (!theExact) {
-			leftFamilyName = StringUtil.normalizeStringForSearchIndexing(leftFamilyName);
-			rightFamilyName = StringUtil.normalizeStringForSearchIndexing(rightFamilyName);
-			leftGivenNames = leftGivenNames.stream().map(StringUtil::normalizeStringForSearchIndexing).collect(Collectors.toList());
-			rightGivenNames = rightGivenNames.stream().map(StringUtil::normalizeStringForSearchIndexing).collect(Collectors.toList());
+			leftFamilyName = normalize(leftFamilyName);
+			rightFamilyName = normalize(rightFamilyName);
+			leftGivenNames = leftGivenNames.stream().map(this::normalize).collect(Collectors.toList());
+			rightGivenNames = rightGivenNames.stream().map(this::normalize).collect(Collectors.toList());
 		}
 
 		for (String leftGivenName : leftGivenNames) {
@@ -71,4 +76,11 @@ public class NameMatcher implements IEmpiFieldMatcher {
 
 		return match;
 	}
+
+	private String normalize(String theName) {
+		if (theName == null) {
+			return null;
+		}
+		return myNormalizedNameCache.get(theName, StringUtil::normalizeStringForSearchIndexing);
+	}
 }
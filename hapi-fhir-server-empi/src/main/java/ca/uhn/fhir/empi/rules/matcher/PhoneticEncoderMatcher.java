@@ -22,20 +22,40 @@ package ca.uhn.fhir.empi.rules.matcher;
 
 import ca.uhn.fhir.context.phonetic.IPhoneticEncoder;
 import ca.uhn.fhir.context.phonetic.PhoneticEncoderEnum;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class PhoneticEncoderMatcher implements IEmpiStringMatcher {
 	private static final Logger ourLog = LoggerFactory.getLogger(PhoneticEncoderMatcher.class);
 
+	private static final int ENCODING_CACHE_SIZE = 10000;
+
 	private final IPhoneticEncoder myStringEncoder;
+	/**
+	 * The same target value is compared against every candidate, and common names recur across
+	 * candidates, so encodings are cached rather than recomputed on every comparison.
+	 */
+	private final Cache<String, String> myEncodingCache = Caffeine.newBuilder().maximumSize(ENCODING_CACHE_SIZE).build();
 
 	public PhoneticEncoderMatcher(PhoneticEncoderEnum thePhoneticEnum) {
-		myStringEncoder = thePhoneticEnum.getPhoneticEncoder();
+		this(thePhoneticEnum.getPhoneticEncoder());
+	}
+
+	public PhoneticEncoderMatcher(IPhoneticEncoder thePhoneticEncoder) {
+		myStringEncoder = thePhoneticEncoder;
 	}
 
 	@Override
 	public boolean matches(String theLeftString, String theRightString) {
-		return myStringEncoder.encode(theLeftString).equals(myStringEncoder.encode(theRightString));
+		return encode(theLeftString).equals(encode(theRightString));
+	}
+
+	private String encode(String theString) {
+		if (theString == null) {
+			return myStringEncoder.encode(null);
+		}
+		return myEncodingCache.get(theString, myStringEncoder::encode);
 	}
 }
@@ -24,11 +24,22 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.empi.api.EmpiConstants;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 public final class EmpiUtil {
+	/**
+	 * The resource types which can be linked to a Person by EMPI
+	 *
+	 * @since 5.2.0
+	 */
+	public static final List<String> SUPPORTED_TARGET_TYPES = Collections.unmodifiableList(Arrays.asList("Patient", "Practitioner"));
+
 	private EmpiUtil() {}
 
 	public static boolean supportedTargetType(String theResourceType) {
-		return ("Patient".equals(theResourceType) || "Practitioner".equals(theResourceType));
+		return SUPPORTED_TARGET_TYPES.contains(theResourceType);
 	}
 
 	public static boolean isEmpiResourceType(FhirContext theFhirContext, IBaseResource theResource) {
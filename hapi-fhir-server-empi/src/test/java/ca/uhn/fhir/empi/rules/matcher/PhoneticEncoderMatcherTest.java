@@ -0,0 +1,39 @@
+package ca.uhn.fhir.empi.rules.matcher;
+
+import ca.uhn.fhir.context.phonetic.IPhoneticEncoder;
+import ca.uhn.fhir.context.phonetic.PhoneticEncoderEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PhoneticEncoderMatcherTest {
+
+	@Test
+	public void testEncodingsAreCached() {
+		IPhoneticEncoder soundex = PhoneticEncoderEnum.SOUNDEX.getPhoneticEncoder();
+		AtomicInteger encodeCount = new AtomicInteger();
+		IPhoneticEncoder countingEncoder = new IPhoneticEncoder() {
+			@Override
+			public String name() {
+				return soundex.name();
+			}
+
+			@Override
+			public String encode(String theString) {
+				encodeCount.incrementAndGet();
+				return soundex.encode(theString);
+			}
+		};
+		PhoneticEncoderMatcher matcher = new PhoneticEncoderMatcher(countingEncoder);
+
+		assertTrue(matcher.matches("Durie", "Dury"));
+		assertFalse(matcher.matches("Durie", "Smith"));
+		assertTrue(matcher.matches("Dury", "Durie"));
+
+		assertEquals(3, encodeCount.get());
+	}
+}
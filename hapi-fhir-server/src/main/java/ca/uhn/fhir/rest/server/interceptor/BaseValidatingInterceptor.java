@@ -68,6 +68,7 @@ public abstract class BaseValidatingInterceptor<T> {
 	private String myResponseOutcomeHeaderName = provideDefaultResponseHeaderName();
 
 	private List<IValidatorModule> myValidatorModules;
+	private ValidationResultCache myValidationResultCache;
 
 	private void addResponseIssueHeader(RequestDetails theRequestDetails, SingleValidationMessage theNext) {
 		// Perform any string substitutions from the message format
@@ -92,6 +93,12 @@ public abstract class BaseValidatingInterceptor<T> {
 
 	abstract ValidationResult doValidate(FhirValidator theValidator, T theRequest);
 
+	/**
+	 * Returns the content (or an identifier for it) that the {@link #setValidationResultCache(ValidationResultCache) validation result cache}
+	 * should be keyed on, or <code>null</code> if the result should not be cached
+	 */
+	abstract String encodeForValidationResultCache(RequestDetails theRequestDetails, T theRequest);
+
 	/**
 	 * Fail the request by throwing an {@link UnprocessableEntityException} as a result of a validation failure.
 	 * Subclasses may change this behaviour by providing alternate behaviour.
@@ -124,6 +131,16 @@ public abstract class BaseValidatingInterceptor<T> {
 		return myResponseOutcomeHeaderName;
 	}
 
+	/**
+	 * Returns the cache of validation results in use by this interceptor, if any
+	 *
+	 * @see #setValidationResultCache(ValidationResultCache)
+	 * @since 5.2.0
+	 */
+	public ValidationResultCache getValidationResultCache() {
+		return myValidationResultCache;
+	}
+
 	public List<IValidatorModule> getValidatorModules() {
 		return myValidatorModules;
 	}
@@ -140,6 +157,13 @@ public abstract class BaseValidatingInterceptor<T> {
 		return myIgnoreValidatorExceptions;
 	}
 
+	/**
+	 * Hook for subclasses to apply additional settings to the validator before it is used
+	 */
+	void configureValidator(FhirValidator theValidator) {
+		// nothing by default
+	}
+
 	abstract String provideDefaultResponseHeaderName();
 
 	/**
@@ -259,6 +283,18 @@ public abstract class BaseValidatingInterceptor<T> {
 		myResponseOutcomeHeaderName = theResponseOutcomeHeaderName;
 	}
 
+	/**
+	 * If set (default is <code>null</code>), validation results are stored in the given cache, and
+	 * content which is identical to content that has already been validated is not validated again.
+	 * Set to <code>null</code> to disable caching.
+	 *
+	 * @see ValidationResultCache
+	 * @since 5.2.0
+	 */
+	public void setValidationResultCache(ValidationResultCache theValidationResultCache) {
+		myValidationResultCache = theValidationResultCache;
+	}
+
 	public void setValidatorModules(List<IValidatorModule> theValidatorModules) {
 		myValidatorModules = theValidatorModules;
 	}
@@ -284,23 +320,40 @@ public abstract class BaseValidatingInterceptor<T> {
 				validator.registerValidatorModule(next);
 			}
 		}
+		configureValidator(validator);
 
 		if (theRequest == null) {
 			return null;
 		}
 
-		ValidationResult validationResult;
-		try {
-			validationResult = doValidate(validator, theRequest);
-		} catch (Exception e) {
-			if (myIgnoreValidatorExceptions) {
-				ourLog.warn("Validator threw an exception during validation", e);
-				return null;
+		ValidationResultCache cache = myValidationResultCache;
+		ValidationResultCache.Key cacheKey = null;
+		ValidationResult validationResult = null;
+		if (cache != null) {
+			String cacheContent = encodeForValidationResultCache(theRequestDetails, theRequest);
+			if (cacheContent != null) {
+				cacheKey = cache.newKey(createValidatorKey(validator), cacheContent);
+				validationResult = cache.get(cacheKey);
 			}
-			if (e instanceof BaseServerResponseException) {
-				throw (BaseServerResponseException)e;
+		}
+
+		if (validationResult == null) {
+			try {
+				validationResult = doValidate(validator, theRequest);
+			} catch (Exception e) {
+				if (myIgnoreValidatorExceptions) {
+					ourLog.warn("Validator threw an exception during validation", e);
+					return null;
+				}
+				if (e instanceof BaseServerResponseException) {
+					throw (BaseServerResponseException)e;
+				}
+				throw new InternalErrorException(e);
+			}
+
+			if (cacheKey != null) {
+				cache.put(cacheKey, validationResult);
 			}
-			throw new InternalErrorException(e);
 		}
 
 		if (myAddResponseIssueHeaderOnSeverity != null) {
@@ -357,6 +410,22 @@ public abstract class BaseValidatingInterceptor<T> {
 		return validationResult;
 	}
 
+	/**
+	 * Identifies the validator configuration, so that results produced by differently
+	 * configured validators are never confused
+	 */
+	private String createValidatorKey(FhirValidator theValidator) {
+		StringBuilder b = new StringBuilder();
+		b.append(getClass().getName());
+		b.append(':').append(theValidator.isConcurrentBundleValidation() && theValidator.getExecutorService() != null);
+		if (myValidatorModules != null) {
+			for (IValidatorModule next : myValidatorModules) {
+				b.append(':').append(next.getClass().getName()).append('@').append(System.identityHashCode(next));
+			}
+		}
+		return b.toString();
+	}
+
 	private static class MyLookup extends StrLookup<String> {
 
 		private SingleValidationMessage myMessage;
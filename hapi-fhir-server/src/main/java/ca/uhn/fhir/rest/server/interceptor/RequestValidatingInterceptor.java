@@ -69,6 +69,11 @@ public class RequestValidatingInterceptor extends BaseValidatingInterceptor<Stri
 		return theValidator.validateWithResult(theRequest);
 	}
 
+	@Override
+	String encodeForValidationResultCache(RequestDetails theRequestDetails, String theRequest) {
+		return theRequest;
+	}
+
 	@Hook(Pointcut.SERVER_INCOMING_REQUEST_POST_PROCESSED)
 	public boolean incomingRequestPostProcessed(RequestDetails theRequestDetails, HttpServletRequest theRequest, HttpServletResponse theResponse) throws AuthenticationException {
 		EncodingEnum encoding = RestfulServerUtils.determineRequestEncodingNoDefault(theRequestDetails);
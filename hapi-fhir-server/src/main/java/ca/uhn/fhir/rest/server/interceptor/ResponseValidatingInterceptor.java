@@ -21,13 +21,17 @@ package ca.uhn.fhir.rest.server.interceptor;
  */
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import ca.uhn.fhir.interceptor.api.Hook;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
 
+import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
@@ -35,6 +39,8 @@ import ca.uhn.fhir.validation.FhirValidator;
 import ca.uhn.fhir.validation.ResultSeverityEnum;
 import ca.uhn.fhir.validation.ValidationResult;
 
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
 /**
  * This interceptor intercepts each outgoing response and if it contains a FHIR resource, validates that resource. The interceptor may be configured to run any validator modules, and will then add
  * headers to the response or fail the request with an {@link UnprocessableEntityException HTTP 422 Unprocessable Entity}.
@@ -48,6 +54,8 @@ public class ResponseValidatingInterceptor extends BaseValidatingInterceptor<IBa
 
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(ResponseValidatingInterceptor.class);
 
+	private boolean myConcurrentBundleValidation;
+	private ExecutorService myExecutorService;
 	private Set<RestOperationTypeEnum> myExcludeOperationTypes;
 
 	/**
@@ -61,11 +69,41 @@ public class ResponseValidatingInterceptor extends BaseValidatingInterceptor<IBa
 		myExcludeOperationTypes.add(theOperationType);
 	}
 
+	@Override
+	void configureValidator(FhirValidator theValidator) {
+		theValidator.setConcurrentBundleValidation(myConcurrentBundleValidation);
+		theValidator.setExecutorService(myExecutorService);
+	}
+
 	@Override
 	ValidationResult doValidate(FhirValidator theValidator, IBaseResource theRequest) {
 		return theValidator.validateWithResult(theRequest);
 	}
 
+	/**
+	 * Responses are keyed on the resource type, ID and version (and tenant, if any), since a
+	 * given version of a resource never changes. Responses without a versioned ID (e.g. search
+	 * result Bundles) are not cached. Neither are responses to requests using <code>_summary</code> or
+	 * <code>_elements</code>, since the same version of a resource may be returned in different forms.
+	 */
+	@Override
+	String encodeForValidationResultCache(RequestDetails theRequestDetails, IBaseResource theRequest) {
+		IIdType id = theRequest.getIdElement();
+		if (id == null || !id.hasIdPart() || !id.hasVersionIdPart()) {
+			return null;
+		}
+		Map<String, String[]> parameters = theRequestDetails.getParameters();
+		if (parameters != null) {
+			for (String nextParamName : parameters.keySet()) {
+				if (nextParamName.equals(Constants.PARAM_SUMMARY) || nextParamName.startsWith(Constants.PARAM_ELEMENTS)) {
+					return null;
+				}
+			}
+		}
+		String resourceType = theRequestDetails.getServer().getFhirContext().getResourceType(theRequest);
+		return defaultString(theRequestDetails.getTenantId()) + "|" + resourceType + "/" + id.getIdPart() + "/_history/" + id.getVersionIdPart();
+	}
+
 	@Hook(Pointcut.SERVER_OUTGOING_RESPONSE)
 	public boolean outgoingResponse(RequestDetails theRequestDetails, IBaseResource theResponseObject) {
 		RestOperationTypeEnum operationType = theRequestDetails.getRestOperationType();
@@ -79,6 +117,56 @@ public class ResponseValidatingInterceptor extends BaseValidatingInterceptor<IBa
 		return true;
 	}
 
+	/**
+	 * Returns the executor used to validate Bundle entries concurrently
+	 *
+	 * @see #setConcurrentBundleValidation(boolean)
+	 * @since 5.2.0
+	 */
+	public ExecutorService getExecutorService() {
+		return myExecutorService;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>) and an {@link #setExecutorService(ExecutorService) executor}
+	 * has been supplied, the entries of transaction, batch and history Bundles are validated concurrently.
+	 *
+	 * @see #setConcurrentBundleValidation(boolean)
+	 * @since 5.2.0
+	 */
+	public boolean isConcurrentBundleValidation() {
+		return myConcurrentBundleValidation;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>) and an {@link #setExecutorService(ExecutorService) executor}
+	 * has been supplied, the entries of transaction, batch and history Bundles are validated concurrently.
+	 * Each entry resource is validated as a standalone resource, so references between entries (including
+	 * <code>urn:uuid:</code> references) are not resolved against the other entries of the Bundle. All validator
+	 * modules must be thread safe in order to use this setting.
+	 * <p>
+	 * This setting is not available on the {@link RequestValidatingInterceptor}, which validates the
+	 * request body as text.
+	 * </p>
+	 *
+	 * @see FhirValidator#setConcurrentBundleValidation(boolean)
+	 * @since 5.2.0
+	 */
+	public void setConcurrentBundleValidation(boolean theConcurrentBundleValidation) {
+		myConcurrentBundleValidation = theConcurrentBundleValidation;
+	}
+
+	/**
+	 * Sets the executor used to validate Bundle entries concurrently. The size of this executor's pool
+	 * bounds the number of entries validated at the same time across all responses.
+	 *
+	 * @see #setConcurrentBundleValidation(boolean)
+	 * @since 5.2.0
+	 */
+	public void setExecutorService(ExecutorService theExecutorService) {
+		myExecutorService = theExecutorService;
+	}
+
 	@Override
 	String provideDefaultResponseHeaderName() {
 		return DEFAULT_RESPONSE_HEADER_NAME;
@@ -0,0 +1,208 @@
+package ca.uhn.fhir.rest.server.interceptor;
+
+/*-
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2020 University Health Network
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.validation.ValidationResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
+import org.apache.commons.lang3.Validate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of validation results which may be supplied to the {@link RequestValidatingInterceptor}
+ * and {@link ResponseValidatingInterceptor} using
+ * {@link BaseValidatingInterceptor#setValidationResultCache(ValidationResultCache)}, so that
+ * resources which are submitted (or returned) repeatedly are only validated once.
+ * <p>
+ * Request results are keyed by a SHA-256 hash of the request body, and response results by the
+ * ID and version of the returned resource, along with the validator modules in use. The cache is
+ * cleared whenever {@link #invalidate()} is called. On a JPA server, the
+ * <code>ValidationResultCacheInvalidatingInterceptor</code> calls it automatically once a transaction
+ * which creates, updates or deletes a StructureDefinition, ValueSet or CodeSystem has committed.
+ * </p>
+ * <p>
+ * Because validation support modules may themselves cache conformance resources for some
+ * time, entries also expire after a configurable age (10 minutes by default).
+ * </p>
+ *
+ * @since 5.2.0
+ */
+public class ValidationResultCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+	public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+	private final AtomicLong myHitCount = new AtomicLong();
+	private final AtomicLong myMissCount = new AtomicLong();
+	private final AtomicLong myGeneration = new AtomicLong();
+	private int myMaxEntries = DEFAULT_MAX_ENTRIES;
+	private long myMaxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+	private volatile Cache<String, CachedResult> myCache;
+
+	/**
+	 * Constructor
+	 */
+	public ValidationResultCache() {
+		myCache = buildCache();
+	}
+
+	private Cache<String, CachedResult> buildCache() {
+		return Caffeine
+			.newBuilder()
+			.maximumSize(myMaxEntries)
+			.expireAfterWrite(myMaxAgeMillis, TimeUnit.MILLISECONDS)
+			.build();
+	}
+
+	/**
+	 * Sets the maximum number of validation results which will be held in the cache. When this
+	 * number is exceeded, entries are evicted (least recently used first). Defaults to
+	 * {@link #DEFAULT_MAX_ENTRIES}. Changing this setting clears the cache.
+	 */
+	public synchronized ValidationResultCache setMaxEntries(int theMaxEntries) {
+		Validate.isTrue(theMaxEntries > 0, "theMaxEntries must be greater than 0");
+		myMaxEntries = theMaxEntries;
+		myCache = buildCache();
+		return this;
+	}
+
+	/**
+	 * Sets the length of time that a cached validation result may be reused for. Defaults to
+	 * 10 minutes. Changing this setting clears the cache.
+	 */
+	public synchronized ValidationResultCache setMaxAge(long theMaxAge, TimeUnit theTimeUnit) {
+		Validate.isTrue(theMaxAge > 0, "theMaxAge must be greater than 0");
+		myMaxAgeMillis = theTimeUnit.toMillis(theMaxAge);
+		myCache = buildCache();
+		return this;
+	}
+
+	/**
+	 * Returns the number of validations which were satisfied by a cached result
+	 */
+	public long getHitCount() {
+		return myHitCount.get();
+	}
+
+	/**
+	 * Returns the number of validations which could not be satisfied by a cached result
+	 */
+	public long getMissCount() {
+		return myMissCount.get();
+	}
+
+	/**
+	 * Returns the proportion of validations which were satisfied by a cached result, between
+	 * <code>0.0</code> and <code>1.0</code>
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total > 0 ? (double) hits / total : 0.0;
+	}
+
+	/**
+	 * Removes all cached results. This should be called whenever a change is made to the
+	 * conformance resources (StructureDefinitions, ValueSets, CodeSystems, etc.) used by
+	 * the validator.
+	 */
+	public void invalidate() {
+		// Results stored by validations which started before this point are ignored even if
+		// they are put into the cache after it has been cleared
+		myGeneration.incrementAndGet();
+		myCache.invalidateAll();
+	}
+
+	/**
+	 * Removes all cached results and resets the statistics
+	 */
+	public void clear() {
+		invalidate();
+		myHitCount.set(0);
+		myMissCount.set(0);
+	}
+
+	/**
+	 * Creates the key under which the result of validating the given content will be stored
+	 *
+	 * @param theValidatorKey A string identifying the validator configuration
+	 * @param theContent      The content being validated, or an identifier for it
+	 */
+	Key newKey(String theValidatorKey, String theContent) {
+		String hash = Hashing.sha256().newHasher()
+			.putString(theValidatorKey, StandardCharsets.UTF_8)
+			.putByte((byte) 0)
+			.putString(theContent, StandardCharsets.UTF_8)
+			.hash()
+			.toString();
+		return new Key(hash, myGeneration.get());
+	}
+
+	/**
+	 * Returns the cached result for the given key, or <code>null</code>
+	 */
+	ValidationResult get(Key theKey) {
+		CachedResult retVal = myCache.getIfPresent(theKey.myHash);
+		if (retVal != null && retVal.myGeneration == myGeneration.get()) {
+			myHitCount.incrementAndGet();
+			return retVal.myResult;
+		}
+		myMissCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores a result, unless the cache has been invalidated since the key was created
+	 * (meaning the result may have been produced using outdated conformance resources)
+	 */
+	void put(Key theKey, ValidationResult theResult) {
+		if (theKey.myGeneration == myGeneration.get()) {
+			myCache.put(theKey.myHash, new CachedResult(theResult, theKey.myGeneration));
+		}
+	}
+
+	static class Key {
+
+		private final String myHash;
+		private final long myGeneration;
+
+		private Key(String theHash, long theGeneration) {
+			myHash = theHash;
+			myGeneration = theGeneration;
+		}
+	}
+
+	private static class CachedResult {
+
+		private final ValidationResult myResult;
+		private final long myGeneration;
+
+		private CachedResult(ValidationResult theResult, long theGeneration) {
+			myResult = theResult;
+			myGeneration = theGeneration;
+		}
+	}
+
+}
@@ -179,6 +179,10 @@ public class ResourceParameter implements IParameter {
 
 		IParser parser = encoding.newParser(ctx);
 		parser.setServerBaseUrl(theRequest.getFhirServerBase());
+		if (restOperationType == RestOperationTypeEnum.CREATE || restOperationType == RestOperationTypeEnum.UPDATE) {
+			// Large binaries in a resource being stored may be spooled to disk (see ParserOptions#setBinarySpoolThreshold)
+			parser.setBinarySpoolingEnabled(true);
+		}
 		T retVal;
 		try {
 			if (theResourceType != null) {
@@ -0,0 +1,65 @@
+package ca.uhn.fhir.context;
+
+import org.hl7.fhir.r4.model.Device;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FhirContextR4Test {
+
+	@Test
+	public void testScanningResourceDoesNotScanReferenceTargets() {
+		FhirContext ctx = FhirContext.forR4();
+		ctx.getResourceDefinition(Observation.class);
+
+		Set<Class<?>> scanned = ctx
+			.getElementDefinitions()
+			.stream()
+			.map(BaseRuntimeElementDefinition::getImplementingClass)
+			.collect(Collectors.toSet());
+		assertTrue(scanned.contains(Observation.class));
+		assertTrue(scanned.contains(Reference.class));
+		assertThat(scanned, not(hasItems(Device.class)));
+
+		// Reference targets are still scanned on demand
+		Observation obs = new Observation();
+		Device device = new Device();
+		device.setId("#dev");
+		device.setManufacturer("ACME");
+		obs.getContained().add(device);
+		obs.setDevice(new Reference("#dev"));
+
+		String encoded = ctx.newJsonParser().encodeResourceToString(obs);
+		Observation parsed = ctx.newJsonParser().parseResource(Observation.class, encoded);
+		assertEquals("ACME", ((Device) parsed.getContained().get(0)).getManufacturer());
+		assertEquals("Device", ctx.getResourceType(Device.class));
+	}
+
+	@Test
+	public void testGetResourceTypesIncludesUnscannedTypes() {
+		FhirContext ctx = FhirContext.forR4();
+		ctx.getResourceDefinition(Patient.class);
+
+		Set<String> resourceTypes = ctx.getResourceTypes();
+		assertThat(resourceTypes, hasItems("Patient", "Observation", "Device", "ValueSet", "Bundle", "Parameters"));
+		assertThat(resourceTypes, not(hasItem("Reference")));
+
+		// The result is reused until another type is scanned
+		assertSame(resourceTypes, ctx.getResourceTypes());
+		ctx.getResourceDefinition(Observation.class);
+		assertThat(ctx.getResourceTypes(), hasItems("Patient", "Observation", "Device", "ValueSet", "Bundle", "Parameters"));
+	}
+
+}
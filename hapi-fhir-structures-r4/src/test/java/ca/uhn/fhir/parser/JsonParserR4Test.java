@@ -30,8 +30,12 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.stringContainsInOrder;
 import static org.hamcrest.core.IsNot.not;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class JsonParserR4Test extends BaseTest {
@@ -117,6 +121,49 @@ public class JsonParserR4Test extends BaseTest {
 		assertThat(output, containsString("\"Questionnaire/123/_history/456\""));
 	}
 
+	@Test
+	public void testParseSpoolsLargeBinary() throws IOException {
+		FhirContext ctx = FhirContext.forR4();
+		ctx.getParserOptions().setBinarySpoolThreshold(100);
+
+		byte[] bigBytes = new byte[20000];
+		for (int i = 0; i < bigBytes.length; i++) {
+			bigBytes[i] = (byte) i;
+		}
+		byte[] smallBytes = new byte[]{1, 2, 3};
+
+		DocumentReference input = new DocumentReference();
+		input.addContent().getAttachment().setContentType("application/pdf").setData(bigBytes);
+		input.addContent().getAttachment().setContentType("text/plain").setData(smallBytes);
+		String encoded = ctx.newJsonParser().encodeResourceToString(input);
+
+		// Parsers don't spool unless asked to
+		DocumentReference notSpooled = ctx.newJsonParser().parseResource(DocumentReference.class, encoded);
+		assertArrayEquals(bigBytes, notSpooled.getContent().get(0).getAttachment().getData());
+		assertNull(SpooledBinaryData.fromElement(notSpooled.getContent().get(0).getAttachment().getDataElement()));
+
+		DocumentReference parsed = ctx.newJsonParser().setBinarySpoolingEnabled(true).parseResource(DocumentReference.class, encoded);
+
+		// The large value is spooled
+		Base64BinaryType bigData = parsed.getContent().get(0).getAttachment().getDataElement();
+		assertNull(bigData.getValue());
+		SpooledBinaryData spooledData = SpooledBinaryData.fromElement(bigData);
+		assertNotNull(spooledData);
+		assertEquals(bigBytes.length, spooledData.getSize());
+		assertArrayEquals(bigBytes, spooledData.toByteArray());
+		assertEquals("application/pdf", parsed.getContent().get(0).getAttachment().getContentType());
+
+		// The small one isn't
+		Base64BinaryType smallData = parsed.getContent().get(1).getAttachment().getDataElement();
+		assertArrayEquals(smallBytes, smallData.getValue());
+		assertNull(SpooledBinaryData.fromElement(smallData));
+
+		SpooledBinaryData.removeFromElement(bigData);
+		assertNull(SpooledBinaryData.fromElement(bigData));
+		assertFalse(bigData.hasExtension());
+		spooledData.delete();
+	}
+
 	@Test
 	public void testPrettyPrint() {
 		ourCtx.getParserOptions().setDontStripVersionsFromReferencesAtPaths("QuestionnaireResponse.questionnaire");
@@ -14,11 +14,14 @@ import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.api.PreferReturnEnum;
 import ca.uhn.fhir.rest.api.SortOrderEnum;
 import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.client.apache.ApacheRestfulClientFactory;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 import ca.uhn.fhir.rest.client.exceptions.FhirClientConnectionException;
 import ca.uhn.fhir.rest.client.exceptions.NonFhirResponseException;
+import ca.uhn.fhir.rest.client.impl.RestfulClientFactory;
 import ca.uhn.fhir.rest.client.interceptor.CookieInterceptor;
+import ca.uhn.fhir.rest.client.interceptor.ReadCachingInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.UserInfoInterceptor;
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
@@ -32,12 +35,14 @@ import com.helger.commons.io.stream.StringInputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.http.Header;
+import org.apache.http.HttpResponse;
 import org.apache.http.ProtocolVersion;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicStatusLine;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.hl7.fhir.r4.model.Binary;
 import org.hl7.fhir.r4.model.BooleanType;
@@ -54,6 +59,7 @@ import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.internal.stubbing.defaultanswers.ReturnsDeepStubs;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -62,23 +68,37 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class GenericClientR4Test extends BaseGenericClientR4Test {
@@ -1418,6 +1438,246 @@ public class GenericClientR4Test extends BaseGenericClientR4Test {
 		assertEquals(encoded, requestString);
 	}
 
+	@Test
+	public void testReadAsync() throws Exception {
+		Patient patient = new Patient();
+		patient.addName().setFamily("FAM");
+		final String respString = ourCtx.newJsonParser().encodeResourceToString(patient);
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenAnswer(t -> new ReaderInputStream(new StringReader(respString), StandardCharsets.UTF_8));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+
+		CompletableFuture<Patient> future = client.read().resource(Patient.class).withId("123").executeAsync();
+		Patient response = future.get(10, TimeUnit.SECONDS);
+
+		assertEquals("FAM", response.getNameFirstRep().getFamily());
+		assertEquals("http://example.com/fhir/Patient/123", capt.getValue().getURI().toASCIIString());
+	}
+
+	@Test
+	public void testAsyncExecutorIsBoundedAndCanBeShutDown() {
+		ApacheRestfulClientFactory factory = new ApacheRestfulClientFactory(ourCtx);
+		factory.setPoolMaxTotal(2);
+
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) factory.getAsyncExecutor();
+		assertEquals(2, executor.getMaximumPoolSize());
+		assertEquals(2 * RestfulClientFactory.ASYNC_QUEUE_SIZE_PER_THREAD, executor.getQueue().remainingCapacity());
+		assertTrue(executor.getThreadFactory().newThread(() -> {}).isDaemon());
+
+		factory.shutdownAsyncExecutor();
+		assertTrue(executor.isShutdown());
+		assertNotSame(executor, factory.getAsyncExecutor());
+		factory.shutdownAsyncExecutor();
+	}
+
+	@Test
+	public void testSearchExecuteStreamFollowsNextLinks() throws Exception {
+		Map<String, HttpResponse> responses = new HashMap<>();
+		responses.put("http://example.com/fhir/Patient?_count=2", createBundleResponse("http://example.com/fhir?_getpages=abc&_getpagesoffset=2", "1", "2"));
+		responses.put("http://example.com/fhir?_getpages=abc&_getpagesoffset=2", createBundleResponse(null, "3"));
+
+		List<String> requestedUrls = Collections.synchronizedList(new ArrayList<>());
+		when(myHttpClient.execute(any())).thenAnswer(t -> {
+			String url = ((HttpUriRequest) t.getArguments()[0]).getURI().toASCIIString();
+			requestedUrls.add(url);
+			return responses.get(url);
+		});
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+
+		List<String> ids;
+		try (Stream<IBaseResource> stream = client.search().forResource(Patient.class).count(2).returnBundle(Bundle.class).executeStream()) {
+			ids = stream.map(t -> t.getIdElement().getIdPart()).collect(Collectors.toList());
+		}
+
+		assertThat(ids, contains("1", "2", "3"));
+		assertThat(requestedUrls, contains("http://example.com/fhir/Patient?_count=2", "http://example.com/fhir?_getpages=abc&_getpagesoffset=2"));
+	}
+
+	@Test
+	public void testSearchExecuteStreamFetchesOffsetPagesInParallel() throws Exception {
+		Map<String, HttpResponse> responses = new HashMap<>();
+		responses.put("http://example.com/fhir/Patient?_count=2&_offset=0", createBundleResponse("http://example.com/fhir/Patient?_count=2&_offset=2", "1", "2"));
+		responses.put("http://example.com/fhir/Patient?_count=2&_offset=2", createBundleResponse("http://example.com/fhir/Patient?_count=2&_offset=4", "3", "4"));
+		responses.put("http://example.com/fhir/Patient?_count=2&_offset=4", createBundleResponse(null, "5"));
+		responses.put("http://example.com/fhir/Patient?_count=2&_offset=6", createBundleResponse(null));
+
+		List<String> requestedUrls = Collections.synchronizedList(new ArrayList<>());
+		when(myHttpClient.execute(any())).thenAnswer(t -> {
+			String url = ((HttpUriRequest) t.getArguments()[0]).getURI().toASCIIString();
+			requestedUrls.add(url);
+			return responses.get(url);
+		});
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+
+		List<String> ids;
+		try (Stream<IBaseResource> stream = client.search().forResource(Patient.class).count(2).returnBundle(Bundle.class).executeStream(3)) {
+			ids = stream.map(t -> t.getIdElement().getIdPart()).collect(Collectors.toList());
+		}
+
+		assertThat(ids, contains("1", "2", "3", "4", "5"));
+		assertThat(requestedUrls, hasItems(
+			"http://example.com/fhir/Patient?_count=2&_offset=0",
+			"http://example.com/fhir/Patient?_count=2&_offset=2",
+			"http://example.com/fhir/Patient?_count=2&_offset=4"));
+	}
+
+	private HttpResponse createBundleResponse(String theNextLink, String... theIds) throws IOException {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		if (theNextLink != null) {
+			bundle.addLink().setRelation(Constants.LINK_NEXT).setUrl(theNextLink);
+		}
+		for (String next : theIds) {
+			bundle.addEntry().setResource(new Patient().setActive(true).setId("Patient/" + next));
+		}
+		String body = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		HttpResponse retVal = mock(HttpResponse.class, new ReturnsDeepStubs());
+		when(retVal.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(retVal.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON + "; charset=UTF-8"));
+		when(retVal.getEntity().getContent()).thenAnswer(t -> new ReaderInputStream(new StringReader(body), StandardCharsets.UTF_8));
+		return retVal;
+	}
+
+	@Test
+	public void testReadWithReadCachingInterceptorRevalidates() throws Exception {
+		Patient patient = new Patient();
+		patient.setId("Patient/123/_history/1");
+		patient.addName().setFamily("FAM");
+		final String respString = ourCtx.newJsonParser().encodeResourceToString(patient);
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenAnswer(t -> {
+			if (capt.getAllValues().size() == 1) {
+				return new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK");
+			}
+			return new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 304, "Not Modified");
+		});
+		when(myHttpResponse.getAllHeaders()).thenReturn(new Header[]{new BasicHeader(Constants.HEADER_ETAG, "W/\"1\"")});
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenAnswer(t -> new ReaderInputStream(new StringReader(respString), StandardCharsets.UTF_8));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		ReadCachingInterceptor cache = new ReadCachingInterceptor();
+		client.registerInterceptor(cache);
+
+		Patient response = client.read().resource(Patient.class).withId("123").execute();
+		assertEquals("FAM", response.getNameFirstRep().getFamily());
+		response.getNameFirstRep().setFamily("CHANGED");
+
+		response = client.read().resource(Patient.class).withId("123").execute();
+		assertEquals("FAM", response.getNameFirstRep().getFamily());
+		assertEquals("Patient/123/_history/1", response.getIdElement().toUnqualified().getValue());
+
+		assertEquals(2, capt.getAllValues().size());
+		assertNull(capt.getAllValues().get(0).getFirstHeader(Constants.HEADER_IF_NONE_MATCH));
+		assertEquals("W/\"1\"", capt.getAllValues().get(1).getFirstHeader(Constants.HEADER_IF_NONE_MATCH).getValue());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getRevalidatedCount());
+	}
+
+	@Test
+	public void testReadWithReadCachingInterceptorHonoursMaxAgeFromNotModified() throws Exception {
+		Patient patient = new Patient();
+		patient.setId("Patient/123/_history/1");
+		patient.addName().setFamily("FAM");
+		final String respString = ourCtx.newJsonParser().encodeResourceToString(patient);
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenAnswer(t -> {
+			if (capt.getAllValues().size() == 1) {
+				return new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK");
+			}
+			return new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 304, "Not Modified");
+		});
+		when(myHttpResponse.getAllHeaders()).thenAnswer(t -> {
+			if (capt.getAllValues().size() == 1) {
+				return new Header[]{new BasicHeader(Constants.HEADER_ETAG, "W/\"1\"")};
+			}
+			return new Header[]{new BasicHeader(Constants.HEADER_ETAG, "W/\"1\""), new BasicHeader(Constants.HEADER_CACHE_CONTROL, "max-age=60")};
+		});
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenAnswer(t -> new ReaderInputStream(new StringReader(respString), StandardCharsets.UTF_8));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		ReadCachingInterceptor cache = new ReadCachingInterceptor();
+		client.registerInterceptor(cache);
+
+		client.read().resource(Patient.class).withId("123").execute();
+		client.read().resource(Patient.class).withId("123").execute();
+		Patient response = client.read().resource(Patient.class).withId("123").execute();
+		assertEquals("FAM", response.getNameFirstRep().getFamily());
+
+		assertEquals(2, capt.getAllValues().size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getRevalidatedCount());
+	}
+
+	@Test
+	public void testReadWithReadCachingInterceptorHonoursMaxAgeAndEvictsOnUpdate() throws Exception {
+		Patient patient = new Patient();
+		patient.setId("Patient/123/_history/1");
+		patient.addName().setFamily("FAM");
+		final String respString = ourCtx.newJsonParser().encodeResourceToString(patient);
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getAllHeaders()).thenReturn(new Header[]{new BasicHeader(Constants.HEADER_CACHE_CONTROL, "private, max-age=60")});
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenAnswer(t -> new ReaderInputStream(new StringReader(respString), StandardCharsets.UTF_8));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		ReadCachingInterceptor cache = new ReadCachingInterceptor();
+		client.registerInterceptor(cache);
+
+		client.read().resource(Patient.class).withId("123").execute();
+		Patient response = client.read().resource(Patient.class).withId("123").execute();
+		assertEquals("FAM", response.getNameFirstRep().getFamily());
+		assertEquals(1, capt.getAllValues().size());
+		assertEquals(1, cache.getHitCount());
+
+		client.update().resource(response).execute();
+		assertEquals(2, capt.getAllValues().size());
+		assertEquals("PUT", capt.getAllValues().get(1).getMethod());
+
+		client.read().resource(Patient.class).withId("123").execute();
+		assertEquals(3, capt.getAllValues().size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testReadAsyncWithUnparseableResponse() throws Exception {
+		String msg = "{\"resourceTypeeeee\":\"Patient\"}";
+
+		when(myHttpClient.execute(any())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenReturn(new ReaderInputStream(new StringReader(msg), StandardCharsets.UTF_8));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+
+		CompletableFuture<IBaseResource> future = client.read().resource("Patient").withId("123").executeAsync();
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof FhirClientConnectionException, e.getCause().toString());
+		}
+	}
+
 	@Test
 	public void testReadWithUnparseableResponse() throws Exception {
 		String msg = "{\"resourceTypeeeee\":\"Patient\"}";
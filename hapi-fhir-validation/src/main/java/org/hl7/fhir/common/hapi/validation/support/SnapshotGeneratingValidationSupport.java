@@ -1,11 +1,14 @@
 package org.hl7.fhir.common.hapi.validation.support;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.common.hapi.validation.validator.ProfileKnowledgeWorkerR5;
 import org.hl7.fhir.common.hapi.validation.validator.VersionSpecificWorkerContextWrapper;
@@ -18,8 +21,16 @@ import org.hl7.fhir.utilities.validation.ValidationMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 
+import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
@@ -31,10 +42,15 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
  *    <li>R4</li>
  *    <li>R5</li>
  * </ul>
+ * <p>
+ * Generated snapshots can optionally be persisted to a {@link #setSnapshotCacheDirectory(File) cache directory}
+ * so that they survive restarts.
+ * </p>
  */
 public class SnapshotGeneratingValidationSupport implements IValidationSupport {
 	private static final Logger ourLog = LoggerFactory.getLogger(SnapshotGeneratingValidationSupport.class);
 	private final FhirContext myCtx;
+	private File mySnapshotCacheDirectory;
 
 	/**
 	 * Constructor
@@ -44,6 +60,32 @@ public class SnapshotGeneratingValidationSupport implements IValidationSupport {
 		myCtx = theCtx;
 	}
 
+	/**
+	 * Returns the directory in which generated snapshots are persisted, or <code>null</code>
+	 *
+	 * @see #setSnapshotCacheDirectory(File)
+	 * @since 5.2.0
+	 */
+	public File getSnapshotCacheDirectory() {
+		return mySnapshotCacheDirectory;
+	}
+
+	/**
+	 * If set (default is <code>null</code>), each generated snapshot is written to a file in this directory, and
+	 * is reused instead of being generated again (including by other JVMs sharing the directory). Files are keyed
+	 * by a hash of the differential StructureDefinition, the snapshot of its base definition and the generation
+	 * parameters, so a new version of any definition in the base chain results in a new snapshot being generated. Stale files are never read,
+	 * and may be deleted at any time.
+	 *
+	 * @since 5.2.0
+	 */
+	public void setSnapshotCacheDirectory(File theSnapshotCacheDirectory) {
+		if (theSnapshotCacheDirectory != null) {
+			Validate.isTrue(theSnapshotCacheDirectory.isDirectory() || theSnapshotCacheDirectory.mkdirs(), "Unable to create snapshot cache directory: %s", theSnapshotCacheDirectory);
+		}
+		mySnapshotCacheDirectory = theSnapshotCacheDirectory;
+	}
+
 	@Override
 	public IBaseResource generateSnapshot(ValidationSupportContext theValidationSupportContext, IBaseResource theInput, String theUrl, String theWebUrl, String theProfileName) {
 
@@ -97,33 +139,22 @@ public class SnapshotGeneratingValidationSupport implements IValidationSupport {
 				baseCanonical = (org.hl7.fhir.r5.model.StructureDefinition) converter.toCanonical(base);
 			}
 
+			// The base now has a snapshot, which reflects its entire chain of base definitions
+			File cacheFile = getSnapshotCacheFile(theInput, base, theUrl, theWebUrl, theProfileName);
+			if (cacheFile != null && readSnapshotFromCache(cacheFile, theInput)) {
+				return theInput;
+			}
+
 			ArrayList<ValidationMessage> messages = new ArrayList<>();
 			org.hl7.fhir.r5.conformance.ProfileUtilities.ProfileKnowledgeProvider profileKnowledgeProvider = new ProfileKnowledgeWorkerR5(myCtx);
 			IWorkerContext context = new VersionSpecificWorkerContextWrapper(theValidationSupportContext, converter);
 			ProfileUtilities profileUtilities = new ProfileUtilities(context, messages, profileKnowledgeProvider);
 			profileUtilities.generateSnapshot(baseCanonical, inputCanonical, theUrl, theWebUrl, theProfileName);
 
-			switch (theInput.getStructureFhirVersionEnum()) {
-				case DSTU3:
-					org.hl7.fhir.dstu3.model.StructureDefinition generatedDstu3 = (org.hl7.fhir.dstu3.model.StructureDefinition) converter.fromCanonical(inputCanonical);
-					((org.hl7.fhir.dstu3.model.StructureDefinition) theInput).getSnapshot().getElement().clear();
-					((org.hl7.fhir.dstu3.model.StructureDefinition) theInput).getSnapshot().getElement().addAll(generatedDstu3.getSnapshot().getElement());
-					break;
-				case R4:
-					org.hl7.fhir.r4.model.StructureDefinition generatedR4 = (org.hl7.fhir.r4.model.StructureDefinition) converter.fromCanonical(inputCanonical);
-					((org.hl7.fhir.r4.model.StructureDefinition) theInput).getSnapshot().getElement().clear();
-					((org.hl7.fhir.r4.model.StructureDefinition) theInput).getSnapshot().getElement().addAll(generatedR4.getSnapshot().getElement());
-					break;
-				case R5:
-					org.hl7.fhir.r5.model.StructureDefinition generatedR5 = (org.hl7.fhir.r5.model.StructureDefinition) converter.fromCanonical(inputCanonical);
-					((org.hl7.fhir.r5.model.StructureDefinition) theInput).getSnapshot().getElement().clear();
-					((org.hl7.fhir.r5.model.StructureDefinition) theInput).getSnapshot().getElement().addAll(generatedR5.getSnapshot().getElement());
-					break;
-				case DSTU2:
-				case DSTU2_HL7ORG:
-				case DSTU2_1:
-				default:
-					throw new IllegalStateException("Can not generate snapshot for version: " + theInput.getStructureFhirVersionEnum());
+			copySnapshot(converter.fromCanonical(inputCanonical), theInput);
+
+			if (cacheFile != null) {
+				writeSnapshotToCache(cacheFile, theInput);
 			}
 
 			return theInput;
@@ -139,6 +170,88 @@ public class SnapshotGeneratingValidationSupport implements IValidationSupport {
 		}
 	}
 
+	/**
+	 * Returns the file that the snapshot generated using the given inputs is cached in,
+	 * or <code>null</code> if snapshots aren't being cached
+	 */
+	private File getSnapshotCacheFile(IBaseResource theInput, IBaseResource theBase, String theUrl, String theWebUrl, String theProfileName) {
+		File directory = mySnapshotCacheDirectory;
+		if (directory == null) {
+			return null;
+		}
+
+		MessageDigest digest = DigestUtils.getSha256Digest();
+		digest.update(theInput.getStructureFhirVersionEnum().name().getBytes(StandardCharsets.UTF_8));
+		for (String next : new String[]{theUrl, theWebUrl, theProfileName}) {
+			digest.update((byte) 0);
+			digest.update(defaultString(next).getBytes(StandardCharsets.UTF_8));
+		}
+		digest.update((byte) 0);
+		digest.update(myCtx.newJsonParser().encodeResourceToString(theInput).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(myCtx.newJsonParser().encodeResourceToString(theBase).getBytes(StandardCharsets.UTF_8));
+		return new File(directory, Hex.encodeHexString(digest.digest()) + ".json");
+	}
+
+	private boolean readSnapshotFromCache(File theCacheFile, IBaseResource theInput) {
+		if (!theCacheFile.isFile()) {
+			return false;
+		}
+		try {
+			String cached = new String(Files.readAllBytes(theCacheFile.toPath()), StandardCharsets.UTF_8);
+			IBaseResource cachedStructureDefinition = myCtx.newJsonParser().parseResource(theInput.getClass(), cached);
+			copySnapshot(cachedStructureDefinition, theInput);
+			ourLog.debug("Loaded snapshot from cache file: {}", theCacheFile);
+			return true;
+		} catch (IOException | DataFormatException e) {
+			ourLog.warn("Failed to read snapshot cache file {}, snapshot will be regenerated: {}", theCacheFile, e.toString());
+			return false;
+		}
+	}
+
+	private void writeSnapshotToCache(File theCacheFile, IBaseResource theGenerated) {
+		File tempFile = null;
+		try {
+			// Several JVMs may share the cache directory, so the temporary file needs a unique name
+			tempFile = File.createTempFile(theCacheFile.getName() + ".", ".tmp", theCacheFile.getParentFile());
+			byte[] encoded = myCtx.newJsonParser().encodeResourceToString(theGenerated).getBytes(StandardCharsets.UTF_8);
+			Files.write(tempFile.toPath(), encoded);
+			// Move the complete file into place so that readers never see a partial file
+			try {
+				Files.move(tempFile.toPath(), theCacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), theCacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			ourLog.warn("Failed to write snapshot cache file {}: {}", theCacheFile, e.toString());
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	private static void copySnapshot(IBaseResource theSource, IBaseResource theTarget) {
+		switch (theTarget.getStructureFhirVersionEnum()) {
+			case DSTU3:
+				((org.hl7.fhir.dstu3.model.StructureDefinition) theTarget).getSnapshot().getElement().clear();
+				((org.hl7.fhir.dstu3.model.StructureDefinition) theTarget).getSnapshot().getElement().addAll(((org.hl7.fhir.dstu3.model.StructureDefinition) theSource).getSnapshot().getElement());
+				break;
+			case R4:
+				((org.hl7.fhir.r4.model.StructureDefinition) theTarget).getSnapshot().getElement().clear();
+				((org.hl7.fhir.r4.model.StructureDefinition) theTarget).getSnapshot().getElement().addAll(((org.hl7.fhir.r4.model.StructureDefinition) theSource).getSnapshot().getElement());
+				break;
+			case R5:
+				((org.hl7.fhir.r5.model.StructureDefinition) theTarget).getSnapshot().getElement().clear();
+				((org.hl7.fhir.r5.model.StructureDefinition) theTarget).getSnapshot().getElement().addAll(((org.hl7.fhir.r5.model.StructureDefinition) theSource).getSnapshot().getElement());
+				break;
+			case DSTU2:
+			case DSTU2_HL7ORG:
+			case DSTU2_1:
+			default:
+				throw new IllegalStateException("Can not generate snapshot for version: " + theTarget.getStructureFhirVersionEnum());
+		}
+	}
+
 	@Override
 	public FhirContext getFhirContext() {
 		return myCtx;
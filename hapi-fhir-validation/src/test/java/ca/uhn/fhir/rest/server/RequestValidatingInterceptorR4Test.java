@@ -14,6 +14,7 @@ import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.interceptor.RequestValidatingInterceptor;
+import ca.uhn.fhir.rest.server.interceptor.ValidationResultCache;
 import ca.uhn.fhir.test.utilities.JettyUtil;
 import ca.uhn.fhir.util.TestUtil;
 import ca.uhn.fhir.validation.IValidationContext;
@@ -139,6 +140,36 @@ public class RequestValidatingInterceptorR4Test {
 		assertThat(responseContent, containsString("\"severity\":\"error\""));
 	}
 
+	@Test
+	public void testCreateJsonInvalidWithValidationResultCache() throws Exception {
+		ValidationResultCache cache = new ValidationResultCache();
+		myInterceptor.setValidationResultCache(cache);
+
+		Patient patient = new Patient();
+		patient.addIdentifier().setValue("002");
+		patient.setGender(AdministrativeGender.MALE);
+		patient.addContact().addRelationship().setText("FOO");
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(patient);
+
+		for (int i = 0; i < 3; i++) {
+			if (i == 2) {
+				cache.invalidate();
+			}
+
+			HttpPost httpPost = new HttpPost("http://localhost:" + ourPort + "/Patient");
+			httpPost.setEntity(new StringEntity(encoded, ContentType.create(Constants.CT_FHIR_JSON, "UTF-8")));
+			try (CloseableHttpResponse status = ourClient.execute(httpPost)) {
+				String responseContent = IOUtils.toString(status.getEntity().getContent(), Charsets.UTF_8);
+				assertEquals(422, status.getStatusLine().getStatusCode());
+				assertThat(responseContent, containsString("\"severity\":\"error\""));
+			}
+		}
+
+		// The second request was served from the cache, and the third followed an invalidation
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
 	@Test
 	public void testCreateJsonValidNoValidatorsSpecified() throws Exception {
 		Patient patient = new Patient();
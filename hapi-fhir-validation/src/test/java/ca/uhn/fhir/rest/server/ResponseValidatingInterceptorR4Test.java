@@ -4,6 +4,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.rest.annotation.Delete;
 import ca.uhn.fhir.rest.annotation.IdParam;
 import ca.uhn.fhir.rest.annotation.OptionalParam;
+import ca.uhn.fhir.rest.annotation.Read;
 import ca.uhn.fhir.rest.annotation.Search;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.MethodOutcome;
@@ -11,6 +12,7 @@ import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.interceptor.ResponseValidatingInterceptor;
+import ca.uhn.fhir.rest.server.interceptor.ValidationResultCache;
 import ca.uhn.fhir.test.utilities.JettyUtil;
 import ca.uhn.fhir.util.TestUtil;
 import ca.uhn.fhir.validation.IValidationContext;
@@ -293,6 +295,49 @@ public class ResponseValidatingInterceptorR4Test {
 	/**
 	 * Ignored until #264 is fixed
 	 */
+	@Test
+	public void testReadWithValidationResultCache() throws Exception {
+		ValidationResultCache cache = new ValidationResultCache();
+		myInterceptor.setValidationResultCache(cache);
+
+		Patient patient = new Patient();
+		patient.addIdentifier().setValue("002");
+		patient.setGender(AdministrativeGender.MALE);
+		patient.addContact().addRelationship().setText("FOO");
+		myReturnResource = patient;
+
+		for (int i = 0; i < 3; i++) {
+			HttpGet httpGet = new HttpGet("http://localhost:" + ourPort + "/Patient/1/_history/2");
+			try (CloseableHttpResponse status = ourClient.execute(httpGet)) {
+				String responseContent = IOUtils.toString(status.getEntity().getContent(), Charsets.UTF_8);
+				assertEquals(422, status.getStatusLine().getStatusCode());
+				assertThat(responseContent, containsString("<severity value=\"error\"/>"));
+			}
+		}
+
+		// Keyed on the resource ID and version, so the later reads were served from the cache
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// Search results have no version, so they aren't cached
+		HttpGet httpGet = new HttpGet("http://localhost:" + ourPort + "/Patient?foo=bar");
+		try (CloseableHttpResponse status = ourClient.execute(httpGet)) {
+			assertEquals(422, status.getStatusLine().getStatusCode());
+		}
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// The same version may be returned in a different form, so _summary and _elements aren't cached
+		for (String nextParams : new String[]{"_summary=true", "_elements=identifier", "_elements:exclude=gender"}) {
+			httpGet = new HttpGet("http://localhost:" + ourPort + "/Patient/1/_history/2?" + nextParams);
+			try (CloseableHttpResponse status = ourClient.execute(httpGet)) {
+				assertEquals(422, status.getStatusLine().getStatusCode());
+			}
+		}
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
 	@Test
 	public void testSearchJsonInvalidNoValidatorsSpecified() throws Exception {
 		Patient patient = new Patient();
@@ -518,6 +563,13 @@ public class ResponseValidatingInterceptorR4Test {
 			return Patient.class;
 		}
 
+		@Read(version = true)
+		public Patient read(@IdParam IdType theId) {
+			Patient retVal = (Patient) myReturnResource;
+			retVal.setId(theId);
+			return retVal;
+		}
+
 		@Search
 		public ArrayList<IBaseResource> search(@OptionalParam(name = "foo") StringParam theString) {
 			ArrayList<IBaseResource> retVal = new ArrayList<>();
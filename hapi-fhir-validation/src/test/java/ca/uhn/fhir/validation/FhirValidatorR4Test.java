@@ -0,0 +1,151 @@
+package ca.uhn.fhir.validation;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class FhirValidatorR4Test {
+
+	private static final FhirContext ourCtx = FhirContext.forR4();
+	private ExecutorService myExecutorService;
+	private RecordingValidatorModule myModule;
+	private FhirValidator myValidator;
+
+	@BeforeEach
+	public void before() {
+		myExecutorService = Executors.newFixedThreadPool(2);
+		myModule = new RecordingValidatorModule();
+		myValidator = ourCtx.newValidator();
+		myValidator.registerValidatorModule(myModule);
+		myValidator.setConcurrentBundleValidation(true);
+		myValidator.setExecutorService(myExecutorService);
+	}
+
+	@AfterEach
+	public void after() {
+		myExecutorService.shutdown();
+	}
+
+	@Test
+	public void testValidateTransactionBundleConcurrently() {
+		Bundle bundle = createTransactionBundle();
+
+		ValidationResult result = myValidator.validateWithResult(bundle);
+
+		List<String> locations = result.getMessages().stream().map(SingleValidationMessage::getLocationString).collect(Collectors.toList());
+		assertThat(locations, contains(
+			"Bundle",
+			"Bundle.entry[0].resource.ofType(Patient)",
+			"Bundle.entry[0].resource.ofType(Patient).name[0]",
+			"Bundle.entry[1].resource.ofType(Observation)",
+			"Bundle.entry[1].resource.ofType(Observation).name[0]"
+		));
+		assertNull(result.getMessages().get(1).getLocationLine());
+		assertNull(result.getMessages().get(1).getLocationCol());
+
+		// The Bundle is validated without the entry resources, which are validated separately
+		assertThat(myModule.myValidatedResourceTypes, containsInAnyOrder("Bundle:0", "Patient", "Observation"));
+		assertEquals(2, bundle.getEntry().stream().filter(Bundle.BundleEntryComponent::hasResource).count());
+	}
+
+	@Test
+	public void testValidateTransactionBundleTextIsNotSplit() {
+		String bundle = ourCtx.newJsonParser().encodeResourceToString(createTransactionBundle());
+
+		myValidator.validateWithResult(bundle);
+
+		// Text is validated as a whole, so that it isn't parsed an extra time
+		assertThat(myModule.myValidatedResourceTypes, contains("Bundle:2"));
+	}
+
+	@Test
+	public void testValidateInvalidTextIsNotSplit() {
+		String bundle = ourCtx.newJsonParser().encodeResourceToString(createTransactionBundle());
+		bundle = bundle.replace("\"resourceType\": \"Patient\"", "\"resourceType\": \"Patient\", \"foo\": \"bar\"");
+		bundle = bundle.replace("\"resourceType\":\"Patient\"", "\"resourceType\":\"Patient\",\"foo\":\"bar\"");
+
+		myValidator.validateWithResult(bundle);
+
+		assertThat(myModule.myValidatedResourceTypes, contains("Bundle:2"));
+	}
+
+	@Test
+	public void testValidateSearchsetBundleIsNotSplit() {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		bundle.addEntry().setResource(new Patient().setActive(true));
+
+		myValidator.validateWithResult(bundle);
+
+		assertThat(myModule.myValidatedResourceTypes, contains("Bundle:1"));
+	}
+
+	private static Bundle createTransactionBundle() {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		Patient patient = new Patient();
+		patient.addName().setFamily("Simpson");
+		bundle.addEntry().setFullUrl("urn:uuid:1").setResource(patient).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+		Observation observation = new Observation();
+		observation.getSubject().setReference("urn:uuid:1");
+		bundle.addEntry().setFullUrl("urn:uuid:2").setResource(observation).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		return bundle;
+	}
+
+	/**
+	 * Reports one message for each resource it validates, plus one for the first
+	 * name of any non-Bundle resource
+	 */
+	private static class RecordingValidatorModule implements IValidatorModule {
+
+		private final Set<String> myValidatedResourceTypes = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+		@Override
+		public void validateResource(IValidationContext<IBaseResource> theCtx) {
+			IBaseResource resource = theCtx.getResource();
+			String resourceType = ourCtx.getResourceType(resource);
+			if (resource instanceof Bundle) {
+				long resourceCount = ((Bundle) resource).getEntry().stream().filter(Bundle.BundleEntryComponent::hasResource).count();
+				myValidatedResourceTypes.add(resourceType + ":" + resourceCount);
+			} else {
+				myValidatedResourceTypes.add(resourceType);
+			}
+
+			SingleValidationMessage message = new SingleValidationMessage();
+			message.setSeverity(ResultSeverityEnum.WARNING);
+			message.setLocationString(resourceType);
+			message.setLocationLine(1);
+			message.setLocationCol(1);
+			message.setMessage("Validated " + resourceType);
+			theCtx.addValidationMessage(message);
+
+			if (!(resource instanceof Bundle)) {
+				message = new SingleValidationMessage();
+				message.setSeverity(ResultSeverityEnum.WARNING);
+				message.setLocationString(resourceType + ".name[0]");
+				message.setMessage("Checked name");
+				theCtx.addValidationMessage(message);
+			}
+		}
+	}
+
+}
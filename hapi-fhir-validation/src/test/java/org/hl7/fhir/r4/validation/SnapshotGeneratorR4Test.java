@@ -6,19 +6,25 @@ import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import org.apache.commons.io.IOUtils;
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.PrePopulatedValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.StructureDefinition;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class SnapshotGeneratorR4Test {
@@ -46,6 +52,112 @@ public class SnapshotGeneratorR4Test {
 
 
 
+	@Test
+	public void testGenerateSnapshotUsingCacheDirectory(@TempDir File theCacheDirectory) {
+		DefaultProfileValidationSupport defaultSupport = new DefaultProfileValidationSupport(myFhirCtx);
+		SnapshotGeneratingValidationSupport snapshotGenerator = new SnapshotGeneratingValidationSupport(myFhirCtx);
+		snapshotGenerator.setSnapshotCacheDirectory(theCacheDirectory);
+		ValidationSupportChain chain = new ValidationSupportChain(defaultSupport, snapshotGenerator);
+
+		StructureDefinition snapshot = (StructureDefinition) chain.generateSnapshot(new ValidationSupportContext(chain), createHumanNameProfile(), "http://foo", null, "THE BEST PROFILE");
+		int elementCount = snapshot.getSnapshot().getElement().size();
+		assertTrue(elementCount > 1);
+		File[] cacheFiles = theCacheDirectory.listFiles();
+		assertEquals(1, cacheFiles.length);
+
+		// Tamper with the cached snapshot so that we can tell it is being used
+		StructureDefinition cached = myFhirCtx.newJsonParser().parseResource(StructureDefinition.class, readFile(cacheFiles[0]));
+		cached.getSnapshot().getElementFirstRep().setShort("FROM CACHE");
+		writeFile(cacheFiles[0], myFhirCtx.newJsonParser().encodeResourceToString(cached));
+
+		// A new generator sharing the directory uses the cached snapshot
+		snapshotGenerator = new SnapshotGeneratingValidationSupport(myFhirCtx);
+		snapshotGenerator.setSnapshotCacheDirectory(theCacheDirectory);
+		chain = new ValidationSupportChain(defaultSupport, snapshotGenerator);
+		snapshot = (StructureDefinition) chain.generateSnapshot(new ValidationSupportContext(chain), createHumanNameProfile(), "http://foo", null, "THE BEST PROFILE");
+		assertEquals(elementCount, snapshot.getSnapshot().getElement().size());
+		assertEquals("FROM CACHE", snapshot.getSnapshot().getElementFirstRep().getShort());
+
+		// A different differential is generated again
+		StructureDefinition differential = createHumanNameProfile();
+		differential.getDifferential().getElementFirstRep().setMin(0);
+		snapshot = (StructureDefinition) chain.generateSnapshot(new ValidationSupportContext(chain), differential, "http://foo", null, "THE BEST PROFILE");
+		assertNotEquals("FROM CACHE", snapshot.getSnapshot().getElementFirstRep().getShort());
+		assertEquals(2, theCacheDirectory.listFiles().length);
+	}
+
+	@Test
+	public void testGenerateSnapshotUsingCacheDirectory_GrandparentChanged(@TempDir File theCacheDirectory) {
+		StructureDefinition grandparent = createHumanNameProfile();
+		StructureDefinition snapshot = generateSnapshotForChain(theCacheDirectory, grandparent);
+		assertEquals(1, snapshot.getSnapshot().getElement().stream().filter(t -> t.getPath().equals("HumanName.family")).findFirst().get().getMin());
+		int cacheFileCount = theCacheDirectory.listFiles().length;
+
+		// The differential and its immediate base are unchanged, but the snapshot still needs to be regenerated
+		grandparent = createHumanNameProfile();
+		grandparent.getDifferential().getElementFirstRep().setMin(0);
+		snapshot = generateSnapshotForChain(theCacheDirectory, grandparent);
+		assertEquals(0, snapshot.getSnapshot().getElement().stream().filter(t -> t.getPath().equals("HumanName.family")).findFirst().get().getMin());
+		assertTrue(theCacheDirectory.listFiles().length > cacheFileCount);
+	}
+
+	private StructureDefinition generateSnapshotForChain(File theCacheDirectory, StructureDefinition theGrandparent) {
+		StructureDefinition parent = new StructureDefinition();
+		parent.setUrl("http://example.com/fhir/StructureDefinition/name-with-given");
+		parent.setName("NameWithGiven");
+		parent.setType("HumanName");
+		parent.setKind(StructureDefinition.StructureDefinitionKind.COMPLEXTYPE);
+		parent.setDerivation(StructureDefinition.TypeDerivationRule.CONSTRAINT);
+		parent.setBaseDefinition(theGrandparent.getUrl());
+		parent.getDifferential().addElement().setPath("HumanName.given").setMin(1).setId("HumanName.given");
+
+		StructureDefinition child = new StructureDefinition();
+		child.setUrl("http://example.com/fhir/StructureDefinition/name-with-use");
+		child.setName("NameWithUse");
+		child.setType("HumanName");
+		child.setKind(StructureDefinition.StructureDefinitionKind.COMPLEXTYPE);
+		child.setDerivation(StructureDefinition.TypeDerivationRule.CONSTRAINT);
+		child.setBaseDefinition(parent.getUrl());
+		child.getDifferential().addElement().setPath("HumanName.use").setMin(1).setId("HumanName.use");
+
+		PrePopulatedValidationSupport prePopulatedSupport = new PrePopulatedValidationSupport(myFhirCtx);
+		prePopulatedSupport.addStructureDefinition(theGrandparent);
+		prePopulatedSupport.addStructureDefinition(parent);
+		SnapshotGeneratingValidationSupport snapshotGenerator = new SnapshotGeneratingValidationSupport(myFhirCtx);
+		snapshotGenerator.setSnapshotCacheDirectory(theCacheDirectory);
+		ValidationSupportChain chain = new ValidationSupportChain(new DefaultProfileValidationSupport(myFhirCtx), prePopulatedSupport, snapshotGenerator);
+		return (StructureDefinition) chain.generateSnapshot(new ValidationSupportContext(chain), child, "http://foo", null, "THE BEST PROFILE");
+	}
+
+	private static StructureDefinition createHumanNameProfile() {
+		StructureDefinition retVal = new StructureDefinition();
+		retVal.setUrl("http://example.com/fhir/StructureDefinition/name-with-family");
+		retVal.setName("NameWithFamily");
+		retVal.setType("HumanName");
+		retVal.setKind(StructureDefinition.StructureDefinitionKind.COMPLEXTYPE);
+		retVal.setDerivation(StructureDefinition.TypeDerivationRule.CONSTRAINT);
+		retVal.setBaseDefinition("http://hl7.org/fhir/StructureDefinition/HumanName");
+		retVal.getDifferential().addElement().setPath("HumanName.family").setMin(1).setId("HumanName.family");
+		return retVal;
+	}
+
+	private static String readFile(File theFile) {
+		try {
+			return new String(Files.readAllBytes(theFile.toPath()), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static void writeFile(File theFile, String theContents) {
+		try {
+			Files.write(theFile.toPath(), theContents.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+
 	protected <T extends IBaseResource> T loadResourceFromClasspath(Class<T> type, String resourceName) throws IOException {
 		InputStream stream = SnapshotGeneratorR4Test.class.getResourceAsStream(resourceName);
 		if (stream == null) {